@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest
+
+import android.location.GnssClock
+import android.location.GnssMeasurement
+import android.location.Location
+import android.os.Build
+import androidx.test.filters.SdkSuppress
+import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
+import androidx.test.platform.app.InstrumentationRegistry
+import com.android.gpstest.library.model.GnssType
+import com.android.gpstest.library.model.Orientation
+import com.android.gpstest.library.model.SatelliteStatus
+import com.android.gpstest.library.util.CsvRecordFormatter
+import com.android.gpstest.library.util.FormatUtils
+import com.android.gpstest.library.util.FormatUtils.toLog
+import org.junit.Assert.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.BeforeClass
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Tests that CsvRecordFormatter output is byte-identical to both the golden records in
+ * assets/csv_record_golden.txt and the String-based FormatUtils.toLog() functions
+ */
+@RunWith(AndroidJUnit4ClassRunner::class)
+class CsvRecordFormatterTest {
+
+    companion object {
+        private lateinit var golden: Map<String, String>
+
+        @BeforeClass
+        @JvmStatic
+        fun loadGolden() {
+            val assets = InstrumentationRegistry.getInstrumentation().context.assets
+            golden = assets.open("csv_record_golden.txt").bufferedReader().useLines { lines ->
+                lines.filter { it.isNotBlank() && !it.startsWith("#") }
+                    .map { it.split('\t', limit = 2) }
+                    .associate { it[0] to it[1] }
+            }
+        }
+    }
+
+    // Shared across records to make sure nothing leaks from one record to the next
+    private val formatter = CsvRecordFormatter(16)
+
+    @Test
+    @SdkSuppress(minSdkVersion = Build.VERSION_CODES.S)
+    fun fix() {
+        val l = Location("gps")
+        l.latitude = 45.34567899
+        l.longitude = -12.45678901
+        l.altitude = 0.00000000000000000001
+        l.speed = 19.2f
+        l.accuracy = 98.7f
+        l.bearing = 100.1f
+        l.time = 12345
+        l.speedAccuracyMetersPerSecond = 382.7f
+        l.bearingAccuracyDegrees = 284.1f
+        l.verticalAccuracyMeters = 583.4f
+        l.elapsedRealtimeNanos = 123456789
+        assertGolden("fix", l.toLog(), formatter.reset().appendFix(l).toString())
+
+        val l2 = Location("network")
+        l2.latitude = -0.0
+        l2.longitude = 1.0E10
+        assertGolden("fixNegativeZeroAndLarge", l2.toLog(), formatter.reset().appendFix(l2).toString())
+    }
+
+    @Test
+    fun status() {
+        val gpsL1 = SatelliteStatus(
+            10,
+            GnssType.NAVSTAR,
+            35.00f,
+            hasAlmanac = true,
+            hasEphemeris = true,
+            usedInFix = true,
+            elevationDegrees = 57.00f,
+            azimuthDegrees = 136.00f
+        )
+        gpsL1.hasCarrierFrequency = true
+        gpsL1.carrierFrequencyHz = 1575420032.0
+        gpsL1.hasBasebandCn0DbHz = true
+        gpsL1.basebandCn0DbHz = 30.0f
+        assertGolden(
+            "statusGpsL1",
+            gpsL1.toLog(0, 25, 0),
+            formatter.reset().appendStatus(gpsL1, 0, 25, 0).toString()
+        )
+
+        val galileoE5a = SatelliteStatus(
+            5,
+            GnssType.GALILEO,
+            1.0E-4f,
+            hasAlmanac = false,
+            hasEphemeris = true,
+            usedInFix = false,
+            elevationDegrees = 12.5f,
+            azimuthDegrees = -0.0f
+        )
+        galileoE5a.hasCarrierFrequency = true
+        galileoE5a.carrierFrequencyHz = 1176450050.0
+        assertGolden(
+            "statusGalileoE5a",
+            galileoE5a.toLog(1637087900313, 30, 29),
+            formatter.reset().appendStatus(galileoE5a, 1637087900313, 30, 29).toString()
+        )
+    }
+
+    @Test
+    fun orientation() {
+        val o = Orientation(10000000, doubleArrayOf(44444.44444, 5555.5555, 6666.66666))
+        assertGolden(
+            "orientation",
+            o.toLog(1234L, 1000L),
+            formatter.reset().appendOrientation(o, 1234L, 1000L).toString()
+        )
+
+        val o2 = Orientation(1131752852726298, doubleArrayOf(200.0, -0.0, 1.0E-7))
+        assertGolden(
+            "orientationScientific",
+            o2.toLog(1637088000000L, 1131752900L),
+            formatter.reset().appendOrientation(o2, 1637088000000L, 1131752900L).toString()
+        )
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = Build.VERSION_CODES.S)
+    fun raw() {
+        // GnssClock and GnssMeasurement can only be populated via their test APIs
+        val clock: GnssClock
+        val measurement: GnssMeasurement
+        try {
+            clock = GnssClock::class.java.getConstructor().newInstance()
+            set(clock, "setTimeNanos", 1131752000000000L)
+            set(clock, "setLeapSecond", 18)
+            set(clock, "setTimeUncertaintyNanos", 0.5)
+            set(clock, "setFullBiasNanos", -1319404498546286463L)
+            set(clock, "setBiasNanos", 0.3716793060302734)
+            set(clock, "setBiasUncertaintyNanos", 23.4)
+            set(clock, "setDriftNanosPerSecond", -1.2E-8)
+            set(clock, "setDriftUncertaintyNanosPerSecond", 3.5)
+            set(clock, "setHardwareClockDiscontinuityCount", 7)
+
+            measurement = GnssMeasurement::class.java.getConstructor().newInstance()
+            set(measurement, "setSvid", 12)
+            set(measurement, "setTimeOffsetNanos", 0.0)
+            set(measurement, "setState", 16431)
+            set(measurement, "setReceivedSvTimeNanos", 345601234567890L)
+            set(measurement, "setReceivedSvTimeUncertaintyNanos", 15L)
+            set(measurement, "setCn0DbHz", 38.7)
+            set(measurement, "setPseudorangeRateMetersPerSecond", -456.78)
+            set(measurement, "setPseudorangeRateUncertaintyMetersPerSecond", 0.05)
+            set(measurement, "setAccumulatedDeltaRangeState", 16)
+            set(measurement, "setAccumulatedDeltaRangeMeters", 12345.678)
+            set(measurement, "setAccumulatedDeltaRangeUncertaintyMeters", 1.0E-4)
+            set(measurement, "setCarrierFrequencyHz", 1.57542003E9f)
+            set(measurement, "setMultipathIndicator", 0)
+            set(measurement, "setConstellationType", 1)
+            set(measurement, "setAutomaticGainControlLevelInDb", 2.5)
+            set(measurement, "setBasebandCn0DbHz", 33.1)
+            set(measurement, "setFullInterSignalBiasNanos", -5.5)
+            set(measurement, "setFullInterSignalBiasUncertaintyNanos", 1.5)
+            set(measurement, "setCodeType", "C")
+        } catch (e: Exception) {
+            assumeTrue("GnssMeasurement test APIs not accessible: $e", false)
+            return
+        }
+        assertGolden(
+            "rawAllFields",
+            FormatUtils.toLog(1131752852, 1131752852726298, clock, measurement),
+            formatter.reset().appendRaw(1131752852, 1131752852726298, clock, measurement).toString()
+        )
+
+        // Only the fields that don't have a has...() method
+        val clock2 = GnssClock::class.java.getConstructor().newInstance()
+        set(clock2, "setTimeNanos", 5000L)
+        set(clock2, "setHardwareClockDiscontinuityCount", 0)
+        val measurement2 = GnssMeasurement::class.java.getConstructor().newInstance()
+        set(measurement2, "setSvid", 3)
+        set(measurement2, "setTimeOffsetNanos", -1.0E-9)
+        set(measurement2, "setState", 0)
+        set(measurement2, "setReceivedSvTimeNanos", 0L)
+        set(measurement2, "setReceivedSvTimeUncertaintyNanos", 1000000000L)
+        set(measurement2, "setCn0DbHz", 0.0)
+        set(measurement2, "setPseudorangeRateMetersPerSecond", 0.0)
+        set(measurement2, "setPseudorangeRateUncertaintyMetersPerSecond", 0.0)
+        set(measurement2, "setAccumulatedDeltaRangeState", 0)
+        set(measurement2, "setAccumulatedDeltaRangeMeters", 0.0)
+        set(measurement2, "setAccumulatedDeltaRangeUncertaintyMeters", 0.0)
+        set(measurement2, "setMultipathIndicator", 2)
+        set(measurement2, "setConstellationType", 3)
+        assertGolden(
+            "rawRequiredFields",
+            FormatUtils.toLog(1000, 2000000, clock2, measurement2),
+            formatter.reset().appendRaw(1000, 2000000, clock2, measurement2).toString()
+        )
+    }
+
+    private fun assertGolden(case: String, legacy: String, formatted: String) {
+        val expected = golden.getValue(case)
+        assertEquals(expected, legacy)
+        assertEquals(expected, formatted)
+    }
+
+    private fun set(target: Any, setter: String, value: Any) {
+        val method = target.javaClass.methods.first { it.name == setter && it.parameterTypes.size == 1 }
+        method.invoke(target, value)
+    }
+}
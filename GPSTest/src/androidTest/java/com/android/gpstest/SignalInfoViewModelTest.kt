@@ -24,23 +24,34 @@ import androidx.test.InstrumentationRegistry
 import androidx.test.InstrumentationRegistry.getTargetContext
 import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
 import com.android.gpstest.library.data.LocationRepository
+import com.android.gpstest.library.data.LogReplaySource
 import com.android.gpstest.library.data.SharedAntennaManager
 import com.android.gpstest.library.data.SharedGnssMeasurementManager
 import com.android.gpstest.library.data.SharedGnssStatusManager
 import com.android.gpstest.library.data.SharedLocationManager
 import com.android.gpstest.library.data.SharedNavMessageManager
 import com.android.gpstest.library.data.SharedNmeaManager
+import com.android.gpstest.library.data.SharedSatelliteEpochManager
 import com.android.gpstest.library.data.SharedSensorManager
+import com.android.gpstest.library.io.LogReplayer
 import com.android.gpstest.library.model.GnssType
 import com.android.gpstest.library.model.SbasType
 import com.android.gpstest.library.ui.SignalInfoViewModel
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.GlobalScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
 import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
+import java.io.File
 
 @RunWith(AndroidJUnit4ClassRunner::class)
 class SignalInfoViewModelTest {
@@ -49,14 +60,17 @@ class SignalInfoViewModelTest {
     @get:Rule
     val instantTaskExecutorRule = InstantTaskExecutorRule()
 
+    private val gnssStatusManager = SharedGnssStatusManager(InstrumentationRegistry.getTargetContext().applicationContext, GlobalScope, PreferenceManager.getDefaultSharedPreferences(getTargetContext()))
+
     private val repository = LocationRepository(
         SharedLocationManager(InstrumentationRegistry.getTargetContext().applicationContext, GlobalScope, PreferenceManager.getDefaultSharedPreferences(getTargetContext())),
-        SharedGnssStatusManager(InstrumentationRegistry.getTargetContext().applicationContext, GlobalScope, PreferenceManager.getDefaultSharedPreferences(getTargetContext())),
+        gnssStatusManager,
         SharedNmeaManager(InstrumentationRegistry.getTargetContext().applicationContext, GlobalScope, PreferenceManager.getDefaultSharedPreferences(getTargetContext())),
         SharedSensorManager(PreferenceManager.getDefaultSharedPreferences(getTargetContext()),InstrumentationRegistry.getTargetContext().applicationContext, GlobalScope),
         SharedNavMessageManager(InstrumentationRegistry.getTargetContext().applicationContext, GlobalScope, PreferenceManager.getDefaultSharedPreferences(getTargetContext())),
         SharedGnssMeasurementManager(PreferenceManager.getDefaultSharedPreferences(getTargetContext()), InstrumentationRegistry.getTargetContext().applicationContext, GlobalScope),
-        SharedAntennaManager(InstrumentationRegistry.getTargetContext().applicationContext, GlobalScope, PreferenceManager.getDefaultSharedPreferences(getTargetContext()))
+        SharedAntennaManager(InstrumentationRegistry.getTargetContext().applicationContext, GlobalScope, PreferenceManager.getDefaultSharedPreferences(getTargetContext())),
+        SharedSatelliteEpochManager(gnssStatusManager, GlobalScope)
     )
 
     /**
@@ -479,4 +493,84 @@ class SignalInfoViewModelTest {
             assertEquals(0, modelWaasL1L5.getSupportedSbasCfs().size)
         }
     }
+
+    /**
+     * Test playing back a recorded log through the repository into the view model, as if it came
+     * from the device
+     */
+    @Test
+    fun testReplayedLog() {
+        // GnssStatus can only be created from a log on Android R and higher
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.R)
+        val context = getTargetContext()
+        val prefs = PreferenceManager.getDefaultSharedPreferences(context)
+        val file = File(context.cacheDir, "replay_test_log.txt")
+        file.writeText(replayLog())
+
+        val replaySource = LogReplaySource(file, LogReplayer.AS_FAST_AS_POSSIBLE, GlobalScope)
+        val replayStatusManager = SharedGnssStatusManager(context.applicationContext, GlobalScope, prefs, replaySource)
+        val replayRepository = LocationRepository(
+            SharedLocationManager(context.applicationContext, GlobalScope, prefs, replaySource),
+            replayStatusManager,
+            SharedNmeaManager(context.applicationContext, GlobalScope, prefs, replaySource),
+            SharedSensorManager(prefs, context.applicationContext, GlobalScope, replaySource),
+            SharedNavMessageManager(context.applicationContext, GlobalScope, prefs, replaySource),
+            SharedGnssMeasurementManager(prefs, context.applicationContext, GlobalScope, replaySource),
+            SharedAntennaManager(context.applicationContext, GlobalScope, prefs, replaySource),
+            SharedSatelliteEpochManager(replayStatusManager, GlobalScope)
+        )
+        val model = SignalInfoViewModel(context, context.applicationContext as Application, replayRepository, prefs)
+
+        runBlocking {
+            // Collecting locations starts the view model's flows, like the service does
+            val locations = launch(Dispatchers.Default) { replayRepository.getLocations().collect { } }
+            try {
+                withTimeout(10_000) {
+                    // Start playback once the location, GnssStatus and NMEA managers are subscribed,
+                    // so the view model sees the whole log
+                    replaySource.subscriptionCount.first { it >= 3 }
+                    replaySource.start()
+                    while (model.location.value?.time != REPLAY_EPOCHS * 1000L + 1637264742000L
+                        || model.filteredSatelliteMetadata.value?.numSatsTotal != REPLAY_SIGNALS
+                    ) {
+                        delay(10)
+                    }
+                }
+            } finally {
+                locations.cancel()
+                file.delete()
+            }
+        }
+
+        // Each GPS satellite is in view and used on L1
+        assertEquals(REPLAY_SIGNALS, model.filteredGnssSatellites.value?.size)
+        assertEquals(REPLAY_SIGNALS, model.filteredSatelliteMetadata.value?.numSatsUsed)
+        assertEquals(REPLAY_SIGNALS, model.filteredStatuses.value?.size)
+        assertEquals(setOf(GnssType.NAVSTAR), model.getSupportedGnss())
+        assertEquals(28.07124449, model.location.value!!.latitude, 0.0)
+        assertEquals(-19.7, model.altitudeMsl.value!!, 0.0)
+        assertTrue(model.gotFirstFix())
+    }
+
+    /**
+     * Returns a CSV log with a GnssStatus, a GGA sentence and a fix each second
+     */
+    private fun replayLog(): String {
+        val log = StringBuilder("#Version: v3.10.5 (31005-google), Manufacturer: Google, Model: Pixel 6, GNSS HW Year: 2021, Platform: 12, API Level: 31 \n")
+        for (epoch in 1..REPLAY_EPOCHS) {
+            val unixTimeMillis = epoch * 1000L + 1637264742000L
+            for (signal in 0 until REPLAY_SIGNALS) {
+                log.append("Status,$unixTimeMillis,$REPLAY_SIGNALS,$signal,1,${signal + 1},1575420030,${30 + signal}.5,304.0,40.0,1,1,1,\n")
+            }
+            log.append("NMEA,\$GNGGA,172814.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.7,M,-24.8,M,,*5F,$unixTimeMillis\n")
+            log.append("Fix,gps,28.07124449,-82.42663169,-16.32806396484375,0.0,21.196445,0.0,")
+                .append("$unixTimeMillis,1.9549425,,${epoch * 1_000_000_000L},13.918213,0\n")
+        }
+        return log.toString()
+    }
+
+    companion object {
+        private const val REPLAY_EPOCHS = 5
+        private const val REPLAY_SIGNALS = 3
+    }
 }
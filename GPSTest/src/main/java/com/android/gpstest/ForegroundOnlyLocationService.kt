@@ -44,13 +44,18 @@ import androidx.lifecycle.flowWithLifecycle
 import androidx.lifecycle.lifecycleScope
 import com.android.gpstest.Application.Companion.app
 import com.android.gpstest.Application.Companion.prefs
+import com.android.gpstest.io.BaseFileLogger
+import com.android.gpstest.io.BinaryFileLogger
 import com.android.gpstest.io.CsvFileLogger
 import com.android.gpstest.io.JsonFileLogger
+import com.android.gpstest.io.RinexFileLogger
+import com.android.gpstest.io.LogPipeline
 import com.android.gpstest.library.data.LocationRepository
+import com.android.gpstest.library.io.LogRetention
 import com.android.gpstest.library.model.SatelliteGroup
 import com.android.gpstest.library.model.SatelliteMetadata
 import com.android.gpstest.library.util.FormatUtils.toNotificationTitle
-import com.android.gpstest.library.util.IOUtils.deleteOldFiles
+import com.android.gpstest.library.util.GnssEpochBuffer
 import com.android.gpstest.library.util.IOUtils.forcePsdsInjection
 import com.android.gpstest.library.util.IOUtils.forceTimeInjection
 import com.android.gpstest.library.util.IOUtils.writeMeasurementToLogcat
@@ -58,11 +63,26 @@ import com.android.gpstest.library.util.IOUtils.writeNavMessageToAndroidStudio
 import com.android.gpstest.library.util.IOUtils.writeNmeaToAndroidStudio
 import com.android.gpstest.library.util.LibUIUtils.toNotificationSummary
 import com.android.gpstest.library.util.PreferenceUtil
+import com.android.gpstest.library.util.PreferenceUtil.compressLogFiles
 import com.android.gpstest.library.util.PreferenceUtil.isCsvLoggingEnabled
 import com.android.gpstest.library.util.PreferenceUtil.isJsonLoggingEnabled
+import com.android.gpstest.library.util.PreferenceUtil.isRinexLoggingEnabled
+import com.android.gpstest.library.util.PreferenceUtil.keepPrivateLogCopy
+import com.android.gpstest.library.util.PreferenceUtil.logDurabilityPolicy
+import com.android.gpstest.library.util.PreferenceUtil.logQueueOverflowPolicy
+import com.android.gpstest.library.util.PreferenceUtil.logRetentionMaxAgeMillis
+import com.android.gpstest.library.util.PreferenceUtil.logRetentionMaxBytes
+import com.android.gpstest.library.util.PreferenceUtil.logSegmentMaxBytes
+import com.android.gpstest.library.util.PreferenceUtil.logSegmentMaxMillis
+import com.android.gpstest.library.util.PreferenceUtil.logSyncIntervalMillis
+import com.android.gpstest.library.util.PreferenceUtil.rinexVersion
+import com.android.gpstest.library.util.PreferenceUtil.streamLogsToDownloads
 import com.android.gpstest.library.util.PreferenceUtil.writeAntennaInfoToFileCsv
 import com.android.gpstest.library.util.PreferenceUtil.writeAntennaInfoToFileJson
+import com.android.gpstest.library.util.PreferenceUtil.writeBinaryCsvLog
+import com.android.gpstest.library.util.PreferenceUtil.writeJsonLines
 import com.android.gpstest.library.util.PreferenceUtil.writeLocationToFile
+import com.android.gpstest.library.util.PreferenceUtil.writeLogIndex
 import com.android.gpstest.library.util.PreferenceUtil.writeMeasurementToLogcat
 import com.android.gpstest.library.util.PreferenceUtil.writeMeasurementsToFile
 import com.android.gpstest.library.util.PreferenceUtil.writeNavMessageToFile
@@ -71,24 +91,23 @@ import com.android.gpstest.library.util.PreferenceUtil.writeNmeaTimestampToLogca
 import com.android.gpstest.library.util.PreferenceUtil.writeNmeaToAndroidMonitor
 import com.android.gpstest.library.util.PreferenceUtil.writeNmeaToFile
 import com.android.gpstest.library.util.PreferenceUtil.writeOrientationToFile
+import com.android.gpstest.library.util.PreferenceUtil.writeRecordsToFileJson
+import com.android.gpstest.library.util.PreferenceUtil.writeRinexFile
 import com.android.gpstest.library.util.PreferenceUtil.writeStatusToFile
 import com.android.gpstest.library.util.PreferenceUtils
-import com.android.gpstest.library.util.SatelliteUtil.toSatelliteGroup
-import com.android.gpstest.library.util.SatelliteUtil.toSatelliteStatus
 import com.android.gpstest.library.util.SatelliteUtils
 import com.android.gpstest.ui.MainActivity
 import dagger.hilt.android.AndroidEntryPoint
-import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
-import kotlinx.coroutines.GlobalScope
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.filter
 import kotlinx.coroutines.flow.launchIn
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.launch
-import java.io.File
 import java.util.Date
+import java.util.concurrent.Executors
 import javax.inject.Inject
 
 /**
@@ -115,6 +134,7 @@ class ForegroundOnlyLocationService : LifecycleService() {
     // We save a local reference to last location and SatelliteStatus to create a Notification
     private var currentLocation: Location? = null
     private var currentSatellites: SatelliteGroup = SatelliteGroup(emptyMap(), SatelliteMetadata())
+    private val gnssEpochs = GnssEpochBuffer()
 
     // Repository of location data that the service will observe, injected via Hilt
     @Inject
@@ -127,15 +147,25 @@ class ForegroundOnlyLocationService : LifecycleService() {
     private var measurementFlow: Job? = null
     private var antennaFlow: Job? = null
     private var gnssFlow: Job? = null
+    private var statusLogFlow: Job? = null
     private var sensorFlow: Job? = null
 
     lateinit var csvFileLogger: CsvFileLogger
+    lateinit var binaryFileLogger: BinaryFileLogger
     lateinit var jsonFileLogger: JsonFileLogger
+    lateinit var rinexFileLogger: RinexFileLogger
+
+    // All file logging happens in order on the single writer thread owned by this pipeline
+    lateinit var logPipeline: LogPipeline
 
     // Preference listener that will init the loggers if the user changes Settings while Service is running
     private val loggingSettingListener: SharedPreferences.OnSharedPreferenceChangeListener =
         PreferenceUtil.newFileLoggingListener(app, { initLogging() }, prefs)
     private var deletedFiles = false
+
+    // Deletes old log files in the background to keep them within the retention limits
+    private val retentionExecutor = Executors.newSingleThreadExecutor()
+    private var logRetention: LogRetention? = null
     private var injectedAssistData = false
 
     override fun onCreate() {
@@ -144,7 +174,14 @@ class ForegroundOnlyLocationService : LifecycleService() {
         notificationManager = getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
 
         csvFileLogger = CsvFileLogger(applicationContext)
+        binaryFileLogger = BinaryFileLogger(applicationContext)
         jsonFileLogger = JsonFileLogger(applicationContext)
+        rinexFileLogger = RinexFileLogger(applicationContext)
+        logPipeline = LogPipeline(overflowPolicy())
+        for (logger in arrayOf(csvFileLogger, binaryFileLogger, jsonFileLogger, rinexFileLogger)) {
+            logger.setMetrics(logPipeline.metrics)
+        }
+        logPipeline.metrics.setStreams(repository.streamStats)
 
         // Observe logging setting changes
         Application.prefs.registerOnSharedPreferenceChangeListener(loggingSettingListener)
@@ -161,7 +198,8 @@ class ForegroundOnlyLocationService : LifecycleService() {
         } else {
             if (!isStarted) {
                 isStarted = true
-                GlobalScope.launch(Dispatchers.IO) {
+                logPipeline.overflowPolicy = overflowPolicy()
+                logPipeline.submit(LogPipeline.Source.CONTROL) {
                     initLogging()
                 }
                 try {
@@ -229,6 +267,14 @@ class ForegroundOnlyLocationService : LifecycleService() {
     override fun onDestroy() {
         Log.d(TAG, "onDestroy()")
         stopLogging()
+        if (!logPipeline.shutdown(SHUTDOWN_TIMEOUT_MILLIS)) {
+            Log.w(TAG, "Timed out writing queued log records: $logPipeline")
+        }
+        if (logPipeline.writtenCount > 0) {
+            logPipeline.metrics.dump()
+        }
+        // Lets any pending eviction finish
+        retentionExecutor.shutdown()
         super.onDestroy()
     }
 
@@ -283,6 +329,7 @@ class ForegroundOnlyLocationService : LifecycleService() {
     private fun cancelFlows() {
         locationFlow?.cancel()
         gnssFlow?.cancel()
+        statusLogFlow?.cancel()
         nmeaFlow?.cancel()
         navMessageFlow?.cancel()
         measurementFlow?.cancel()
@@ -309,10 +356,19 @@ class ForegroundOnlyLocationService : LifecycleService() {
                     buildNotification(it, currentSatellites)
                 )
 
-                GlobalScope.launch(Dispatchers.IO) {
-                    if (writeLocationToFile(app, prefs)) {
+                if (writeLocationToFile(app, prefs)) {
+                    val binary = writeBinaryCsvLog(app, prefs)
+                    val json = writeRecordsToFileJson(app, prefs)
+                    logPipeline.submit(LogPipeline.Source.LOCATION) {
                         initLogging()
-                        csvFileLogger.onLocationChanged(it)
+                        if (binary) {
+                            binaryFileLogger.onLocationChanged(it)
+                        } else {
+                            csvFileLogger.onLocationChanged(it)
+                        }
+                        if (json) {
+                            jsonFileLogger.onLocationChanged(it)
+                        }
                     }
                 }
             }
@@ -325,26 +381,41 @@ class ForegroundOnlyLocationService : LifecycleService() {
             // If we're already observing updates, don't register again
             return
         }
-        // Observe locations via Flow as they are generated by the repository
-        gnssFlow = repository.getGnssStatus()
+        // Observe satellites via Flow as they are grouped by the repository, shared with the UI
+        gnssFlow = repository.getSatelliteEpochs()
             .flowWithLifecycle(lifecycle, Lifecycle.State.STARTED)
-            .map { it.toSatelliteStatus() }
             .onEach {
-                //Log.d(TAG, "Service SatelliteStatus: $it")
+                //Log.d(TAG, "Service SatelliteStatus: ${it.statuses}")
                 // Note - this Flow needs to be active so the Activity/Fragments get TTFF
                 // when it's created while the service is running in the background
-                currentSatellites = it.toSatelliteGroup()
-
-                // Show location in notification
-                notificationManager.notify(
-                    NOTIFICATION_ID,
-                    buildNotification(currentLocation, currentSatellites)
-                )
-                // Log Status
-                GlobalScope.launch(Dispatchers.IO) {
-                    if (writeStatusToFile(app, prefs)) {
-                        initLogging()
-                        csvFileLogger.onGnssStatusChanged(it, currentLocation)
+                if (it.satelliteGroup !== currentSatellites) {
+                    currentSatellites = it.satelliteGroup
+                    // Show location in notification
+                    notificationManager.notify(
+                        NOTIFICATION_ID,
+                        buildNotification(currentLocation, currentSatellites)
+                    )
+                }
+            }
+            .launchIn(lifecycleScope)
+        // Log every status from the GnssStatus Flow - the satellite Flow above is conflated
+        statusLogFlow = repository.getGnssStatus()
+            .flowWithLifecycle(lifecycle, Lifecycle.State.STARTED)
+            .filter { writeStatusToFile(app, prefs) }
+            .map { gnssEpochs.fill(it).toSatelliteStatusList() }
+            .onEach {
+                val location = currentLocation
+                val binary = writeBinaryCsvLog(app, prefs)
+                val json = writeRecordsToFileJson(app, prefs)
+                logPipeline.submit(LogPipeline.Source.STATUS) {
+                    initLogging()
+                    if (binary) {
+                        binaryFileLogger.onGnssStatusChanged(it, location)
+                    } else {
+                        csvFileLogger.onGnssStatusChanged(it, location)
+                    }
+                    if (json) {
+                        jsonFileLogger.onGnssStatusChanged(it, location)
                     }
                 }
             }
@@ -362,16 +433,30 @@ class ForegroundOnlyLocationService : LifecycleService() {
             .flowWithLifecycle(lifecycle, Lifecycle.State.STARTED)
             .onEach {
                 //Log.d(TAG, "Service NMEA: $it")
-                GlobalScope.launch(Dispatchers.IO) {
-                    if (writeNmeaToAndroidMonitor(app, prefs)) {
-                        writeNmeaToAndroidStudio(
-                            it.message,
-                            if (writeNmeaTimestampToLogcat(app, prefs)) it.timestamp else Long.MIN_VALUE
-                        )
-                    }
-                    if (writeNmeaToFile(app, prefs)) {
-                        initLogging()
-                        csvFileLogger.onNmeaReceived(it.timestamp, it.message)
+                val toLogcat = writeNmeaToAndroidMonitor(app, prefs)
+                val toFile = writeNmeaToFile(app, prefs)
+                if (toLogcat || toFile) {
+                    val logcatTimestamp = writeNmeaTimestampToLogcat(app, prefs)
+                    val binary = writeBinaryCsvLog(app, prefs)
+                    val json = writeRecordsToFileJson(app, prefs)
+                    logPipeline.submit(LogPipeline.Source.NMEA) {
+                        if (toLogcat) {
+                            writeNmeaToAndroidStudio(
+                                it.message,
+                                if (logcatTimestamp) it.timestamp else Long.MIN_VALUE
+                            )
+                        }
+                        if (toFile) {
+                            initLogging()
+                            if (binary) {
+                                binaryFileLogger.onNmeaReceived(it.timestamp, it.message)
+                            } else {
+                                csvFileLogger.onNmeaReceived(it.timestamp, it.message)
+                            }
+                            if (json) {
+                                jsonFileLogger.onNmeaReceived(it.timestamp, it.message)
+                            }
+                        }
                     }
                 }
             }
@@ -389,13 +474,26 @@ class ForegroundOnlyLocationService : LifecycleService() {
             .flowWithLifecycle(lifecycle, Lifecycle.State.STARTED)
             .onEach {
                 //Log.d(TAG, "Service nav message: $it")
-                GlobalScope.launch(Dispatchers.IO) {
-                    if (writeNavMessageToLogcat(app, prefs)) {
-                        writeNavMessageToAndroidStudio(it)
-                    }
-                    if (writeNavMessageToFile(app, prefs)) {
-                        initLogging()
-                        csvFileLogger.onGnssNavigationMessageReceived(it)
+                val toLogcat = writeNavMessageToLogcat(app, prefs)
+                val toFile = writeNavMessageToFile(app, prefs)
+                if (toLogcat || toFile) {
+                    val binary = writeBinaryCsvLog(app, prefs)
+                    val json = writeRecordsToFileJson(app, prefs)
+                    logPipeline.submit(LogPipeline.Source.NAV_MESSAGE) {
+                        if (toLogcat) {
+                            writeNavMessageToAndroidStudio(it)
+                        }
+                        if (toFile) {
+                            initLogging()
+                            if (binary) {
+                                binaryFileLogger.onGnssNavigationMessageReceived(it)
+                            } else {
+                                csvFileLogger.onGnssNavigationMessageReceived(it)
+                            }
+                            if (json) {
+                                jsonFileLogger.onGnssNavigationMessageReceived(it)
+                            }
+                        }
                     }
                 }
             }
@@ -413,15 +511,32 @@ class ForegroundOnlyLocationService : LifecycleService() {
             .flowWithLifecycle(lifecycle, Lifecycle.State.STARTED)
             .onEach {
                 //Log.d(TAG, "Service measurement: $it")
-                GlobalScope.launch(Dispatchers.IO) {
-                    if (writeMeasurementToLogcat(app, prefs)) {
-                        for (m in it.measurements) {
-                            writeMeasurementToLogcat(m)
+                val toLogcat = writeMeasurementToLogcat(app, prefs)
+                val toFile = writeMeasurementsToFile(app, prefs)
+                if (toLogcat || toFile) {
+                    val binary = writeBinaryCsvLog(app, prefs)
+                    val json = writeRecordsToFileJson(app, prefs)
+                    val rinex = writeRinexFile(app, prefs)
+                    logPipeline.submit(LogPipeline.Source.MEASUREMENT) {
+                        if (toLogcat) {
+                            for (m in it.measurements) {
+                                writeMeasurementToLogcat(m)
+                            }
+                        }
+                        if (toFile) {
+                            initLogging()
+                            if (binary) {
+                                binaryFileLogger.onGnssMeasurementsReceived(it)
+                            } else {
+                                csvFileLogger.onGnssMeasurementsReceived(it)
+                            }
+                            if (json) {
+                                jsonFileLogger.onGnssMeasurementsReceived(it)
+                            }
+                            if (rinex) {
+                                rinexFileLogger.onGnssMeasurementsReceived(it)
+                            }
                         }
-                    }
-                    if (writeMeasurementsToFile(app, prefs)) {
-                        initLogging()
-                        csvFileLogger.onGnssMeasurementsReceived(it)
                     }
                 }
             }
@@ -440,15 +555,20 @@ class ForegroundOnlyLocationService : LifecycleService() {
             .flowWithLifecycle(lifecycle, Lifecycle.State.STARTED)
             .onEach {
                 //Log.d(TAG, "Service antennas: $it")
-                GlobalScope.launch(Dispatchers.IO) {
-                    if (writeAntennaInfoToFileCsv(app, prefs) || writeAntennaInfoToFileJson(app, prefs)) {
+                val toCsv = writeAntennaInfoToFileCsv(app, prefs)
+                val toJson = writeAntennaInfoToFileJson(app, prefs)
+                if (toCsv || toJson) {
+                    val binary = writeBinaryCsvLog(app, prefs)
+                    logPipeline.submit(LogPipeline.Source.ANTENNA) {
                         initLogging()
-                    }
-                    if (writeAntennaInfoToFileCsv(app, prefs)) {
-                        csvFileLogger.onGnssAntennaInfoReceived(it)
-                    }
-                    if (writeAntennaInfoToFileJson(app, prefs)) {
-                        jsonFileLogger.onGnssAntennaInfoReceived(it)
+                        if (toCsv && binary) {
+                            binaryFileLogger.onGnssAntennaInfoReceived(it)
+                        } else if (toCsv) {
+                            csvFileLogger.onGnssAntennaInfoReceived(it)
+                        }
+                        if (toJson) {
+                            jsonFileLogger.onGnssAntennaInfoReceived(it)
+                        }
                     }
                 }
             }
@@ -466,14 +586,22 @@ class ForegroundOnlyLocationService : LifecycleService() {
             .flowWithLifecycle(lifecycle, Lifecycle.State.STARTED)
             .onEach {
                 //Log.d(TAG, "Service sensor: orientation ${it.values[0]}, tilt ${it.values[1]}")
-                GlobalScope.launch(Dispatchers.IO) {
-                    if (writeOrientationToFile(app, prefs)) {
+                if (writeOrientationToFile(app, prefs)) {
+                    // Capture the clocks when the event arrives, not when it's written
+                    val currentTimeMs = System.currentTimeMillis()
+                    val millisSinceBootMs = SystemClock.elapsedRealtime()
+                    val binary = writeBinaryCsvLog(app, prefs)
+                    val json = writeRecordsToFileJson(app, prefs)
+                    logPipeline.submit(LogPipeline.Source.ORIENTATION) {
                         initLogging()
-                        csvFileLogger.onOrientationChanged(
-                            it,
-                            System.currentTimeMillis(),
-                            SystemClock.elapsedRealtime()
-                        )
+                        if (binary) {
+                            binaryFileLogger.onOrientationChanged(it, currentTimeMs, millisSinceBootMs)
+                        } else {
+                            csvFileLogger.onOrientationChanged(it, currentTimeMs, millisSinceBootMs)
+                        }
+                        if (json) {
+                            jsonFileLogger.onOrientationChanged(it, currentTimeMs, millisSinceBootMs)
+                        }
                     }
                 }
             }
@@ -608,15 +736,42 @@ class ForegroundOnlyLocationService : LifecycleService() {
         maybeInjectAssistData()
 
         val date = Date()
-        if (!csvFileLogger.isStarted && isCsvLoggingEnabled(app, prefs)) {
+        val compress = compressLogFiles(app, prefs)
+        val segmentMaxBytes = logSegmentMaxBytes(app, prefs)
+        val segmentMaxMillis = logSegmentMaxMillis(app, prefs)
+        val streamToDownloads = streamLogsToDownloads(app, prefs)
+        val keepPrivateCopy = keepPrivateLogCopy(app, prefs)
+        val indexInterval = if (writeLogIndex(app, prefs)) BaseFileLogger.DEFAULT_INDEX_INTERVAL else 0
+        val durabilityPolicy = durabilityPolicy()
+        val syncIntervalMillis = logSyncIntervalMillis(app, prefs)
+        for (logger in arrayOf(csvFileLogger, binaryFileLogger, jsonFileLogger, rinexFileLogger)) {
+            logger.setCompressed(compress)
+            logger.setSegmentLimits(segmentMaxBytes, segmentMaxMillis)
+            logger.setStreamToDownloads(streamToDownloads, keepPrivateCopy)
+            logger.setIndexInterval(indexInterval)
+            logger.setDurabilityPolicy(durabilityPolicy, syncIntervalMillis)
+        }
+        jsonFileLogger.setWriteLines(writeJsonLines(app, prefs))
+        rinexFileLogger.setVersion(rinexVersion(app, prefs))
+        if (isCsvLoggingEnabled(app, prefs)) {
             // User has granted permissions and has chosen to log at least one data type
-            csvFileLogger.startLog(null, date)
+            if (writeBinaryCsvLog(app, prefs)) {
+                if (!binaryFileLogger.isStarted) {
+                    binaryFileLogger.startLog(null, date)
+                }
+            } else if (!csvFileLogger.isStarted) {
+                csvFileLogger.startLog(null, date)
+            }
         }
 
         if (!jsonFileLogger.isStarted && isJsonLoggingEnabled(app, prefs)) {
             jsonFileLogger.startLog(null, date)
         }
-        maybeDeleteFiles()
+
+        if (!rinexFileLogger.isStarted && isRinexLoggingEnabled(app, prefs)) {
+            rinexFileLogger.startLog(null, date)
+        }
+        maybeStartRetention()
     }
 
     private fun maybeInjectAssistData() {
@@ -634,25 +789,63 @@ class ForegroundOnlyLocationService : LifecycleService() {
         injectedAssistData = true
     }
 
-    private fun maybeDeleteFiles() {
+    private fun maybeStartRetention() {
+        logRetention?.setLimits(
+            logRetentionMaxBytes(app, prefs),
+            logRetentionMaxAgeMillis(app, prefs),
+            LogRetention.DEFAULT_MAX_FILES
+        )
         if (deletedFiles) {
-            // If we've already deleted files on this application execution, don't do it again
+            // If we've already checked all files on this application execution, don't do it again -
+            // after this, old files are deleted when the loggers find the files over the quota
             return
         }
-        if (csvFileLogger.isStarted || jsonFileLogger.isStarted) {
-            // Base directories should be the same, so we only need one of the two (whichever is logging) to clear old files
-            var baseDirectory: File = csvFileLogger.baseDirectory
-            if (baseDirectory == null) {
-                baseDirectory = jsonFileLogger.baseDirectory
+        if (csvFileLogger.isStarted || binaryFileLogger.isStarted || jsonFileLogger.isStarted || rinexFileLogger.isStarted) {
+            // Base directories should be the same, so we only need one of them (whichever is logging) to manage old files
+            val baseDirectory = BaseFileLogger.getBaseDirectory(
+                csvFileLogger, binaryFileLogger, jsonFileLogger, rinexFileLogger
+            ) ?: return
+            val retention = logRetention ?: LogRetention(baseDirectory, retentionExecutor).also {
+                logRetention = it
+                for (logger in arrayOf(csvFileLogger, binaryFileLogger, jsonFileLogger, rinexFileLogger)) {
+                    logger.setRetention(it)
+                }
             }
-            deleteOldFiles(baseDirectory, csvFileLogger.file, jsonFileLogger.file)
+            retention.setLimits(
+                logRetentionMaxBytes(app, prefs),
+                logRetentionMaxAgeMillis(app, prefs),
+                LogRetention.DEFAULT_MAX_FILES
+            )
+            retention.requestEviction()
             deletedFiles = true
         }
     }
 
-    private fun stopLogging() {
-        csvFileLogger.close()
-        jsonFileLogger.close()
+    /**
+     * Closes the log files on the writer thread, after all records already in the pipeline have
+     * been written. The next record that's logged starts new files.
+     */
+    fun stopLogging() {
+        logPipeline.submit(LogPipeline.Source.CONTROL) {
+            csvFileLogger.close()
+            binaryFileLogger.close()
+            jsonFileLogger.close()
+            rinexFileLogger.close()
+        }
+    }
+
+    private fun overflowPolicy(): LogPipeline.OverflowPolicy {
+        return LogPipeline.OverflowPolicy.fromString(
+            logQueueOverflowPolicy(app, prefs),
+            LogPipeline.OverflowPolicy.DROP_OLDEST
+        )
+    }
+
+    private fun durabilityPolicy(): BaseFileLogger.DurabilityPolicy {
+        return BaseFileLogger.DurabilityPolicy.fromString(
+            logDurabilityPolicy(app, prefs),
+            BaseFileLogger.DurabilityPolicy.INTERVAL
+        )
     }
 
     /**
@@ -677,5 +870,7 @@ class ForegroundOnlyLocationService : LifecycleService() {
         private const val NOTIFICATION_CHANNEL = "gsptest_channel_01"
 
         private const val UNBIND_DELAY_MILLIS = 3_000L
+
+        private const val SHUTDOWN_TIMEOUT_MILLIS = 2_000L
     }
 }
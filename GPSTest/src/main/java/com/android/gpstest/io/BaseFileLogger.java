@@ -3,27 +3,42 @@ package com.android.gpstest.io;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.location.GnssClock;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Environment;
+import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.provider.MediaStore.Downloads;
 import android.util.Log;
 import android.widget.Toast;
 
 import androidx.annotation.RequiresApi;
+import androidx.core.content.ContextCompat;
 
 import com.android.gpstest.Application;
 import com.android.gpstest.R;
+import com.android.gpstest.library.io.LogIndex;
+import com.android.gpstest.library.io.LogIndexWriter;
+import com.android.gpstest.library.io.LogRecovery;
+import com.android.gpstest.library.io.LogRetention;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * A base implementation of a GNSS logger to store information to a file. Originally from https://github.com/google/gps-measurement-tools/tree/master/GNSSLogger,
@@ -36,25 +51,263 @@ public abstract class BaseFileLogger implements FileLogger {
 
     protected static final String DIRECTORY = "Download/GPSTest";
 
+    protected static final String COMPRESSED_FILE_EXTENSION = "gz";
+
+    /**
+     * Default maximum time that written data is held in memory before it is flushed and synced to
+     * storage, which bounds how much data is lost if the app or device crashes while logging
+     */
+    public static final long SYNC_INTERVAL_MILLIS = 5000;
+
+    /**
+     * When written data is flushed through buffers and compression and synced to storage
+     */
+    public enum DurabilityPolicy {
+        /**
+         * Only when buffers fill up and when the file is closed - fastest, but everything still
+         * buffered is lost if the app or device crashes
+         */
+        NONE,
+        /**
+         * At most every sync interval, when a record is written
+         */
+        INTERVAL,
+        /**
+         * After every epoch (each callback's records), so at most one epoch is lost in a crash
+         */
+        EVERY_EPOCH;
+
+        /**
+         * Converts from the preference value for the durability policy to the enum, or returns
+         * [defaultPolicy] if the value is unknown
+         */
+        public static DurabilityPolicy fromString(String value, DurabilityPolicy defaultPolicy) {
+            if (value == null) {
+                return defaultPolicy;
+            }
+            switch (value) {
+                case "none":
+                    return NONE;
+                case "interval":
+                    return INTERVAL;
+                case "epoch":
+                    return EVERY_EPOCH;
+                default:
+                    return defaultPolicy;
+            }
+        }
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // Start of GPS time, 1980-01-06, in UTC milliseconds, and the leap seconds since then to use
+    // when GnssClock doesn't have them
+    private static final long GPS_EPOCH_MILLIS = 315_964_800_000L;
+    private static final int DEFAULT_LEAP_SECOND = 18;
+
+    // How often the size of the file being written is updated in the retention catalog
+    private static final long RETENTION_UPDATE_INTERVAL_MILLIS = 10000;
+
+    protected static final String MANIFEST_SUFFIX = LogIndex.MANIFEST_SUFFIX;
+
+    /**
+     * Number of records in each block of the log index, which at typical logging rates is a few
+     * seconds of data
+     */
+    public static final int DEFAULT_INDEX_INTERVAL = 256;
+
+    // Copies closed segments to Downloads so logging isn't blocked while they are published
+    private static final Executor publishExecutor = Executors.newSingleThreadExecutor();
+
     protected final Context context;
 
     protected BufferedWriter fileWriter;
+    // The byte stream underneath fileWriter, for implementations that write binary data
+    protected OutputStream outputStream;
     protected File file;
     protected boolean isStarted = false;
     protected File baseDirectory;
+    protected boolean compressed = false;
+
+    // The file stream at the bottom of outputStream, used to sync data to storage
+    private FileOutputStream fileOutputStream;
+    private long lastSyncMillis;
+    private DurabilityPolicy durabilityPolicy = DurabilityPolicy.INTERVAL;
+    private long syncIntervalMillis = SYNC_INTERVAL_MILLIS;
+
+    // Segment rotation - a limit of 0 means the limit isn't used
+    private long segmentMaxBytes = 0;
+    private long segmentMaxMillis = 0;
+    private long segmentStartMillis;
+    private long segmentStartNanos;
+    private boolean rotating = false;
+    // Lists the segments of the current logging session, or null if no segment has been closed yet
+    private File manifestFile;
+
+    // Writes new files directly to Downloads (Android 11 and up) instead of copying them there on close
+    private boolean streamToDownloads = false;
+    private boolean keepPrivateCopy = true;
+    // The Downloads entry the current file is written to, or null if it's written to a private file
+    private Uri downloadUri;
+    // The private copy of a file written to Downloads, or null if there isn't one
+    private FileOutputStream mirrorOutputStream;
+    private boolean hasPrivateFile = true;
+
+    // Index of the current file - an interval of 0 means no index is written
+    private int indexInterval = 0;
+    // Counts the uncompressed bytes written to the current file
+    private CountingOutputStream countingStream;
+    private LogIndexWriter indexWriter;
+    // The index of the current file, or null if it doesn't have one
+    private File indexFile;
+
+    // Health metrics, or null if they aren't collected
+    private LoggingMetrics metrics;
+    private LoggingMetrics.FileMetrics fileMetrics;
+    // The uncompressed bytes that had reached the counting stream when the last record was counted
+    private long lastRecordOffset;
+    // False if the uncompressed size of the current file isn't known, i.e. it was compressed and appended to
+    private boolean isFileSizeKnown;
+
+    // Deletes old logs to keep them within limits, or null if old logs aren't deleted
+    private LogRetention retention;
+    private long lastRetentionUpdateMillis;
 
     public BaseFileLogger(Context context) {
         this.context = context;
     }
 
+    /**
+     * Returns the private log file, or null if the log is only being written to Downloads
+     */
     public File getFile() {
-        return file;
+        return hasPrivateFile ? file : null;
     }
 
     public File getBaseDirectory() {
         return baseDirectory;
     }
 
+    /**
+     * Returns the base directory of the first logger that has one, i.e. that was started, or null
+     * if none of them were started. Only the loggers of the enabled formats are started, so any
+     * of them may not have a base directory.
+     */
+    public static File getBaseDirectory(BaseFileLogger... loggers) {
+        for (BaseFileLogger logger : loggers) {
+            if (logger.getBaseDirectory() != null) {
+                return logger.getBaseDirectory();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sets whether new files are written gzip-compressed, with ".gz" appended to the file extension.
+     * Takes effect the next time a new file is started.
+     *
+     * @param compressed true to write compressed files, false to write uncompressed files
+     */
+    public synchronized void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public synchronized boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Sets the limits at which logging rolls over to a new file (segment). Each segment starts with
+     * the file header, closed segments are published to Downloads while logging continues, and a
+     * manifest file lists the segments of the logging session.
+     *
+     * @param maxBytes the file size at which to start a new segment, or 0 for no size limit
+     * @param maxMillis the duration at which to start a new segment, or 0 for no time limit
+     */
+    public synchronized void setSegmentLimits(long maxBytes, long maxMillis) {
+        segmentMaxBytes = maxBytes;
+        segmentMaxMillis = maxMillis;
+    }
+
+    /**
+     * Sets whether new files are written directly to the Downloads folder as they are logged, so
+     * nothing needs to be copied when logging stops. Only used on Android 11 and up - earlier
+     * versions always write a private file.
+     *
+     * @param streamToDownloads true to write new files directly to Downloads, false to write a
+     *                          private file that's copied to Downloads when it's closed
+     * @param keepPrivateCopy true to also write a private copy of files written to Downloads, which
+     *                        is needed to share the log from the app
+     */
+    public synchronized void setStreamToDownloads(boolean streamToDownloads, boolean keepPrivateCopy) {
+        this.streamToDownloads = streamToDownloads;
+        this.keepPrivateCopy = keepPrivateCopy;
+    }
+
+    /**
+     * Sets how often a block is added to the index written next to each log file, which lets
+     * readers jump to a time range or record type without reading the whole file (see LogIndex).
+     * Takes effect the next time a file is started.
+     *
+     * @param records the number of records in each block, or 0 to not write an index
+     */
+    public synchronized void setIndexInterval(int records) {
+        indexInterval = records;
+    }
+
+    /**
+     * Sets when written data is flushed and synced to storage, which bounds how much data is lost
+     * if the app or device crashes while logging. Syncing more often uses more power and may slow
+     * logging on devices with slow storage.
+     *
+     * @param policy         when to sync
+     * @param intervalMillis the maximum time between syncs for DurabilityPolicy.INTERVAL
+     */
+    public synchronized void setDurabilityPolicy(DurabilityPolicy policy, long intervalMillis) {
+        durabilityPolicy = policy;
+        syncIntervalMillis = intervalMillis;
+    }
+
+    /**
+     * Sets the health metrics that records written, flush and sync durations, file size and errors
+     * are counted in. Bytes are counted as buffers are written out rather than flushed after each
+     * record, so the bytes of each record type are an estimate and lag the records by the size of
+     * the buffers.
+     *
+     * @param metrics the metrics, or null to not collect metrics
+     */
+    public synchronized void setMetrics(LoggingMetrics metrics) {
+        this.metrics = metrics;
+        fileMetrics = metrics != null ? metrics.getFileMetrics(getClass().getSimpleName()) : null;
+        lastRecordOffset = countingStream != null ? countingStream.getCount() : 0;
+    }
+
+    /**
+     * Sets the retention manager that keeps logs within a byte quota, age and number of files.
+     * The file being written is protected from eviction, and its size is kept up to date in the
+     * retention catalog while it's written.
+     *
+     * @param retention the retention manager for the log directory, or null to not delete old logs
+     */
+    public synchronized void setRetention(LogRetention retention) {
+        this.retention = retention;
+        if (retention != null && isStarted && hasPrivateFile) {
+            retention.protect(file);
+        }
+    }
+
+    /**
+     * Returns true if records in this implementation's current file can be read starting at any
+     * record boundary, so an index can be written for it
+     */
+    boolean isIndexSupported() {
+        return false;
+    }
+
+    private boolean isRotationEnabled() {
+        return segmentMaxBytes > 0 || segmentMaxMillis > 0;
+    }
+
     /**
      * Defines the file extension to be used in implementations, following the ".". So "json" would
      * be used for files with the ".json" extension.
@@ -80,6 +333,42 @@ public abstract class BaseFileLogger implements FileLogger {
      */
     abstract boolean postFileInit(BufferedWriter fileWriter, boolean isNewFile);
 
+    /**
+     * Called before the file is closed, if additional data needs to be written to finish the file
+     * for a specific file logging implementation
+     */
+    void preFileClose() {
+        // No-op by default
+    }
+
+    /**
+     * Removes a partial record from the end of an existing file before logging continues in it,
+     * e.g. if the app crashed while writing it. Implementations that don't write lines of text
+     * should override this to repair their format.
+     *
+     * @param file the existing file
+     * @return the outcome of the repair
+     */
+    LogRecovery.Result recoverFile(File file) throws IOException {
+        return LogRecovery.repair(file, LogRecovery.FORMAT_LINES);
+    }
+
+    /**
+     * Opens the byte stream that fileWriter writes to on top of the given file stream
+     *
+     * @param file the file being opened
+     * @param fileStream the stream to the file (and/or Downloads), which appends if the file already exists
+     * @return the stream to write to the file
+     */
+    OutputStream openOutputStream(File file, OutputStream fileStream) throws IOException {
+        if (file.getName().endsWith("." + COMPRESSED_FILE_EXTENSION)) {
+            // Appending to an existing file starts a new gzip member, which readers concatenate.
+            // Sync flush makes everything written so far readable after each flush().
+            return new BufferedOutputStream(new GZIPOutputStream(fileStream, BUFFER_SIZE, true), BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(fileStream, BUFFER_SIZE);
+    }
+
     /**
      * Start a file logging process
      *
@@ -90,6 +379,8 @@ public abstract class BaseFileLogger implements FileLogger {
      */
     public synchronized boolean startLog(File existingFile, Date date) {
         boolean isNewFile = false;
+        // True if the file is new or had nothing usable in it, so it needs a header
+        boolean isEmptyFile;
         String state = Environment.getExternalStorageState();
         if (Environment.MEDIA_MOUNTED.equals(state)) {
             baseDirectory = new File(context.getExternalFilesDir(null), FILE_PREFIX);
@@ -107,9 +398,15 @@ public abstract class BaseFileLogger implements FileLogger {
         if (existingFile != null) {
             // Use existing file
             currentFilePath = existingFile.getAbsolutePath();
-            BufferedWriter writer;
+            FileOutputStream fileStream;
+            CountingOutputStream stream;
+            LogRecovery.Result recovery;
             try {
-                writer = new BufferedWriter(new FileWriter(existingFile, true));
+                recovery = recover(existingFile);
+                fileStream = new FileOutputStream(existingFile, true);
+                // The uncompressed size of a compressed file isn't known, so it can't be indexed
+                long count = existingFile.getName().endsWith("." + COMPRESSED_FILE_EXTENSION) ? -1 : existingFile.length();
+                stream = new CountingOutputStream(openOutputStream(existingFile, fileStream), count);
             } catch (IOException e) {
                 logException("Could not open file: " + currentFilePath, e);
                 return false;
@@ -118,21 +415,52 @@ public abstract class BaseFileLogger implements FileLogger {
                 return false;
             }
             file = existingFile;
-            fileWriter = writer;
+            fileOutputStream = fileStream;
+            mirrorOutputStream = null;
+            downloadUri = null;
+            hasPrivateFile = true;
+            countingStream = stream;
+            outputStream = stream;
+            isFileSizeKnown = stream.getCount() >= 0;
+            fileWriter = new BufferedWriter(new OutputStreamWriter(stream));
             isNewFile = false;
+            // Start over if nothing usable was left in the file
+            isEmptyFile = recovery.getLength() == 0;
+            if (isEmptyFile) {
+                writeFileHeader(fileWriter, currentFilePath);
+            }
         } else {
             // Create new logging file
             SimpleDateFormat formatter = new SimpleDateFormat("yyy_MM_dd_HH_mm_ss");
-            String fileName = String.format("%s_%s." + getFileExtension(), FILE_PREFIX, formatter.format(date));
+            String extension = compressed ? getFileExtension() + "." + COMPRESSED_FILE_EXTENSION : getFileExtension();
+            String fileName = String.format("%s_%s." + extension, FILE_PREFIX, formatter.format(date));
             File currentFile = new File(baseDirectory, fileName);
             currentFilePath = currentFile.getAbsolutePath();
-            BufferedWriter writer;
+            FileOutputStream fileStream;
+            FileOutputStream mirrorStream = null;
+            Uri uri = null;
+            CountingOutputStream stream;
             try {
-                writer = new BufferedWriter(new FileWriter(currentFile, true));
+                if (streamToDownloads && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                    uri = insertDownload(fileName, true);
+                    if (uri == null) {
+                        throw new IOException("Unable to create " + fileName + " in Downloads");
+                    }
+                    fileStream = new ParcelFileDescriptor.AutoCloseOutputStream(
+                            context.getContentResolver().openFileDescriptor(uri, "w"));
+                    if (keepPrivateCopy) {
+                        mirrorStream = new FileOutputStream(currentFile, true);
+                    }
+                } else {
+                    fileStream = new FileOutputStream(currentFile, true);
+                }
+                stream = new CountingOutputStream(openOutputStream(currentFile,
+                        mirrorStream != null ? new TeeOutputStream(fileStream, mirrorStream) : fileStream), 0);
             } catch (IOException e) {
                 logException("Could not open file: " + currentFilePath, e);
                 return false;
             }
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(stream));
 
             writeFileHeader(writer, currentFilePath);
 
@@ -141,29 +469,142 @@ public abstract class BaseFileLogger implements FileLogger {
             }
 
             file = currentFile;
+            fileOutputStream = fileStream;
+            mirrorOutputStream = mirrorStream;
+            downloadUri = uri;
+            hasPrivateFile = uri == null || mirrorStream != null;
+            countingStream = stream;
+            outputStream = stream;
+            isFileSizeKnown = true;
             fileWriter = writer;
 
             Log.d(TAG, Application.Companion.getApp().getString(R.string.logging_to_new_file, currentFilePath));
             isNewFile = true;
+            isEmptyFile = true;
         }
 
-        boolean postInit = postFileInit(fileWriter, isNewFile);
+        boolean postInit = postFileInit(fileWriter, isEmptyFile);
         if (!postInit) {
             return false;
         }
 
+        openIndex(isEmptyFile);
+
+        if (fileMetrics != null) {
+            // The header isn't counted as part of the first record
+            try {
+                lastRecordOffset = getIndexOffset();
+            } catch (IOException e) {
+                logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+            }
+            fileMetrics.setFileSize(isFileSizeKnown ? lastRecordOffset : -1);
+        }
+
         isStarted = true;
+        lastSyncMillis = SystemClock.elapsedRealtime();
+        lastRetentionUpdateMillis = lastSyncMillis;
+        if (retention != null && hasPrivateFile) {
+            retention.protect(file);
+        }
+        segmentStartMillis = lastSyncMillis;
+        segmentStartNanos = SystemClock.elapsedRealtimeNanos();
+        if (!rotating) {
+            // New logging session
+            manifestFile = null;
+        }
         return isNewFile;
     }
 
+    /**
+     * Repairs the end of an existing file and its index, if it has one
+     */
+    private LogRecovery.Result recover(File existingFile) throws IOException {
+        LogRecovery.Result result = recoverFile(existingFile);
+        if (result.getRemovedBytes() > 0) {
+            Log.w(TAG, "Removed " + result.getRemovedBytes() + " bytes of incomplete data from the end of " + existingFile);
+        }
+        File index = LogIndex.getIndexFile(existingFile);
+        if (index.exists()) {
+            LogRecovery.repairIndex(index, result.getLength());
+        }
+        return result;
+    }
+
+    private void openIndex(boolean isNewFile) {
+        indexWriter = null;
+        indexFile = null;
+        if (indexInterval <= 0 || !isIndexSupported() || countingStream.getCount() < 0) {
+            return;
+        }
+        File index = LogIndex.getIndexFile(file);
+        boolean isNewIndex = isNewFile || !index.exists();
+        try {
+            long startOffset = getIndexOffset();
+            indexWriter = new LogIndexWriter(new BufferedWriter(new FileWriter(index, !isNewFile)),
+                    isNewIndex, indexInterval, startOffset);
+            indexFile = index;
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+    }
+
+    /**
+     * Returns the uncompressed offset in the file after everything that's been written to it
+     */
+    private long getIndexOffset() throws IOException {
+        // Move buffered data down to the counting stream, but no further
+        countingStream.setForwardFlush(false);
+        try {
+            flush();
+        } finally {
+            countingStream.setForwardFlush(true);
+        }
+        return countingStream.getCount();
+    }
+
+    private void endIndexBlock() {
+        try {
+            indexWriter.endBlock(getIndexOffset());
+        } catch (IOException e) {
+            // Stop indexing this file rather than write a wrong index
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+            closeIndex();
+        }
+    }
+
+    /**
+     * Closes the index of the current file, if it has one, without writing the current block
+     */
+    private void closeIndex() {
+        if (indexWriter == null) {
+            return;
+        }
+        try {
+            indexWriter.close();
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+        indexWriter = null;
+    }
+
     private boolean closeOldFileWriter() {
         if (fileWriter != null) {
+            if (indexWriter != null) {
+                endIndexBlock();
+                closeIndex();
+            }
             try {
                 fileWriter.close();
             } catch (IOException e) {
                 logException(Application.Companion.getApp().getString(R.string.unable_to_close_all_file_streams), e);
                 return false;
             }
+            if (retention != null && hasPrivateFile) {
+                retention.release(file);
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && downloadUri != null) {
+                publishDownload(downloadUri);
+            }
         }
         return true;
     }
@@ -178,42 +619,322 @@ public abstract class BaseFileLogger implements FileLogger {
     }
 
     public synchronized void close() {
-        if (fileWriter != null) {
+        File index = indexFile;
+        if (!closeFile()) {
+            return;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && file != null) {
+            if (downloadUri != null) {
+                // Already written to Downloads - just make it visible
+                publishDownload(downloadUri);
+            } else {
+                copyFileToDownloads(file);
+            }
+            if (index != null) {
+                copyFileToDownloads(index);
+            }
+            if (manifestFile != null) {
+                copyFileToDownloads(manifestFile);
+            }
+        }
+        manifestFile = null;
+        indexFile = null;
+    }
+
+    /**
+     * Closes the current file, if it's open, and records it in the manifest if segments are enabled
+     *
+     * @return true if the file was closed or wasn't open, false if there was an error closing it
+     */
+    private boolean closeFile() {
+        if (fileWriter == null) {
+            return true;
+        }
+        if (indexWriter != null) {
+            endIndexBlock();
+            closeIndex();
+        }
+        preFileClose();
+        try {
+            fileWriter.flush();
+            fileWriter.close();
+            fileWriter = null;
+            outputStream = null;
+            countingStream = null;
+            fileOutputStream = null;
+            mirrorOutputStream = null;
+            isStarted = false;
+        } catch (IOException e) {
+            logException("Unable to close all file streams.", e);
+            return false;
+        }
+        if (retention != null && hasPrivateFile) {
+            retention.release(file);
+        }
+        if (isRotationEnabled() || manifestFile != null) {
+            writeManifestEntry(file, segmentStartNanos, SystemClock.elapsedRealtimeNanos());
+        }
+        return true;
+    }
+
+    private void writeManifestEntry(File segment, long startNanos, long endNanos) {
+        boolean isNewManifest = manifestFile == null;
+        if (isNewManifest) {
+            // Named after the first segment of the session
+            String name = segment.getName();
+            manifestFile = new File(baseDirectory, name.substring(0, name.indexOf('.')) + MANIFEST_SUFFIX);
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(manifestFile, true))) {
+            if (isNewManifest) {
+                writer.write("file,startElapsedRealtimeNanos,endElapsedRealtimeNanos");
+                writer.newLine();
+            }
+            writer.write(segment.getName() + "," + startNanos + "," + endNanos);
+            writer.newLine();
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+        if (retention != null) {
+            retention.update(manifestFile, manifestFile.length());
+        }
+    }
+
+    /**
+     * Closes the current segment and continues logging to a new one
+     */
+    private void rotate() {
+        File segment = file;
+        Uri segmentUri = downloadUri;
+        File segmentIndex = indexFile;
+        if (!closeFile()) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            if (segmentUri != null) {
+                publishDownload(segmentUri);
+            } else {
+                publishExecutor.execute(() -> copyFileToDownloads(segment));
+            }
+            if (segmentIndex != null) {
+                publishExecutor.execute(() -> copyFileToDownloads(segmentIndex));
+            }
+        }
+        rotating = true;
+        try {
+            startLog(null, new Date());
+        } finally {
+            rotating = false;
+        }
+    }
+
+    private boolean isSegmentFull() {
+        if (fileOutputStream == null) {
+            return false;
+        }
+        if (segmentMaxMillis > 0 && SystemClock.elapsedRealtime() - segmentStartMillis >= segmentMaxMillis) {
+            return true;
+        }
+        if (segmentMaxBytes > 0) {
             try {
-                fileWriter.flush();
-                fileWriter.close();
-                fileWriter = null;
-                isStarted = false;
+                // Bytes that have reached the file - up to a few buffers behind what's been written
+                return fileOutputStream.getChannel().position() >= segmentMaxBytes;
             } catch (IOException e) {
-                logException("Unable to close all file streams.", e);
-                return;
+                return false;
             }
         }
+        return false;
+    }
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && file != null) {
-            copyFileToDownloads(file);
+    /**
+     * Implementations should call this after writing each record (or group of records that must
+     * stay in the same file) to index it, roll over to a new segment and sync data to storage when
+     * needed. Records are indexed at the time they are written - records that have their own time
+     * should use {@link #onRecordWritten(int, long, long)} instead.
+     *
+     * @param type the LogIndex.TYPE_ flag of the record
+     */
+    protected void onRecordWritten(int type) {
+        onRecordWritten(type, System.currentTimeMillis(), SystemClock.elapsedRealtimeNanos());
+    }
+
+    /**
+     * Like {@link #onRecordWritten(int)}, for records that have their own time, so the index
+     * matches the times in the log even when records wait to be written
+     *
+     * @param type                 the LogIndex.TYPE_ flag of the record
+     * @param utcTimeMillis        the time of the record, or LogIndex.NO_TIME if it isn't known
+     * @param elapsedRealtimeNanos the time of the record, or LogIndex.NO_TIME if it isn't known
+     */
+    protected void onRecordWritten(int type, long utcTimeMillis, long elapsedRealtimeNanos) {
+        if (fileMetrics != null) {
+            countRecord(type);
+        }
+        if (indexWriter != null && indexWriter.add(type, utcTimeMillis, elapsedRealtimeNanos)) {
+            endIndexBlock();
+        }
+        if (isSegmentFull()) {
+            rotate();
+        } else {
+            maybeSync();
+            maybeUpdateRetention();
+        }
+    }
+
+    /**
+     * Calls {@link #onRecordWritten(int, long, long)} for a measurement epoch at the time of its
+     * clock - GPS time converted to UTC, and the elapsed realtime of the clock on Android 10 and
+     * higher. The time the epoch is written is used for the times the clock doesn't have.
+     */
+    protected void onMeasurementsWritten(GnssClock clock) {
+        long utcTimeMillis;
+        if (clock.hasFullBiasNanos()) {
+            long gpsNanos = clock.getTimeNanos() - clock.getFullBiasNanos()
+                    - (clock.hasBiasNanos() ? Math.round(clock.getBiasNanos()) : 0);
+            int leapSecond = clock.hasLeapSecond() ? clock.getLeapSecond() : DEFAULT_LEAP_SECOND;
+            utcTimeMillis = GPS_EPOCH_MILLIS + TimeUnit.NANOSECONDS.toMillis(gpsNanos) - leapSecond * 1000L;
+        } else {
+            utcTimeMillis = System.currentTimeMillis();
+        }
+        long elapsedRealtimeNanos;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && clock.hasElapsedRealtimeNanos()) {
+            elapsedRealtimeNanos = clock.getElapsedRealtimeNanos();
+        } else {
+            elapsedRealtimeNanos = SystemClock.elapsedRealtimeNanos();
+        }
+        onRecordWritten(LogIndex.TYPE_MEASUREMENTS, utcTimeMillis, elapsedRealtimeNanos);
+    }
+
+    /**
+     * Returns the SystemClock.elapsedRealtimeNanos() time of the given UTC time, for records that
+     * only have a UTC time
+     */
+    protected static long toElapsedRealtimeNanos(long utcTimeMillis) {
+        return SystemClock.elapsedRealtimeNanos()
+                - TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - utcTimeMillis);
+    }
+
+    /**
+     * Updates the size of the file being written in the retention catalog, so older logs can be
+     * evicted while logging if the quota is reached
+     */
+    private void maybeUpdateRetention() {
+        if (retention == null || !hasPrivateFile || file == null) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastRetentionUpdateMillis < RETENTION_UPDATE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastRetentionUpdateMillis = now;
+        retention.update(file, file.length());
+    }
+
+    /**
+     * Counts a record in the metrics without flushing the writers - the bytes that reached the
+     * counting stream since the previous record are counted for this record. A record that fills a
+     * buffer is counted with the whole buffer, which is in proportion to its size on average.
+     */
+    private void countRecord(int type) {
+        long offset = countingStream.getCount();
+        fileMetrics.onRecordWritten(type, offset - lastRecordOffset);
+        fileMetrics.setFileSize(isFileSizeKnown ? offset : -1);
+        lastRecordOffset = offset;
+    }
+
+    /**
+     * Flushes written data through any buffers and compression to the file. Implementations that
+     * buffer data on top of fileWriter should flush it here first.
+     */
+    protected void flush() throws IOException {
+        fileWriter.flush();
+    }
+
+    /**
+     * Flushes and syncs written data to storage if the durability policy calls for it
+     */
+    private void maybeSync() {
+        if (fileWriter == null || durabilityPolicy == DurabilityPolicy.NONE) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (durabilityPolicy == DurabilityPolicy.INTERVAL && now - lastSyncMillis < syncIntervalMillis) {
+            return;
+        }
+        lastSyncMillis = now;
+        try {
+            long startNanos = System.nanoTime();
+            flush();
+            long flushedNanos = System.nanoTime();
+            // File contents (and size) only - other metadata doesn't need to survive a crash
+            fileOutputStream.getChannel().force(false);
+            if (mirrorOutputStream != null) {
+                mirrorOutputStream.getChannel().force(false);
+            }
+            if (metrics != null) {
+                metrics.onFlush(flushedNanos - startNanos);
+                metrics.onSync(System.nanoTime() - flushedNanos);
+            }
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
         }
     }
 
     protected void logException(String errorMessage, Exception e) {
         Log.e(TAG, errorMessage, e);
-        Toast.makeText(context, errorMessage, Toast.LENGTH_LONG).show();
+        if (metrics != null) {
+            metrics.onError(getClass().getSimpleName() + ": " + errorMessage + ": " + e);
+        }
+        showToast(errorMessage);
     }
 
     protected void logError(String errorMessage) {
         Log.e(TAG, errorMessage);
-        Toast.makeText(context, errorMessage, Toast.LENGTH_LONG).show();
+        if (metrics != null) {
+            metrics.onError(getClass().getSimpleName() + ": " + errorMessage);
+        }
+        showToast(errorMessage);
     }
 
+    private void showToast(String message) {
+        // Records are written on a background thread
+        ContextCompat.getMainExecutor(context).execute(() ->
+                Toast.makeText(context, message, Toast.LENGTH_LONG).show());
+    }
+
+    /**
+     * Creates an entry in the Downloads folder
+     *
+     * @param name the file name
+     * @param pending true if the entry should be hidden from other apps until publishDownload() is called
+     * @return the Uri of the new entry, or null if it couldn't be created
+     */
     @RequiresApi(Build.VERSION_CODES.R)
-    protected void copyFileToDownloads(File fileToCopy) {
-        ContentResolver contentResolver = context.getContentResolver();
+    private Uri insertDownload(String name, boolean pending) {
         ContentValues contentValues = new ContentValues();
-        contentValues.put(MediaStore.Downloads.DISPLAY_NAME, fileToCopy.getName());
+        contentValues.put(MediaStore.Downloads.DISPLAY_NAME, name);
         contentValues.put(Downloads.RELATIVE_PATH, DIRECTORY);
-        Uri fileUri =
-            contentResolver.insert(
+        if (name.endsWith("." + COMPRESSED_FILE_EXTENSION)) {
+            contentValues.put(Downloads.MIME_TYPE, "application/gzip");
+        }
+        if (pending) {
+            contentValues.put(Downloads.IS_PENDING, 1);
+        }
+        return context.getContentResolver().insert(
                 MediaStore.Downloads.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY), contentValues);
+    }
+
+    @RequiresApi(Build.VERSION_CODES.R)
+    private void publishDownload(Uri uri) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(Downloads.IS_PENDING, 0);
+        context.getContentResolver().update(uri, contentValues, null, null);
+    }
+
+    @RequiresApi(Build.VERSION_CODES.R)
+    protected void copyFileToDownloads(File fileToCopy) {
+        ContentResolver contentResolver = context.getContentResolver();
+        Uri fileUri = insertDownload(fileToCopy.getName(), false);
         try (OutputStream outputStream =
             contentResolver.openOutputStream(fileUri)) {
             Files.copy(fileToCopy.toPath(), outputStream);
@@ -0,0 +1,356 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static com.android.gpstest.library.io.BinaryLogFormat.*;
+
+import android.content.Context;
+import android.location.GnssAntennaInfo;
+import android.location.GnssClock;
+import android.location.GnssMeasurement;
+import android.location.GnssMeasurementsEvent;
+import android.location.GnssNavigationMessage;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Build;
+import android.os.SystemClock;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.core.content.ContextCompat;
+
+import com.android.gpstest.Application;
+import com.android.gpstest.R;
+import com.android.gpstest.library.io.BinaryLogFormat;
+import com.android.gpstest.library.io.LogIndex;
+import com.android.gpstest.library.io.LogRecovery;
+import com.android.gpstest.library.model.Orientation;
+import com.android.gpstest.library.model.SatelliteStatus;
+import com.android.gpstest.library.util.FormatUtils;
+import com.android.gpstest.library.util.SatelliteUtil;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A GNSS logger that stores the same records as {@link CsvFileLogger} in a compact binary format
+ * (see {@link BinaryLogFormat}). Binary logs can be converted to CSV with
+ * {@link com.android.gpstest.library.io.BinaryLogConverter}.
+ */
+public class BinaryFileLogger extends BaseFileLogger implements FileLogger {
+
+    private final RecordWriter record = new RecordWriter();
+
+    private final TimestampState timestamps = new TimestampState();
+
+    public BinaryFileLogger(Context context) {
+        super(context);
+    }
+
+    @Override
+    String getFileExtension() {
+        return BinaryLogFormat.FILE_EXTENSION;
+    }
+
+    @Override
+    LogRecovery.Result recoverFile(File file) throws IOException {
+        return LogRecovery.repair(file, LogRecovery.FORMAT_BINARY);
+    }
+
+    @Override
+    void writeFileHeader(BufferedWriter writer, String filePath) {
+        // Written in postFileInit(), as the header is binary
+    }
+
+    @Override
+    boolean postFileInit(BufferedWriter fileWriter, boolean isNewFile) {
+        try {
+            if (isNewFile) {
+                StringWriter csvHeader = new StringWriter();
+                BufferedWriter headerWriter = new BufferedWriter(csvHeader);
+                CsvFileLogger.writeHeader(context, headerWriter);
+                headerWriter.flush();
+                BinaryLogFormat.writeFileHeader(outputStream, csvHeader.toString());
+            } else {
+                // We don't know the last timestamps in the existing file, so start over from zero
+                record.begin(TYPE_TIMESTAMP_RESET).writeTo(outputStream);
+            }
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.could_not_initialize_file, file.getAbsolutePath()), e);
+            return false;
+        }
+        timestamps.reset();
+
+        ContextCompat.getMainExecutor(context).execute(() -> Toast.makeText(
+                Application.Companion.getApp().getApplicationContext(),
+                Application.Companion.getApp().getString(
+                        R.string.logging_to_new_file,
+                        file.getAbsolutePath()
+                ),
+                Toast.LENGTH_LONG
+        ).show());
+        return true;
+    }
+
+    public synchronized void onLocationChanged(Location location) {
+        if (outputStream == null || !location.getProvider().equals(LocationManager.GPS_PROVIDER)) {
+            return;
+        }
+        int present = FIX_PROVIDER;
+        if (SatelliteUtil.INSTANCE.isSpeedAccuracySupported(location)) present |= FIX_SPEED_ACCURACY;
+        if (SatelliteUtil.INSTANCE.isBearingAccuracySupported(location)) present |= FIX_BEARING_ACCURACY;
+        if (SatelliteUtil.INSTANCE.isVerticalAccuracySupported(location)) present |= FIX_VERTICAL_ACCURACY;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            present |= FIX_HAS_MOCK;
+            if (location.isMock()) present |= FIX_IS_MOCK;
+        }
+        record.begin(TYPE_FIX)
+                .writeVarint(present)
+                .writeLong(utcDelta(location.getTime()))
+                .writeLong(elapsedNanosDelta(location.getElapsedRealtimeNanos()))
+                .beginDoubles()
+                .writeDouble(location.getLatitude())
+                .writeDouble(location.getLongitude())
+                .writeDouble(location.getAltitude())
+                .endDoubles()
+                .writeFloat(location.getSpeed())
+                .writeFloat(location.getAccuracy())
+                .writeFloat(location.getBearing());
+        if ((present & FIX_SPEED_ACCURACY) != 0) record.writeFloat(location.getSpeedAccuracyMetersPerSecond());
+        if ((present & FIX_BEARING_ACCURACY) != 0) record.writeFloat(location.getBearingAccuracyDegrees());
+        if ((present & FIX_VERTICAL_ACCURACY) != 0) record.writeFloat(location.getVerticalAccuracyMeters());
+        record.writeString(location.getProvider());
+        writeRecord();
+        onRecordWritten(LogIndex.TYPE_FIX, location.getTime(), location.getElapsedRealtimeNanos());
+    }
+
+    /**
+     * Called to log GnssStatus information
+     * @param statuses GnssStatus information converted to a list of SatelliteStatus
+     * @param location the most recently calculated location, or null if one hasn't been calculated yet
+     */
+    public synchronized void onGnssStatusChanged(List<SatelliteStatus> statuses, Location location) {
+        if (outputStream == null) {
+            return;
+        }
+        record.begin(TYPE_STATUS)
+                .writeLong(utcDelta(location != null ? location.getTime() : 0))
+                .writeVarint(statuses.size());
+        for (SatelliteStatus s : statuses) {
+            int flags = 0;
+            if (s.getUsedInFix()) flags |= STATUS_USED_IN_FIX;
+            if (s.getHasAlmanac()) flags |= STATUS_HAS_ALMANAC;
+            if (s.getHasEphemeris()) flags |= STATUS_HAS_EPHEMERIS;
+            if (s.getHasBasebandCn0DbHz()) flags |= STATUS_HAS_BASEBAND_CN0;
+            record.writeLong(SatelliteUtil.INSTANCE.toGnssStatusConstellationType(s.getGnssType()))
+                    .writeLong(s.getSvid())
+                    .writeByte(flags)
+                    .writeFloat(s.getCn0DbHz())
+                    .writeFloat(s.getAzimuthDegrees())
+                    .writeFloat(s.getElevationDegrees());
+            if (s.getHasBasebandCn0DbHz()) record.writeFloat(s.getBasebandCn0DbHz());
+            record.beginDoubles()
+                    .writeDouble(s.getCarrierFrequencyHz())
+                    .endDoubles();
+        }
+        writeRecord();
+        onRecordWritten(LogIndex.TYPE_STATUS);
+    }
+
+    public synchronized void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
+        if (outputStream == null) {
+            return;
+        }
+        // Same timestamps for every measurement in the epoch, like CsvFileLogger
+        long elapsedRealtime = SystemClock.elapsedRealtime();
+        long elapsedRealtimeNanos = SystemClock.elapsedRealtimeNanos();
+        writeClock(event.getClock());
+        for (GnssMeasurement measurement : event.getMeasurements()) {
+            writeMeasurement(measurement, elapsedRealtime, elapsedRealtimeNanos);
+        }
+        onMeasurementsWritten(event.getClock());
+    }
+
+    private void writeClock(GnssClock clock) {
+        int present = 0;
+        if (clock.hasLeapSecond()) present |= CLOCK_LEAP_SECOND;
+        if (clock.hasTimeUncertaintyNanos()) present |= CLOCK_TIME_UNCERTAINTY;
+        if (clock.hasFullBiasNanos()) present |= CLOCK_FULL_BIAS;
+        if (clock.hasBiasNanos()) present |= CLOCK_BIAS;
+        if (clock.hasBiasUncertaintyNanos()) present |= CLOCK_BIAS_UNCERTAINTY;
+        if (clock.hasDriftNanosPerSecond()) present |= CLOCK_DRIFT;
+        if (clock.hasDriftUncertaintyNanosPerSecond()) present |= CLOCK_DRIFT_UNCERTAINTY;
+
+        record.begin(TYPE_CLOCK)
+                .writeLong(clock.getTimeNanos() - timestamps.clockTimeNanos)
+                .writeLong(clock.getHardwareClockDiscontinuityCount())
+                .writeVarint(present);
+        timestamps.clockTimeNanos = clock.getTimeNanos();
+        if (clock.hasLeapSecond()) record.writeLong(clock.getLeapSecond());
+        if (clock.hasFullBiasNanos()) {
+            record.writeLong(clock.getFullBiasNanos() - timestamps.clockFullBiasNanos);
+            timestamps.clockFullBiasNanos = clock.getFullBiasNanos();
+        }
+        record.beginDoubles();
+        if (clock.hasTimeUncertaintyNanos()) record.writeDouble(clock.getTimeUncertaintyNanos());
+        if (clock.hasBiasNanos()) record.writeDouble(clock.getBiasNanos());
+        if (clock.hasBiasUncertaintyNanos()) record.writeDouble(clock.getBiasUncertaintyNanos());
+        if (clock.hasDriftNanosPerSecond()) record.writeDouble(clock.getDriftNanosPerSecond());
+        if (clock.hasDriftUncertaintyNanosPerSecond()) record.writeDouble(clock.getDriftUncertaintyNanosPerSecond());
+        record.endDoubles();
+        writeRecord();
+    }
+
+    private void writeMeasurement(GnssMeasurement m, long elapsedRealtime, long elapsedRealtimeNanos) {
+        // Optional fields are only logged on API levels where CsvFileLogger would log them
+        boolean isO = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
+        boolean isQ = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+        boolean isR = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R;
+        int present = 0;
+        if (m.hasCarrierFrequencyHz()) present |= MEAS_CARRIER_FREQUENCY;
+        if (m.hasCarrierCycles()) present |= MEAS_CARRIER_CYCLES;
+        if (m.hasCarrierPhase()) present |= MEAS_CARRIER_PHASE;
+        if (m.hasCarrierPhaseUncertainty()) present |= MEAS_CARRIER_PHASE_UNCERTAINTY;
+        if (m.hasSnrInDb()) present |= MEAS_SNR;
+        if (isO && m.hasAutomaticGainControlLevelDb()) present |= MEAS_AGC;
+        if (isR && m.hasBasebandCn0DbHz()) present |= MEAS_BASEBAND_CN0;
+        if (isR && m.hasFullInterSignalBiasNanos()) present |= MEAS_FULL_ISB;
+        if (isR && m.hasFullInterSignalBiasUncertaintyNanos()) present |= MEAS_FULL_ISB_UNCERTAINTY;
+        if (isR && m.hasSatelliteInterSignalBiasNanos()) present |= MEAS_SATELLITE_ISB;
+        if (isR && m.hasSatelliteInterSignalBiasUncertaintyNanos()) present |= MEAS_SATELLITE_ISB_UNCERTAINTY;
+        if (isQ && m.hasCodeType()) present |= MEAS_CODE_TYPE;
+
+        record.begin(TYPE_MEASUREMENT)
+                .writeLong(elapsedRealtime - timestamps.elapsedRealtimeMillis)
+                .writeLong(elapsedNanosDelta(elapsedRealtimeNanos))
+                .writeVarint(present)
+                .writeLong(m.getSvid())
+                .writeLong(m.getState())
+                .writeLong(m.getReceivedSvTimeNanos())
+                .writeLong(m.getReceivedSvTimeUncertaintyNanos())
+                .writeLong(m.getAccumulatedDeltaRangeState())
+                .writeLong(m.getMultipathIndicator())
+                .writeLong(m.getConstellationType());
+        timestamps.elapsedRealtimeMillis = elapsedRealtime;
+        if ((present & MEAS_CARRIER_CYCLES) != 0) record.writeLong(m.getCarrierCycles());
+
+        record.beginDoubles()
+                .writeDouble(m.getTimeOffsetNanos())
+                .writeDouble(m.getCn0DbHz())
+                .writeDouble(m.getPseudorangeRateMetersPerSecond())
+                .writeDouble(m.getPseudorangeRateUncertaintyMetersPerSecond())
+                .writeDouble(m.getAccumulatedDeltaRangeMeters())
+                .writeDouble(m.getAccumulatedDeltaRangeUncertaintyMeters());
+        if ((present & MEAS_CARRIER_PHASE) != 0) record.writeDouble(m.getCarrierPhase());
+        if ((present & MEAS_CARRIER_PHASE_UNCERTAINTY) != 0) record.writeDouble(m.getCarrierPhaseUncertainty());
+        if ((present & MEAS_SNR) != 0) record.writeDouble(m.getSnrInDb());
+        if ((present & MEAS_AGC) != 0) record.writeDouble(m.getAutomaticGainControlLevelDb());
+        if ((present & MEAS_BASEBAND_CN0) != 0) record.writeDouble(m.getBasebandCn0DbHz());
+        if ((present & MEAS_FULL_ISB) != 0) record.writeDouble(m.getFullInterSignalBiasNanos());
+        if ((present & MEAS_FULL_ISB_UNCERTAINTY) != 0) record.writeDouble(m.getFullInterSignalBiasUncertaintyNanos());
+        if ((present & MEAS_SATELLITE_ISB) != 0) record.writeDouble(m.getSatelliteInterSignalBiasNanos());
+        if ((present & MEAS_SATELLITE_ISB_UNCERTAINTY) != 0) record.writeDouble(m.getSatelliteInterSignalBiasUncertaintyNanos());
+        record.endDoubles();
+
+        if ((present & MEAS_CARRIER_FREQUENCY) != 0) record.writeFloat(m.getCarrierFrequencyHz());
+        if ((present & MEAS_CODE_TYPE) != 0) record.writeString(m.getCodeType());
+        writeRecord();
+    }
+
+    public synchronized void onGnssNavigationMessageReceived(GnssNavigationMessage navigationMessage) {
+        if (outputStream == null) {
+            return;
+        }
+        byte[] data = navigationMessage.getData();
+        record.begin(TYPE_NAV)
+                .writeLong(navigationMessage.getSvid())
+                .writeLong(navigationMessage.getType())
+                .writeLong(navigationMessage.getStatus())
+                .writeLong(navigationMessage.getMessageId())
+                .writeLong(navigationMessage.getSubmessageId())
+                .writeBytes(data, data.length);
+        writeRecord();
+        onRecordWritten(LogIndex.TYPE_NAV);
+    }
+
+    public synchronized void onNmeaReceived(long timestamp, String s) {
+        if (outputStream == null) {
+            return;
+        }
+        record.begin(TYPE_NMEA)
+                .writeLong(utcDelta(timestamp))
+                .writeString(s.trim());
+        writeRecord();
+        onRecordWritten(LogIndex.TYPE_NMEA, timestamp, toElapsedRealtimeNanos(timestamp));
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.R)
+    public synchronized void onGnssAntennaInfoReceived(@NonNull List<GnssAntennaInfo> list) {
+        if (outputStream == null) {
+            return;
+        }
+        record.begin(TYPE_ANTENNA).writeVarint(list.size());
+        for (GnssAntennaInfo info : list) {
+            record.writeString(FormatUtils.toLog(info));
+        }
+        writeRecord();
+        onRecordWritten(LogIndex.TYPE_ANTENNA_INFO);
+    }
+
+    public synchronized void onOrientationChanged(Orientation orientation, long currentTimeMs, long millisSinceBootMs) {
+        if (outputStream == null) {
+            return;
+        }
+        long timeAtBootMs = currentTimeMs - millisSinceBootMs;
+        long utcTimeMillis = TimeUnit.NANOSECONDS.toMillis(orientation.getElapsedRealtimeNanos()) + timeAtBootMs;
+        double[] values = orientation.getValues();
+        record.begin(TYPE_ORIENTATION)
+                .writeLong(utcDelta(utcTimeMillis))
+                .writeLong(elapsedNanosDelta(orientation.getElapsedRealtimeNanos()))
+                .beginDoubles()
+                .writeDouble(values[0])
+                .writeDouble(values[1])
+                .writeDouble(values[2])
+                .endDoubles();
+        writeRecord();
+        onRecordWritten(LogIndex.TYPE_ORIENTATION, utcTimeMillis, orientation.getElapsedRealtimeNanos());
+    }
+
+    private long utcDelta(long utcTimeMillis) {
+        long delta = utcTimeMillis - timestamps.utcTimeMillis;
+        timestamps.utcTimeMillis = utcTimeMillis;
+        return delta;
+    }
+
+    private long elapsedNanosDelta(long elapsedRealtimeNanos) {
+        long delta = elapsedRealtimeNanos - timestamps.elapsedRealtimeNanos;
+        timestamps.elapsedRealtimeNanos = elapsedRealtimeNanos;
+        return delta;
+    }
+
+    private void writeRecord() {
+        try {
+            record.writeTo(outputStream);
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+    }
+}
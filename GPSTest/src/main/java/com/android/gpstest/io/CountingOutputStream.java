@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes written to a log before they are compressed, which are the offsets used in the
+ * log index
+ */
+class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+    private boolean forwardFlush = true;
+
+    /**
+     * @param count the number of bytes already in the file
+     */
+    CountingOutputStream(OutputStream out, long count) {
+        super(out);
+        this.count = count;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Sets whether flush() flushes the underlying stream. Writers on top of this stream can be
+     * flushed with this set to false to count everything they've buffered without the cost of
+     * flushing compression and the file.
+     */
+    void setForwardFlush(boolean forwardFlush) {
+        this.forwardFlush = forwardFlush;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (forwardFlush) {
+            out.flush();
+        }
+    }
+}
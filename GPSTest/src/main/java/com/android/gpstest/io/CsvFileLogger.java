@@ -37,14 +37,17 @@ import androidx.core.content.ContextCompat;
 import com.android.gpstest.Application;
 import com.android.gpstest.BuildConfig;
 import com.android.gpstest.R;
+import com.android.gpstest.library.io.LogIndex;
 import com.android.gpstest.library.model.Orientation;
 import com.android.gpstest.library.model.SatelliteStatus;
+import com.android.gpstest.library.util.CsvRecordFormatter;
 import com.android.gpstest.library.util.FormatUtils;
 import com.android.gpstest.library.util.IOUtils;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A GNSS logger to store information to a CSV file. Originally from https://github.com/google/gps-measurement-tools/tree/master/GNSSLogger,
@@ -55,6 +58,11 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
     private static final String COMMENT_START = "# ";
     private static final char RECORD_DELIMITER = ',';
     private static final String VERSION_TAG = "Version: ";
+    // Same line separator BufferedWriter.newLine() writes
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    // Reused for each record so that high-rate records don't create garbage
+    private final CsvRecordFormatter formatter = new CsvRecordFormatter();
 
     public CsvFileLogger(Context context) {
         super(context);
@@ -65,6 +73,12 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
         return "txt";
     }
 
+    @Override
+    boolean isIndexSupported() {
+        // Each line is a complete record
+        return true;
+    }
+
     @Override
     boolean postFileInit(BufferedWriter fileWriter, boolean isNewFile) {
         ContextCompat.getMainExecutor(context).execute(() -> Toast.makeText(
@@ -86,110 +100,119 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
      */
     @Override
     void writeFileHeader(BufferedWriter writer, String filePath) {
-        // TODO - update header to new field formats
         try {
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("Header Description:");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write(VERSION_TAG);
-            String manufacturer = Build.MANUFACTURER;
-            String model = Build.MODEL;
+            writeHeader(context, writer);
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.could_not_initialize_file, filePath), e);
+        }
+    }
 
-            String versionString = "";
-            int versionCode = 0;
-            try {
-                PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
-                versionString = info.versionName;
-                versionCode = info.versionCode;
-            } catch (PackageManager.NameNotFoundException e) {
-                e.printStackTrace();
-            }
+    /**
+     * Writes the CSV header describing the device and each record format
+     *
+     * @param context context used to look up the app version
+     * @param writer  writer to use when writing the header
+     */
+    static void writeHeader(Context context, BufferedWriter writer) throws IOException {
+        // TODO - update header to new field formats
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("Header Description:");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write(VERSION_TAG);
+        String manufacturer = Build.MANUFACTURER;
+        String model = Build.MODEL;
+
+        String versionString = "";
+        int versionCode = 0;
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            versionString = info.versionName;
+            versionCode = info.versionCode;
+        } catch (PackageManager.NameNotFoundException e) {
+            e.printStackTrace();
+        }
 
-            StringBuilder version = new StringBuilder();
-            // Version info
-            version.append("v")
-                    .append(versionString)
-                    .append(" (")
-                    .append(versionCode)
-                    .append("-" + BuildConfig.FLAVOR + "), ");
+        StringBuilder version = new StringBuilder();
+        // Version info
+        version.append("v")
+                .append(versionString)
+                .append(" (")
+                .append(versionCode)
+                .append("-" + BuildConfig.FLAVOR + "), ");
 
-            version.append("Manufacturer: " + manufacturer + ", ");
-            version.append("Model: " + model + ", ");
+        version.append("Manufacturer: " + manufacturer + ", ");
+        version.append("Model: " + model + ", ");
 
-            version.append("GNSS HW Year: " + IOUtils.getGnssHardwareYear(Application.Companion.getApp()) + ", ");
+        version.append("GNSS HW Year: " + IOUtils.getGnssHardwareYear(Application.Companion.getApp()) + ", ");
 
-            String versionRelease = Build.VERSION.RELEASE;
-            version.append("Platform: " + versionRelease + ", ");
-            int apiLevel = Build.VERSION.SDK_INT;
-            version.append("API Level: " + apiLevel + " ");
+        String versionRelease = Build.VERSION.RELEASE;
+        version.append("Platform: " + versionRelease + ", ");
+        int apiLevel = Build.VERSION.SDK_INT;
+        version.append("API Level: " + apiLevel + " ");
 
-            writer.write(version.toString());
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("Raw GNSS measurements format:");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write(
-                    "  Raw,utcTimeMillis,TimeNanos,LeapSecond,TimeUncertaintyNanos,FullBiasNanos,BiasNanos,BiasUncertaintyNanos,DriftNanosPerSecond,DriftUncertaintyNanosPerSecond,HardwareClockDiscontinuityCount,Svid,TimeOffsetNanos,State,ReceivedSvTimeNanos,ReceivedSvTimeUncertaintyNanos,Cn0DbHz,PseudorangeRateMetersPerSecond,PseudorangeRateUncertaintyMetersPerSecond,AccumulatedDeltaRangeState,AccumulatedDeltaRangeMeters,AccumulatedDeltaRangeUncertaintyMeters,CarrierFrequencyHz,CarrierCycles,CarrierPhase,CarrierPhaseUncertainty,MultipathIndicator,SnrInDb,ConstellationType,AgcDb,BasebandCn0DbHz,FullInterSignalBiasNanos,FullInterSignalBiasUncertaintyNanos,SatelliteInterSignalBiasNanos,SatelliteInterSignalBiasUncertaintyNanos,CodeType,ChipsetElapsedRealtimeNanos");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("Location fix format:");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write(
-                    "  Fix,Provider,LatitudeDegrees,LongitudeDegrees,AltitudeMeters,SpeedMps,AccuracyMeters,BearingDegrees,UnixTimeMillis,SpeedAccuracyMps,BearingAccuracyDegrees,elapsedRealtimeNanos,VerticalAccuracyMeters,MockLocation");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("Navigation message format:");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("  Nav,Svid,Type,Status,MessageId,Sub-messageId,Data(Bytes)");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("NMEA format (for [NMEA sentence] format see https://en.wikipedia.org/wiki/NMEA_0183):");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("  NMEA,[NMEA sentence],(UTC)TimeInMs");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("GnssAntennaInfo format (https://developer.android.com/reference/android/location/GnssAntennaInfo):");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("  GnssAntennaInfo,CarrierFrequencyMHz,PhaseCenterOffsetXOffsetMm,PhaseCenterOffsetXOffsetUncertaintyMm,PhaseCenterOffsetYOffsetMm,PhaseCenterOffsetYOffsetUncertaintyMm,PhaseCenterOffsetZOffsetMm,PhaseCenterOffsetZOffsetUncertaintyMm,PhaseCenterVariationCorrectionsArray,PhaseCenterVariationCorrectionUncertaintiesArray,PhaseCenterVariationCorrectionsDeltaPhi,PhaseCenterVariationCorrectionsDeltaTheta,SignalGainCorrectionsArray,SignalGainCorrectionUncertaintiesArray,SignalGainCorrectionsDeltaPhi,SignalGainCorrectionsDeltaTheta");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("GnssStatus format (https://developer.android.com/reference/android/location/GnssStatus):");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("  Status,UnixTimeMillis,SignalCount,SignalIndex,ConstellationType,Svid,CarrierFrequencyHz,Cn0DbHz,AzimuthDegrees,ElevationDegrees,UsedInFix,HasAlmanacData,HasEphemerisData,BasebandCn0DbHz");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("Orientation sensor format (https://developer.android.com/reference/android/hardware/SensorEvent#values):");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("  OrientationDeg,utcTimeMillis,elapsedRealtimeNanos,yawDeg,rollDeg,pitchDeg");
-            writer.newLine();
-        } catch (IOException e) {
-            logException(Application.Companion.getApp().getString(R.string.could_not_initialize_file, filePath), e);
-            return;
-        }
+        writer.write(version.toString());
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("Raw GNSS measurements format:");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write(
+                "  Raw,utcTimeMillis,TimeNanos,LeapSecond,TimeUncertaintyNanos,FullBiasNanos,BiasNanos,BiasUncertaintyNanos,DriftNanosPerSecond,DriftUncertaintyNanosPerSecond,HardwareClockDiscontinuityCount,Svid,TimeOffsetNanos,State,ReceivedSvTimeNanos,ReceivedSvTimeUncertaintyNanos,Cn0DbHz,PseudorangeRateMetersPerSecond,PseudorangeRateUncertaintyMetersPerSecond,AccumulatedDeltaRangeState,AccumulatedDeltaRangeMeters,AccumulatedDeltaRangeUncertaintyMeters,CarrierFrequencyHz,CarrierCycles,CarrierPhase,CarrierPhaseUncertainty,MultipathIndicator,SnrInDb,ConstellationType,AgcDb,BasebandCn0DbHz,FullInterSignalBiasNanos,FullInterSignalBiasUncertaintyNanos,SatelliteInterSignalBiasNanos,SatelliteInterSignalBiasUncertaintyNanos,CodeType,ChipsetElapsedRealtimeNanos");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("Location fix format:");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write(
+                "  Fix,Provider,LatitudeDegrees,LongitudeDegrees,AltitudeMeters,SpeedMps,AccuracyMeters,BearingDegrees,UnixTimeMillis,SpeedAccuracyMps,BearingAccuracyDegrees,elapsedRealtimeNanos,VerticalAccuracyMeters,MockLocation");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("Navigation message format:");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("  Nav,Svid,Type,Status,MessageId,Sub-messageId,Data(Bytes)");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("NMEA format (for [NMEA sentence] format see https://en.wikipedia.org/wiki/NMEA_0183):");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("  NMEA,[NMEA sentence],(UTC)TimeInMs");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("GnssAntennaInfo format (https://developer.android.com/reference/android/location/GnssAntennaInfo):");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("  GnssAntennaInfo,CarrierFrequencyMHz,PhaseCenterOffsetXOffsetMm,PhaseCenterOffsetXOffsetUncertaintyMm,PhaseCenterOffsetYOffsetMm,PhaseCenterOffsetYOffsetUncertaintyMm,PhaseCenterOffsetZOffsetMm,PhaseCenterOffsetZOffsetUncertaintyMm,PhaseCenterVariationCorrectionsArray,PhaseCenterVariationCorrectionUncertaintiesArray,PhaseCenterVariationCorrectionsDeltaPhi,PhaseCenterVariationCorrectionsDeltaTheta,SignalGainCorrectionsArray,SignalGainCorrectionUncertaintiesArray,SignalGainCorrectionsDeltaPhi,SignalGainCorrectionsDeltaTheta");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("GnssStatus format (https://developer.android.com/reference/android/location/GnssStatus):");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("  Status,UnixTimeMillis,SignalCount,SignalIndex,ConstellationType,Svid,CarrierFrequencyHz,Cn0DbHz,AzimuthDegrees,ElevationDegrees,UsedInFix,HasAlmanacData,HasEphemerisData,BasebandCn0DbHz");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("Orientation sensor format (https://developer.android.com/reference/android/hardware/SensorEvent#values):");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("  OrientationDeg,utcTimeMillis,elapsedRealtimeNanos,yawDeg,rollDeg,pitchDeg");
+        writer.newLine();
     }
 
     public synchronized void onLocationChanged(Location location) {
@@ -197,13 +220,13 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
             if (fileWriter == null) {
                 return;
             }
-            String locationStream = FormatUtils.toLog(location);
             try {
-                fileWriter.write(locationStream);
+                formatter.reset().appendFix(location).writeTo(fileWriter);
                 fileWriter.newLine();
             } catch (IOException e) {
                 logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
             }
+            onRecordWritten(LogIndex.TYPE_FIX, location.getTime(), location.getElapsedRealtimeNanos());
         }
     }
 
@@ -225,12 +248,13 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
             }
             i++;
         }
+        onRecordWritten(LogIndex.TYPE_STATUS);
     }
 
     private synchronized void writeStatusToFile(SatelliteStatus status, long unixTimeMillis, int signalCount, int signalIndex) throws IOException {
-        fileWriter.write(
-            FormatUtils.toLog(status, unixTimeMillis, signalCount, signalIndex)
-        );
+        formatter.reset()
+                .appendStatus(status, unixTimeMillis, signalCount, signalIndex)
+                .writeTo(fileWriter);
         fileWriter.newLine();
     }
 
@@ -238,14 +262,21 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
         if (fileWriter == null) {
             return;
         }
+        // All rows of the epoch get the same timestamps and are written to the file in one write
+        long elapsedRealtime = SystemClock.elapsedRealtime();
+        long elapsedRealtimeNanos = SystemClock.elapsedRealtimeNanos();
         GnssClock gnssClock = event.getClock();
+        formatter.reset();
         for (GnssMeasurement measurement : event.getMeasurements()) {
-            try {
-                writeGnssMeasurementToFile(gnssClock, measurement);
-            } catch (IOException e) {
-                logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
-            }
+            formatter.appendRaw(elapsedRealtime, elapsedRealtimeNanos, gnssClock, measurement)
+                    .append(LINE_SEPARATOR);
+        }
+        try {
+            formatter.writeTo(fileWriter);
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
         }
+        onMeasurementsWritten(gnssClock);
     }
 
     public synchronized void onGnssNavigationMessageReceived(GnssNavigationMessage navigationMessage) {
@@ -276,6 +307,7 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
         } catch (IOException e) {
             logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
         }
+        onRecordWritten(LogIndex.TYPE_NAV);
     }
 
     public synchronized void onNmeaReceived(long timestamp, String s) {
@@ -289,18 +321,7 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
         } catch (IOException e) {
             logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
         }
-    }
-
-    private void writeGnssMeasurementToFile(GnssClock clock, GnssMeasurement measurement)
-            throws IOException {
-        fileWriter.write(
-                FormatUtils.toLog(
-                        SystemClock.elapsedRealtime(),
-                        SystemClock.elapsedRealtimeNanos(),
-                        clock,
-                        measurement)
-        );
-        fileWriter.newLine();
+        onRecordWritten(LogIndex.TYPE_NMEA, timestamp, toElapsedRealtimeNanos(timestamp));
     }
 
     @RequiresApi(api = Build.VERSION_CODES.R)
@@ -314,6 +335,7 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
         } catch (IOException e) {
             logException("Unable to write antenna info to CSV", e);
         }
+        onRecordWritten(LogIndex.TYPE_ANTENNA_INFO);
     }
 
     public synchronized void onOrientationChanged(Orientation orientation, long currentTimeMs, long millisSinceBootMs) {
@@ -321,10 +343,16 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
             return;
         }
         try {
-            fileWriter.write(FormatUtils.toLog(orientation, currentTimeMs, millisSinceBootMs));
+            formatter.reset()
+                    .appendOrientation(orientation, currentTimeMs, millisSinceBootMs)
+                    .writeTo(fileWriter);
             fileWriter.newLine();
         } catch (IOException e) {
             logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
         }
+        long timeAtBootMs = currentTimeMs - millisSinceBootMs;
+        onRecordWritten(LogIndex.TYPE_ORIENTATION,
+                TimeUnit.NANOSECONDS.toMillis(orientation.getElapsedRealtimeNanos()) + timeAtBootMs,
+                orientation.getElapsedRealtimeNanos());
     }
 }
@@ -18,7 +18,14 @@ package com.android.gpstest.io;
 
 import android.content.Context;
 import android.location.GnssAntennaInfo;
+import android.location.GnssClock;
+import android.location.GnssMeasurement;
+import android.location.GnssMeasurementsEvent;
+import android.location.GnssNavigationMessage;
+import android.location.Location;
+import android.location.LocationManager;
 import android.os.Build;
+import android.os.SystemClock;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -27,31 +34,77 @@ import androidx.core.content.ContextCompat;
 
 import com.android.gpstest.Application;
 import com.android.gpstest.R;
+import com.android.gpstest.library.io.LogIndex;
+import com.android.gpstest.library.io.LogRecovery;
+import com.android.gpstest.library.model.Orientation;
+import com.android.gpstest.library.model.SatelliteStatus;
+import com.android.gpstest.library.util.SatelliteUtil;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A GNSS logger to store information to a JSON file. Originally from https://github.com/google/gps-measurement-tools/tree/master/GNSSLogger,
  * modified for GPSTest.
+ *
+ * Each record is a JSON object with a "type" field ("Raw", "Fix", "Status", "NMEA", "Nav" or
+ * "OrientationDeg") and the same fields as the CsvFileLogger record of that type, written directly
+ * with the JsonGenerator. Optional fields that aren't available are left out. By default records
+ * are written as one top-level array - in newline-delimited JSON mode each record is written on
+ * its own line instead, so files can be appended to and read one record at a time.
  */
 public class JsonFileLogger extends BaseFileLogger implements FileLogger {
 
+    static final String LINES_FILE_EXTENSION = "ndjson";
+
     ObjectMapper mapper;
     JsonGenerator jsonGenerator;
+    // True if the current file is newline-delimited JSON instead of a single array
+    private boolean isLinesFile = false;
+    private boolean writeLines = false;
+    // True if records are being added to the array of an existing file, which recovery left open
+    private boolean isContinuedArray = false;
+    private boolean continuedArrayHasRecords = false;
 
     public JsonFileLogger(Context context) {
         super(context);
     }
 
+    /**
+     * Sets whether new files are written as newline-delimited JSON (.ndjson) instead of a single
+     * JSON array. Takes effect the next time a new file is started.
+     */
+    public synchronized void setWriteLines(boolean writeLines) {
+        this.writeLines = writeLines;
+    }
+
     @Override
     String getFileExtension() {
-        return "json";
+        return writeLines ? LINES_FILE_EXTENSION : "json";
+    }
+
+    @Override
+    boolean isIndexSupported() {
+        // Each line of a newline-delimited file is a complete record, while an array must be read from the start
+        return isLinesFile;
+    }
+
+    @Override
+    LogRecovery.Result recoverFile(File file) throws IOException {
+        if (file.getName().contains("." + LINES_FILE_EXTENSION)) {
+            return super.recoverFile(file);
+        }
+        LogRecovery.Result result = LogRecovery.repair(file, LogRecovery.FORMAT_JSON_ARRAY);
+        continuedArrayHasRecords = result.hasRecords();
+        return result;
     }
 
     @Override
@@ -63,9 +116,21 @@ public class JsonFileLogger extends BaseFileLogger implements FileLogger {
     boolean postFileInit(BufferedWriter fileWriter, boolean isNewFile) {
         if (jsonGenerator == null) {
             try {
+                isLinesFile = file.getName().contains("." + LINES_FILE_EXTENSION);
+                isContinuedArray = !isLinesFile && !isNewFile;
                 jsonGenerator = mapper.getFactory().createGenerator(fileWriter);
-                if (isNewFile) {
+                if (isLinesFile) {
+                    // Each record ends with a newline instead
+                    jsonGenerator.setRootValueSeparator(null);
+                } else if (isNewFile) {
                     jsonGenerator.writeStartArray();
+                } else {
+                    // The generator can't continue an array it didn't start, so write the new
+                    // elements as root values separated by commas, after the existing elements
+                    jsonGenerator.setRootValueSeparator(new SerializedString(","));
+                    if (continuedArrayHasRecords) {
+                        jsonGenerator.writeRaw(',');
+                    }
                 }
             } catch (IOException e) {
                 logException(Application.Companion.getApp().getString(R.string.unable_to_open_json_generator), e);
@@ -97,38 +162,277 @@ public class JsonFileLogger extends BaseFileLogger implements FileLogger {
             mapper = new ObjectMapper();
             // We manage closing the underlying file streams in super.close()
             mapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Flushing is handled by onRecordWritten() - flushing every value defeats compression
+            mapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
         }
         return super.startLog(existingFile, date);
     }
 
     @Override
-    public synchronized void close() {
-        if (fileWriter != null) {
-            try {
-                if (jsonGenerator != null) {
+    void preFileClose() {
+        try {
+            if (jsonGenerator != null) {
+                if (isContinuedArray) {
+                    jsonGenerator.writeRaw(']');
+                } else if (!isLinesFile) {
                     jsonGenerator.writeEndArray();
-                    jsonGenerator.flush();
-                    jsonGenerator.close();
                 }
-                mapper = null;
-                jsonGenerator = null;
-            } catch (IOException e) {
-                logException("Unable to close jsonGenerator and mapper file streams.", e);
+                jsonGenerator.flush();
+                jsonGenerator.close();
             }
+            mapper = null;
+            jsonGenerator = null;
+        } catch (IOException e) {
+            logException("Unable to close jsonGenerator and mapper file streams.", e);
         }
-        super.close();
+    }
+
+    @Override
+    protected void flush() throws IOException {
+        if (jsonGenerator != null) {
+            jsonGenerator.flush();
+        }
+        super.flush();
     }
 
     @RequiresApi(api = Build.VERSION_CODES.R)
     public synchronized void onGnssAntennaInfoReceived(@NonNull List<GnssAntennaInfo> list) {
+        if (mapper == null || jsonGenerator == null) {
+            return;
+        }
         try {
-            if (mapper != null && jsonGenerator != null) {
-                for (GnssAntennaInfo info : list) {
-                    mapper.writeValue(jsonGenerator, info);
-                }
+            for (GnssAntennaInfo info : list) {
+                mapper.writeValue(jsonGenerator, info);
+                endRecord();
             }
         } catch (IOException e) {
             logException("Unable to write antenna info to JSON", e);
         }
+        onRecordWritten(LogIndex.TYPE_ANTENNA_INFO);
+    }
+
+    public synchronized void onLocationChanged(Location location) {
+        if (jsonGenerator == null || !location.getProvider().equals(LocationManager.GPS_PROVIDER)) {
+            return;
+        }
+        try {
+            JsonGenerator g = jsonGenerator;
+            g.writeStartObject();
+            g.writeStringField("type", "Fix");
+            g.writeStringField("Provider", location.getProvider());
+            g.writeNumberField("LatitudeDegrees", location.getLatitude());
+            g.writeNumberField("LongitudeDegrees", location.getLongitude());
+            g.writeNumberField("AltitudeMeters", location.getAltitude());
+            g.writeNumberField("SpeedMps", location.getSpeed());
+            g.writeNumberField("AccuracyMeters", location.getAccuracy());
+            g.writeNumberField("BearingDegrees", location.getBearing());
+            g.writeNumberField("UnixTimeMillis", location.getTime());
+            if (SatelliteUtil.INSTANCE.isSpeedAccuracySupported(location)) {
+                g.writeNumberField("SpeedAccuracyMps", location.getSpeedAccuracyMetersPerSecond());
+            }
+            if (SatelliteUtil.INSTANCE.isBearingAccuracySupported(location)) {
+                g.writeNumberField("BearingAccuracyDegrees", location.getBearingAccuracyDegrees());
+            }
+            g.writeNumberField("elapsedRealtimeNanos", location.getElapsedRealtimeNanos());
+            if (SatelliteUtil.INSTANCE.isVerticalAccuracySupported(location)) {
+                g.writeNumberField("VerticalAccuracyMeters", location.getVerticalAccuracyMeters());
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                g.writeBooleanField("MockLocation", location.isMock());
+            }
+            g.writeEndObject();
+            endRecord();
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+        onRecordWritten(LogIndex.TYPE_FIX, location.getTime(), location.getElapsedRealtimeNanos());
+    }
+
+    /**
+     * Called to log GnssStatus information
+     * @param statuses GnssStatus information converted to a list of SatelliteStatus
+     * @param location the most recently calculated location, or null if one hasn't been calculated yet
+     */
+    public synchronized void onGnssStatusChanged(List<SatelliteStatus> statuses, Location location) {
+        if (jsonGenerator == null) {
+            return;
+        }
+        long unixTimeMillis = location != null ? location.getTime() : 0;
+        try {
+            JsonGenerator g = jsonGenerator;
+            int i = 0;
+            for (SatelliteStatus s : statuses) {
+                g.writeStartObject();
+                g.writeStringField("type", "Status");
+                g.writeNumberField("UnixTimeMillis", unixTimeMillis);
+                g.writeNumberField("SignalCount", statuses.size());
+                g.writeNumberField("SignalIndex", i);
+                g.writeNumberField("ConstellationType", SatelliteUtil.INSTANCE.toGnssStatusConstellationType(s.getGnssType()));
+                g.writeNumberField("Svid", s.getSvid());
+                g.writeNumberField("CarrierFrequencyHz", s.getCarrierFrequencyHz());
+                g.writeNumberField("Cn0DbHz", s.getCn0DbHz());
+                g.writeNumberField("AzimuthDegrees", s.getAzimuthDegrees());
+                g.writeNumberField("ElevationDegrees", s.getElevationDegrees());
+                g.writeBooleanField("UsedInFix", s.getUsedInFix());
+                g.writeBooleanField("HasAlmanacData", s.getHasAlmanac());
+                g.writeBooleanField("HasEphemerisData", s.getHasEphemeris());
+                if (s.getHasBasebandCn0DbHz()) {
+                    g.writeNumberField("BasebandCn0DbHz", s.getBasebandCn0DbHz());
+                }
+                g.writeEndObject();
+                endRecord();
+                i++;
+            }
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+        onRecordWritten(LogIndex.TYPE_STATUS);
+    }
+
+    public synchronized void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
+        if (jsonGenerator == null) {
+            return;
+        }
+        // Same timestamps for every measurement in the epoch, like CsvFileLogger
+        long elapsedRealtime = SystemClock.elapsedRealtime();
+        long elapsedRealtimeNanos = SystemClock.elapsedRealtimeNanos();
+        GnssClock clock = event.getClock();
+        try {
+            for (GnssMeasurement measurement : event.getMeasurements()) {
+                writeMeasurement(elapsedRealtime, elapsedRealtimeNanos, clock, measurement);
+            }
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+        onMeasurementsWritten(clock);
+    }
+
+    private void writeMeasurement(long elapsedRealtime, long elapsedRealtimeNanos, GnssClock clock,
+                                  GnssMeasurement m) throws IOException {
+        JsonGenerator g = jsonGenerator;
+        g.writeStartObject();
+        g.writeStringField("type", "Raw");
+        g.writeNumberField("utcTimeMillis", elapsedRealtime);
+        g.writeNumberField("TimeNanos", clock.getTimeNanos());
+        if (clock.hasLeapSecond()) g.writeNumberField("LeapSecond", clock.getLeapSecond());
+        if (clock.hasTimeUncertaintyNanos()) g.writeNumberField("TimeUncertaintyNanos", clock.getTimeUncertaintyNanos());
+        if (clock.hasFullBiasNanos()) g.writeNumberField("FullBiasNanos", clock.getFullBiasNanos());
+        if (clock.hasBiasNanos()) g.writeNumberField("BiasNanos", clock.getBiasNanos());
+        if (clock.hasBiasUncertaintyNanos()) g.writeNumberField("BiasUncertaintyNanos", clock.getBiasUncertaintyNanos());
+        if (clock.hasDriftNanosPerSecond()) g.writeNumberField("DriftNanosPerSecond", clock.getDriftNanosPerSecond());
+        if (clock.hasDriftUncertaintyNanosPerSecond()) g.writeNumberField("DriftUncertaintyNanosPerSecond", clock.getDriftUncertaintyNanosPerSecond());
+        g.writeNumberField("HardwareClockDiscontinuityCount", clock.getHardwareClockDiscontinuityCount());
+
+        g.writeNumberField("Svid", m.getSvid());
+        g.writeNumberField("TimeOffsetNanos", m.getTimeOffsetNanos());
+        g.writeNumberField("State", m.getState());
+        g.writeNumberField("ReceivedSvTimeNanos", m.getReceivedSvTimeNanos());
+        g.writeNumberField("ReceivedSvTimeUncertaintyNanos", m.getReceivedSvTimeUncertaintyNanos());
+        g.writeNumberField("Cn0DbHz", m.getCn0DbHz());
+        g.writeNumberField("PseudorangeRateMetersPerSecond", m.getPseudorangeRateMetersPerSecond());
+        g.writeNumberField("PseudorangeRateUncertaintyMetersPerSecond", m.getPseudorangeRateUncertaintyMetersPerSecond());
+        g.writeNumberField("AccumulatedDeltaRangeState", m.getAccumulatedDeltaRangeState());
+        g.writeNumberField("AccumulatedDeltaRangeMeters", m.getAccumulatedDeltaRangeMeters());
+        g.writeNumberField("AccumulatedDeltaRangeUncertaintyMeters", m.getAccumulatedDeltaRangeUncertaintyMeters());
+        if (m.hasCarrierFrequencyHz()) g.writeNumberField("CarrierFrequencyHz", m.getCarrierFrequencyHz());
+        if (m.hasCarrierCycles()) g.writeNumberField("CarrierCycles", m.getCarrierCycles());
+        if (m.hasCarrierPhase()) g.writeNumberField("CarrierPhase", m.getCarrierPhase());
+        if (m.hasCarrierPhaseUncertainty()) g.writeNumberField("CarrierPhaseUncertainty", m.getCarrierPhaseUncertainty());
+        g.writeNumberField("MultipathIndicator", m.getMultipathIndicator());
+        if (m.hasSnrInDb()) g.writeNumberField("SnrInDb", m.getSnrInDb());
+        g.writeNumberField("ConstellationType", m.getConstellationType());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && m.hasAutomaticGainControlLevelDb()) {
+            g.writeNumberField("AgcDb", m.getAutomaticGainControlLevelDb());
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            if (m.hasBasebandCn0DbHz()) g.writeNumberField("BasebandCn0DbHz", m.getBasebandCn0DbHz());
+            if (m.hasFullInterSignalBiasNanos()) g.writeNumberField("FullInterSignalBiasNanos", m.getFullInterSignalBiasNanos());
+            if (m.hasFullInterSignalBiasUncertaintyNanos()) g.writeNumberField("FullInterSignalBiasUncertaintyNanos", m.getFullInterSignalBiasUncertaintyNanos());
+            if (m.hasSatelliteInterSignalBiasNanos()) g.writeNumberField("SatelliteInterSignalBiasNanos", m.getSatelliteInterSignalBiasNanos());
+            if (m.hasSatelliteInterSignalBiasUncertaintyNanos()) g.writeNumberField("SatelliteInterSignalBiasUncertaintyNanos", m.getSatelliteInterSignalBiasUncertaintyNanos());
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && m.hasCodeType()) {
+            g.writeStringField("CodeType", m.getCodeType());
+        }
+        g.writeNumberField("ChipsetElapsedRealtimeNanos", elapsedRealtimeNanos);
+        g.writeEndObject();
+        endRecord();
+    }
+
+    public synchronized void onGnssNavigationMessageReceived(GnssNavigationMessage navigationMessage) {
+        if (jsonGenerator == null) {
+            return;
+        }
+        try {
+            JsonGenerator g = jsonGenerator;
+            g.writeStartObject();
+            g.writeStringField("type", "Nav");
+            g.writeNumberField("Svid", navigationMessage.getSvid());
+            g.writeNumberField("Type", navigationMessage.getType());
+            g.writeNumberField("Status", navigationMessage.getStatus());
+            g.writeNumberField("MessageId", navigationMessage.getMessageId());
+            g.writeNumberField("Sub-messageId", navigationMessage.getSubmessageId());
+            // Signed bytes, like the CSV file, rather than Jackson's default base64 for binary data
+            g.writeArrayFieldStart("Data");
+            for (byte word : navigationMessage.getData()) {
+                g.writeNumber(word);
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+            endRecord();
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+        onRecordWritten(LogIndex.TYPE_NAV);
+    }
+
+    public synchronized void onNmeaReceived(long timestamp, String s) {
+        if (jsonGenerator == null) {
+            return;
+        }
+        try {
+            JsonGenerator g = jsonGenerator;
+            g.writeStartObject();
+            g.writeStringField("type", "NMEA");
+            g.writeStringField("Sentence", s.trim());
+            g.writeNumberField("TimeInMs", timestamp);
+            g.writeEndObject();
+            endRecord();
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+        onRecordWritten(LogIndex.TYPE_NMEA, timestamp, toElapsedRealtimeNanos(timestamp));
+    }
+
+    public synchronized void onOrientationChanged(Orientation orientation, long currentTimeMs, long millisSinceBootMs) {
+        if (jsonGenerator == null) {
+            return;
+        }
+        long timeAtBootMs = currentTimeMs - millisSinceBootMs;
+        long utcTimeMillis = TimeUnit.NANOSECONDS.toMillis(orientation.getElapsedRealtimeNanos()) + timeAtBootMs;
+        try {
+            JsonGenerator g = jsonGenerator;
+            g.writeStartObject();
+            g.writeStringField("type", "OrientationDeg");
+            g.writeNumberField("utcTimeMillis", utcTimeMillis);
+            g.writeNumberField("elapsedRealtimeNanos", orientation.getElapsedRealtimeNanos());
+            g.writeNumberField("yawDeg", orientation.getValues()[0]);
+            g.writeNumberField("rollDeg", orientation.getValues()[1]);
+            g.writeNumberField("pitchDeg", orientation.getValues()[2]);
+            g.writeEndObject();
+            endRecord();
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+        onRecordWritten(LogIndex.TYPE_ORIENTATION, utcTimeMillis, orientation.getElapsedRealtimeNanos());
+    }
+
+    /**
+     * Ends the line after each record in newline-delimited JSON files
+     */
+    private void endRecord() throws IOException {
+        if (isLinesFile) {
+            jsonGenerator.writeRaw('\n');
+        }
     }
 }
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import android.util.Log;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A single-writer pipeline for file logging. Producers (the flows observed in
+ * ForegroundOnlyLocationService) submit records to a bounded multi-producer queue, and a single
+ * writer thread drains the queue and writes each record to the file loggers in the order it was
+ * submitted. Because there is only one consumer, records from the same source are always written
+ * in the order they were received, and the file loggers are never contended.
+ *
+ * When the queue is full (e.g., storage stalls) the configured {@link OverflowPolicy} is applied,
+ * so memory use is bounded regardless of how slow the writer is. Producers run on the main thread,
+ * so submit() never waits longer than {@link #BLOCK_TIMEOUT_MILLIS} for room in the queue.
+ *
+ * CONTROL records (starting and closing files) don't count towards the capacity and are never
+ * dropped, so files are closed even when the queue is full of records waiting for storage.
+ */
+public class LogPipeline {
+
+    private static final String TAG = "LogPipeline";
+
+    /**
+     * Default number of records that can be waiting for the writer thread
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Longest time submit() waits for room in a full queue before the record is dropped, for the
+     * BLOCK policy
+     */
+    public static final long BLOCK_TIMEOUT_MILLIS = 100;
+
+    /**
+     * Sources of records submitted to the pipeline
+     */
+    public enum Source {
+        LOCATION, STATUS, NMEA, NAV_MESSAGE, MEASUREMENT, ANTENNA, ORIENTATION, CONTROL
+    }
+
+    /**
+     * What to do with a new record when the queue is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Block the producer until there is room in the queue, for up to BLOCK_TIMEOUT_MILLIS,
+         * and then discard the new record
+         */
+        BLOCK,
+        /**
+         * Discard the new record
+         */
+        DROP_NEWEST,
+        /**
+         * Discard the oldest record in the queue to make room for the new record
+         */
+        DROP_OLDEST;
+
+        /**
+         * Converts from the preference value for the overflow policy to the enum, or returns
+         * [defaultPolicy] if the value is unknown
+         */
+        public static OverflowPolicy fromString(String value, OverflowPolicy defaultPolicy) {
+            if (value == null) {
+                return defaultPolicy;
+            }
+            switch (value) {
+                case "block":
+                    return BLOCK;
+                case "drop_newest":
+                    return DROP_NEWEST;
+                case "drop_oldest":
+                    return DROP_OLDEST;
+                default:
+                    return defaultPolicy;
+            }
+        }
+    }
+
+    private static final class Record {
+        final Source source;
+        final Runnable writer;
+        final long submitNanos;
+
+        Record(Source source, Runnable writer) {
+            this.source = source;
+            this.writer = writer;
+            submitNanos = System.nanoTime();
+        }
+    }
+
+    // Sentinel used to stop the writer thread after all previously submitted records are written
+    private static final Record STOP = new Record(Source.CONTROL, () -> { });
+
+    // Not bounded itself - dataPermits bounds the records that aren't CONTROL records
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+    private final int capacity;
+    private final Semaphore dataPermits;
+    private final Thread writerThread;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile OverflowPolicy overflowPolicy;
+    private volatile boolean isShutdown = false;
+    // Set if shutdown() stopped the writer before it wrote all queued records
+    private volatile boolean isAbandoned = false;
+    // Number of submit() calls that may still add a record to the queue
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    private final AtomicLongArray enqueued = new AtomicLongArray(Source.values().length);
+    private final AtomicLongArray written = new AtomicLongArray(Source.values().length);
+    private final AtomicLongArray dropped = new AtomicLongArray(Source.values().length);
+
+    private final LoggingMetrics metrics = new LoggingMetrics(this);
+
+    public LogPipeline(OverflowPolicy overflowPolicy) {
+        this(DEFAULT_CAPACITY, overflowPolicy);
+    }
+
+    public LogPipeline(int capacity, OverflowPolicy overflowPolicy) {
+        this.capacity = capacity;
+        dataPermits = new Semaphore(capacity);
+        this.overflowPolicy = overflowPolicy;
+        writerThread = new Thread(this::drain, "GnssLogWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Submits a record to be written on the writer thread. Records are written in the order
+     * they are submitted.
+     *
+     * @param source the source of the record
+     * @param writer writes the record to the file loggers - always invoked on the writer thread
+     * @return true if the record was queued, false if it was dropped
+     */
+    public boolean submit(Source source, Runnable writer) {
+        submitting.incrementAndGet();
+        try {
+            return enqueue(source, writer);
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    private boolean enqueue(Source source, Runnable writer) {
+        if (isShutdown) {
+            dropped.incrementAndGet(source.ordinal());
+            return false;
+        }
+        Record record = new Record(source, writer);
+        if (source != Source.CONTROL && !acquireDataPermit()) {
+            dropped.incrementAndGet(source.ordinal());
+            return false;
+        }
+        queue.add(record);
+        enqueued.incrementAndGet(source.ordinal());
+        return true;
+    }
+
+    /**
+     * Gets room in the queue for a record that isn't a CONTROL record, applying the overflow
+     * policy if the queue is full
+     *
+     * @return true if there is room for the record, false if it should be dropped
+     */
+    private boolean acquireDataPermit() {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    return dataPermits.tryAcquire(BLOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            case DROP_NEWEST:
+                return dataPermits.tryAcquire();
+            case DROP_OLDEST:
+            default:
+                while (!dataPermits.tryAcquire()) {
+                    Record oldest = null;
+                    for (Record record : queue) {
+                        if (record.source != Source.CONTROL) {
+                            oldest = record;
+                            break;
+                        }
+                    }
+                    // The new record takes over the room of the oldest record
+                    if (oldest != null && queue.remove(oldest)) {
+                        dropped.incrementAndGet(oldest.source.ordinal());
+                        return true;
+                    }
+                    // The writer took the oldest record, or other producers hold all the room
+                    Thread.yield();
+                }
+                return true;
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!isAbandoned) {
+                Record record = queue.take();
+                if (record == STOP) {
+                    break;
+                }
+                if (record.source != Source.CONTROL) {
+                    dataPermits.release();
+                }
+                long startNanos = System.nanoTime();
+                try {
+                    record.writer.run();
+                } catch (Exception e) {
+                    Log.e(TAG, "Error writing " + record.source + " record", e);
+                    metrics.onError("Error writing " + record.source + " record: " + e);
+                }
+                long endNanos = System.nanoTime();
+                written.incrementAndGet(record.source.ordinal());
+                metrics.onRecordWritten(startNanos - record.submitNanos, endNanos - startNanos, getQueueDepth());
+            }
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Writer thread interrupted with " + queue.size() + " records in queue");
+        } finally {
+            dropRemaining();
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Counts the records that are still queued when the writer stops as dropped - those left by
+     * an abandoned writer, and those from submit() calls that raced with shutdown()
+     */
+    private void dropRemaining() {
+        // Calls that started before isShutdown was set finish within BLOCK_TIMEOUT_MILLIS
+        while (submitting.get() > 0) {
+            Thread.yield();
+        }
+        Record record;
+        while ((record = queue.poll()) != null) {
+            if (record.source != Source.CONTROL) {
+                dataPermits.release();
+            }
+            if (record != STOP) {
+                dropped.incrementAndGet(record.source.ordinal());
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new records and waits up to [timeoutMillis] for the writer thread to write
+     * all previously submitted records. If they aren't written by the timeout the writer is
+     * stopped, and the records it didn't write are counted as dropped.
+     *
+     * @return true if all records were written before the timeout, false if they were not
+     */
+    public boolean shutdown(long timeoutMillis) {
+        synchronized (this) {
+            if (!isShutdown) {
+                // Set first, so records submitted from now on are dropped instead of queued after STOP
+                isShutdown = true;
+                queue.add(STOP);
+            }
+        }
+        try {
+            if (stopped.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return !isAbandoned;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Log.w(TAG, "Writer stalled with " + queue.size() + " records in queue");
+        isAbandoned = true;
+        writerThread.interrupt();
+        return false;
+    }
+
+    /**
+     * Returns the health metrics of this pipeline and the file loggers that write to it
+     */
+    public LoggingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the number of records currently waiting to be written, not counting CONTROL records,
+     * which is at most the capacity
+     */
+    public int getQueueDepth() {
+        return capacity - dataPermits.availablePermits();
+    }
+
+    public long getEnqueuedCount(Source source) {
+        return enqueued.get(source.ordinal());
+    }
+
+    public long getWrittenCount(Source source) {
+        return written.get(source.ordinal());
+    }
+
+    public long getDroppedCount(Source source) {
+        return dropped.get(source.ordinal());
+    }
+
+    public long getEnqueuedCount() {
+        return sum(enqueued);
+    }
+
+    public long getWrittenCount() {
+        return sum(written);
+    }
+
+    public long getDroppedCount() {
+        return sum(dropped);
+    }
+
+    private static long sum(AtomicLongArray counts) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "LogPipeline{policy=" + overflowPolicy +
+                ", queueDepth=" + getQueueDepth() +
+                ", enqueued=" + getEnqueuedCount() +
+                ", written=" + getWrittenCount() +
+                ", dropped=" + getDroppedCount() + "}";
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import android.util.Log;
+
+import com.android.gpstest.library.analytics.QuantileSketch;
+import com.android.gpstest.library.data.StreamStats;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Health metrics for file logging, used to tell whether the loggers are keeping up on a device -
+ * records and bytes written by record type, how long records wait in the LogPipeline queue and
+ * take to write, how long flushes and syncs to storage take, the queue depth, dropped records,
+ * the size of each logger's current file and errors.
+ *
+ * Metrics are updated on the LogPipeline writer thread and can be read from any thread.
+ * Latencies are kept for the whole session (since the metrics were created or last reset), and
+ * rates are calculated over the last one to two RATE_WINDOW_NANOS. The window is moved on by the
+ * writer thread, so reading the report doesn't change the rates.
+ */
+public class LoggingMetrics {
+
+    private static final String TAG = "LoggingMetrics";
+
+    /**
+     * Relative accuracy of the latency percentiles
+     */
+    public static final double LATENCY_ACCURACY = 0.01;
+
+    /**
+     * Names of the record types, in the order of the LogIndex.TYPE_ flags
+     */
+    static final String[] TYPE_NAMES = {
+            "Fix", "Status", "Measurements", "Nav", "NMEA", "Orientation", "AntennaInfo"
+    };
+
+    /**
+     * Rates are calculated over at least this many nanoseconds
+     */
+    static final long RATE_WINDOW_NANOS = 10_000_000_000L;
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * Records and bytes written by one file logger
+     */
+    public static final class FileMetrics {
+        private final String name;
+        private final AtomicLongArray records = new AtomicLongArray(TYPE_NAMES.length);
+        private final AtomicLongArray bytes = new AtomicLongArray(TYPE_NAMES.length);
+        private volatile long fileSize;
+        // Totals at the start of the rate window and of the current window, guarded by LoggingMetrics
+        private final long[] rateRecords = new long[TYPE_NAMES.length];
+        private final long[] rateBytes = new long[TYPE_NAMES.length];
+        private final long[] windowRecords = new long[TYPE_NAMES.length];
+        private final long[] windowBytes = new long[TYPE_NAMES.length];
+
+        FileMetrics(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Counts a record written to the file
+         *
+         * @param type  the LogIndex.TYPE_ flag of the record
+         * @param bytes the number of bytes written for the record, before compression
+         */
+        public void onRecordWritten(int type, long bytes) {
+            int i = typeIndex(type);
+            records.incrementAndGet(i);
+            this.bytes.addAndGet(i, bytes);
+        }
+
+        /**
+         * @param bytes the number of bytes written to the current file, before compression, or -1
+         *              if it isn't known
+         */
+        public void setFileSize(long bytes) {
+            fileSize = bytes;
+        }
+
+        public long getFileSize() {
+            return fileSize;
+        }
+
+        /**
+         * @param type the LogIndex.TYPE_ flag of the records
+         */
+        public long getRecordCount(int type) {
+            return records.get(typeIndex(type));
+        }
+
+        /**
+         * @param type the LogIndex.TYPE_ flag of the records
+         */
+        public long getByteCount(int type) {
+            return bytes.get(typeIndex(type));
+        }
+
+        private void reset() {
+            for (int i = 0; i < TYPE_NAMES.length; i++) {
+                records.set(i, 0);
+                bytes.set(i, 0);
+                rateRecords[i] = 0;
+                rateBytes[i] = 0;
+                windowRecords[i] = 0;
+                windowBytes[i] = 0;
+            }
+        }
+
+        /**
+         * Starts a new window - the current window becomes the one rates are calculated from
+         */
+        private void nextWindow() {
+            for (int i = 0; i < TYPE_NAMES.length; i++) {
+                rateRecords[i] = windowRecords[i];
+                rateBytes[i] = windowBytes[i];
+                windowRecords[i] = records.get(i);
+                windowBytes[i] = bytes.get(i);
+            }
+        }
+    }
+
+    private final LogPipeline pipeline;
+    private final Map<String, FileMetrics> files = new LinkedHashMap<>();
+    // Guarded by this
+    private final QuantileSketch queueLatencyMillis = new QuantileSketch(LATENCY_ACCURACY);
+    private final QuantileSketch writeMillis = new QuantileSketch(LATENCY_ACCURACY);
+    private final QuantileSketch flushMillis = new QuantileSketch(LATENCY_ACCURACY);
+    private final QuantileSketch syncMillis = new QuantileSketch(LATENCY_ACCURACY);
+    private int maxQueueDepth;
+    // Start of the window rates are calculated from, and of the current window
+    private long rateStartNanos;
+    private long windowStartNanos;
+    private final AtomicLong errors = new AtomicLong();
+    private volatile String lastError;
+    private volatile List<StreamStats> streams = Collections.emptyList();
+
+    /**
+     * @param pipeline the pipeline the queue depth and dropped records are read from
+     */
+    LoggingMetrics(LogPipeline pipeline) {
+        this.pipeline = pipeline;
+        rateStartNanos = nanoTime();
+        windowStartNanos = rateStartNanos;
+    }
+
+    /**
+     * Returns the current time in nanoseconds - can be overridden by tests
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private static int typeIndex(int type) {
+        int i = Integer.numberOfTrailingZeros(type);
+        if (i >= TYPE_NAMES.length) {
+            throw new IllegalArgumentException("Unknown record type " + type);
+        }
+        return i;
+    }
+
+    /**
+     * Returns the metrics of the file logger with the given name, which are created the first time
+     */
+    public synchronized FileMetrics getFileMetrics(String name) {
+        FileMetrics metrics = files.get(name);
+        if (metrics == null) {
+            metrics = new FileMetrics(name);
+            files.put(name, metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Called by LogPipeline when a record has been written
+     *
+     * @param queuedNanos the time the record waited in the queue
+     * @param writeNanos  the time it took to write the record to all file loggers
+     * @param queueDepth  the number of records still waiting in the queue
+     */
+    synchronized void onRecordWritten(long queuedNanos, long writeNanos, int queueDepth) {
+        queueLatencyMillis.add(queuedNanos / NANOS_PER_MILLI);
+        writeMillis.add(writeNanos / NANOS_PER_MILLI);
+        maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+        long now = nanoTime();
+        if (now - windowStartNanos >= RATE_WINDOW_NANOS) {
+            for (FileMetrics metrics : files.values()) {
+                metrics.nextWindow();
+            }
+            rateStartNanos = windowStartNanos;
+            windowStartNanos = now;
+        }
+    }
+
+    /**
+     * Called by a file logger after it flushes buffered data to its file
+     */
+    public synchronized void onFlush(long nanos) {
+        flushMillis.add(nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Called by a file logger after it syncs its file to storage
+     */
+    public synchronized void onSync(long nanos) {
+        syncMillis.add(nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Called by a file logger when there's an error writing its file
+     */
+    public void onError(String message) {
+        errors.incrementAndGet();
+        lastError = message;
+    }
+
+    /**
+     * Sets the streams that records come from (see LocationRepository.streamStats), so events
+     * dropped before they reached the pipeline are included in the report
+     */
+    public void setStreams(List<StreamStats> streams) {
+        this.streams = streams;
+    }
+
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * @return the given quantile (e.g., 0.99) of the time records waited in the queue to be written,
+     * in milliseconds, or NaN if no records have been written
+     */
+    public synchronized double getQueueLatencyMillis(double quantile) {
+        return queueLatencyMillis.getQuantile(quantile);
+    }
+
+    /**
+     * @return the given quantile of the time it took to write a record to all file loggers, in
+     * milliseconds, or NaN if no records have been written
+     */
+    public synchronized double getWriteMillis(double quantile) {
+        return writeMillis.getQuantile(quantile);
+    }
+
+    /**
+     * @return the given quantile of the time it took to flush data to a file, in milliseconds,
+     * or NaN if no data has been flushed
+     */
+    public synchronized double getFlushMillis(double quantile) {
+        return flushMillis.getQuantile(quantile);
+    }
+
+    /**
+     * @return the given quantile of the time it took to sync a file to storage, in milliseconds,
+     * or NaN if no files have been synced
+     */
+    public synchronized double getSyncMillis(double quantile) {
+        return syncMillis.getQuantile(quantile);
+    }
+
+    /**
+     * @return the largest number of records that were waiting in the queue after a record was written
+     */
+    public synchronized int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Clears the latencies and counts, e.g. to measure a new logging session. Counts kept by
+     * LogPipeline, such as dropped records, aren't cleared.
+     */
+    public synchronized void reset() {
+        queueLatencyMillis.clear();
+        writeMillis.clear();
+        flushMillis.clear();
+        syncMillis.clear();
+        maxQueueDepth = 0;
+        for (FileMetrics metrics : files.values()) {
+            metrics.reset();
+        }
+        errors.set(0);
+        lastError = null;
+        rateStartNanos = nanoTime();
+        windowStartNanos = rateStartNanos;
+    }
+
+    /**
+     * Writes the metrics as plain text. Rates are calculated over the last one to two
+     * RATE_WINDOW_NANOS, or the whole session if it's shorter.
+     */
+    public synchronized void writeReport(Appendable out) throws IOException {
+        double seconds = Math.max(nanoTime() - rateStartNanos, 1) / NANOS_PER_SECOND;
+
+        out.append(String.format(Locale.US, "Queue: depth %d (max %d), enqueued %d, written %d, dropped %d, policy %s%n",
+                pipeline.getQueueDepth(), maxQueueDepth, pipeline.getEnqueuedCount(),
+                pipeline.getWrittenCount(), pipeline.getDroppedCount(), pipeline.getOverflowPolicy()));
+        for (LogPipeline.Source source : LogPipeline.Source.values()) {
+            long dropped = pipeline.getDroppedCount(source);
+            if (dropped > 0) {
+                out.append(String.format(Locale.US, "  %s dropped: %d%n", source, dropped));
+            }
+        }
+        for (StreamStats stream : streams) {
+            out.append(String.format(Locale.US, "Stream %s%n", stream));
+        }
+        appendLatency(out, "Queue latency", queueLatencyMillis);
+        appendLatency(out, "Write time", writeMillis);
+        appendLatency(out, "Flush time", flushMillis);
+        appendLatency(out, "Sync time", syncMillis);
+
+        for (FileMetrics metrics : files.values()) {
+            long size = metrics.getFileSize();
+            out.append(String.format(Locale.US, "%s: file size %s%n", metrics.name,
+                    size >= 0 ? size + " bytes" : "unknown"));
+            for (int i = 0; i < TYPE_NAMES.length; i++) {
+                long records = metrics.records.get(i);
+                long bytes = metrics.bytes.get(i);
+                if (records == 0) {
+                    continue;
+                }
+                out.append(String.format(Locale.US, "  %s: %.1f records/s, %.0f bytes/s (total %d records, %d bytes)%n",
+                        TYPE_NAMES[i], (records - metrics.rateRecords[i]) / seconds,
+                        (bytes - metrics.rateBytes[i]) / seconds, records, bytes));
+            }
+        }
+        String error = lastError;
+        out.append(String.format(Locale.US, "Errors: %d%s%n", errors.get(),
+                error != null ? " (last: " + error + ")" : ""));
+    }
+
+    private static void appendLatency(Appendable out, String label, QuantileSketch sketch) throws IOException {
+        out.append(String.format(Locale.US, "%s (ms): count %d, median %.3f, 90th %.3f, 99th %.3f, max %.3f%n",
+                label, sketch.getCount(), sketch.getQuantile(0.5), sketch.getQuantile(0.9),
+                sketch.getQuantile(0.99), sketch.getMax()));
+    }
+
+    /**
+     * @return the metrics as plain text (see {@link #writeReport(Appendable)})
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        try {
+            writeReport(report);
+        } catch (IOException e) {
+            // StringBuilder doesn't throw
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes the metrics to logcat, one line at a time so long reports aren't truncated
+     */
+    public void dump() {
+        for (String line : getReport().split("\n")) {
+            Log.i(TAG, line);
+        }
+    }
+}
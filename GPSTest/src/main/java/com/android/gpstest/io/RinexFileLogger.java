@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import android.content.Context;
+import android.location.GnssClock;
+import android.location.GnssMeasurement;
+import android.location.GnssMeasurementsEvent;
+import android.os.Build;
+import android.widget.Toast;
+
+import androidx.core.content.ContextCompat;
+
+import com.android.gpstest.Application;
+import com.android.gpstest.BuildConfig;
+import com.android.gpstest.R;
+import com.android.gpstest.library.io.RinexObservationWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+
+/**
+ * A GNSS logger that writes raw measurements to a RINEX observation file (see
+ * RinexObservationWriter), which can be post-processed with tools like RTKLIB. Each
+ * GnssMeasurementsEvent is written as one epoch.
+ */
+public class RinexFileLogger extends BaseFileLogger implements FileLogger {
+
+    private RinexObservationWriter writer;
+    private String version = RinexObservationWriter.VERSION_3;
+
+    public RinexFileLogger(Context context) {
+        super(context);
+    }
+
+    /**
+     * Sets the RINEX version of new files, RinexObservationWriter.VERSION_3 or VERSION_4. Takes
+     * effect the next time a new file is started.
+     */
+    public synchronized void setVersion(String version) {
+        this.version = version;
+    }
+
+    @Override
+    String getFileExtension() {
+        return RinexObservationWriter.FILE_EXTENSION;
+    }
+
+    @Override
+    void writeFileHeader(BufferedWriter writer, String filePath) {
+        // The header is written by RinexObservationWriter before the first epoch, as it needs
+        // the time of the first observation
+    }
+
+    @Override
+    boolean postFileInit(BufferedWriter fileWriter, boolean isNewFile) {
+        writer = new RinexObservationWriter(
+                fileWriter,
+                version,
+                "GPSTest " + BuildConfig.VERSION_NAME,
+                Build.MANUFACTURER + " " + Build.MODEL,
+                "Android " + Build.VERSION.RELEASE,
+                !isNewFile
+        );
+        ContextCompat.getMainExecutor(context).execute(() -> Toast.makeText(
+                Application.Companion.getApp().getApplicationContext(),
+                Application.Companion.getApp().getString(
+                        R.string.logging_to_new_file,
+                        file.getAbsolutePath()
+                ),
+                Toast.LENGTH_LONG
+        ).show());
+        return true;
+    }
+
+    @Override
+    void preFileClose() {
+        writer = null;
+    }
+
+    public synchronized void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
+        if (fileWriter == null || writer == null) {
+            return;
+        }
+        GnssClock clock = event.getClock();
+        if (!clock.hasFullBiasNanos()) {
+            // GPS time isn't known yet
+            return;
+        }
+        writer.beginEpoch(
+                clock.getTimeNanos(),
+                clock.getFullBiasNanos(),
+                clock.hasBiasNanos() ? clock.getBiasNanos() : 0,
+                clock.hasLeapSecond() ? clock.getLeapSecond() : RinexObservationWriter.UNKNOWN_LEAP_SECOND,
+                clock.getHardwareClockDiscontinuityCount()
+        );
+        for (GnssMeasurement m : event.getMeasurements()) {
+            String codeType = null;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && m.hasCodeType()) {
+                codeType = m.getCodeType();
+            }
+            writer.addMeasurement(
+                    m.getConstellationType(),
+                    m.getSvid(),
+                    m.getState(),
+                    m.getReceivedSvTimeNanos(),
+                    m.getTimeOffsetNanos(),
+                    m.getCn0DbHz(),
+                    m.getPseudorangeRateMetersPerSecond(),
+                    m.getAccumulatedDeltaRangeState(),
+                    m.getAccumulatedDeltaRangeMeters(),
+                    m.hasCarrierFrequencyHz() ? m.getCarrierFrequencyHz() : 0,
+                    codeType
+            );
+        }
+        try {
+            writer.endEpoch();
+        } catch (IOException e) {
+            logException(Application.Companion.getApp().getString(R.string.error_writing_file), e);
+        }
+        onMeasurementsWritten(clock);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the same bytes to two streams, used to mirror a log written to Downloads to a private file
+ */
+class TeeOutputStream extends OutputStream {
+
+    private final OutputStream primary;
+    private final OutputStream mirror;
+
+    TeeOutputStream(OutputStream primary, OutputStream mirror) {
+        this.primary = primary;
+        this.mirror = mirror;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        primary.write(b);
+        mirror.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        primary.write(b, off, len);
+        mirror.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        primary.flush();
+        mirror.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            primary.close();
+        } finally {
+            mirror.close();
+        }
+    }
+}
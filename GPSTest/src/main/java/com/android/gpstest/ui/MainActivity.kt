@@ -35,6 +35,7 @@ import android.view.View
 import android.widget.CheckBox
 import android.widget.CompoundButton
 import android.widget.ProgressBar
+import android.widget.TextView
 import android.widget.Toast
 import androidx.activity.viewModels
 import androidx.appcompat.app.AlertDialog
@@ -251,7 +252,8 @@ class MainActivity : AppCompatActivity(), NavigationDrawerCallbacks {
                 shareDialogOpen = true
                 UIUtils.showShareFragmentDialog(
                     this, location, isFileLoggingEnabled(app, prefs),
-                    service!!.csvFileLogger, service!!.jsonFileLogger, uri
+                    service!!.csvFileLogger, service!!.binaryFileLogger, service!!.jsonFileLogger,
+                    service!!.rinexFileLogger, service!!::stopLogging, uri
                 )
             }
         } else {
@@ -857,6 +859,10 @@ class MainActivity : AppCompatActivity(), NavigationDrawerCallbacks {
         if (item != null) {
             item.isVisible = lastLocation != null || isFileLoggingEnabled(app, prefs) == true
         }
+        val metricsItem = menu.findItem(R.id.logging_metrics)
+        if (metricsItem != null) {
+            metricsItem.isVisible = service != null && isFileLoggingEnabled(app, prefs) == true
+        }
         return true
     }
 
@@ -873,6 +879,10 @@ class MainActivity : AppCompatActivity(), NavigationDrawerCallbacks {
             R.id.filter_sats -> {
                 UIUtils.showFilterDialog(this)
             }
+            R.id.logging_metrics -> {
+                showLoggingMetricsDialog()
+                return true
+            }
         }
         return super.onOptionsItemSelected(item)
     }
@@ -882,10 +892,46 @@ class MainActivity : AppCompatActivity(), NavigationDrawerCallbacks {
         shareDialogOpen = true
         UIUtils.showShareFragmentDialog(
             this, location, isFileLoggingEnabled(app, prefs),
-            service!!.csvFileLogger, service!!.jsonFileLogger, null
+            service!!.csvFileLogger, service!!.binaryFileLogger, service!!.jsonFileLogger,
+            service!!.rinexFileLogger, service!!::stopLogging, null
         )
     }
 
+    /**
+     * Shows the health metrics of file logging, refreshed every second while the dialog is open
+     */
+    private fun showLoggingMetricsDialog() {
+        val metrics = service?.logPipeline?.metrics ?: return
+        val view = layoutInflater.inflate(R.layout.logging_metrics, null)
+        val text = view.findViewById<TextView>(R.id.logging_metrics_text)
+        val dialog = AlertDialog.Builder(this)
+            .setTitle(R.string.menu_option_logging_metrics)
+            .setView(view)
+            .setPositiveButton(R.string.ok) { _: DialogInterface?, _: Int -> }
+            .setNeutralButton(R.string.logging_metrics_dump, null)
+            .setNegativeButton(R.string.logging_metrics_reset, null)
+            .create()
+        val refresh = lifecycleScope.launch {
+            while (true) {
+                text.text = metrics.report
+                delay(METRICS_REFRESH_MILLIS)
+            }
+        }
+        dialog.setOnShowListener {
+            // Set listeners here so the buttons don't close the dialog
+            dialog.getButton(AlertDialog.BUTTON_NEUTRAL).setOnClickListener {
+                metrics.dump()
+                Toast.makeText(this, R.string.logging_metrics_dumped, Toast.LENGTH_SHORT).show()
+            }
+            dialog.getButton(AlertDialog.BUTTON_NEGATIVE).setOnClickListener {
+                metrics.reset()
+                text.text = metrics.report
+            }
+        }
+        dialog.setOnDismissListener { refresh.cancel() }
+        dialog.show()
+    }
+
     override fun onCreateDialog(id: Int): Dialog {
         when (id) {
             LibUIUtils.WHATSNEW_DIALOG -> return UIUtils.createWhatsNewDialog(this)
@@ -928,5 +974,6 @@ class MainActivity : AppCompatActivity(), NavigationDrawerCallbacks {
     companion object {
         private const val TAG = "GpsTestActivity"
         private const val SECONDS_TO_MILLISECONDS = 1000
+        private const val METRICS_REFRESH_MILLIS = 1000L
     }
 }
\ No newline at end of file
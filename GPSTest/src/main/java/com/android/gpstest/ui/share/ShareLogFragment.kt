@@ -2,25 +2,50 @@ package com.android.gpstest.ui.share
 
 import android.content.Intent
 import android.net.Uri
+import android.os.Build
 import android.os.Bundle
+import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
+import android.widget.ProgressBar
 import android.widget.TextView
+import android.widget.Toast
 import androidx.fragment.app.Fragment
+import androidx.lifecycle.lifecycleScope
 import com.android.gpstest.Application.Companion.app
+import com.android.gpstest.Application.Companion.prefs
 import com.android.gpstest.BuildConfig
 import com.android.gpstest.R
+import com.android.gpstest.library.io.LogExporter
 import com.android.gpstest.library.util.IOUtils
 import com.android.gpstest.library.util.LibUIUtils
+import com.android.gpstest.library.util.PreferenceUtil.shareLogsAsZip
 import com.google.android.material.button.MaterialButton
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import java.io.File
+import java.io.IOException
+import java.text.SimpleDateFormat
 import java.util.*
 
 class ShareLogFragment : Fragment() {
 
+    companion object {
+        const val TAG = "ShareLogFragment"
+
+        // Directory in the app's external files for ZIP files of shared logs
+        private const val EXPORT_DIRECTORY = "gnss_log_export"
+    }
+
     private lateinit var listener: Listener
 
+    private var exportJob: Job? = null
+
     interface Listener {
         /**
          * Called when the fragment sends the log file
@@ -44,6 +69,8 @@ class ShareLogFragment : Fragment() {
         val logInstructions = view.findViewById<TextView>(R.id.log_instructions)
         val logBrowse: MaterialButton = view.findViewById(R.id.log_browse)
         val logShare: MaterialButton = view.findViewById(R.id.log_share)
+        val exportCancel: MaterialButton = view.findViewById(R.id.log_export_cancel)
+        val exportProgress: ProgressBar = view.findViewById(R.id.log_export_progress)
 
         val loggingEnabled = arguments?.getBoolean(ShareDialogFragment.KEY_LOGGING_ENABLED) ?: false
         val files = arguments?.getSerializable(ShareDialogFragment.KEY_LOG_FILES) as ArrayList<File>?
@@ -97,6 +124,12 @@ class ShareLogFragment : Fragment() {
         logShare.setOnClickListener { _: View? ->
             // Send the log file
             if (alternateFileUri == null && files != null) {
+                if (shareLogsAsZip(app, prefs)) {
+                    // Close the files first, so the ZIP has all of the data logged so far
+                    listener.onLogFileSent()
+                    exportAndSend(files, logBrowse, logShare, exportCancel, exportProgress)
+                    return@setOnClickListener
+                }
                 // Send the log file currently being logged to by the FileLogger
                 IOUtils.sendLogFile(app, BuildConfig.APPLICATION_ID, activity, *files.toTypedArray())
                 listener.onLogFileSent()
@@ -108,6 +141,83 @@ class ShareLogFragment : Fragment() {
         }
     }
 
+    /**
+     * Writes the log files into a ZIP file in the background while showing progress, and then sends
+     * the ZIP file. If the ZIP file can't be written the log files are sent as they are.
+     */
+    private fun exportAndSend(
+        files: ArrayList<File>,
+        logBrowse: View,
+        logShare: View,
+        exportCancel: View,
+        exportProgress: ProgressBar
+    ) {
+        logBrowse.visibility = View.INVISIBLE
+        logShare.visibility = View.INVISIBLE
+        exportCancel.visibility = View.VISIBLE
+        exportProgress.progress = 0
+        exportProgress.visibility = View.VISIBLE
+
+        val job = viewLifecycleOwner.lifecycleScope.launch {
+            val zipFile = try {
+                withContext(Dispatchers.IO) {
+                    val exporter = LogExporter(files)
+                    val directory = File(app.getExternalFilesDir(null), EXPORT_DIRECTORY)
+                    directory.mkdirs()
+                    // Only keep the most recent export, which may still be read by the app it was sent to
+                    directory.listFiles()?.forEach { it.delete() }
+                    val zipFile = File(directory, files[0].name.substringBefore('.') + ".zip")
+                    var lastPercent = -1
+                    exporter.export(zipFile, summaryHeader()) { bytesRead, totalBytes ->
+                        if (!isActive) {
+                            exporter.cancel()
+                        }
+                        val percent = if (totalBytes > 0) (bytesRead * 100 / totalBytes).toInt() else 100
+                        if (percent != lastPercent) {
+                            lastPercent = percent
+                            exportProgress.post { exportProgress.progress = percent }
+                        }
+                    }
+                    zipFile
+                }
+            } catch (e: IOException) {
+                Log.e(TAG, "Unable to export logs: $e")
+                Toast.makeText(app, R.string.log_export_failed, Toast.LENGTH_LONG).show()
+                null
+            } catch (e: CancellationException) {
+                Toast.makeText(app, R.string.log_export_cancelled, Toast.LENGTH_SHORT).show()
+                throw e
+            } finally {
+                logBrowse.visibility = View.VISIBLE
+                logShare.visibility = View.VISIBLE
+                exportCancel.visibility = View.GONE
+                exportProgress.visibility = View.INVISIBLE
+            }
+            if (zipFile != null) {
+                IOUtils.sendLogFile(app, BuildConfig.APPLICATION_ID, activity, zipFile)
+            } else {
+                IOUtils.sendLogFile(app, BuildConfig.APPLICATION_ID, activity, *files.toTypedArray())
+            }
+        }
+        exportJob = job
+        exportCancel.setOnClickListener { job.cancel() }
+    }
+
+    /**
+     * Returns the first lines of the summary in the ZIP file, describing the app and device
+     */
+    private fun summaryHeader(): String {
+        return "GPSTest ${BuildConfig.VERSION_NAME} (${BuildConfig.VERSION_CODE}, ${BuildConfig.FLAVOR})\n" +
+                "Device: ${Build.MANUFACTURER} ${Build.MODEL}\n" +
+                "Android: ${Build.VERSION.RELEASE} (API ${Build.VERSION.SDK_INT})"
+    }
+
+    override fun onDestroyView() {
+        exportJob?.cancel()
+        exportJob = null
+        super.onDestroyView()
+    }
+
     fun setListener(listener: Listener) {
         this.listener = listener
     }
@@ -33,8 +33,10 @@ import com.android.gpstest.Application
 import com.android.gpstest.Application.Companion.app
 import com.android.gpstest.Application.Companion.prefs
 import com.android.gpstest.R
+import com.android.gpstest.io.BinaryFileLogger
 import com.android.gpstest.io.CsvFileLogger
 import com.android.gpstest.io.JsonFileLogger
+import com.android.gpstest.io.RinexFileLogger
 import com.android.gpstest.library.model.GnssType
 import com.android.gpstest.library.util.IOUtils
 import com.android.gpstest.library.util.LibUIUtils
@@ -140,27 +142,35 @@ internal object UIUtils {
      * @param location
      * @param loggingEnabled true if logging is enabled, false if it is not
      * @param csvFileLogger the file logger being used to log files
+     * @param closeLogFiles closes the files of the file loggers after a log file is sent, e.g.
+     * ForegroundOnlyLocationService.stopLogging(), which closes them on the log writer thread
      * @param alternateFileUri The URI for a file if a file other than the one current used by the FileLogger should be used (e.g., one previously picked from the folder browse button), or null if no alternate file is chosen and the file from the file logger should be shared.
      * @return a dialog for sharing location and files
      */
     fun showShareFragmentDialog(
         activity: AppCompatActivity, location: Location?,
         loggingEnabled: Boolean, csvFileLogger: CsvFileLogger?,
-        jsonFileLogger: JsonFileLogger?, alternateFileUri: Uri?
+        binaryFileLogger: BinaryFileLogger?, jsonFileLogger: JsonFileLogger?,
+        rinexFileLogger: RinexFileLogger?, closeLogFiles: () -> Unit, alternateFileUri: Uri?
     ) {
-        val files = ArrayList<File>(2)
+        val files = ArrayList<File>(4)
         if (csvFileLogger != null && csvFileLogger.file != null) {
             files.add(csvFileLogger.file)
         }
+        if (binaryFileLogger != null && binaryFileLogger.file != null) {
+            files.add(binaryFileLogger.file)
+        }
         if (jsonFileLogger != null && jsonFileLogger.file != null) {
             files.add(jsonFileLogger.file)
         }
+        if (rinexFileLogger != null && rinexFileLogger.file != null) {
+            files.add(rinexFileLogger.file)
+        }
         val fm = activity.supportFragmentManager
         val dialog = ShareDialogFragment()
         val shareListener: ShareDialogFragment.Listener = object : ShareDialogFragment.Listener {
             override fun onLogFileSent() {
-                csvFileLogger?.close()
-                jsonFileLogger?.close()
+                closeLogFiles()
             }
 
             override fun onFileBrowse() {
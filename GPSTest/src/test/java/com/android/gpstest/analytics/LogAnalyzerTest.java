@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.analytics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.analytics.Histogram;
+import com.android.gpstest.library.analytics.LogAnalyzer;
+import com.android.gpstest.library.analytics.LogSummary;
+import com.android.gpstest.library.analytics.QuantileSketch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
+public class LogAnalyzerTest {
+
+    private static final String HEADER = "# \n# Version: v3.10.5 (31005-google), Manufacturer: Google, Model: Pixel 6, GNSS HW Year: 2021, Platform: 12, API Level: 31 \n# \n";
+
+    private static final long START_MILLIS = 1_637_264_742_000L;
+    private static final long START_NANOS = 1_308_594_915_408_632L;
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Writes a log with one GnssStatus, NMEA sentence and Orientation record a second, and a fix
+     * each second after the given second. GPS satellites are in view on L1 and L5, and the L5
+     * signals are used in the fix every other second.
+     */
+    private static File writeLog(File dir, String name, int seconds, int firstFixSecond, long seed)
+            throws IOException {
+        File log = new File(dir, name);
+        OutputStream out = new FileOutputStream(log);
+        if (name.endsWith(".gz")) {
+            out = new GZIPOutputStream(out);
+        }
+        Random random = new Random(seed);
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            for (int i = 0; i < seconds; i++) {
+                long millis = START_MILLIS + i * 1000L;
+                long nanos = START_NANOS + i * 1_000_000_000L;
+                boolean fix = i >= firstFixSecond;
+                writer.write("OrientationDeg," + millis + "," + nanos + ",123.9,0.38,-0.38\n");
+                writer.write("NMEA,$GPGGA,000000.00,,,,,0,,,,,,,,*66," + millis + "\n");
+                int count = 8;
+                for (int j = 0; j < count; j++) {
+                    int svid = 1 + j / 2;
+                    boolean l5 = j % 2 == 1;
+                    int constellation = j < 6 ? 1 : 6;
+                    double cf = l5 ? 1176450000.0 : 1575420000.0;
+                    boolean used = fix && (!l5 || i % 2 == 0);
+                    float cn0 = 20 + random.nextInt(300) / 10f;
+                    writer.write("Status," + millis + "," + count + "," + j + "," + constellation + ","
+                            + svid + "," + cf + "," + cn0 + ",180.0,45.0," + (used ? 1 : 0) + ",1,1,"
+                            + (cn0 - 3) + "\n");
+                }
+                if (fix) {
+                    writer.write("Fix,gps,28.07124449,-82.42663169,-16.3,0.0,21.2,0.0," + millis
+                            + ",1.95,," + nanos + ",13.9,0\n");
+                }
+            }
+        }
+        return log;
+    }
+
+    @Test
+    public void testSummary() throws IOException {
+        File log = writeLog(temp.getRoot(), "gnss_log_2026_01_01_00_00_00.txt", 100, 10, 1);
+        LogSummary summary = new LogAnalyzer().analyze(Arrays.asList(log));
+        assertEquals(1, summary.getFileCount());
+        assertEquals(100 * 10 + 90, summary.getRecordCount());
+        assertEquals(0, summary.getMalformedLineCount());
+        assertEquals(90, summary.getFixCount());
+        assertEquals(100, summary.getStatusEpochCount());
+        assertEquals(90.0, summary.getFixAvailabilityPercent(), 0.001);
+        assertEquals(45.0, summary.getDualFrequencyInUsePercent(), 0.001);
+        assertEquals(100.0, summary.getDualFrequencyInViewPercent(), 0.001);
+
+        Map<String, Histogram> cn0 = summary.getCn0Histograms();
+        assertEquals(4, cn0.size());
+        assertEquals(300, cn0.get("NAVSTAR L1").getCount());
+        assertEquals(300, cn0.get("NAVSTAR L5").getCount());
+        assertEquals(100, cn0.get("GALILEO E1").getCount());
+        assertEquals(100, cn0.get("GALILEO E5a").getCount());
+        assertTrue(cn0.get("NAVSTAR L1").getMin() >= 20);
+        assertTrue(cn0.get("NAVSTAR L1").getMax() < 50);
+
+        // The first fix is 10 seconds after the first record
+        assertEquals(1, summary.getTtffSeconds().getCount());
+        assertEquals(10.0, summary.getTtffSeconds().getQuantile(0.5), 0.001);
+    }
+
+    @Test
+    public void testChunksMatchWholeFiles() throws IOException {
+        File dir = temp.getRoot();
+        List<File> logs = Arrays.asList(
+                writeLog(dir, "gnss_log_2026_01_01_00_00_00.txt", 500, 30, 1),
+                writeLog(dir, "gnss_log_2026_01_02_00_00_00.txt", 300, 0, 2),
+                writeLog(dir, "gnss_log_2026_01_03_00_00_00.txt.gz", 200, 60, 3));
+
+        LogSummary whole = new LogAnalyzer(new ForkJoinPool(1), Long.MAX_VALUE).analyze(logs);
+        // Small chunks, so each uncompressed log is split many times
+        LogSummary chunked = new LogAnalyzer(new ForkJoinPool(4), 4096).analyze(logs);
+
+        assertEquals(3, chunked.getFileCount());
+        assertEquals(whole.getRecordCount(), chunked.getRecordCount());
+        assertEquals(0, chunked.getMalformedLineCount());
+        assertEquals(whole.getFixCount(), chunked.getFixCount());
+        assertEquals(1000, chunked.getStatusEpochCount());
+        assertEquals(whole.getFixAvailabilityPercent(), chunked.getFixAvailabilityPercent(), 0);
+        assertEquals(whole.getDualFrequencyInUsePercent(), chunked.getDualFrequencyInUsePercent(), 0);
+        assertEquals(whole.getCn0Histograms().keySet(), chunked.getCn0Histograms().keySet());
+        for (String key : whole.getCn0Histograms().keySet()) {
+            Histogram a = whole.getCn0Histograms().get(key);
+            Histogram b = chunked.getCn0Histograms().get(key);
+            for (int i = 0; i < a.getBinCount(); i++) {
+                assertEquals(a.getCount(i), b.getCount(i));
+            }
+        }
+        // A log with a fix from the start doesn't have a TTFF
+        assertEquals(2, chunked.getTtffSeconds().getCount());
+        assertEquals(30.0, chunked.getTtffSeconds().getMin(), 0.001);
+        assertEquals(60.0, chunked.getTtffSeconds().getMax(), 0.001);
+    }
+
+    /**
+     * A log with only Raw records is split where TimeNanos changes, so each epoch stays in one chunk
+     */
+    @Test
+    public void testRawOnlyLogSplitsBetweenEpochs() throws IOException {
+        File log = new File(temp.getRoot(), "gnss_log_2026_01_04_00_00_00.txt");
+        List<Long> epochStarts = new ArrayList<>();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(log), StandardCharsets.US_ASCII)) {
+            writer.write(HEADER);
+            long offset = HEADER.length();
+            for (int i = 0; i < 200; i++) {
+                long timeNanos = 1_131_752_000_000_000L + i * 1_000_000_000L;
+                epochStarts.add(offset);
+                for (int svid = 1; svid <= 10; svid++) {
+                    String line = "Raw," + (1_131_752_852L + i * 1000L) + "," + timeNanos
+                            + ",18,0.5,-1319404498546286463,0.3716793060302734,23.4,-0.000000012,3.5,7,"
+                            + svid + ",0.0,16431,345601234567890,15,38.7,-456.78,0.05,16,12345.678,"
+                            + "0.00010,1575420030,,,,0,,1,2.5,33.1,-5.5,1.5,,,C,"
+                            + (timeNanos + 726_298L) + "\n";
+                    writer.write(line);
+                    offset += line.length();
+                }
+            }
+        }
+        long chunkBytes = 4096;
+        assertTrue(log.length() > chunkBytes);
+
+        long split = LogAnalyzer.findSplit(log, 0, log.length());
+        assertTrue("Split at " + split, split > 0 && epochStarts.contains(split));
+
+        LogSummary whole = new LogAnalyzer(new ForkJoinPool(1), Long.MAX_VALUE).analyze(Arrays.asList(log));
+        LogSummary chunked = new LogAnalyzer(new ForkJoinPool(4), chunkBytes).analyze(Arrays.asList(log));
+        assertEquals(2000, whole.getRecordCount());
+        assertEquals(whole.getRecordCount(), chunked.getRecordCount());
+        assertEquals(0, chunked.getMalformedLineCount());
+    }
+
+    @Test
+    public void testHistogramMerge() {
+        Random random = new Random(7);
+        Histogram all = cn0Histogram();
+        Histogram first = cn0Histogram();
+        Histogram second = cn0Histogram();
+        for (int i = 0; i < 1000; i++) {
+            double value = random.nextDouble() * 70;
+            all.add(value);
+            (i % 3 == 0 ? first : second).add(value);
+        }
+        first.merge(second);
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMean(), first.getMean(), 1e-9);
+        assertEquals(all.getMax(), first.getMax(), 0);
+        for (int i = 0; i < all.getBinCount(); i++) {
+            assertEquals(all.getCount(i), first.getCount(i));
+        }
+        assertEquals(all.getQuantile(0.5), first.getQuantile(0.5), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHistogramMergeDifferentBins() {
+        new Histogram(0, 64, 128).merge(new Histogram(0, 64, 64));
+    }
+
+    @Test
+    public void testQuantileSketch() {
+        Random random = new Random(11);
+        QuantileSketch all = new QuantileSketch(0.01);
+        QuantileSketch first = new QuantileSketch(0.01);
+        QuantileSketch second = new QuantileSketch(0.01);
+        double[] values = new double[10_001];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2);
+            all.add(values[i]);
+            (i % 2 == 0 ? first : second).add(values[i]);
+        }
+        first.merge(second);
+        Arrays.sort(values);
+        for (double q : new double[]{0.01, 0.25, 0.5, 0.9, 0.99}) {
+            double actual = values[(int) (q * (values.length - 1))];
+            assertEquals(actual, all.getQuantile(q), actual * 0.01);
+            assertEquals(all.getQuantile(q), first.getQuantile(q), 0);
+        }
+        assertEquals(values.length, first.getCount());
+        assertEquals(values[0], first.getMin(), 0);
+        assertEquals(values[values.length - 1], first.getMax(), 0);
+    }
+
+    /**
+     * @return a histogram with the same bins as the C/N0 histograms in LogSummary
+     */
+    private static Histogram cn0Histogram() {
+        return new Histogram(0, LogSummary.CN0_MAX_DBHZ, LogSummary.CN0_BINS);
+    }
+}
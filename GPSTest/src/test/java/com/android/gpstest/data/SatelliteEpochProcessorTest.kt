@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.data
+
+import com.android.gpstest.library.data.SatelliteEpochProcessor
+import com.android.gpstest.library.model.GnssType
+import com.android.gpstest.library.model.SatelliteStatus
+import com.android.gpstest.library.model.SbasType
+import com.android.gpstest.library.util.SatelliteUtil.toSatelliteGroup
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class SatelliteEpochProcessorTest {
+
+    // Sort by Signal Strength
+    private val sortByCn0 = 2
+
+    @Test
+    fun testProcess() {
+        val processor = SatelliteEpochProcessor()
+        val statuses = statuses(30f)
+        val epoch = processor.process(statuses)
+        assertSame(statuses, epoch.statuses)
+        assertEquals(statuses.toSatelliteGroup(), epoch.satelliteGroup)
+
+        val all = epoch.project(emptySet(), sortByCn0)
+        assertEquals(listOf(40f, 30f, 20f), all.gnssStatuses.map { it.cn0DbHz })
+        assertEquals(1, all.sbasStatuses.size)
+        assertEquals(4, all.filteredStatuses.size)
+        assertEquals(3, all.gnssSatellites.satellites.size)
+        assertEquals(1, all.sbasSatellites.satellites.size)
+        assertEquals(4, all.satelliteMetadata.numSatsTotal)
+        assertEquals(2, all.satelliteMetadata.numSignalsUsed)
+        assertEquals(setOf(GnssType.NAVSTAR, GnssType.GALILEO), all.satelliteMetadata.supportedGnss)
+        assertEquals(setOf(SbasType.WAAS), all.satelliteMetadata.supportedSbas)
+
+        // Projections are cached per filter and sort order
+        assertSame(all, epoch.project(emptySet(), sortByCn0))
+        val gps = epoch.project(setOf(GnssType.NAVSTAR), sortByCn0)
+        assertNotSame(all, gps)
+        assertSame(gps, epoch.project(hashSetOf(GnssType.NAVSTAR), sortByCn0))
+        assertEquals(listOf(30f, 20f), gps.gnssStatuses.map { it.cn0DbHz })
+        assertEquals(0, gps.sbasStatuses.size)
+        assertEquals(2, gps.satelliteMetadata.numSatsTotal)
+    }
+
+    @Test
+    fun testReuse() {
+        val processor = SatelliteEpochProcessor()
+        val first = processor.process(statuses(30f))
+        val firstProjection = first.project(emptySet(), sortByCn0)
+
+        // Equal statuses in new objects keep the satellites and metadata of the previous epoch
+        val second = processor.process(statuses(30f))
+        val secondProjection = second.project(emptySet(), sortByCn0)
+        assertSame(first.satelliteGroup, second.satelliteGroup)
+        assertSame(firstProjection.gnssSatellites.satellites, secondProjection.gnssSatellites.satellites)
+        assertSame(firstProjection.satelliteMetadata, secondProjection.satelliteMetadata)
+
+        val third = processor.process(statuses(35f))
+        val thirdProjection = third.project(emptySet(), sortByCn0)
+        assertNotSame(second.satelliteGroup, third.satelliteGroup)
+        assertNotSame(secondProjection.gnssSatellites.satellites, thirdProjection.gnssSatellites.satellites)
+        assertSame(secondProjection.sbasSatellites.satellites, thirdProjection.sbasSatellites.satellites)
+        assertEquals(statuses(35f).toSatelliteGroup(), third.satelliteGroup)
+    }
+
+    private fun statuses(gpsCn0DbHz: Float): List<SatelliteStatus> {
+        val waas = SatelliteStatus(131, GnssType.SBAS, 25f, true, true, false, 30f, 180f)
+        waas.sbasType = SbasType.WAAS
+        return listOf(
+            SatelliteStatus(1, GnssType.NAVSTAR, gpsCn0DbHz, true, true, true, 45f, 90f),
+            SatelliteStatus(2, GnssType.NAVSTAR, 20f, true, true, false, 10f, 270f),
+            SatelliteStatus(3, GnssType.GALILEO, 40f, true, true, true, 60f, 0f),
+            waas
+        )
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.data
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.location.LocationManager
+import android.location.OnNmeaMessageListener
+import android.os.Handler
+import com.android.gpstest.library.data.LogReplaySource
+import com.android.gpstest.library.data.SharedNmeaManager
+import com.android.gpstest.library.data.StreamBufferConfig
+import com.android.gpstest.library.data.StreamOverflow
+import com.android.gpstest.library.io.LogReplayer
+import com.android.gpstest.library.model.NmeaWithTime
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.async
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.take
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.flow.transformWhile
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.RETURNS_DEEP_STUBS
+import org.mockito.Mockito.doAnswer
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.`when`
+
+/**
+ * Tests how Shared*Manager flows are buffered, through SharedNmeaManager with NMEA messages from a
+ * mock LocationManager or from log replay
+ */
+@OptIn(ExperimentalCoroutinesApi::class)
+class StreamBufferTest {
+
+    @get:Rule
+    val temp = TemporaryFolder()
+
+    private val locationManager = mock(LocationManager::class.java)
+    private val context = mock(Context::class.java)
+    private val prefs = mock(SharedPreferences::class.java, RETURNS_DEEP_STUBS)
+
+    // The listener added by the manager, or null while it isn't listening
+    private var listener: OnNmeaMessageListener? = null
+
+    @Before
+    fun setUp() {
+        `when`(context.getSystemService(Context.LOCATION_SERVICE)).thenReturn(locationManager)
+        // Build.VERSION.SDK_INT is 0 in unit tests, so the listener is added with a Handler
+        doAnswer {
+            listener = it.getArgument(0)
+            true
+        }.`when`(locationManager).addNmeaListener(any(OnNmeaMessageListener::class.java), any(Handler::class.java))
+        doAnswer {
+            listener = null
+            null
+        }.`when`(locationManager).removeNmeaListener(any(OnNmeaMessageListener::class.java))
+    }
+
+    /**
+     * Runs [block] with a scope for the shared flows, which is cancelled afterwards
+     */
+    private fun runTest(block: suspend CoroutineScope.(sharingScope: CoroutineScope) -> Unit) = runBlocking {
+        val sharingScope = CoroutineScope(coroutineContext + Job())
+        try {
+            block(sharingScope)
+        } finally {
+            sharingScope.cancel()
+        }
+    }
+
+    private fun Flow<NmeaWithTime>.timestamps(): Flow<Int> = map { it.timestamp.toInt() }
+
+    /**
+     * Waits until the manager adds its listener, then sends the messages numbered [numbers] without
+     * suspending, like platform callbacks, before the collector runs
+     */
+    private suspend fun sendMessages(numbers: IntRange) {
+        while (listener == null) {
+            yield()
+        }
+        for (i in numbers) {
+            listener!!.onNmeaMessage("\$GPGGA,000000.00,,,,,0,,,,,,,,*66", i.toLong())
+        }
+    }
+
+    @Test(timeout = 10_000)
+    fun dropOldest() = runTest { sharingScope ->
+        val manager = SharedNmeaManager(context, sharingScope, prefs,
+            bufferConfig = StreamBufferConfig(10, StreamOverflow.DROP_OLDEST))
+        val events = async {
+            manager.nmeaFlow().timestamps().transformWhile { emit(it); it < 100 }.toList()
+        }
+        sendMessages(1..100)
+        val received = events.await()
+        // The collector may take the first event before the buffer fills
+        assertEquals((91..100).toList(), received.takeLast(10))
+        assertEquals(100L, manager.stats.sentCount)
+        assertEquals(received.size.toLong(), manager.stats.deliveredCount)
+        assertEquals(100L - received.size, manager.stats.droppedCount)
+    }
+
+    @Test(timeout = 10_000)
+    fun conflate() = runTest { sharingScope ->
+        val manager = SharedNmeaManager(context, sharingScope, prefs,
+            bufferConfig = StreamBufferConfig(overflow = StreamOverflow.CONFLATE))
+        val events = async {
+            manager.nmeaFlow().timestamps().transformWhile { emit(it); it < 100 }.toList()
+        }
+        sendMessages(1..100)
+        val received = events.await()
+        assertEquals(100, received.last())
+        assertEquals(100L - received.size, manager.stats.droppedCount)
+    }
+
+    @Test(timeout = 10_000)
+    fun suspendingProducerDoesNotDrop() = runTest { sharingScope ->
+        val log = temp.newFile("gnss_log_2026_01_01_00_00_00.txt")
+        log.writeText((1..100).joinToString("") { "NMEA,\$GPGGA,000000.00,,,,,0,,,,,,,,*66,$it\n" })
+        val replaySource = LogReplaySource(log, LogReplayer.AS_FAST_AS_POSSIBLE, sharingScope)
+        val manager = SharedNmeaManager(context, sharingScope, prefs, replaySource,
+            StreamBufferConfig(4, StreamOverflow.SUSPEND))
+        val events = async { manager.nmeaFlow().timestamps().take(100).toList() }
+        // Log replay waits for room in the buffer instead of dropping messages
+        replaySource.subscriptionCount.first { it > 0 }
+        replaySource.start()
+        assertEquals((1..100).toList(), events.await())
+        assertEquals(0L, manager.stats.droppedCount)
+    }
+
+    @Test(timeout = 10_000)
+    fun restartDoesNotCountUndeliveredEvents() = runTest { sharingScope ->
+        val manager = SharedNmeaManager(context, sharingScope, prefs,
+            bufferConfig = StreamBufferConfig(10, StreamOverflow.SUSPEND))
+        // Messages that didn't fit in the buffer are lost when collection ends
+        val first = async { manager.nmeaFlow().timestamps().take(10).toList() }
+        sendMessages(1..20)
+        assertEquals((1..10).toList(), first.await())
+        while (listener != null) {
+            yield()
+        }
+
+        val second = async { manager.nmeaFlow().timestamps().take(5).toList() }
+        sendMessages(21..25)
+        assertEquals((21..25).toList(), second.await())
+        assertEquals(0L, manager.stats.droppedCount)
+    }
+}
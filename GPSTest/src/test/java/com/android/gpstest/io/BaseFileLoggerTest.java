@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.File;
+
+public class BaseFileLoggerTest {
+
+    private final CsvFileLogger csvFileLogger = new CsvFileLogger(null);
+    private final BinaryFileLogger binaryFileLogger = new BinaryFileLogger(null);
+    private final JsonFileLogger jsonFileLogger = new JsonFileLogger(null);
+    private final RinexFileLogger rinexFileLogger = new RinexFileLogger(null);
+
+    @Test
+    public void testBaseDirectoryNotStarted() {
+        assertNull(baseDirectory());
+    }
+
+    /**
+     * With "binary CSV" enabled, only the binary logger is started and the CSV logger doesn't
+     * have a base directory
+     */
+    @Test
+    public void testBaseDirectoryBinaryOnly() {
+        File dir = new File("gnss_log");
+        // What startLog() sets, which needs external storage
+        binaryFileLogger.baseDirectory = dir;
+        assertNull(csvFileLogger.getBaseDirectory());
+        assertEquals(dir, baseDirectory());
+    }
+
+    @Test
+    public void testBaseDirectoryRinexOnly() {
+        File dir = new File("gnss_log");
+        rinexFileLogger.baseDirectory = dir;
+        assertEquals(dir, baseDirectory());
+    }
+
+    /**
+     * The loggers in the order ForegroundOnlyLocationService checks them
+     */
+    private File baseDirectory() {
+        return BaseFileLogger.getBaseDirectory(csvFileLogger, binaryFileLogger, jsonFileLogger,
+                rinexFileLogger);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static com.android.gpstest.library.io.BinaryLogFormat.*;
+import static org.junit.Assert.assertEquals;
+
+import com.android.gpstest.library.io.BinaryLogConverter;
+import com.android.gpstest.library.io.BinaryLogFormat;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+public class BinaryLogConverterTest {
+
+    private static final String HEADER = "# \n# Header\n";
+
+    private static final String RAW = "Raw,1131752852,1131752000000000,18,0.5,-1319404498546286463,"
+            + "0.3716793060302734,23.4,-0.000000012,3.5,7,12,0.0,16431,345601234567890,15,38.7,"
+            + "-456.78,0.05,16,12345.678,0.00010,1575420030,,,,0,,1,2.5,33.1,-5.5,1.5,,,C,"
+            + "1131752852726298";
+
+    /**
+     * Records written in the same layout as BinaryFileLogger should convert to the same lines
+     * CsvFileLogger would have written
+     */
+    @Test
+    public void testConvert() throws IOException {
+        StringWriter csv = new StringWriter();
+        long records = BinaryLogConverter.convert(new ByteArrayInputStream(sampleLog()), csv);
+
+        // Unknown record types are skipped
+        assertEquals(6, records);
+        assertEquals(HEADER
+                + RAW + "\n"
+                + "OrientationDeg,1637087999952,1131752852726298,200.0,0.0,0.00000010\n"
+                + "Status,1637087900313,1,0,6,5,1176450050,0.00010,0.0,12.5,0,0,1,\n"
+                + "Nav,3,257,1,2,-1,1,-2,3\n"
+                + "NMEA,$GPGGA,1,2*33,1637087900400\n", csv.toString());
+    }
+
+    /**
+     * A record cut off by a crash should be dropped without losing the records before it
+     */
+    @Test
+    public void testConvertTruncated() throws IOException {
+        byte[] log = sampleLog();
+        StringWriter csv = new StringWriter();
+        long records = BinaryLogConverter.convert(
+                new ByteArrayInputStream(Arrays.copyOf(log, log.length - 3)), csv);
+
+        assertEquals(5, records);
+        assertEquals(HEADER
+                + RAW + "\n"
+                + "OrientationDeg,1637087999952,1131752852726298,200.0,0.0,0.00000010\n"
+                + "Status,1637087900313,1,0,6,5,1176450050,0.00010,0.0,12.5,0,0,1,\n"
+                + "Nav,3,257,1,2,-1,1,-2,3\n", csv.toString());
+    }
+
+    /**
+     * Doubles are stored compactly when possible and as raw bits otherwise - both must round trip
+     */
+    @Test
+    public void testDoublesRoundTrip() throws IOException {
+        double[] values = {0.0, -0.0, 1.0, 0.5, 1575420032.0, -1.2E-8, 0.3716793060302734,
+                Double.MIN_VALUE, Double.MAX_VALUE, Math.PI};
+        RecordWriter writer = new RecordWriter();
+        writer.begin(TYPE_ORIENTATION).beginDoubles();
+        for (double value : values) {
+            writer.writeDouble(value);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.endDoubles().writeTo(out);
+
+        RecordReader reader = new RecordReader(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(TYPE_ORIENTATION, reader.next());
+        reader.beginDoubles();
+        for (double value : values) {
+            assertEquals(Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(reader.readDouble()));
+        }
+        assertEquals(-1, reader.next());
+    }
+
+    private static byte[] sampleLog() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryLogFormat.writeFileHeader(out, HEADER);
+        RecordWriter record = new RecordWriter();
+
+        int clockPresence = CLOCK_LEAP_SECOND | CLOCK_TIME_UNCERTAINTY | CLOCK_FULL_BIAS | CLOCK_BIAS
+                | CLOCK_BIAS_UNCERTAINTY | CLOCK_DRIFT | CLOCK_DRIFT_UNCERTAINTY;
+        record.begin(TYPE_CLOCK)
+                .writeLong(1131752000000000L)
+                .writeLong(7)
+                .writeVarint(clockPresence)
+                .writeLong(18)
+                .writeLong(-1319404498546286463L)
+                .beginDoubles()
+                .writeDouble(0.5)
+                .writeDouble(0.3716793060302734)
+                .writeDouble(23.4)
+                .writeDouble(-1.2E-8)
+                .writeDouble(3.5)
+                .endDoubles()
+                .writeTo(out);
+
+        int measurementPresence = MEAS_CARRIER_FREQUENCY | MEAS_AGC | MEAS_BASEBAND_CN0 | MEAS_FULL_ISB
+                | MEAS_FULL_ISB_UNCERTAINTY | MEAS_CODE_TYPE;
+        record.begin(TYPE_MEASUREMENT)
+                .writeLong(1131752852)
+                .writeLong(1131752852726298L)
+                .writeVarint(measurementPresence)
+                .writeLong(12)
+                .writeLong(16431)
+                .writeLong(345601234567890L)
+                .writeLong(15)
+                .writeLong(16)
+                .writeLong(0)
+                .writeLong(1)
+                .beginDoubles()
+                .writeDouble(0.0)
+                .writeDouble(38.7)
+                .writeDouble(-456.78)
+                .writeDouble(0.05)
+                .writeDouble(12345.678)
+                .writeDouble(1.0E-4)
+                .writeDouble(2.5)
+                .writeDouble(33.1)
+                .writeDouble(-5.5)
+                .writeDouble(1.5)
+                .endDoubles()
+                .writeFloat(1.57542003E9f)
+                .writeString("C")
+                .writeTo(out);
+
+        record.begin(TYPE_ORIENTATION)
+                .writeLong(1637087999952L)
+                .writeLong(0)
+                .beginDoubles()
+                .writeDouble(200.0)
+                .writeDouble(-0.0)
+                .writeDouble(1.0E-7)
+                .endDoubles()
+                .writeTo(out);
+
+        record.begin(TYPE_STATUS)
+                .writeLong(1637087900313L - 1637087999952L)
+                .writeVarint(1)
+                .writeLong(6)
+                .writeLong(5)
+                .writeByte(STATUS_HAS_EPHEMERIS)
+                .writeFloat(1.0E-4f)
+                .writeFloat(-0.0f)
+                .writeFloat(12.5f)
+                .beginDoubles()
+                .writeDouble(1176450050.0)
+                .endDoubles()
+                .writeTo(out);
+
+        record.begin(TYPE_NAV)
+                .writeLong(3)
+                .writeLong(257)
+                .writeLong(1)
+                .writeLong(2)
+                .writeLong(-1)
+                .writeBytes(new byte[]{1, -2, 3}, 3)
+                .writeTo(out);
+
+        // Record type from a newer version of the format
+        record.begin(42).writeLong(5).writeTo(out);
+
+        record.begin(TYPE_NMEA)
+                .writeLong(87)
+                .writeString("$GPGGA,1,2*33")
+                .writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io
+
+import android.location.GnssClock
+import android.location.GnssMeasurement
+import android.location.GnssMeasurementsEvent
+import android.os.SystemClock
+import com.android.gpstest.library.util.FormatUtils
+import com.android.gpstest.util.BenchmarkReport
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.withSettings
+import java.io.BufferedWriter
+import java.io.ByteArrayOutputStream
+import java.io.OutputStream
+import java.io.OutputStreamWriter
+import java.util.Locale
+
+/**
+ * Compares how many Raw records per second are written for a 60-signal measurement epoch, on one
+ * thread, to a stream that discards the data: per record, as CsvFileLogger did before (clock reads,
+ * FormatUtils.toLog(), write() and newLine() for each measurement), and per epoch with
+ * CsvFileLogger.onGnssMeasurementsReceived().
+ *
+ * GnssMeasurementsEvent can't be created on the JVM, so the event, clock and measurements are
+ * Mockito stubs - their getters are slower than the framework's, so the results are lower bounds.
+ * Only runs with -Pbenchmarks, see GPSTest/build.gradle.
+ */
+class CsvEpochWriteBenchmark {
+
+    @Test
+    fun perRecordVsPerEpoch() {
+        val event = measurementsEvent()
+
+        // Each signal is written as a Raw record
+        val output = ByteArrayOutputStream()
+        val logger = logger(output)
+        logger.onGnssMeasurementsReceived(event)
+        logger.fileWriter.flush()
+        val lines = output.toString().lines().filter { it.isNotEmpty() }
+        assertEquals(SIGNALS, lines.size)
+        assertTrue(lines.all { it.startsWith("Raw,") })
+
+        // Warm up, then take the best run of each
+        var perRecordNanos = Long.MAX_VALUE
+        var perEpochNanos = Long.MAX_VALUE
+        for (run in 0 until RUNS * 2) {
+            val writer = BufferedWriter(OutputStreamWriter(NullOutputStream()))
+            var start = System.nanoTime()
+            for (epoch in 0 until EPOCHS) {
+                writePerRecord(writer, event)
+            }
+            writer.flush()
+            val recordNanos = System.nanoTime() - start
+
+            val runLogger = logger(NullOutputStream())
+            start = System.nanoTime()
+            for (epoch in 0 until EPOCHS) {
+                runLogger.onGnssMeasurementsReceived(event)
+            }
+            runLogger.fileWriter.flush()
+            val epochNanos = System.nanoTime() - start
+            if (run >= RUNS) {
+                perRecordNanos = minOf(perRecordNanos, recordNanos)
+                perEpochNanos = minOf(perEpochNanos, epochNanos)
+            }
+        }
+        BenchmarkReport.append(
+            javaClass,
+            "$SIGNALS-signal epochs: per-record ${recordsPerSecond(perRecordNanos)} records/s, " +
+                "per-epoch ${recordsPerSecond(perEpochNanos)} records/s " +
+                "(${String.format(Locale.US, "%.2f", perRecordNanos.toDouble() / perEpochNanos)}x)"
+        )
+    }
+
+    /**
+     * How CsvFileLogger wrote each measurement before writing whole epochs
+     */
+    private fun writePerRecord(writer: BufferedWriter, event: GnssMeasurementsEvent) {
+        val clock = event.clock
+        for (measurement in event.measurements) {
+            writer.write(
+                FormatUtils.toLog(
+                    SystemClock.elapsedRealtime(),
+                    SystemClock.elapsedRealtimeNanos(),
+                    clock,
+                    measurement
+                )
+            )
+            writer.newLine()
+        }
+    }
+
+    private fun recordsPerSecond(nanos: Long): Long {
+        return EPOCHS.toLong() * SIGNALS * 1_000_000_000L / nanos
+    }
+
+    /**
+     * Returns a logger that writes to [output] without a file, like one that was started
+     */
+    private fun logger(output: OutputStream): CsvFileLogger {
+        val logger = CsvFileLogger(null)
+        logger.fileWriter = BufferedWriter(OutputStreamWriter(output))
+        return logger
+    }
+
+    private fun measurementsEvent(): GnssMeasurementsEvent {
+        val clock = mock(GnssClock::class.java, withSettings().stubOnly())
+        `when`(clock.timeNanos).thenReturn(1_131_752_000_000_000L)
+        `when`(clock.hasLeapSecond()).thenReturn(true)
+        `when`(clock.leapSecond).thenReturn(18)
+        `when`(clock.hasFullBiasNanos()).thenReturn(true)
+        `when`(clock.fullBiasNanos).thenReturn(-1_319_404_498_546_286_463L)
+        `when`(clock.hasBiasNanos()).thenReturn(true)
+        `when`(clock.biasNanos).thenReturn(0.3716793060302734)
+        `when`(clock.hasBiasUncertaintyNanos()).thenReturn(true)
+        `when`(clock.biasUncertaintyNanos).thenReturn(23.4)
+        `when`(clock.hasDriftNanosPerSecond()).thenReturn(true)
+        `when`(clock.driftNanosPerSecond).thenReturn(-1.2E-8)
+        `when`(clock.hardwareClockDiscontinuityCount).thenReturn(7)
+
+        val measurements = (0 until SIGNALS).map { measurement(it) }
+        val event = mock(GnssMeasurementsEvent::class.java, withSettings().stubOnly())
+        `when`(event.clock).thenReturn(clock)
+        `when`(event.measurements).thenReturn(measurements)
+        return event
+    }
+
+    private fun measurement(signal: Int): GnssMeasurement {
+        val m = mock(GnssMeasurement::class.java, withSettings().stubOnly())
+        `when`(m.svid).thenReturn(signal % 32 + 1)
+        `when`(m.state).thenReturn(16431)
+        `when`(m.receivedSvTimeNanos).thenReturn(345_601_234_567_890L + signal * 1_000_003L)
+        `when`(m.receivedSvTimeUncertaintyNanos).thenReturn(15L)
+        `when`(m.cn0DbHz).thenReturn(20.0 + signal * 0.37)
+        `when`(m.pseudorangeRateMetersPerSecond).thenReturn(-456.78 + signal * 13.1)
+        `when`(m.pseudorangeRateUncertaintyMetersPerSecond).thenReturn(0.05)
+        `when`(m.accumulatedDeltaRangeState).thenReturn(16)
+        `when`(m.accumulatedDeltaRangeMeters).thenReturn(12345.678 + signal * 0.19)
+        `when`(m.accumulatedDeltaRangeUncertaintyMeters).thenReturn(1.0E-4)
+        `when`(m.hasCarrierFrequencyHz()).thenReturn(true)
+        `when`(m.carrierFrequencyHz).thenReturn(if (signal % 2 == 0) 1.57542003E9f else 1.17645005E9f)
+        `when`(m.constellationType).thenReturn(signal % 6 + 1)
+        `when`(m.hasSnrInDb()).thenReturn(true)
+        `when`(m.snrInDb).thenReturn(18.0 + signal * 0.21)
+        return m
+    }
+
+    private class NullOutputStream : OutputStream() {
+        override fun write(b: Int) {}
+        override fun write(b: ByteArray, off: Int, len: Int) {}
+    }
+
+    companion object {
+        private const val SIGNALS = 60
+        private const val EPOCHS = 5_000
+        private const val RUNS = 5
+    }
+}
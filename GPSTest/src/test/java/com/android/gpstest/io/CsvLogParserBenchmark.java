@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import com.android.gpstest.library.io.CsvLogParser;
+import com.android.gpstest.library.io.CsvLogRecord;
+import com.android.gpstest.util.BenchmarkReport;
+
+import org.junit.Test;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+
+/**
+ * Measures how many records per second CsvLogParser reads from a log in memory on one thread,
+ * reading the fields a typical analysis would use from each record. The log is
+ * CsvLogParserTest.createLog(), which checks that it's parsed correctly. Only runs with
+ * -Pbenchmarks, see GPSTest/build.gradle.
+ */
+public class CsvLogParserBenchmark {
+
+    private static final int EPOCHS = 2_000;
+    private static final int SIGNALS = 60;
+    private static final int RUNS = 5;
+
+    private double sum;
+
+    @Test
+    public void parseThroughput() throws IOException {
+        char[] log = CsvLogParserTest.createLog(EPOCHS, SIGNALS).toCharArray();
+        CsvLogParser parser = new CsvLogParser(new CsvLogParser.Handler() {
+            @Override
+            public void onRaw(CsvLogRecord.Raw r) {
+                sum += r.getSvid() + r.getConstellationType() + r.getCn0DbHz()
+                        + r.getReceivedSvTimeNanos() + r.getPseudorangeRateMetersPerSecond();
+                if (r.hasCarrierFrequencyHz()) {
+                    sum += r.getCarrierFrequencyHz();
+                }
+            }
+
+            @Override
+            public void onFix(CsvLogRecord.Fix r) {
+                sum += r.getLatitudeDegrees() + r.getLongitudeDegrees() + r.getAccuracyMeters()
+                        + r.getUnixTimeMillis();
+            }
+
+            @Override
+            public void onStatus(CsvLogRecord.Status r) {
+                sum += r.getSvid() + r.getConstellationType() + r.getCn0DbHz()
+                        + r.getCarrierFrequencyHz() + (r.isUsedInFix() ? 1 : 0);
+            }
+
+            @Override
+            public void onNmea(CsvLogRecord.Nmea r) {
+                sum += r.getSentence().length() + r.getTimestamp();
+            }
+
+            @Override
+            public void onOrientation(CsvLogRecord.Orientation r) {
+                sum += r.getYawDegrees() + r.getElapsedRealtimeNanos();
+            }
+        });
+
+        // Warm up, then take the best run
+        long bestNanos = Long.MAX_VALUE;
+        long records = 0;
+        for (int run = 0; run < RUNS * 2; run++) {
+            long start = System.nanoTime();
+            records = parser.parse(new CharArrayReader(log));
+            long nanos = System.nanoTime() - start;
+            if (run >= RUNS) {
+                bestNanos = Math.min(bestNanos, nanos);
+            }
+        }
+
+        BenchmarkReport.append(getClass(), records + " records (" + log.length / 1024 / 1024 + " MB): "
+                + records * 1_000_000_000L / bestNanos + " records/s, "
+                + (long) log.length * 1_000_000_000L / bestNanos / 1024 / 1024 + " MB/s (checksum " + sum + ")");
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.io.CsvLogParser;
+import com.android.gpstest.library.io.CsvLogRecord;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CsvLogParserTest {
+
+    private static final String HEADER = "#\n"
+            + "#Header Description:\n"
+            + "#\n"
+            + "#Version: v3.10.5 (31005-google), Manufacturer: Google, Model: Pixel 6, GNSS HW Year: 2021, Platform: 12, API Level: 31 \n"
+            + "#\n"
+            + "#Raw GNSS measurements format:\n";
+
+    static final String RAW = "Raw,1131752852,1131752000000000,18,0.5,-1319404498546286463,"
+            + "0.3716793060302734,23.4,-0.000000012,3.5,7,12,0.0,16431,345601234567890,15,38.7,"
+            + "-456.78,0.05,16,12345.678,0.00010,1575420030,,,,0,,1,2.5,33.1,-5.5,1.5,,,C,"
+            + "1131752852726298";
+
+    private static final String FIX = "Fix,gps,28.07124449,-82.42663169,-16.32806396484375,0.0,21.196445,0.0,"
+            + "1637264742000,1.9549425,,1308594915408632,13.918213,0";
+
+    private static final String STATUS = "Status,1637087900313,13,4,6,5,1176450050,27.5,304.0,40.0,1,0,1,";
+
+    private static final String NMEA = "NMEA,$GNGGA,171859.00,2804.281311,N,08225.605044,W,1,07,1.0,39.1,M,-24.8,M,,*75,1568222348220";
+
+    private static final String NAV = "Nav,3,257,1,2,-1,1,-2,127";
+
+    private static final String ORIENTATION = "OrientationDeg,1637264740657,1308593196466709,123.92464891404495,0.3803144045376981,-0.3826964863715929";
+
+    @Test
+    public void testParseRecords() throws IOException {
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onRaw(CsvLogRecord.Raw r) {
+                super.onRaw(r);
+                assertEquals(1131752852L, r.getElapsedRealtimeMillis());
+                assertEquals(-1319404498546286463L, r.getFullBiasNanos());
+                assertEquals(0.3716793060302734, r.getBiasNanos(), 0);
+                assertEquals(23.4, r.getBiasUncertaintyNanos(), 0);
+                assertEquals(-1.2E-8, r.getDriftNanosPerSecond(), 0);
+                assertEquals(12, r.getSvid());
+                assertEquals(38.7, r.getCn0DbHz(), 0);
+                assertEquals(1.57542003E9f, r.getCarrierFrequencyHz(), 0);
+                assertFalse(r.hasCarrierCycles());
+                assertFalse(r.hasCarrierPhase());
+                assertFalse(r.hasSnrInDb());
+                assertEquals(1, r.getConstellationType());
+                assertTrue(r.hasBasebandCn0DbHz());
+                assertFalse(r.hasSatelliteInterSignalBiasNanos());
+                assertEquals("C", r.getCodeType().toString());
+                assertEquals(1131752852726298L, r.getChipsetElapsedRealtimeNanos());
+            }
+
+            @Override
+            public void onFix(CsvLogRecord.Fix r) {
+                super.onFix(r);
+                assertEquals("gps", r.getProvider().toString());
+                assertEquals(28.07124449, r.getLatitudeDegrees(), 0);
+                assertEquals(-16.32806396484375, r.getAltitudeMeters(), 0);
+                assertEquals(21.196445f, r.getAccuracyMeters(), 0);
+                assertTrue(r.hasBearingDegrees());
+                assertEquals(1637264742000L, r.getUnixTimeMillis());
+                assertFalse(r.hasBearingAccuracyDegrees());
+                assertEquals(1308594915408632L, r.getElapsedRealtimeNanos());
+                assertFalse(r.isMockLocation());
+            }
+
+            @Override
+            public void onStatus(CsvLogRecord.Status r) {
+                super.onStatus(r);
+                assertEquals(13, r.getSignalCount());
+                assertEquals(4, r.getSignalIndex());
+                assertEquals(1176450050.0, r.getCarrierFrequencyHz(), 0);
+                assertEquals(27.5f, r.getCn0DbHz(), 0);
+                assertTrue(r.isUsedInFix());
+                assertFalse(r.hasAlmanacData());
+                assertTrue(r.hasEphemerisData());
+                assertFalse(r.hasBasebandCn0DbHz());
+            }
+
+            @Override
+            public void onNmea(CsvLogRecord.Nmea r) {
+                super.onNmea(r);
+                assertEquals(NMEA.substring(5, NMEA.lastIndexOf(',')), r.getSentence().toString());
+                assertEquals(1568222348220L, r.getTimestamp());
+            }
+
+            @Override
+            public void onNav(CsvLogRecord.Nav r) {
+                super.onNav(r);
+                assertEquals(3, r.getSvid());
+                assertEquals(257, r.getType());
+                assertEquals(-1, r.getSubmessageId());
+                byte[] data = new byte[r.getDataLength()];
+                r.getData(data);
+                assertEquals(3, data.length);
+                assertEquals(-2, data[1]);
+                assertEquals(127, data[2]);
+            }
+
+            @Override
+            public void onOrientation(CsvLogRecord.Orientation r) {
+                super.onOrientation(r);
+                assertEquals(1308593196466709L, r.getElapsedRealtimeNanos());
+                assertEquals(123.92464891404495, r.getYawDegrees(), 0);
+                assertEquals(-0.3826964863715929, r.getPitchDegrees(), 0);
+            }
+        };
+        CsvLogParser parser = new CsvLogParser(recorder);
+        long count = parser.parse(new StringReader(HEADER + RAW + "\n" + FIX + "\r\n" + STATUS + "\n"
+                + NMEA + "\n" + NAV + "\n" + ORIENTATION + "\n\n"));
+
+        assertEquals(6, count);
+        assertEquals(0, parser.getMalformedLineCount());
+        assertEquals("Raw,Fix,Status,NMEA,Nav,OrientationDeg", String.join(",", recorder.types));
+        CsvLogParser.Header header = parser.getHeader();
+        assertEquals("3.10.5", header.getVersionName());
+        assertEquals(3, header.getMajorVersion());
+        assertEquals(31005, header.getVersionCode());
+        assertEquals("google", header.getFlavor());
+        assertEquals("Google", header.getManufacturer());
+        assertEquals("Pixel 6", header.getModel());
+        assertEquals("2021", header.getGnssHardwareYear());
+        assertEquals("12", header.getPlatform());
+        assertEquals(31, header.getApiLevel());
+    }
+
+    /**
+     * v3 logs have a shorter Fix record and different columns after AgcDb in Raw records
+     */
+    @Test
+    public void testParseLegacyRecords() throws IOException {
+        String log = "# Version: v3.9.16 (18091-google), Manufacturer: Google, Model: Pixel 3\n"
+                + "Fix,gps,28.0,-82.4,-16.3,0.0,21.1,1568222348217\n"
+                + "Raw,1257164406,126692640000000,,,-1252130864797923510,0.9759163856506348,571.2438141927123,"
+                + "74.13293543922987,35.96258578603258,729,2,0.0,207,73139369397323,271,22.8,-556.3143920898438,"
+                + "10.200000762939453,0,0.0,0.0,,,,,0,,3,,1575420030\n";
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onRaw(CsvLogRecord.Raw r) {
+                super.onRaw(r);
+                assertFalse(r.hasLeapSecond());
+                assertFalse(r.hasAgcDb());
+                assertFalse(r.hasBasebandCn0DbHz());
+                assertFalse(r.hasChipsetElapsedRealtimeNanos());
+                assertEquals(3, r.getConstellationType());
+            }
+
+            @Override
+            public void onFix(CsvLogRecord.Fix r) {
+                super.onFix(r);
+                assertFalse(r.hasBearingDegrees());
+                assertFalse(r.hasElapsedRealtimeNanos());
+                assertEquals(1568222348217L, r.getUnixTimeMillis());
+            }
+        };
+        CsvLogParser parser = new CsvLogParser(recorder);
+
+        assertEquals(2, parser.parse(new StringReader(log)));
+        assertEquals(0, parser.getMalformedLineCount());
+        assertNull(parser.getHeader().getGnssHardwareYear());
+        assertEquals(-1, parser.getHeader().getApiLevel());
+    }
+
+    @Test
+    public void testMalformedLines() throws IOException {
+        String log = HEADER
+                + RAW + "\n"
+                + "Raw,1131752852,1131752000000000\n"
+                + RAW.replace(",12,0.0,", ",,0.0,") + "\n"
+                + RAW.replace(",38.7,", ",38.7x,") + "\n"
+                + "Unknown,1,2\n"
+                + "NMEA,GNGGA,1*33,1\n"
+                + FIX + "\n"
+                // Cut off by a crash
+                + RAW.substring(0, 40);
+        Recorder recorder = new Recorder();
+        CsvLogParser parser = new CsvLogParser(recorder);
+
+        assertEquals(2, parser.parse(new StringReader(log)));
+        assertEquals(6, parser.getMalformedLineCount());
+        assertEquals("8: Expected at least 29 fields but found 3", recorder.malformed.get(0));
+        assertEquals("9: Field 11 is empty", recorder.malformed.get(1));
+        assertEquals("10: Field 16 isn't a number", recorder.malformed.get(2));
+        assertEquals("11: Unknown record type", recorder.malformed.get(3));
+        assertEquals("12: Sentence doesn't start with $ or !", recorder.malformed.get(4));
+        assertEquals("14: Expected at least 29 fields but found 6", recorder.malformed.get(5));
+    }
+
+    /**
+     * Lines must be parsed the same no matter how the reader splits them, including lines longer
+     * than the parser's buffer
+     */
+    @Test
+    public void testReadBoundaries() throws IOException {
+        StringBuilder nav = new StringBuilder("Nav,3,257,1,2,-1");
+        for (int i = 0; i < 40960; i++) {
+            nav.append(',').append(i % 256 - 128);
+        }
+        String log = HEADER + RAW + "\n" + nav + "\n" + NMEA + "\n" + ORIENTATION;
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onNav(CsvLogRecord.Nav r) {
+                super.onNav(r);
+                assertEquals(40960, r.getDataLength());
+                assertEquals(-128, r.getData(0));
+                assertEquals(127, r.getData(40959));
+            }
+        };
+        CsvLogParser parser = new CsvLogParser(recorder);
+        Random random = new Random(7);
+        Reader reader = new StringReader(log) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 1 + random.nextInt(1000)));
+            }
+        };
+
+        assertEquals(4, parser.parse(reader));
+        assertEquals(0, parser.getMalformedLineCount());
+        assertEquals("Raw,Nav,NMEA,OrientationDeg", String.join(",", recorder.types));
+    }
+
+    /**
+     * Numbers must be read the same as Double.parseDouble() and Float.parseFloat()
+     */
+    @Test
+    public void testNumbers() throws IOException {
+        Random random = new Random(42);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            double d;
+            switch (i % 4) {
+                case 0:
+                    d = random.nextDouble() * 1000 - 500;
+                    break;
+                case 1:
+                    d = random.nextGaussian() * 1.0E-8;
+                    break;
+                case 2:
+                    d = Math.round(random.nextDouble() * 1.0E6) / 100.0;
+                    break;
+                default:
+                    d = (float) (random.nextDouble() * 2.0E9);
+                    break;
+            }
+            values.add(new BigDecimal(Double.toString(d)).toPlainString());
+            values.add(new BigDecimal(Float.toString((float) d)).toPlainString());
+        }
+        StringBuilder log = new StringBuilder();
+        for (String value : values) {
+            log.append("OrientationDeg,1,2,").append(value).append(',').append(value).append(",0\n");
+        }
+        int[] index = {0};
+        CsvLogParser parser = new CsvLogParser(new CsvLogParser.Handler() {
+            @Override
+            public void onOrientation(CsvLogRecord.Orientation r) {
+                String value = values.get(index[0]++);
+                assertEquals(value, Double.doubleToRawLongBits(Double.parseDouble(value)),
+                        Double.doubleToRawLongBits(r.getYawDegrees()));
+                assertEquals(value, Float.floatToRawIntBits(Float.parseFloat(value)),
+                        Float.floatToRawIntBits(r.getFloat(CsvLogRecord.Orientation.ROLL_DEGREES)));
+            }
+        });
+
+        assertEquals(values.size(), parser.parse(new StringReader(log.toString())));
+    }
+
+    /**
+     * A log with the mix of records GPSTest writes each second on a multi-frequency device must be
+     * read completely, including when the parser is reused
+     */
+    @Test
+    public void testParseGeneratedLog() throws IOException {
+        int epochs = 20;
+        int signals = 60;
+        String log = createLog(epochs, signals);
+        Recorder recorder = new Recorder();
+        CsvLogParser parser = new CsvLogParser(recorder);
+        for (int run = 1; run <= 2; run++) {
+            assertEquals((long) epochs * (2 * signals + 1 + 8 + 10), parser.parse(new StringReader(log)));
+            assertEquals(0, parser.getMalformedLineCount());
+            assertTrue(recorder.malformed.isEmpty());
+            assertEquals(run * epochs * signals, count(recorder.types, "Raw"));
+            assertEquals(run * epochs * signals, count(recorder.types, "Status"));
+            assertEquals(run * epochs, count(recorder.types, "Fix"));
+            assertEquals(run * epochs * 8, count(recorder.types, "NMEA"));
+            assertEquals(run * epochs * 10, count(recorder.types, "OrientationDeg"));
+        }
+    }
+
+    private static int count(List<String> types, String type) {
+        int count = 0;
+        for (String t : types) {
+            if (t.equals(type)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a synthetic log with the mix of records GPSTest writes each second on a
+     * multi-frequency device - [signals] Raw and Status records, a Fix, 8 NMEA sentences and 10
+     * OrientationDeg records per epoch
+     */
+    static String createLog(int epochs, int signals) {
+        StringBuilder log = new StringBuilder(epochs * 30_000);
+        log.append("#\n#Header Description:\n#\n")
+                .append("#Version: v5.0.0 (50000-google), Manufacturer: Google, Model: Pixel 6, GNSS HW Year: 2021, Platform: 12, API Level: 31 \n")
+                .append("#\n");
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long elapsedRealtime = 1_131_752_852L + epoch * 1000L;
+            long utcTime = 1_637_264_742_000L + epoch * 1000L;
+            for (int signal = 0; signal < signals; signal++) {
+                log.append(RAW
+                        .replace(",12,0.0,", "," + (signal % 32 + 1) + ",0.0,")
+                        .replace("38.7", Double.toString(20.0 + signal * 0.37))
+                        .replace("1575420030", signal % 2 == 0 ? "1575420030" : "1176450050")
+                        .replace("1131752852,", elapsedRealtime + ","))
+                        .append('\n');
+            }
+            log.append("Fix,gps,28.07124449,-82.42663169,-16.32806396484375,0.0,21.196445,0.0,")
+                    .append(utcTime).append(",1.9549425,,1308594915408632,13.918213,0\n");
+            for (int signal = 0; signal < signals; signal++) {
+                log.append("Status,").append(utcTime).append(',').append(signals).append(',')
+                        .append(signal).append(",1,").append(signal % 32 + 1)
+                        .append(signal % 2 == 0 ? ",1575420030,25.5,273.0,14.0,1,1,1,20.5\n" : ",1176450050,27.5,304.0,40.0,0,1,0,\n");
+            }
+            for (int i = 0; i < 8; i++) {
+                log.append("NMEA,$GNGSA,A,2,66,81,87,,,,,,,,,,1.3,1.0,0.9,2*3F,").append(utcTime + i).append('\n');
+            }
+            for (int i = 0; i < 10; i++) {
+                log.append("OrientationDeg,").append(utcTime + i * 100).append(",1308593196466709,")
+                        .append("123.92464891404495,0.3803144045376981,-0.3826964863715929\n");
+            }
+        }
+        return log.toString();
+    }
+
+    private static class Recorder implements CsvLogParser.Handler {
+        final List<String> types = new ArrayList<>();
+        final List<String> malformed = new ArrayList<>();
+
+        @Override
+        public void onRaw(CsvLogRecord.Raw record) {
+            types.add("Raw");
+        }
+
+        @Override
+        public void onFix(CsvLogRecord.Fix record) {
+            types.add("Fix");
+        }
+
+        @Override
+        public void onStatus(CsvLogRecord.Status record) {
+            types.add("Status");
+        }
+
+        @Override
+        public void onNmea(CsvLogRecord.Nmea record) {
+            types.add("NMEA");
+        }
+
+        @Override
+        public void onNav(CsvLogRecord.Nav record) {
+            types.add("Nav");
+        }
+
+        @Override
+        public void onOrientation(CsvLogRecord.Orientation record) {
+            types.add("OrientationDeg");
+        }
+
+        @Override
+        public void onMalformedLine(CsvLogRecord line, String reason) {
+            malformed.add(line.getLineNumber() + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.android.gpstest.library.io.LogExporter;
+import com.android.gpstest.library.io.LogIndex;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class LogExporterTest {
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    private static File write(File dir, String name, String text) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String log(int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append("Fix,GPS,28.0,-82.0,10.0,0.0,5.0,0.0,").append(1600000000000L + i * 1000L).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static Map<String, String> unzip(File zipFile) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new FileInputStream(zipFile))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), read(zip));
+            }
+        }
+        return entries;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testExportSegmentedLog() throws IOException {
+        File dir = temp.newFolder();
+        String first = log(2000);
+        String second = log(1000);
+        write(dir, "gnss_log_1.txt", first);
+        write(dir, "gnss_log_1.txt" + LogIndex.FILE_SUFFIX,
+                "startOffset,endOffset,records,types,firstUtcTimeMillis,lastUtcTimeMillis,"
+                        + "firstElapsedRealtimeNanos,lastElapsedRealtimeNanos\n"
+                        + "0," + first.length() + ",2000,1,1600000000000,1600001999000,1,2\n");
+        write(dir, "gnss_log_2.txt", second);
+        File manifest = write(dir, "gnss_log_1" + LogIndex.MANIFEST_SUFFIX,
+                "file,startElapsedRealtimeNanos,endElapsedRealtimeNanos\n"
+                        + "gnss_log_1.txt,1,2\ngnss_log_2.txt,3,4\n");
+        File json = write(dir, "gnss_log_3.json", "[]");
+
+        LogExporter exporter = new LogExporter(Arrays.asList(manifest, json));
+        assertEquals(5, exporter.getFiles().size());
+        long[] last = new long[2];
+        File zipFile = new File(dir, "logs.zip");
+        exporter.export(zipFile, "GPSTest test", (bytesRead, totalBytes) -> {
+            assertTrue(bytesRead >= last[0]);
+            last[0] = bytesRead;
+            last[1] = totalBytes;
+        });
+        assertEquals(exporter.getTotalBytes(), last[0]);
+        assertEquals(exporter.getTotalBytes(), last[1]);
+        assertFalse(new File(dir, "logs.zip.tmp").exists());
+
+        Map<String, String> entries = unzip(zipFile);
+        assertEquals(Arrays.asList("gnss_log_1" + LogIndex.MANIFEST_SUFFIX, "gnss_log_1.txt",
+                        "gnss_log_1.txt" + LogIndex.FILE_SUFFIX, "gnss_log_2.txt", "gnss_log_3.json",
+                        LogExporter.SUMMARY_ENTRY_NAME),
+                Arrays.asList(entries.keySet().toArray()));
+        assertEquals(first, entries.get("gnss_log_1.txt"));
+        assertEquals(second, entries.get("gnss_log_2.txt"));
+        // Repetitive text logs compress well
+        assertTrue(zipFile.length() * 5 < exporter.getTotalBytes());
+
+        String summary = entries.get(LogExporter.SUMMARY_ENTRY_NAME);
+        assertTrue(summary, summary.startsWith("GPSTest test\n"));
+        assertTrue(summary, summary.contains("Files: 5"));
+        assertTrue(summary, summary.contains("  Records: 2000\n"));
+        assertTrue(summary, summary.contains("  Duration: 1999 s\n"));
+    }
+
+    @Test
+    public void testCancel() throws IOException {
+        File dir = temp.newFolder();
+        File log = write(dir, "gnss_log_1.txt", log(10000));
+        LogExporter exporter = new LogExporter(Arrays.asList(log));
+        File zipFile = new File(dir, "logs.zip");
+        try {
+            exporter.export(zipFile, null, (bytesRead, totalBytes) -> {
+                if (bytesRead > 0) {
+                    exporter.cancel();
+                }
+            });
+            fail("Export should have been cancelled");
+        } catch (CancellationException e) {
+            assertTrue(exporter.isCancelled());
+        }
+        assertFalse(zipFile.exists());
+        assertFalse(new File(dir, "logs.zip.tmp").exists());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.io.CsvLogParser;
+import com.android.gpstest.library.io.CsvLogRecord;
+import com.android.gpstest.library.io.LogIndex;
+import com.android.gpstest.library.io.LogIndexWriter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+public class LogIndexTest {
+
+    private static final String HEADER = "# \n# Version: v3.10.5 (31005-google), Manufacturer: Google, Model: Pixel 6, GNSS HW Year: 2021, Platform: 12, API Level: 31 \n# \n";
+
+    private static final long START_MILLIS = 1_637_264_742_000L;
+    private static final long START_NANOS = 1_308_594_915_408_632L;
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Collects the times of the records that are parsed
+     */
+    private static class Times implements CsvLogParser.Handler {
+        final List<Long> fixTimes = new ArrayList<>();
+        final List<Long> orientationTimes = new ArrayList<>();
+
+        @Override
+        public void onFix(CsvLogRecord.Fix record) {
+            fixTimes.add(record.getUnixTimeMillis());
+        }
+
+        @Override
+        public void onOrientation(CsvLogRecord.Orientation record) {
+            orientationTimes.add(record.getUtcTimeMillis());
+        }
+    }
+
+    /**
+     * Writes a log with one Fix and one Orientation record a second, the way BaseFileLogger does,
+     * and returns the log file
+     */
+    private static File writeLog(File dir, String name, int seconds, int firstSecond, int interval)
+            throws IOException {
+        File log = new File(dir, name);
+        OutputStream fileStream = new FileOutputStream(log);
+        if (name.endsWith(".gz")) {
+            fileStream = new GZIPOutputStream(fileStream, 8192, true);
+        }
+        CountingOutputStream counting = new CountingOutputStream(fileStream, 0);
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(counting, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        LogIndexWriter index = new LogIndexWriter(new FileWriter(LogIndex.getIndexFile(log)), true,
+                interval, offset(writer, counting));
+        for (int i = firstSecond; i < firstSecond + seconds; i++) {
+            long millis = START_MILLIS + i * 1000L;
+            long nanos = START_NANOS + i * 1_000_000_000L;
+            writer.write("Fix,gps,28.07124449,-82.42663169,-16.3,0.0,21.2,0.0," + millis + ",1.95,," + nanos + ",13.9,0\n");
+            if (index.add(LogIndex.TYPE_FIX, millis, nanos)) {
+                index.endBlock(offset(writer, counting));
+            }
+            // Orientation only in the first half
+            if (i < firstSecond + seconds / 2) {
+                writer.write("OrientationDeg," + millis + "," + nanos + ",123.9,0.38,-0.38\n");
+                if (index.add(LogIndex.TYPE_ORIENTATION, millis, nanos)) {
+                    index.endBlock(offset(writer, counting));
+                }
+            }
+        }
+        index.endBlock(offset(writer, counting));
+        index.close();
+        writer.close();
+        return log;
+    }
+
+    private static long offset(BufferedWriter writer, CountingOutputStream counting) throws IOException {
+        counting.setForwardFlush(false);
+        writer.flush();
+        counting.setForwardFlush(true);
+        return counting.getCount();
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+        File log = writeLog(temp.getRoot(), "gnss_log_2026_01_01_00_00_00.txt", 1000, 0, 100);
+        LogIndex index = LogIndex.forLog(log);
+        List<LogIndex.Block> blocks = index.getBlocks();
+        // 1500 records in blocks of 100
+        assertEquals(15, blocks.size());
+        String text = new String(Files.readAllBytes(log.toPath()), StandardCharsets.UTF_8);
+        assertEquals(HEADER.length(), blocks.get(0).getStartOffset());
+        assertEquals(text.length(), blocks.get(14).getEndOffset());
+        for (int i = 0; i < blocks.size(); i++) {
+            LogIndex.Block block = blocks.get(i);
+            assertEquals(100, block.getRecordCount());
+            if (i > 0) {
+                assertEquals(blocks.get(i - 1).getEndOffset(), block.getStartOffset());
+            }
+            // Blocks start on a record
+            assertTrue(text.startsWith("Fix,", (int) block.getStartOffset())
+                    || text.startsWith("OrientationDeg,", (int) block.getStartOffset()));
+        }
+        assertEquals(LogIndex.TYPE_FIX | LogIndex.TYPE_ORIENTATION, blocks.get(0).getTypes());
+        assertEquals(LogIndex.TYPE_FIX, blocks.get(14).getTypes());
+        assertEquals(START_MILLIS, blocks.get(0).getFirstUtcTimeMillis());
+        assertEquals(START_NANOS + 999_000_000_000L, blocks.get(14).getLastElapsedRealtimeNanos());
+
+        // Minute 12 to 13
+        long from = START_MILLIS + 720_000;
+        long to = START_MILLIS + 780_000;
+        List<LogIndex.Block> found = index.findByUtcTime(from, to, LogIndex.ALL_TYPES);
+        assertEquals(1, found.size());
+        assertTrue(found.get(0).getStartOffset() > text.length() / 2);
+
+        Times times = new Times();
+        long records = LogIndex.parseByUtcTime(log, from, to, LogIndex.TYPE_FIX, new CsvLogParser(times));
+        assertEquals(100, records);
+        assertTrue(times.fixTimes.contains(from));
+        assertTrue(times.fixTimes.contains(to));
+        assertTrue(times.orientationTimes.isEmpty());
+
+        // Same range by elapsed realtime
+        times = new Times();
+        LogIndex.parseByElapsedRealtime(log, START_NANOS + 720_000_000_000L, START_NANOS + 780_000_000_000L,
+                LogIndex.TYPE_FIX, new CsvLogParser(times));
+        assertTrue(times.fixTimes.contains(from));
+
+        // Only the first half has orientation
+        assertEquals(10, index.findByUtcTime(START_MILLIS, START_MILLIS + 1_000_000, LogIndex.TYPE_ORIENTATION).size());
+        times = new Times();
+        records = LogIndex.parse(log, index.findByUtcTime(0, Long.MAX_VALUE, LogIndex.TYPE_ORIENTATION),
+                new CsvLogParser(times));
+        assertEquals(1000, records);
+        assertEquals(500, times.orientationTimes.size());
+    }
+
+    @Test
+    public void testCompressed() throws IOException {
+        File log = writeLog(temp.getRoot(), "gnss_log_2026_01_01_00_00_00.txt.gz", 1000, 0, 100);
+        long from = START_MILLIS + 720_000;
+        long to = START_MILLIS + 780_000;
+        Times times = new Times();
+        long records = LogIndex.parseByUtcTime(log, from, to, LogIndex.ALL_TYPES, new CsvLogParser(times));
+        assertEquals(100, records);
+        assertTrue(times.fixTimes.contains(from));
+        assertTrue(times.fixTimes.contains(to));
+    }
+
+    @Test
+    public void testSegments() throws IOException {
+        File dir = temp.getRoot();
+        File first = writeLog(dir, "gnss_log_2026_01_01_00_00_00.txt", 600, 0, 100);
+        File second = writeLog(dir, "gnss_log_2026_01_01_00_10_00.txt.gz", 600, 600, 100);
+        // A segment without an index is read in full
+        File third = writeLog(dir, "gnss_log_2026_01_01_00_20_00.txt", 10, 1200, 100);
+        assertTrue(LogIndex.getIndexFile(third).delete());
+        File manifest = new File(dir, "gnss_log_2026_01_01_00_00_00" + LogIndex.MANIFEST_SUFFIX);
+        try (FileWriter writer = new FileWriter(manifest)) {
+            writer.write("file,startElapsedRealtimeNanos,endElapsedRealtimeNanos\n");
+            writer.write(first.getName() + ",1,2\n");
+            writer.write(second.getName() + ",2,3\n");
+            writer.write(third.getName() + ",3,4\n");
+        }
+        assertEquals(3, LogIndex.getSessionFiles(manifest).size());
+        assertNull(LogIndex.forLog(third));
+
+        // Minute 12 is in the second segment
+        Times times = new Times();
+        long from = START_MILLIS + 720_000;
+        long records = LogIndex.parseByUtcTime(manifest, from, from, LogIndex.ALL_TYPES, new CsvLogParser(times));
+        assertEquals(100 + 15, records);
+        assertTrue(times.fixTimes.contains(from));
+    }
+
+    @Test
+    public void testPartialRow() throws IOException {
+        String index = "startOffset,endOffset,records,types,firstUtcTimeMillis,lastUtcTimeMillis,firstElapsedRealtimeNanos,lastElapsedRealtimeNanos\n"
+                + "10,20,5,1,100,200,,\n"
+                + "20,30,5,3,200";
+        List<LogIndex.Block> blocks = LogIndex.read(new StringReader(index)).getBlocks();
+        assertEquals(1, blocks.size());
+        assertEquals(LogIndex.NO_TIME, blocks.get(0).getFirstElapsedRealtimeNanos());
+        // Unknown times match any range
+        assertTrue(blocks.get(0).overlapsElapsedRealtime(0, 1));
+        assertTrue(!blocks.get(0).overlapsUtcTime(201, 300));
+    }
+
+    @Test
+    public void testCountingOutputStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CountingOutputStream counting = new CountingOutputStream(bytes, 7);
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(counting, StandardCharsets.UTF_8));
+        writer.write("\u00c5ngstr\u00f6m,");
+        assertEquals(7, counting.getCount());
+        assertEquals(7 + 11, offset(writer, counting));
+        assertEquals(11, bytes.size());
+    }
+}
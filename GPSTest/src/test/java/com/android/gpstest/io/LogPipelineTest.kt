@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+
+class LogPipelineTest {
+
+    @Test
+    fun recordsWrittenInSubmitOrder() {
+        val pipeline = LogPipeline(16, LogPipeline.OverflowPolicy.BLOCK)
+        val written = Collections.synchronizedList(ArrayList<Int>())
+        for (i in 0 until 1000) {
+            pipeline.submit(if (i % 2 == 0) LogPipeline.Source.NMEA else LogPipeline.Source.MEASUREMENT) {
+                written.add(i)
+            }
+        }
+        assertTrue(pipeline.shutdown(5_000))
+        assertEquals((0 until 1000).toList(), written)
+        assertEquals(1000L, pipeline.enqueuedCount)
+        assertEquals(1000L, pipeline.writtenCount)
+        assertEquals(500L, pipeline.getWrittenCount(LogPipeline.Source.NMEA))
+        assertEquals(0L, pipeline.droppedCount)
+    }
+
+    @Test
+    fun dropNewestWhenFull() {
+        val pipeline = LogPipeline(2, LogPipeline.OverflowPolicy.DROP_NEWEST)
+        val written = Collections.synchronizedList(ArrayList<Int>())
+        val blocker = blockWriter(pipeline)
+
+        // Two records fit in the queue, the next two are discarded
+        for (i in 0 until 4) {
+            pipeline.submit(LogPipeline.Source.NMEA) { written.add(i) }
+        }
+        blocker.countDown()
+        assertTrue(pipeline.shutdown(5_000))
+        assertEquals(listOf(0, 1), written)
+        assertEquals(2L, pipeline.getDroppedCount(LogPipeline.Source.NMEA))
+    }
+
+    @Test
+    fun dropOldestWhenFull() {
+        val pipeline = LogPipeline(2, LogPipeline.OverflowPolicy.DROP_OLDEST)
+        val written = Collections.synchronizedList(ArrayList<Int>())
+        val blocker = blockWriter(pipeline)
+
+        for (i in 0 until 4) {
+            pipeline.submit(LogPipeline.Source.ORIENTATION) { written.add(i) }
+        }
+        blocker.countDown()
+        assertTrue(pipeline.shutdown(5_000))
+        assertEquals(listOf(2, 3), written)
+        assertEquals(2L, pipeline.getDroppedCount(LogPipeline.Source.ORIENTATION))
+    }
+
+    @Test
+    fun controlRecordsNotDroppedWhenFull() {
+        for (policy in LogPipeline.OverflowPolicy.values()) {
+            val pipeline = LogPipeline(1, policy)
+            val written = Collections.synchronizedList(ArrayList<String>())
+            val blocker = blockWriter(pipeline)
+            assertTrue(pipeline.submit(LogPipeline.Source.NMEA) { written.add("nmea") })
+
+            // A full queue doesn't keep the files from being closed
+            assertTrue(pipeline.submit(LogPipeline.Source.CONTROL) { written.add("close") })
+            blocker.countDown()
+            assertTrue(pipeline.shutdown(5_000))
+            assertEquals(listOf("nmea", "close"), written)
+            assertEquals(0L, pipeline.droppedCount)
+        }
+    }
+
+    @Test
+    fun dropOldestSkipsControlRecords() {
+        val pipeline = LogPipeline(2, LogPipeline.OverflowPolicy.DROP_OLDEST)
+        val written = Collections.synchronizedList(ArrayList<String>())
+        val blocker = blockWriter(pipeline)
+
+        // The oldest record that isn't a control record is dropped, so the newest are kept
+        pipeline.submit(LogPipeline.Source.CONTROL) { written.add("start") }
+        for (i in 0 until 4) {
+            pipeline.submit(LogPipeline.Source.ORIENTATION) { written.add("$i") }
+        }
+        blocker.countDown()
+        assertTrue(pipeline.shutdown(5_000))
+        assertEquals(listOf("start", "2", "3"), written)
+        assertEquals(2L, pipeline.getDroppedCount(LogPipeline.Source.ORIENTATION))
+    }
+
+    @Test
+    fun rejectAfterShutdown() {
+        val pipeline = LogPipeline(LogPipeline.OverflowPolicy.BLOCK)
+        assertTrue(pipeline.shutdown(5_000))
+        assertFalse(pipeline.submit(LogPipeline.Source.LOCATION) { })
+        assertEquals(1L, pipeline.getDroppedCount(LogPipeline.Source.LOCATION))
+    }
+
+    @Test
+    fun blockDropsAfterTimeout() {
+        val pipeline = LogPipeline(1, LogPipeline.OverflowPolicy.BLOCK)
+        val blocker = blockWriter(pipeline)
+        assertTrue(pipeline.submit(LogPipeline.Source.NMEA) { })
+
+        // The queue stays full, so the producer gives up instead of waiting for the writer
+        val startNanos = System.nanoTime()
+        assertFalse(pipeline.submit(LogPipeline.Source.NMEA) { })
+        assertTrue(System.nanoTime() - startNanos < 5_000_000_000L)
+        assertEquals(1L, pipeline.getDroppedCount(LogPipeline.Source.NMEA))
+
+        blocker.countDown()
+        assertTrue(pipeline.shutdown(5_000))
+        assertEquals(1L, pipeline.getWrittenCount(LogPipeline.Source.NMEA))
+    }
+
+    @Test
+    fun shutdownTimesOutWhenWriterStalls() {
+        val pipeline = LogPipeline(1, LogPipeline.OverflowPolicy.BLOCK)
+        blockWriter(pipeline)
+        assertTrue(pipeline.submit(LogPipeline.Source.STATUS) { })
+
+        // The writer never finishes its record, so it never gets to STOP
+        assertFalse(pipeline.shutdown(200))
+        assertFalse(pipeline.submit(LogPipeline.Source.STATUS) { })
+        // Waits for the stopped writer, which counts the record it didn't write as dropped
+        assertFalse(pipeline.shutdown(5_000))
+        assertEquals(0L, pipeline.getWrittenCount(LogPipeline.Source.STATUS))
+        assertEquals(2L, pipeline.getDroppedCount(LogPipeline.Source.STATUS))
+        assertEquals(0, pipeline.queueDepth)
+    }
+
+    /**
+     * Occupies the writer thread until the returned latch is released, so the queue can fill up
+     */
+    private fun blockWriter(pipeline: LogPipeline): CountDownLatch {
+        val started = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        pipeline.submit(LogPipeline.Source.CONTROL) {
+            started.countDown()
+            release.await()
+        }
+        started.await()
+        return release
+    }
+}
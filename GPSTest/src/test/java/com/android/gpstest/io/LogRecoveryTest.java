@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.io.BinaryLogFormat;
+import com.android.gpstest.library.io.LogIndex;
+import com.android.gpstest.library.io.LogIndexWriter;
+import com.android.gpstest.library.io.LogRecovery;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class LogRecoveryTest {
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    private File write(String name, byte[] bytes) throws IOException {
+        File file = new File(temp.newFolder(), name);
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+    private File write(String name, String text) throws IOException {
+        return write(name, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static String readCompressed(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLines() throws IOException {
+        File file = write("gnss_log.txt", "# Header\nFix,gps,1\nFix,gps,2\nFix,g");
+        LogRecovery.Result result = LogRecovery.repair(file, LogRecovery.FORMAT_LINES);
+        assertEquals("# Header\nFix,gps,1\nFix,gps,2\n", read(file));
+        assertEquals(5, result.getRemovedBytes());
+        assertEquals(29, result.getLength());
+        assertTrue(result.hasRecords());
+
+        // Nothing to repair
+        long length = file.length();
+        result = LogRecovery.repair(file, LogRecovery.FORMAT_LINES);
+        assertEquals(0, result.getRemovedBytes());
+        assertEquals(length, file.length());
+
+        file = write("gnss_log.txt", "");
+        result = LogRecovery.repair(file, LogRecovery.FORMAT_LINES);
+        assertEquals(0, result.getLength());
+        assertFalse(result.hasRecords());
+    }
+
+    @Test
+    public void testCompressed() throws IOException {
+        // Everything written before the last flush is readable after a crash
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes, 512, true);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            String line = "Fix,gps,28.07124449,-82.42663169," + i + "\n";
+            expected.append(line);
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+        }
+        out.write("Fix,gps,28.0712".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        // Crash before the gzip trailer is written
+        File file = write("gnss_log.txt.gz", bytes.toByteArray());
+
+        LogRecovery.Result result = LogRecovery.repair(file, LogRecovery.FORMAT_LINES);
+        assertEquals(expected.toString(), readCompressed(file));
+        assertEquals(expected.length(), result.getLength());
+        assertEquals(15, result.getRemovedBytes());
+
+        // An incomplete gzip header is left as an empty file that can be appended to
+        file = write("gnss_log.txt.gz", new byte[]{0x1f, (byte) 0x8b, 8});
+        result = LogRecovery.repair(file, LogRecovery.FORMAT_LINES);
+        assertEquals(0, result.getLength());
+        assertEquals("", readCompressed(file));
+    }
+
+    @Test
+    public void testJsonArray() throws IOException {
+        File file = write("gnss_log.json", "[{\"type\":\"NMEA\",\"Sentence\":\"}\\\"]\"},{\"Data\":[1,2]},{\"type\":\"Fi");
+        LogRecovery.Result result = LogRecovery.repair(file, LogRecovery.FORMAT_JSON_ARRAY);
+        assertEquals("[{\"type\":\"NMEA\",\"Sentence\":\"}\\\"]\"},{\"Data\":[1,2]}", read(file));
+        assertTrue(result.hasRecords());
+
+        // A complete array is left open so more elements can be added
+        file = write("gnss_log.json", "[{\"a\":1} ]");
+        result = LogRecovery.repair(file, LogRecovery.FORMAT_JSON_ARRAY);
+        assertEquals("[{\"a\":1}", read(file));
+        assertEquals(2, result.getRemovedBytes());
+
+        file = write("gnss_log.json", "[ {\"a\"");
+        result = LogRecovery.repair(file, LogRecovery.FORMAT_JSON_ARRAY);
+        assertEquals("[", read(file));
+        assertFalse(result.hasRecords());
+
+        file = write("gnss_log.json", "");
+        result = LogRecovery.repair(file, LogRecovery.FORMAT_JSON_ARRAY);
+        assertEquals(0, result.getLength());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotJsonArray() throws IOException {
+        LogRecovery.repair(write("gnss_log.json", "{\"a\":1}"), LogRecovery.FORMAT_JSON_ARRAY);
+    }
+
+    @Test
+    public void testBinary() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryLogFormat.writeFileHeader(bytes, "# Header\n");
+        int headerLength = bytes.size();
+        BinaryLogFormat.RecordWriter record = new BinaryLogFormat.RecordWriter();
+        record.begin(BinaryLogFormat.TYPE_NMEA).writeString("$GPGGA,,,,,,0,,,,,,,,*66").writeLong(1).writeTo(bytes);
+        record.begin(BinaryLogFormat.TYPE_TIMESTAMP_RESET).writeTo(bytes);
+        int complete = bytes.size();
+        record.begin(BinaryLogFormat.TYPE_NMEA).writeString("$GPGGA,,,,,,0,,,,,,,,*66").writeLong(2).writeTo(bytes);
+        byte[] all = bytes.toByteArray();
+        byte[] truncated = new byte[complete + 5];
+        System.arraycopy(all, 0, truncated, 0, truncated.length);
+        File file = write("gnss_log.gtbl", truncated);
+
+        LogRecovery.Result result = LogRecovery.repair(file, LogRecovery.FORMAT_BINARY);
+        assertEquals(complete, file.length());
+        assertEquals(5, result.getRemovedBytes());
+        assertTrue(result.hasRecords());
+
+        // Part of the header
+        byte[] partialHeader = new byte[headerLength - 2];
+        System.arraycopy(all, 0, partialHeader, 0, partialHeader.length);
+        file = write("gnss_log.gtbl", partialHeader);
+        result = LogRecovery.repair(file, LogRecovery.FORMAT_BINARY);
+        assertEquals(0, file.length());
+        assertFalse(result.hasRecords());
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+        File log = write("gnss_log.txt", "");
+        File index = LogIndex.getIndexFile(log);
+        LogIndexWriter writer = new LogIndexWriter(new FileWriter(index), true, 1, 0);
+        for (int i = 1; i <= 5; i++) {
+            writer.add(LogIndex.TYPE_FIX, 1000L * i, LogIndex.NO_TIME);
+            writer.endBlock(100L * i);
+        }
+        writer.close();
+        // Partial row
+        try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+            file.seek(file.length());
+            file.writeBytes("500,6");
+        }
+
+        LogRecovery.repairIndex(index, 350);
+        List<LogIndex.Block> blocks = LogIndex.forLog(log).getBlocks();
+        assertEquals(3, blocks.size());
+        assertEquals(300, blocks.get(2).getEndOffset());
+        assertTrue(read(index).endsWith("\n"));
+
+        // Incomplete header
+        try (FileOutputStream out = new FileOutputStream(index)) {
+            out.write("startOffset,end".getBytes(StandardCharsets.UTF_8));
+        }
+        LogRecovery.repairIndex(index, 350);
+        assertFalse(index.exists());
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.android.gpstest.library.io.LogReplayer;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogReplayerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    /**
+     * Clock that advances only when the replayer sleeps
+     */
+    private static class FakeClock implements LogReplayer.Clock {
+        long now = 42;
+        final List<Long> sleeps = new ArrayList<>();
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long nanos) throws InterruptedException {
+            sleeps.add(nanos);
+            now += nanos;
+        }
+    }
+
+    private static String raw(long timeNanos, long elapsedRealtimeNanos, int svid) {
+        return CsvLogParserTest.RAW
+                .replace("1131752000000000", Long.toString(timeNanos))
+                .replace(",12,0.0,", "," + svid + ",0.0,")
+                .replace("1131752852726298", Long.toString(elapsedRealtimeNanos));
+    }
+
+    private static String status(int index, int count, int svid) {
+        return "Status,1637087900313," + count + "," + index + ",1," + svid + ",1575420030,27.5,304.0,40.0,1,0,1,";
+    }
+
+    private static String fix(long elapsedRealtimeNanos) {
+        return "Fix,gps,28.07124449,-82.42663169,-16.32806396484375,0.0,21.196445,0.0,"
+                + "1637264742000,1.9549425,," + elapsedRealtimeNanos + ",13.918213,0";
+    }
+
+    private static String orientation(long elapsedRealtimeNanos) {
+        return "OrientationDeg,1637264740657," + elapsedRealtimeNanos + ",123.9,0.38,-0.38";
+    }
+
+    private static final String NMEA = "NMEA,$GNGSA,A,2,66,81,87,,,,,,,,,,1.3,1.0,0.9,2*3F,1568222348220";
+
+    private static final String NAV = "Nav,3,257,1,2,-1,1,-2,127";
+
+    private static String log() {
+        return String.join("\n",
+                "#Version: v3.10.5 (31005-google), Manufacturer: Google, Model: Pixel 6, GNSS HW Year: 2021, Platform: 12, API Level: 31 ",
+                NMEA,
+                raw(1000, SECOND, 1),
+                raw(1000, SECOND, 2),
+                raw(1000, SECOND, 3),
+                status(0, 3, 1),
+                status(1, 3, 2),
+                status(2, 3, 3),
+                fix(3 * SECOND / 2),
+                raw(2000, 2 * SECOND, 4),
+                raw(2000, 2 * SECOND, 5),
+                status(0, 2, 4),
+                status(1, 2, 5),
+                orientation(5 * SECOND / 2),
+                NAV) + "\n";
+    }
+
+    private static List<LogReplayer.Event> replay(LogReplayer replayer, String log, List<Long> deliveredAt,
+                                                  FakeClock clock) throws IOException, InterruptedException {
+        List<LogReplayer.Event> events = new ArrayList<>();
+        long count = replayer.replay(new StringReader(log), event -> {
+            events.add(event);
+            deliveredAt.add(clock.now);
+        });
+        assertEquals(events.size(), count);
+        return events;
+    }
+
+    @Test
+    public void testEvents() throws IOException, InterruptedException {
+        FakeClock clock = new FakeClock();
+        List<LogReplayer.Event> events = replay(new LogReplayer(LogReplayer.AS_FAST_AS_POSSIBLE, clock),
+                log(), new ArrayList<>(), clock);
+        assertTrue(clock.sleeps.isEmpty());
+
+        int[] types = {LogReplayer.TYPE_NMEA, LogReplayer.TYPE_MEASUREMENTS, LogReplayer.TYPE_STATUS,
+                LogReplayer.TYPE_FIX, LogReplayer.TYPE_MEASUREMENTS, LogReplayer.TYPE_STATUS,
+                LogReplayer.TYPE_ORIENTATION, LogReplayer.TYPE_NAV};
+        long[] times = {SECOND, SECOND, SECOND, 3 * SECOND / 2, 2 * SECOND, 2 * SECOND,
+                5 * SECOND / 2, 5 * SECOND / 2};
+        assertEquals(types.length, events.size());
+        for (int i = 0; i < types.length; i++) {
+            assertEquals("Event " + i, types[i], events.get(i).getType());
+            assertEquals("Event " + i, times[i], events.get(i).getElapsedRealtimeNanos());
+        }
+
+        // Records are still valid after the parser has moved on
+        assertEquals("$GNGSA,A,2,66,81,87,,,,,,,,,,1.3,1.0,0.9,2*3F", events.get(0).getNmea().getSentence().toString());
+        assertEquals(3, events.get(1).getMeasurements().size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, events.get(1).getMeasurements().get(i).getSvid());
+            assertEquals(i + 1, events.get(2).getStatuses().get(i).getSvid());
+        }
+        assertEquals(28.07124449, events.get(3).getFix().getLatitudeDegrees(), 0);
+        assertEquals(2, events.get(4).getMeasurements().size());
+        assertEquals(5, events.get(4).getMeasurements().get(1).getSvid());
+        assertEquals(2, events.get(5).getStatuses().size());
+        assertEquals(123.9, events.get(6).getOrientation().getYawDegrees(), 0);
+        assertEquals(3, events.get(7).getNav().getSvid());
+    }
+
+    @Test
+    public void testPacing() throws IOException, InterruptedException {
+        for (double speed : new double[]{1.0, 10.0, 0.5}) {
+            FakeClock clock = new FakeClock();
+            long start = clock.now;
+            List<Long> deliveredAt = new ArrayList<>();
+            List<LogReplayer.Event> events = replay(new LogReplayer(speed, clock), log(), deliveredAt, clock);
+            long first = events.get(0).getElapsedRealtimeNanos();
+            for (int i = 0; i < events.size(); i++) {
+                long expected = (long) ((events.get(i).getElapsedRealtimeNanos() - first) / speed);
+                assertEquals("Speed " + speed + " event " + i, expected, deliveredAt.get(i) - start);
+            }
+            // Sleeps only between events at different times
+            assertEquals(3, clock.sleeps.size());
+        }
+    }
+
+    @Test
+    public void testNoTimestamps() throws IOException, InterruptedException {
+        FakeClock clock = new FakeClock();
+        List<LogReplayer.Event> events = replay(new LogReplayer(1.0, clock), NMEA + "\n" + NAV + "\n",
+                new ArrayList<>(), clock);
+        assertEquals(2, events.size());
+        assertEquals(LogReplayer.TYPE_NMEA, events.get(0).getType());
+        assertEquals(LogReplayer.TYPE_NAV, events.get(1).getType());
+        assertEquals(0, events.get(1).getElapsedRealtimeNanos());
+        assertTrue(clock.sleeps.isEmpty());
+    }
+
+    @Test
+    public void testTimeGoesBackwards() throws IOException, InterruptedException {
+        FakeClock clock = new FakeClock();
+        String log = orientation(2 * SECOND) + "\n" + fix(SECOND) + "\n" + orientation(3 * SECOND) + "\n";
+        List<LogReplayer.Event> events = replay(new LogReplayer(1.0, clock), log, new ArrayList<>(), clock);
+        assertEquals(2 * SECOND, events.get(1).getElapsedRealtimeNanos());
+        assertEquals(3 * SECOND, events.get(2).getElapsedRealtimeNanos());
+        assertEquals(1, clock.sleeps.size());
+    }
+
+    @Test
+    public void testInterrupted() throws IOException {
+        LogReplayer replayer = new LogReplayer(1.0, new LogReplayer.Clock() {
+            @Override
+            public long nanoTime() {
+                return 0;
+            }
+
+            @Override
+            public void sleep(long nanos) throws InterruptedException {
+                throw new InterruptedException();
+            }
+        });
+        List<LogReplayer.Event> events = new ArrayList<>();
+        try {
+            replayer.replay(new StringReader(log()), events::add);
+            fail("Replay should have been interrupted");
+        } catch (InterruptedException e) {
+            // Expected - everything before the first wait was delivered
+            assertEquals(3, events.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSpeed() {
+        new LogReplayer(0);
+    }
+}
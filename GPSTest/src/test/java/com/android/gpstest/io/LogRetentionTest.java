@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.io.LogIndex;
+import com.android.gpstest.library.io.LogRetention;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+public class LogRetentionTest {
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final long NOW_MILLIS = 100 * DAY_MILLIS;
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    private static File write(File dir, String name, int size, long modifiedMillis) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), new byte[size]);
+        assertTrue(file.setLastModified(modifiedMillis));
+        return file;
+    }
+
+    @Test
+    public void testByteQuota() throws IOException {
+        File dir = temp.newFolder();
+        File oldest = write(dir, "gnss_log_1.txt", 4000, NOW_MILLIS - 3 * DAY_MILLIS);
+        File oldestIndex = write(dir, "gnss_log_1.txt.idx", 500, NOW_MILLIS - 3 * DAY_MILLIS);
+        File middle = write(dir, "gnss_log_2.txt", 4000, NOW_MILLIS - 2 * DAY_MILLIS);
+        File newest = write(dir, "gnss_log_3.txt", 4000, NOW_MILLIS - DAY_MILLIS);
+
+        LogRetention retention = new LogRetention(dir, Runnable::run);
+        retention.setLimits(9000, 0, 0);
+        retention.scan();
+        assertEquals(12500, retention.getTotalBytes());
+        assertEquals(3, retention.getFileCount());
+
+        List<File> deleted = retention.evict(NOW_MILLIS);
+        assertEquals(1, deleted.size());
+        assertEquals(oldest, deleted.get(0));
+        assertFalse(oldest.exists());
+        assertFalse(oldestIndex.exists());
+        assertTrue(middle.exists());
+        assertTrue(newest.exists());
+        assertEquals(8000, retention.getTotalBytes());
+    }
+
+    @Test
+    public void testProtectedFilesAreKept() throws IOException {
+        File dir = temp.newFolder();
+        File writing = write(dir, "gnss_log_1.txt", 4000, NOW_MILLIS - 3 * DAY_MILLIS);
+        File closed = write(dir, "gnss_log_2.txt", 4000, NOW_MILLIS - 2 * DAY_MILLIS);
+
+        LogRetention retention = new LogRetention(dir, Runnable::run);
+        retention.setLimits(1000, 0, 0);
+        retention.scan();
+        retention.protect(writing);
+        retention.evict(NOW_MILLIS);
+        assertTrue(writing.exists());
+        assertFalse(closed.exists());
+
+        // Growing while protected requests eviction, but the file is still kept
+        retention.update(writing, 8000);
+        assertTrue(writing.exists());
+        assertEquals(8000, retention.getTotalBytes());
+
+        // Once released it's evicted, as it's over the quota on its own
+        retention.release(writing);
+        assertFalse(writing.exists());
+        assertEquals(0, retention.getTotalBytes());
+    }
+
+    @Test
+    public void testAgeCountAndSmallFiles() throws IOException {
+        File dir = temp.newFolder();
+        File old = write(dir, "gnss_log_1.txt", 4000, NOW_MILLIS - 40 * DAY_MILLIS);
+        File empty = write(dir, "gnss_log_2.txt", 10, NOW_MILLIS - DAY_MILLIS);
+        File manifest = write(dir, "gnss_log_3" + LogIndex.MANIFEST_SUFFIX, 100, NOW_MILLIS - DAY_MILLIS);
+        File orphanIndex = write(dir, "gnss_log_4.txt.idx", 100, NOW_MILLIS - DAY_MILLIS);
+        File first = write(dir, "gnss_log_5.txt", 4000, NOW_MILLIS - 3 * DAY_MILLIS);
+        File second = write(dir, "gnss_log_6.txt", 4000, NOW_MILLIS - 2 * DAY_MILLIS);
+
+        LogRetention retention = new LogRetention(dir, Runnable::run);
+        retention.setLimits(0, 30 * DAY_MILLIS, 2);
+        retention.scan();
+        assertFalse(orphanIndex.exists());
+
+        retention.evict(NOW_MILLIS);
+        assertFalse(old.exists());
+        assertFalse(empty.exists());
+        // Manifests are small, but aren't deleted for it
+        assertTrue(manifest.exists());
+        assertFalse(first.exists());
+        assertTrue(second.exists());
+        assertEquals(2, retention.getFileCount());
+    }
+
+    @Test
+    public void testRequestEvictionRunsOnExecutor() throws IOException {
+        File dir = temp.newFolder();
+        File file = write(dir, "gnss_log_1.txt", 4000, System.currentTimeMillis());
+        LogRetention retention = new LogRetention(dir, Runnable::run);
+        retention.setLimits(1000, 0, 0);
+        retention.requestEviction();
+        assertFalse(file.exists());
+
+        // New files are added to the catalog as they're written
+        File next = new File(dir, "gnss_log_2.txt");
+        retention.protect(next);
+        Files.write(next.toPath(), new byte[500]);
+        retention.update(next, 500);
+        Files.write(next.toPath(), new byte[2000]);
+        retention.release(next);
+        assertFalse(next.exists());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.io.LogIndex;
+
+import org.junit.Test;
+
+public class LoggingMetricsTest {
+
+    /**
+     * Metrics with a clock that's set by the test
+     */
+    private static final class TestMetrics extends LoggingMetrics {
+        long now;
+
+        TestMetrics(LogPipeline pipeline) {
+            super(pipeline);
+        }
+
+        @Override
+        long nanoTime() {
+            return now;
+        }
+    }
+
+    @Test
+    public void testPipelineLatency() {
+        LogPipeline pipeline = new LogPipeline(16, LogPipeline.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 100; i++) {
+            pipeline.submit(LogPipeline.Source.NMEA, () -> {
+                long end = System.nanoTime() + 100_000;
+                while (System.nanoTime() < end) {
+                    // Busy wait so each write takes at least 0.1 ms
+                }
+            });
+        }
+        assertTrue(pipeline.shutdown(5_000));
+        LoggingMetrics metrics = pipeline.getMetrics();
+        assertTrue(metrics.getWriteMillis(0.5) >= 0.099);
+        assertTrue(metrics.getQueueLatencyMillis(0.99) >= metrics.getQueueLatencyMillis(0.5));
+        assertTrue(metrics.getMaxQueueDepth() <= 16);
+        assertTrue(metrics.getReport().contains("written 100, dropped 0"));
+    }
+
+    @Test
+    public void testRates() {
+        LogPipeline pipeline = new LogPipeline(16, LogPipeline.OverflowPolicy.BLOCK);
+        TestMetrics metrics = new TestMetrics(pipeline);
+        LoggingMetrics.FileMetrics csv = metrics.getFileMetrics("CsvFileLogger");
+        for (int i = 0; i < 20; i++) {
+            csv.onRecordWritten(LogIndex.TYPE_FIX, 100);
+        }
+        for (int i = 0; i < 50; i++) {
+            csv.onRecordWritten(LogIndex.TYPE_NMEA, 40);
+        }
+        csv.setFileSize(4000);
+        metrics.now = 2_000_000_000L;
+        String report = metrics.getReport();
+        assertTrue(report, report.contains("CsvFileLogger: file size 4000 bytes"));
+        assertTrue(report, report.contains("Fix: 10.0 records/s, 1000 bytes/s (total 20 records, 2000 bytes)"));
+        assertTrue(report, report.contains("NMEA: 25.0 records/s, 1000 bytes/s (total 50 records, 2000 bytes)"));
+
+        // Reading the report doesn't change the rates
+        assertEquals(report, metrics.getReport());
+
+        // The window is moved on when the pipeline writes a record
+        metrics.now = LoggingMetrics.RATE_WINDOW_NANOS;
+        metrics.onRecordWritten(0, 0, 0);
+        csv.onRecordWritten(LogIndex.TYPE_FIX, 100);
+        metrics.now = 2 * LoggingMetrics.RATE_WINDOW_NANOS;
+        metrics.onRecordWritten(0, 0, 0);
+        report = metrics.getReport();
+        assertTrue(report, report.contains("Fix: 0.1 records/s, 10 bytes/s (total 21 records, 2100 bytes)"));
+        assertTrue(report, report.contains("NMEA: 0.0 records/s"));
+        assertEquals(21, csv.getRecordCount(LogIndex.TYPE_FIX));
+        assertEquals(2000, csv.getByteCount(LogIndex.TYPE_NMEA));
+
+        metrics.reset();
+        assertEquals(0, csv.getRecordCount(LogIndex.TYPE_FIX));
+        assertTrue(pipeline.shutdown(5_000));
+    }
+
+    @Test
+    public void testFlushSyncAndErrors() {
+        LogPipeline pipeline = new LogPipeline(16, LogPipeline.OverflowPolicy.BLOCK);
+        LoggingMetrics metrics = pipeline.getMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.onFlush(i * 10_000L);
+            metrics.onSync(i * 1_000_000L);
+        }
+        assertEquals(0.5, metrics.getFlushMillis(0.5), 0.5 * LoggingMetrics.LATENCY_ACCURACY);
+        assertEquals(99, metrics.getSyncMillis(0.99), 99 * LoggingMetrics.LATENCY_ACCURACY);
+
+        metrics.onError("CsvFileLogger: Error writing file");
+        assertEquals(1, metrics.getErrorCount());
+        assertTrue(metrics.getReport().contains("Errors: 1 (last: CsvFileLogger: Error writing file)"));
+        assertTrue(pipeline.shutdown(5_000));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.io.RinexObservationWriter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RinexObservationWriterTest {
+
+    // 2024-03-15 12:30:15 GPS time
+    private static final long GPS_NANOS = 1394541015000000000L;
+    private static final long TIME_NANOS = 5_000_000_000L;
+    private static final long FULL_BIAS_NANOS = TIME_NANOS - GPS_NANOS;
+    private static final long TIME_OF_WEEK_NANOS = 477015000000000L;
+
+    private static final int TOW_DECODED = 1 << 3;
+    private static final int TOW_KNOWN = 1 << 14;
+    private static final int ADR_VALID = 1;
+    private static final int ADR_RESET = 1 << 1;
+
+    // Width of an observation with its indicators
+    private static final int FIELD = 16;
+
+    private static RinexObservationWriter writer(StringBuilder out) {
+        return new RinexObservationWriter(out, RinexObservationWriter.VERSION_3, "GPSTest test",
+                "Test Phone", "Android 14", false);
+    }
+
+    private static void addEpoch(RinexObservationWriter writer, int discontinuityCount) throws IOException {
+        writer.beginEpoch(TIME_NANOS, FULL_BIAS_NANOS, 0.5, 18, discontinuityCount);
+        // GPS L1 C/A, 70 ms before the receiver time
+        writer.addMeasurement(1, 5, TOW_DECODED, TIME_OF_WEEK_NANOS - 70_000_000L, 0, 40.0,
+                -100.0, ADR_VALID | ADR_RESET, 1000.0, 1575.42E6, "C");
+        // Galileo E5a pilot, with the code type from the device
+        writer.addMeasurement(6, 11, TOW_KNOWN, TIME_OF_WEEK_NANOS - 75_000_000L, 0, 25.0,
+                50.0, 0, 0, 1176.45E6, "Q");
+        // GLONASS satellite identified by its frequency channel, which has no RINEX number
+        writer.addMeasurement(3, 100, TOW_DECODED, 0, 0, 30.0, 0, 0, 0, 1602.0E6, null);
+        writer.endEpoch();
+    }
+
+    private static List<String> lines(StringBuilder out) {
+        return new ArrayList<>(Arrays.asList(out.toString().split("\n")));
+    }
+
+    @Test
+    public void testHeader() throws IOException {
+        StringBuilder out = new StringBuilder();
+        RinexObservationWriter writer = writer(out);
+        addEpoch(writer, 0);
+
+        List<String> lines = lines(out);
+        int end = lines.indexOf(String.format("%-60s%s", "", "END OF HEADER"));
+        assertTrue(end > 0);
+        for (int i = 0; i <= end; i++) {
+            String line = lines.get(i);
+            assertTrue(line, line.length() > 60 && line.length() <= 80);
+        }
+        assertEquals("     3.05           OBSERVATION DATA    M                   RINEX VERSION / TYPE",
+                lines.get(0));
+        assertTrue(lines.get(1).startsWith("GPSTest test"));
+        assertTrue(lines.get(1).endsWith(" UTC PGM / RUN BY / DATE"));
+        assertTrue(lines.contains(String.format("%-60s%s",
+                "G   28 C1C L1C D1C S1C C2L L2L D2L S2L C2S L2S D2S S2S C2X", "SYS / # / OBS TYPES")));
+        assertTrue(lines.contains(String.format("%-60s%s",
+                "  2024     3    15    12    30   15.0000000     GPS", "TIME OF FIRST OBS")));
+        assertTrue(lines.contains(String.format("%-60s%s", "    18", "LEAP SECONDS")));
+    }
+
+    @Test
+    public void testObservations() throws IOException {
+        StringBuilder out = new StringBuilder();
+        RinexObservationWriter writer = writer(out);
+        addEpoch(writer, 0);
+        assertEquals(1, writer.getEpochCount());
+        assertEquals(1, writer.getSkippedSignalCount());
+
+        List<String> lines = lines(out);
+        int epoch = lines.indexOf("> 2024 03 15 12 30 15.0000000  0  2");
+        assertTrue(epoch > 0);
+
+        // Pseudorange, carrier phase with loss of lock after the reset, Doppler and C/N0
+        assertEquals("G05"
+                        + "  20985471.910 6" + "      5255.03516"
+                        + "       525.504  " + "        40.000  ",
+                lines.get(epoch + 1));
+
+        // E5a Q is the fifth Galileo signal, after E1 B, C, X and E5a I. The carrier phase isn't
+        // valid, so it's left blank.
+        String galileo = lines.get(epoch + 2);
+        assertEquals("E11", galileo.substring(0, 3));
+        assertEquals(String.format("%" + (4 * 4 * FIELD) + "s", ""), galileo.substring(3, 3 + 4 * 4 * FIELD));
+        assertEquals("  22484434.200 4" + String.format("%" + FIELD + "s", "")
+                        + "      -196.211  " + "        25.000  ",
+                galileo.substring(3 + 4 * 4 * FIELD));
+    }
+
+    @Test
+    public void testClockDiscontinuityAndAppend() throws IOException {
+        // The carrier phase has lost lock in the second epoch, because the hardware clock was reset
+        StringBuilder appended = new StringBuilder();
+        RinexObservationWriter appender = new RinexObservationWriter(appended,
+                RinexObservationWriter.VERSION_3, "GPSTest test", "Test Phone", "Android 14", true);
+        appender.beginEpoch(TIME_NANOS, FULL_BIAS_NANOS, 0, 18, 0);
+        appender.addMeasurement(1, 5, TOW_DECODED, TIME_OF_WEEK_NANOS - 70_000_000L, 0, 40.0,
+                0, ADR_VALID, 1000.0, 1575.42E6, "C");
+        appender.endEpoch();
+        appender.beginEpoch(TIME_NANOS, FULL_BIAS_NANOS, 0, 18, 1);
+        appender.addMeasurement(1, 5, TOW_DECODED, TIME_OF_WEEK_NANOS - 70_000_000L, 0, 40.0,
+                0, ADR_VALID, 1000.0, 1575.42E6, "C");
+        appender.endEpoch();
+
+        List<String> lines = lines(appended);
+        // No header when appending to an existing file
+        assertEquals("> 2024 03 15 12 30 15.0000000  0  1", lines.get(0));
+        assertEquals("      5255.035 6", lines.get(1).substring(3 + FIELD, 3 + 2 * FIELD));
+        assertEquals("      5255.03516", lines.get(3).substring(3 + FIELD, 3 + 2 * FIELD));
+
+        // An epoch without usable signals isn't written
+        int length = appended.length();
+        appender.beginEpoch(TIME_NANOS, FULL_BIAS_NANOS, 0, 18, 1);
+        appender.addMeasurement(3, 100, TOW_DECODED, 0, 0, 30.0, 0, 0, 0, 1602.0E6, null);
+        appender.endEpoch();
+        assertEquals(length, appended.length());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Date;
+
+/**
+ * Records the results of the *Benchmark classes, which only run with -Pbenchmarks (see
+ * GPSTest/build.gradle). Each result is appended to a file named after the benchmark in
+ * build/reports/benchmarks instead of being printed with the unit test output.
+ */
+public final class BenchmarkReport {
+
+    private static final String REPORT_DIR_PROPERTY = "benchmarks.reportDir";
+
+    private BenchmarkReport() {
+    }
+
+    /**
+     * Appends [result] to the report of [benchmark]
+     */
+    public static void append(Class<?> benchmark, String result) {
+        File dir = new File(System.getProperty(REPORT_DIR_PROPERTY, "build/reports/benchmarks"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new UncheckedIOException(new IOException("Could not create " + dir));
+        }
+        File file = new File(dir, benchmark.getSimpleName() + ".txt");
+        try (Writer writer = new FileWriter(file, true)) {
+            writer.write(new Date() + " " + result + System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
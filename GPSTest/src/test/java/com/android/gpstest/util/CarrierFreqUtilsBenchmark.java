@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import static com.android.gpstest.util.CarrierFreqUtilsTableTest.getLabelWithComparisons;
+import static org.junit.Assert.assertEquals;
+
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.util.CarrierFreqUtils;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+/**
+ * Compares the speed of the lookup tables in CarrierFreqUtils against the chains of fuzzyEquals()
+ * comparisons in the get*Cf() methods on one thread, for the signals of a typical
+ * multi-constellation, dual-frequency epoch. CarrierFreqUtilsTableTest checks that both return the
+ * same labels. Only runs with -Pbenchmarks, see GPSTest/build.gradle.
+ */
+public class CarrierFreqUtilsBenchmark {
+
+    private static final int EPOCHS = 200_000;
+    private static final int RUNS = 5;
+
+    private static final GnssType[] EPOCH_TYPES;
+    private static final int[] EPOCH_SVIDS;
+    private static final double[] EPOCH_MHZ;
+
+    static {
+        // 10 GPS, 8 GLONASS, 8 Galileo and 8 BeiDou satellites on two frequencies, 2 QZSS and 2 SBAS
+        Object[][] signals = {
+                {GnssType.NAVSTAR, 10, 1575.42}, {GnssType.NAVSTAR, 10, 1176.45},
+                {GnssType.GLONASS, 8, 1602.5625}, {GnssType.GLONASS, 8, 1246.4375},
+                {GnssType.GALILEO, 8, 1575.42}, {GnssType.GALILEO, 8, 1176.45},
+                {GnssType.BEIDOU, 8, 1561.098}, {GnssType.BEIDOU, 8, 1176.45},
+                {GnssType.QZSS, 2, 1575.42}, {GnssType.QZSS, 2, 1176.45},
+                {GnssType.SBAS, 1, 1575.42}, {GnssType.SBAS, 1, 1176.45},
+        };
+        int count = 0;
+        for (Object[] s : signals) {
+            count += (int) s[1];
+        }
+        EPOCH_TYPES = new GnssType[count];
+        EPOCH_SVIDS = new int[count];
+        EPOCH_MHZ = new double[count];
+        int i = 0;
+        for (Object[] s : signals) {
+            for (int sat = 0; sat < (int) s[1]; sat++) {
+                EPOCH_TYPES[i] = (GnssType) s[0];
+                EPOCH_SVIDS[i] = s[0] == GnssType.SBAS ? 131 + sat * 2 : sat + 1;
+                // Measured carrier frequencies are a little off the nominal frequency
+                EPOCH_MHZ[i] = (double) s[2] + (sat - 4) * 1.0E-4;
+                i++;
+            }
+        }
+    }
+
+    private int checksum;
+
+    /**
+     * Labels each signal, as the UI and loggers do
+     */
+    @Test
+    public void compareLabels() {
+        compare("Labels", false);
+    }
+
+    /**
+     * Labels each signal and checks whether it's a primary carrier, as toSatelliteGroup() does -
+     * the lookup tables check the code instead of comparing labels
+     */
+    @Test
+    public void comparePrimaryCarrier() {
+        compare("Labels and primary carrier", true);
+    }
+
+    private void compare(String name, boolean primary) {
+        long comparisonNanos = Long.MAX_VALUE;
+        long tableNanos = Long.MAX_VALUE;
+        // Warm up, then take the best run of each
+        for (int run = 0; run < RUNS * 2; run++) {
+            checksum = 0;
+            long start = System.nanoTime();
+            for (int epoch = 0; epoch < EPOCHS; epoch++) {
+                for (int i = 0; i < EPOCH_MHZ.length; i++) {
+                    String label = getLabelWithComparisons(EPOCH_TYPES[i], EPOCH_SVIDS[i], EPOCH_MHZ[i]);
+                    checksum += label.length();
+                    if (primary && CarrierFreqUtils.isPrimaryCarrier(label)) {
+                        checksum++;
+                    }
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            int comparisonChecksum = checksum;
+
+            checksum = 0;
+            start = System.nanoTime();
+            for (int epoch = 0; epoch < EPOCHS; epoch++) {
+                for (int i = 0; i < EPOCH_MHZ.length; i++) {
+                    int code = CarrierFreqUtils.getCarrierFrequencyCode(EPOCH_TYPES[i], EPOCH_SVIDS[i], EPOCH_MHZ[i]);
+                    checksum += CarrierFreqUtils.getLabel(code).length();
+                    if (primary && CarrierFreqUtils.isPrimaryCarrier(code)) {
+                        checksum++;
+                    }
+                }
+            }
+            long tableRunNanos = System.nanoTime() - start;
+            assertEquals(comparisonChecksum, checksum);
+
+            if (run >= RUNS) {
+                comparisonNanos = Math.min(comparisonNanos, nanos);
+                tableNanos = Math.min(tableNanos, tableRunNanos);
+            }
+        }
+        long signals = (long) EPOCHS * EPOCH_MHZ.length;
+        BenchmarkReport.append(getClass(), name + ", " + signals + " signals: comparisons "
+                + signals * 1_000_000_000L / comparisonNanos + " signals/s, lookup tables "
+                + signals * 1_000_000_000L / tableNanos + " signals/s ("
+                + String.format(Locale.US, "%.1f", (double) comparisonNanos / tableNanos)
+                + "x, checksum " + checksum + ")");
+    }
+}
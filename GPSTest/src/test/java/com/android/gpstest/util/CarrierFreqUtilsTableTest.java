@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.util.CarrierFreqUtils;
+
+import org.junit.Test;
+
+/**
+ * Checks that the lookup tables in CarrierFreqUtils return the same labels as the chains of
+ * fuzzyEquals() comparisons in the get*Cf() methods
+ */
+public class CarrierFreqUtilsTableTest {
+
+    private static final GnssType[] TYPES = {GnssType.NAVSTAR, GnssType.GLONASS, GnssType.BEIDOU,
+            GnssType.QZSS, GnssType.GALILEO, GnssType.IRNSS};
+
+    // Every carrier frequency CarrierFreqUtils knows, and the GLONASS range bounds
+    private static final double[] CF_MHZ = {1575.42, 1227.6, 1381.05, 1379.913, 1176.45, 1207.14,
+            1561.098, 1268.52, 1278.75, 1191.795, 2492.028, 1598.0, 1606.0, 1242.0, 1249.0};
+
+    /**
+     * How CarrierFreqUtils.getCarrierFrequencyLabel() picked the label before the lookup tables
+     */
+    static String getLabelWithComparisons(GnssType gnssType, int svid, double cfMhz) {
+        switch (gnssType) {
+            case NAVSTAR:
+                return CarrierFreqUtils.getNavstarCF(cfMhz);
+            case GLONASS:
+                return CarrierFreqUtils.getGlonassCf(cfMhz);
+            case BEIDOU:
+                return CarrierFreqUtils.getBeidoucCf(cfMhz);
+            case QZSS:
+                return CarrierFreqUtils.getQzssCf(cfMhz);
+            case GALILEO:
+                return CarrierFreqUtils.getGalileoCf(cfMhz);
+            case IRNSS:
+                return CarrierFreqUtils.getIrnssCf(cfMhz);
+            case SBAS:
+                return CarrierFreqUtils.getSbasCf(svid, cfMhz);
+            default:
+                return CarrierFreqUtils.CF_UNKNOWN;
+        }
+    }
+
+    private static void assertSameLabel(GnssType gnssType, int svid, double cfMhz) {
+        assertEquals(gnssType + " " + svid + " " + cfMhz, getLabelWithComparisons(gnssType, svid, cfMhz),
+                CarrierFreqUtils.getCarrierFrequencyLabel(gnssType, svid, cfMhz));
+    }
+
+    private static void assertSameLabel(double cfMhz) {
+        for (GnssType type : TYPES) {
+            assertSameLabel(type, 1, cfMhz);
+        }
+        for (int svid = 119; svid <= 159; svid++) {
+            assertSameLabel(GnssType.SBAS, svid, cfMhz);
+        }
+        assertSameLabel(GnssType.UNKNOWN, 1, cfMhz);
+    }
+
+    @Test
+    public void testSameLabels() {
+        // Sweep the GNSS bands
+        for (int i = 100_000; i <= 260_000; i++) {
+            assertSameLabel(i / 100.0);
+        }
+        // At the bounds of each range, and the closest doubles on either side
+        for (double cf : CF_MHZ) {
+            for (double bound : new double[]{cf, cf - 1, cf + 1}) {
+                assertSameLabel(bound);
+                assertSameLabel(Math.nextUp(bound));
+                assertSameLabel(Math.nextDown(bound));
+            }
+        }
+        for (double cfMhz : new double[]{0, -1575.42, Double.NaN, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.MAX_VALUE}) {
+            assertSameLabel(cfMhz);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util
+
+import com.android.gpstest.library.util.CsvRecordFormatter
+import com.android.gpstest.library.util.FormatUtils.toLog
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.Random
+
+class CsvRecordFormatterTest {
+
+    private val formatter = CsvRecordFormatter(4)
+
+    @Test
+    fun appendPlainDouble() {
+        assertEquals("0.000000000000000000010", formatter.reset().appendPlain(0.00000000000000000001).toString())
+        assertEquals("1575420032", formatter.reset().appendPlain(1575420032.0).toString())
+        assertEquals("10000000000", formatter.reset().appendPlain(1.0E10).toString())
+        assertEquals("-0.000010", formatter.reset().appendPlain(-1.0E-5).toString())
+        assertEquals("0.0", formatter.reset().appendPlain(-0.0).toString())
+        assertEquals("123.456", formatter.reset().appendPlain(123.456).toString())
+
+        val random = Random(42)
+        for (i in 0 until 100_000) {
+            val value = when (i % 3) {
+                0 -> Double.fromBits(random.nextLong())
+                1 -> random.nextGaussian() * Math.pow(10.0, (random.nextInt(40) - 20).toDouble())
+                else -> random.nextInt(100_000) / 16.0
+            }
+            if (value.isNaN() || value.isInfinite()) continue
+            assertEquals(value.toLog(), formatter.reset().appendPlain(value).toString())
+        }
+    }
+
+    @Test
+    fun appendPlainFloat() {
+        assertEquals("0.000000000000000000010", formatter.reset().appendPlain(0.00000000000000000001f).toString())
+        assertEquals("0.00010", formatter.reset().appendPlain(1.0E-4f).toString())
+        assertEquals("1575420030", formatter.reset().appendPlain(1.57542003E9f).toString())
+        assertEquals("0.0", formatter.reset().appendPlain(-0.0f).toString())
+
+        val random = Random(42)
+        for (i in 0 until 100_000) {
+            val value = when (i % 2) {
+                0 -> Float.fromBits(random.nextInt())
+                else -> (random.nextGaussian() * Math.pow(10.0, (random.nextInt(20) - 10).toDouble())).toFloat()
+            }
+            if (value.isNaN() || value.isInfinite()) continue
+            assertEquals(value.toLog(), formatter.reset().appendPlain(value).toString())
+        }
+    }
+
+    @Test
+    fun appendLong() {
+        for (value in longArrayOf(0, 7, -7, 1637087900313, Long.MAX_VALUE, Long.MIN_VALUE)) {
+            assertEquals(value.toString(), formatter.reset().append(value).toString())
+        }
+    }
+
+    @Test(expected = NumberFormatException::class)
+    fun appendPlainNaN() {
+        // Same as FormatUtils.toLog()
+        formatter.reset().appendPlain(Double.NaN)
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.location.GnssStatus;
+
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.model.SatelliteStatus;
+import com.android.gpstest.library.model.SbasType;
+import com.android.gpstest.library.util.GnssEpoch;
+import com.android.gpstest.library.util.GnssEpochBuffer;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class GnssEpochTest {
+
+    private static final int USED = GnssEpoch.FLAG_HAS_ALMANAC | GnssEpoch.FLAG_HAS_EPHEMERIS
+            | GnssEpoch.FLAG_USED_IN_FIX;
+
+    @Test
+    public void testStatuses() {
+        GnssEpochBuffer buffer = new GnssEpochBuffer();
+        assertEquals(0, buffer.getCurrent().size());
+
+        GnssEpoch epoch = buffer.begin();
+        epoch.add(11, GnssStatus.CONSTELLATION_GPS, 35.5f, 45f, 90f,
+                USED | GnssEpoch.FLAG_HAS_CARRIER_FREQUENCY | GnssEpoch.FLAG_HAS_BASEBAND_CN0,
+                1575.42e6, 30.5f);
+        epoch.add(131, GnssStatus.CONSTELLATION_SBAS, 0f, 10f, 200f,
+                GnssEpoch.FLAG_HAS_EPHEMERIS, 1176.45e6, 20f);
+        assertSame(epoch, buffer.commit());
+        assertSame(epoch, buffer.getCurrent());
+        assertEquals(2, epoch.size());
+
+        SatelliteStatus gps = epoch.getStatus(0);
+        assertEquals(new SatelliteStatus(11, GnssType.NAVSTAR, 35.5f, true, true, true, 45f, 90f), gps);
+        assertTrue(gps.getHasCarrierFrequency());
+        assertEquals(1575.42e6, gps.getCarrierFrequencyHz(), 0.0);
+        assertTrue(gps.getHasBasebandCn0DbHz());
+        assertEquals(30.5f, gps.getBasebandCn0DbHz(), 0f);
+        assertSame(gps, epoch.getStatus(0));
+
+        // Values without their flag aren't kept
+        SatelliteStatus sbas = epoch.getStatus(1);
+        assertEquals(new SatelliteStatus(131, GnssType.SBAS, 0f, false, true, false, 10f, 200f), sbas);
+        assertEquals(SbasType.WAAS, sbas.getSbasType());
+        assertFalse(sbas.getHasCarrierFrequency());
+        assertEquals(0.0, epoch.getCarrierFrequencyHz(1), 0.0);
+        assertFalse(sbas.getHasBasebandCn0DbHz());
+        assertEquals(SatelliteStatus.NO_DATA, epoch.getBasebandCn0DbHz(1), 0f);
+        assertFalse(epoch.isUsedInFix(1));
+
+        List<SatelliteStatus> list = epoch.toSatelliteStatusList();
+        assertEquals(2, list.size());
+        assertSame(gps, list.get(0));
+        assertSame(sbas, list.get(1));
+    }
+
+    @Test
+    public void testReuse() {
+        GnssEpochBuffer buffer = new GnssEpochBuffer();
+        GnssEpoch first = buffer.begin();
+        addSignals(first, 100, 30f);
+        buffer.commit();
+        List<SatelliteStatus> firstStatuses = first.toSatelliteStatusList();
+
+        // The next epoch is the other buffer, and keeps the objects of the signals that didn't change
+        GnssEpoch second = buffer.begin();
+        assertNotSame(first, second);
+        addSignals(second, 100, 30f);
+        second.add(5, GnssStatus.CONSTELLATION_GALILEO, 40f, 0f, 0f, 0, 0.0, 0f);
+        buffer.commit();
+
+        // The previous epoch can still be read while the next one is filled
+        GnssEpoch third = buffer.begin();
+        assertSame(first, third);
+        addSignals(third, 100, 30f);
+        buffer.commit();
+
+        List<SatelliteStatus> secondStatuses = second.toSatelliteStatusList();
+        for (int i = 0; i < 100; i++) {
+            assertSame(firstStatuses.get(i), secondStatuses.get(i));
+        }
+        assertEquals(new SatelliteStatus(5, GnssType.GALILEO, 40f, false, false, false, 0f, 0f),
+                secondStatuses.get(100));
+
+        GnssEpoch fourth = buffer.begin();
+        addSignals(fourth, 100, 31f);
+        buffer.commit();
+        List<SatelliteStatus> fourthStatuses = fourth.toSatelliteStatusList();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(31f, fourthStatuses.get(i).getCn0DbHz(), 0f);
+            assertNotSame(firstStatuses.get(i), fourthStatuses.get(i));
+        }
+        // Statuses that were created aren't changed when their epoch is refilled
+        assertEquals(30f, firstStatuses.get(0).getCn0DbHz(), 0f);
+    }
+
+    private static void addSignals(GnssEpoch epoch, int count, float cn0DbHz) {
+        for (int i = 0; i < count; i++) {
+            epoch.add(1 + i, GnssStatus.CONSTELLATION_GPS, cn0DbHz, i % 90, i * 3.6f, USED
+                    | GnssEpoch.FLAG_HAS_CARRIER_FREQUENCY, 1575.42e6, 0f);
+        }
+    }
+}
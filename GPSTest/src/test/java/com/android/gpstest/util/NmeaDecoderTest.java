@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.util.NmeaDecoder;
+import com.android.gpstest.library.util.NmeaRecord;
+
+import org.junit.Test;
+
+public class NmeaDecoderTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testGsv() {
+        NmeaDecoder decoder = new NmeaDecoder();
+        NmeaRecord.Gsv gsv = (NmeaRecord.Gsv) decoder.decode(
+                "$GPGSV,3,1,12,03,25,304,38,14,52,047,41,16,38,205,35,22,61,332,44*7C", 1000L);
+        assertEquals("GSV", gsv.getType());
+        assertEquals("GP", gsv.getTalker());
+        assertEquals(1000L, gsv.getTimestamp());
+        assertEquals(3, gsv.getMessageCount());
+        assertEquals(1, gsv.getMessageNumber());
+        assertFalse(gsv.isLastMessage());
+        assertEquals(12, gsv.getSatellitesInView());
+        assertEquals(4, gsv.getSatelliteCount());
+        assertEquals(3, gsv.getSvid(0));
+        assertEquals(25f, gsv.getElevationDegrees(0), 0);
+        assertEquals(304f, gsv.getAzimuthDegrees(0), 0);
+        assertEquals(38f, gsv.getCn0DbHz(0), 0);
+        assertEquals(22, gsv.getSvid(3));
+        assertEquals(-1, gsv.getSignalId());
+
+        // Last message with 3 satellites, an untracked satellite and an NMEA 4.10 signal ID
+        NmeaRecord.Gsv last = (NmeaRecord.Gsv) decoder.decode(
+                "$GLGSV,2,2,07,78,38,218,33,79,24,283,30,84,11,028,,1*44", 2000L);
+        assertSame(gsv, last);
+        assertEquals("GL", last.getTalker());
+        assertTrue(last.isLastMessage());
+        assertEquals(3, last.getSatelliteCount());
+        assertEquals(84, last.getSvid(2));
+        assertTrue(Float.isNaN(last.getCn0DbHz(2)));
+        assertEquals(-1, last.getSvid(3));
+        assertEquals(1, last.getSignalId());
+    }
+
+    @Test
+    public void testRmcAndVtg() {
+        NmeaDecoder decoder = new NmeaDecoder();
+        NmeaRecord.Rmc rmc = (NmeaRecord.Rmc) decoder.decode(
+                "$GNRMC,172814.00,A,2803.208136,N,08225.981423,W,0.0,,150324,,,A,V*01", 0);
+        assertEquals(17 * 3600 + 28 * 60 + 14, rmc.getUtcTimeSeconds(), DELTA);
+        assertTrue(rmc.isValid());
+        assertEquals(28 + 3.208136 / 60, rmc.getLatitudeDegrees(), DELTA);
+        assertEquals(-(82 + 25.981423 / 60), rmc.getLongitudeDegrees(), DELTA);
+        assertEquals(0.0, rmc.getSpeedKnots(), 0);
+        assertTrue(Double.isNaN(rmc.getCourseDegrees()));
+        assertEquals(15, rmc.getDay());
+        assertEquals(3, rmc.getMonth());
+        assertEquals(2024, rmc.getYear());
+        assertTrue(Double.isNaN(rmc.getMagneticVariationDegrees()));
+        assertEquals('A', rmc.getModeIndicator());
+        assertEquals('V', rmc.getNavigationStatus());
+
+        // NMEA 2.1, without the mode indicator
+        decoder.decode("$GNRMC,123519,A,4807.038,N,01131.000,E,022.4,084.4,230394,003.1,W*74", 0);
+        assertEquals(48 + 7.038 / 60, rmc.getLatitudeDegrees(), DELTA);
+        assertEquals(11 + 31.0 / 60, rmc.getLongitudeDegrees(), DELTA);
+        assertEquals(84.4, rmc.getCourseDegrees(), 0);
+        assertEquals(1994, rmc.getYear());
+        assertEquals(-3.1, rmc.getMagneticVariationDegrees(), 0);
+        assertEquals(0, rmc.getModeIndicator());
+
+        NmeaRecord.Vtg vtg = (NmeaRecord.Vtg) decoder.decode("$GNVTG,054.7,T,034.4,M,005.5,N,010.2,K,A*3B", 0);
+        assertEquals("GN", vtg.getTalker());
+        assertEquals(54.7, vtg.getCourseTrueDegrees(), 0);
+        assertEquals(34.4, vtg.getCourseMagneticDegrees(), 0);
+        assertEquals(5.5, vtg.getSpeedKnots(), 0);
+        assertEquals(10.2, vtg.getSpeedKmh(), 0);
+        assertEquals('A', vtg.getModeIndicator());
+    }
+
+    @Test
+    public void testGstZdaGbs() {
+        NmeaDecoder decoder = new NmeaDecoder();
+        NmeaRecord.Gst gst = (NmeaRecord.Gst) decoder.decode(
+                "$GPGST,172814.0,0.006,0.023,0.020,273.6,0.023,0.020,0.031*6A", 0);
+        assertEquals(0.006, gst.getRmsRangeMeters(), 0);
+        assertEquals(0.023, gst.getSemiMajorErrorMeters(), 0);
+        assertEquals(0.020, gst.getSemiMinorErrorMeters(), 0);
+        assertEquals(273.6, gst.getSemiMajorOrientationDegrees(), 0);
+        assertEquals(0.023, gst.getLatitudeErrorMeters(), 0);
+        assertEquals(0.020, gst.getLongitudeErrorMeters(), 0);
+        assertEquals(0.031, gst.getAltitudeErrorMeters(), 0);
+
+        NmeaRecord.Zda zda = (NmeaRecord.Zda) decoder.decode("$GPZDA,172809.456,12,07,1996,-05,30*7C", 0);
+        assertEquals(17 * 3600 + 28 * 60 + 9.456, zda.getUtcTimeSeconds(), 1e-6);
+        assertEquals(12, zda.getDay());
+        assertEquals(7, zda.getMonth());
+        assertEquals(1996, zda.getYear());
+        assertEquals(-5, zda.getLocalZoneHours());
+        assertEquals(30, zda.getLocalZoneMinutes());
+
+        NmeaRecord.Gbs gbs = (NmeaRecord.Gbs) decoder.decode(
+                "$GPGBS,015509.00,-0.031,-0.186,0.219,19,0.000,-0.354,6.972*4D", 0);
+        assertEquals(-0.031, gbs.getLatitudeErrorMeters(), 0);
+        assertEquals(-0.186, gbs.getLongitudeErrorMeters(), 0);
+        assertEquals(0.219, gbs.getAltitudeErrorMeters(), 0);
+        assertEquals(19, gbs.getFailedSvid());
+        assertEquals(0.0, gbs.getMissedDetectionProbability(), 0);
+        assertEquals(-0.354, gbs.getBiasMeters(), 0);
+        assertEquals(6.972, gbs.getBiasStdDevMeters(), 0);
+        assertEquals(-1, gbs.getSystemId());
+
+        // No failed satellite, with the NMEA 4.10 system and signal IDs
+        decoder.decode("$GNGBS,015509.00,1.2,0.8,2.5,,,,,1,7*5D", 0);
+        assertEquals(-1, gbs.getFailedSvid());
+        assertTrue(Double.isNaN(gbs.getBiasMeters()));
+        assertEquals(1, gbs.getSystemId());
+        assertEquals(7, gbs.getSignalId());
+    }
+
+    @Test
+    public void testUnsupportedAndInvalid() {
+        NmeaDecoder decoder = new NmeaDecoder();
+        assertNull(decoder.decode("$GNGGA,172814.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.7,M,-24.8,M,,*5F", 0));
+        assertNull(decoder.decode("$PGLOR,1,FIX,1.0,1.0*20", 0));
+        assertNull(decoder.decode("", 0));
+        // Bad checksum
+        assertNull(decoder.decode("$GNVTG,054.7,T,034.4,M,005.5,N,010.2,K,A*3C", 0));
+        // Truncated
+        assertNull(decoder.decode("$GNRMC,123519,A,4807.038,N", 0));
+    }
+
+    @Test
+    public void testCopy() {
+        NmeaDecoder decoder = new NmeaDecoder();
+        NmeaRecord.Vtg vtg = (NmeaRecord.Vtg) decoder.decode("$GNVTG,054.7,T,034.4,M,005.5,N,010.2,K,A*3B", 5L);
+        NmeaRecord.Vtg copy = vtg.copy();
+        assertNotSame(vtg, copy);
+        decoder.decode("$GNVTG,,T,,M,0.0,N,0.0,K,A*3D", 6L);
+        assertTrue(Double.isNaN(vtg.getCourseTrueDegrees()));
+        assertEquals(54.7, copy.getCourseTrueDegrees(), 0);
+        assertEquals(5L, copy.getTimestamp());
+        assertEquals("GN", copy.getTalker());
+    }
+}
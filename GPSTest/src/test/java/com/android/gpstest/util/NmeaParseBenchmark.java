@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import static com.android.gpstest.util.NmeaSentenceTest.EPOCH;
+import static org.junit.Assert.assertEquals;
+
+import com.android.gpstest.library.util.NmeaSentence;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Compares reading MSL altitude and DOP from a stream of NMEA sentences with NmeaSentence against
+ * the String.split() parsing NmeaUtils used before, on one thread. The mix of sentences is what a
+ * multi-constellation device outputs each second. NmeaSentenceTest checks that both read the same
+ * fields from these sentences. Only runs with -Pbenchmarks, see GPSTest/build.gradle.
+ */
+public class NmeaParseBenchmark {
+
+    private static final int EPOCHS = 50_000;
+    private static final int RUNS = 5;
+
+    private double sum;
+
+    /**
+     * All sentences of an epoch are tokenized, as SignalInfoViewModel checks each for a
+     * valid checksum
+     */
+    @Test
+    public void compareParsersAllSentences() {
+        compare("All sentences", EPOCH);
+    }
+
+    /**
+     * Only the sentences altitude and DOP are read from, which String.split() parsed
+     */
+    @Test
+    public void compareParsersGgaGsa() {
+        compare("GGA, GNS and GSA", Arrays.copyOf(EPOCH, 5));
+    }
+
+    private void compare(String name, String[] messages) {
+        long splitNanos = Long.MAX_VALUE;
+        long tokenizerNanos = Long.MAX_VALUE;
+        NmeaSentence sentence = new NmeaSentence();
+        // Warm up, then take the best run of each
+        for (int run = 0; run < RUNS * 2; run++) {
+            sum = 0;
+            long start = System.nanoTime();
+            for (int epoch = 0; epoch < EPOCHS; epoch++) {
+                for (String message : messages) {
+                    parseWithSplit(message);
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            double splitSum = sum;
+
+            sum = 0;
+            start = System.nanoTime();
+            for (int epoch = 0; epoch < EPOCHS; epoch++) {
+                for (String message : messages) {
+                    parseWithTokenizer(sentence, message);
+                }
+            }
+            long tokenizerRunNanos = System.nanoTime() - start;
+            assertEquals(splitSum, sum, 1e-6 * Math.abs(splitSum));
+
+            if (run >= RUNS) {
+                splitNanos = Math.min(splitNanos, nanos);
+                tokenizerNanos = Math.min(tokenizerNanos, tokenizerRunNanos);
+            }
+        }
+        long sentences = (long) EPOCHS * messages.length;
+        BenchmarkReport.append(getClass(), name + ", " + sentences + " sentences: split " + sentences * 1_000_000_000L / splitNanos
+                + " sentences/s, NmeaSentence " + sentences * 1_000_000_000L / tokenizerNanos
+                + " sentences/s (" + String.format(Locale.US, "%.1f", (double) splitNanos / tokenizerNanos)
+                + "x, checksum " + sum + ")");
+    }
+
+    /**
+     * How SignalInfoViewModel and NmeaUtils read NMEA before NmeaSentence
+     */
+    private void parseWithSplit(String message) {
+        if (message.startsWith("$GPGGA") || message.startsWith("$GNGNS") || message.startsWith("$GNGGA")) {
+            String[] tokens = message.split(",");
+            if (tokens.length > 9 && !tokens[9].isEmpty()) {
+                sum += Double.parseDouble(tokens[9]);
+            }
+        }
+        if (message.startsWith("$GNGSA") || message.startsWith("$GPGSA")) {
+            String[] tokens = message.split(",");
+            if (tokens.length > 17) {
+                String vdop = tokens[17];
+                if (vdop.contains("*")) {
+                    vdop = vdop.split("\\*")[0];
+                }
+                sum += Double.parseDouble(tokens[15]) + Double.parseDouble(tokens[16])
+                        + Double.parseDouble(vdop);
+            }
+        }
+    }
+
+    private void parseWithTokenizer(NmeaSentence s, String message) {
+        if (!s.parse(message) || s.getChecksumState() == NmeaSentence.CHECKSUM_INVALID) {
+            return;
+        }
+        if (s.isAddress("GPGGA") || s.isAddress("GNGNS") || s.isAddress("GNGGA")) {
+            if (!s.isEmpty(9)) {
+                sum += s.getDouble(9);
+            }
+        }
+        if (s.isAddress("GNGSA") || s.isAddress("GPGSA")) {
+            if (s.getFieldCount() > 17) {
+                sum += s.getDouble(15) + s.getDouble(16) + s.getDouble(17);
+            }
+        }
+    }
+}
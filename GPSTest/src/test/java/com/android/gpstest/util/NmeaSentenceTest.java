@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.util.NmeaSentence;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+public class NmeaSentenceTest {
+
+    // The sentences a multi-constellation device outputs each second
+    static final String[] EPOCH = {
+            "$GNGGA,172814.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.7,M,-24.8,M,,*5F",
+            "$GNGNS,015002.0,2804.733672,N,08224.631117,W,AAN,09,1.1,78.9,-24.0,,*23",
+            "$GNGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1,1*3B",
+            "$GNGSA,A,2,67,68,69,79,84,,,,,,,,1.3,1.0,0.8,2*3A",
+            "$GNGSA,A,2,66,81,87,,,,,,,,,,1.3,1.0,0.9,2*3F",
+            // Not read, but still tokenized to validate the checksum
+            "$GPGSV,3,1,12,03,25,304,38,14,52,047,41,16,38,205,35,22,61,332,44*7C",
+            "$GPGSV,3,2,12,23,12,101,29,26,70,160,43,29,05,041,,31,18,265,33*70",
+            "$GPGSV,3,3,12,32,08,315,,46,45,199,39,48,49,230,40,51,42,217,38*75",
+            "$GLGSV,2,1,07,67,34,059,32,68,72,320,41,69,29,263,36,77,15,155,*66",
+            "$GLGSV,2,2,07,78,38,218,33,79,24,283,30,84,11,028,*59",
+            "$GNRMC,172814.00,A,2803.208136,N,08225.981423,W,0.0,,150324,,,A,V*01",
+            "$GNVTG,,T,,M,0.0,N,0.0,K,A*3D",
+    };
+
+    @Test
+    public void testFields() {
+        NmeaSentence s = new NmeaSentence();
+        assertTrue(s.parse("$GNGGA,172814.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.7,M,-24.8,M,,*5F\r\n"));
+        assertEquals(NmeaSentence.CHECKSUM_VALID, s.getChecksumState());
+        assertEquals(15, s.getFieldCount());
+        assertTrue(s.isAddress("GNGGA"));
+        assertTrue(s.isType("GGA"));
+        assertFalse(s.isType("GNS"));
+        assertEquals(172814.0, s.getDouble(1), 0);
+        assertEquals('N', s.getChar(3));
+        assertEquals(8, s.getInt(7, -1));
+        assertEquals(-19.7, s.getDouble(9), 0);
+        assertEquals(-24.8, s.getDouble(11), 0);
+        assertTrue(s.fieldEquals(10, "M"));
+        // Empty fields, and fields past the end of the sentence
+        assertTrue(s.isEmpty(13));
+        assertTrue(s.isEmpty(14));
+        assertTrue(s.isEmpty(20));
+        assertTrue(Double.isNaN(s.getDouble(14)));
+        assertEquals(-1, s.getInt(20, -1));
+        assertEquals("", s.getString(20));
+        assertEquals("2803.208136", s.getString(2));
+    }
+
+    /**
+     * Fields must be read the same as String.split(), which NmeaUtils used before NmeaSentence
+     */
+    @Test
+    public void testSameFieldsAsSplit() {
+        NmeaSentence s = new NmeaSentence();
+        for (String message : EPOCH) {
+            assertTrue(message, s.parse(message));
+            assertEquals(message, NmeaSentence.CHECKSUM_VALID, s.getChecksumState());
+            String[] tokens = message.substring(0, message.indexOf('*')).split(",", -1);
+            assertEquals(message, tokens.length, s.getFieldCount());
+            for (int i = 1; i < tokens.length; i++) {
+                assertEquals(message, tokens[i], s.getString(i));
+                if (!tokens[i].isEmpty() && tokens[i].matches("-?[0-9.]+")) {
+                    assertEquals(message, Double.parseDouble(tokens[i]), s.getDouble(i), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testChecksum() {
+        NmeaSentence s = new NmeaSentence();
+        s.parse("$GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1*38");
+        assertEquals(NmeaSentence.CHECKSUM_VALID, s.getChecksumState());
+        // The checksum isn't part of the last field
+        assertEquals(3.1, s.getDouble(17), 0);
+        assertEquals(18, s.getFieldCount());
+
+        s.parse("$GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.2*38");
+        assertEquals(NmeaSentence.CHECKSUM_INVALID, s.getChecksumState());
+        s.parse("$GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1*3");
+        assertEquals(NmeaSentence.CHECKSUM_INVALID, s.getChecksumState());
+        s.parse("$GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1*3g");
+        assertEquals(NmeaSentence.CHECKSUM_INVALID, s.getChecksumState());
+        s.parse("$GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1");
+        assertEquals(NmeaSentence.CHECKSUM_MISSING, s.getChecksumState());
+        // Lower case hex digits
+        s.parse("$GNGGA,114926.00,3206.341435,N,11850.092448,E,1,11,0.9,19.9,M,2.2,M,,*7e");
+        assertEquals(NmeaSentence.CHECKSUM_VALID, s.getChecksumState());
+    }
+
+    @Test
+    public void testNotNmea() {
+        NmeaSentence s = new NmeaSentence();
+        assertFalse(s.parse(""));
+        assertFalse(s.parse(null));
+        assertFalse(s.parse("GPGGA,1,2"));
+        assertEquals(0, s.getFieldCount());
+        assertFalse(s.isAddress("GPGGA"));
+        assertFalse(s.isType("GGA"));
+
+        // Proprietary sentences aren't a standard type
+        assertTrue(s.parse("$PGLOR,1,FIX,1.0,1.0*20"));
+        assertFalse(s.isType("FIX"));
+        assertTrue(s.isAddress("PGLOR"));
+    }
+
+    @Test
+    public void testNumbers() {
+        NmeaSentence s = new NmeaSentence();
+        s.parse("$GPXXX,0.05,+2.5,-0,1e3,12345678901234567.5,abc,1.2.3,-,.,2147483648,-42,007,0.000000000000000000000001");
+        assertEquals(0.05, s.getDouble(1), 0);
+        assertEquals(2.5, s.getDouble(2), 0);
+        assertEquals(-0.0, s.getDouble(3), 0);
+        assertEquals(1000.0, s.getDouble(4), 0);
+        assertEquals(12345678901234567.5, s.getDouble(5), 0);
+        assertTrue(Double.isNaN(s.getDouble(6)));
+        assertTrue(Double.isNaN(s.getDouble(7)));
+        assertTrue(Double.isNaN(s.getDouble(8)));
+        assertTrue(Double.isNaN(s.getDouble(9)));
+        assertEquals(-1, s.getInt(10, -1));
+        assertEquals(-42, s.getInt(11, 0));
+        assertEquals(7, s.getInt(12, 0));
+        assertEquals(1e-24, s.getDouble(13), 0);
+        assertEquals(-1, s.getInt(8, -1));
+
+        // Matches Double.parseDouble() for typical NMEA values
+        for (int i = 0; i < 100_000; i++) {
+            String value = String.format(Locale.US, "%.6f", (i - 50_000) * 0.0173);
+            s.parse("$GPXXX," + value);
+            assertEquals(value, Double.parseDouble(value), s.getDouble(1), 0);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.model.SatelliteGroup;
+import com.android.gpstest.library.model.SatelliteMetadata;
+import com.android.gpstest.library.model.SatelliteStatus;
+import com.android.gpstest.library.model.SbasType;
+import com.android.gpstest.library.util.CarrierFreqUtils;
+import com.android.gpstest.library.util.GnssEpoch;
+import com.android.gpstest.library.util.GnssEpochBuffer;
+import com.android.gpstest.library.util.MathUtils;
+import com.android.gpstest.library.util.SatelliteGroupBuilder;
+import com.android.gpstest.library.util.SatelliteKeys;
+import com.android.gpstest.library.util.SatelliteUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import kotlin.jvm.functions.Function1;
+import kotlin.jvm.functions.Function2;
+
+public class SatelliteGroupBuilderTest {
+
+    // Like LogAnalyzer, so the carrier frequency codes don't depend on the device
+    private static final Function1<SatelliteStatus, Integer> CODE = s -> s.getHasCarrierFrequency()
+            ? CarrierFreqUtils.getCarrierFrequencyCode(s.getGnssType(), s.getSvid(),
+            MathUtils.toMhz(s.getCarrierFrequencyHz()))
+            : CarrierFreqUtils.CF_CODE_UNSUPPORTED;
+
+    private static final Function2<GnssEpoch, Integer, Integer> EPOCH_CODE = (e, i) ->
+            e.hasFlag(i, GnssEpoch.FLAG_HAS_CARRIER_FREQUENCY)
+                    ? CarrierFreqUtils.getCarrierFrequencyCode(e.getGnssType(i), e.getSvid(i),
+                    MathUtils.toMhz(e.getCarrierFrequencyHz(i)))
+                    : CarrierFreqUtils.CF_CODE_UNSUPPORTED;
+
+    private static final double[] FREQUENCIES_MHZ = {1575.42, 1176.45, 1227.6, 1207.14, 1561.098, 1400.0};
+
+    private static final SbasType[] SBAS_TYPES = {SbasType.WAAS, SbasType.EGNOS, SbasType.UNKNOWN};
+
+    @Test
+    public void testEmpty() {
+        SatelliteGroupBuilder builder = new SatelliteGroupBuilder(CODE);
+        assertEquals(new SatelliteGroup(Collections.emptyMap(), new SatelliteMetadata()),
+                builder.update(Collections.emptyList()));
+        assertTrue(builder.getChanges().isEmpty());
+
+        List<SatelliteStatus> statuses = Collections.singletonList(
+                status(GnssType.NAVSTAR, SbasType.UNKNOWN, 11, 1575.42, 30f, true));
+        builder.update(statuses);
+        assertEquals(1, builder.getChanges().size());
+        assertEquals(SatelliteGroupBuilder.Changes.ADDED, builder.getChanges().getType(0));
+
+        builder.clear();
+        assertEquals(new SatelliteGroup(Collections.emptyMap(), new SatelliteMetadata()), builder.getGroup());
+        assertEquals(SatelliteGroupBuilder.Changes.REMOVED, builder.getChanges().getType(0));
+    }
+
+    @Test
+    public void testReuse() {
+        SatelliteGroupBuilder builder = new SatelliteGroupBuilder(CODE);
+        List<SatelliteStatus> statuses = new ArrayList<>();
+        statuses.add(status(GnssType.NAVSTAR, SbasType.UNKNOWN, 11, 1575.42, 30f, true));
+        statuses.add(status(GnssType.NAVSTAR, SbasType.UNKNOWN, 11, 1176.45, 25f, false));
+        statuses.add(status(GnssType.GALILEO, SbasType.UNKNOWN, 5, 1575.42, 35f, true));
+        SatelliteGroup first = builder.update(statuses);
+
+        // Equal signals in new objects don't change the group
+        List<SatelliteStatus> copies = new ArrayList<>();
+        for (SatelliteStatus s : statuses) {
+            copies.add(status(s.getGnssType(), s.getSbasType(), s.getSvid(),
+                    MathUtils.toMhz(s.getCarrierFrequencyHz()), s.getCn0DbHz(), s.getUsedInFix()));
+        }
+        assertSame(first, builder.update(copies));
+        assertTrue(builder.getChanges().isEmpty());
+
+        // Only the satellite with the changed signal is copied
+        copies.set(2, status(GnssType.GALILEO, SbasType.UNKNOWN, 5, 1575.42, 36f, true));
+        SatelliteGroup second = builder.update(copies);
+        assertNotSame(first, second);
+        assertSame(first.getSatelliteMetadata(), second.getSatelliteMetadata());
+        long gps = SatelliteKeys.satelliteKey(GnssType.NAVSTAR, SbasType.UNKNOWN, 11);
+        long galileo = SatelliteKeys.satelliteKey(GnssType.GALILEO, SbasType.UNKNOWN, 5);
+        assertSame(first.getSatellites().get(gps), second.getSatellites().get(gps));
+        assertNotSame(first.getSatellites().get(galileo), second.getSatellites().get(galileo));
+        assertEquals(36f, second.getSatellites().get(galileo).getStatus()
+                .get(CarrierFreqUtils.CF_CODE_E1).getCn0DbHz(), 0f);
+        assertEquals(1, builder.getChanges().size());
+        assertEquals(SatelliteKeys.signalKey(galileo, CarrierFreqUtils.CF_CODE_E1),
+                builder.getChanges().getSignalKey(0));
+        assertEquals(SatelliteGroupBuilder.Changes.CHANGED, builder.getChanges().getType(0));
+        assertTrue(builder.getChanges().isSatellitesChanged());
+        assertFalse(builder.getChanges().isMetadataChanged());
+
+        // The earlier group isn't modified
+        assertEquals(SatelliteUtil.INSTANCE.toSatelliteGroup(statuses, CODE), first);
+    }
+
+    @Test
+    public void testRandomEpochs() {
+        Random random = new Random(23);
+        for (int run = 0; run < 20; run++) {
+            SatelliteGroupBuilder builder = new SatelliteGroupBuilder(CODE);
+            List<SatelliteStatus> pool = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                pool.add(randomStatus(random));
+            }
+            List<SatelliteStatus> previous = new ArrayList<>();
+            for (int epoch = 0; epoch < 200; epoch++) {
+                List<SatelliteStatus> statuses = new ArrayList<>();
+                // Keep most of the previous signals, sometimes as the same objects
+                for (SatelliteStatus s : previous) {
+                    int r = random.nextInt(10);
+                    if (r == 0) {
+                        continue;
+                    } else if (r < 6) {
+                        statuses.add(s);
+                    } else {
+                        statuses.add(status(s.getGnssType(), s.getSbasType(), s.getSvid(),
+                                MathUtils.toMhz(s.getCarrierFrequencyHz()),
+                                r == 6 ? random.nextInt(3) * 10f : s.getCn0DbHz(),
+                                r == 7 ? random.nextBoolean() : s.getUsedInFix()));
+                    }
+                }
+                int added = random.nextInt(epoch % 50 == 0 ? 40 : 5);
+                for (int i = 0; i < added; i++) {
+                    statuses.add(pool.get(random.nextInt(pool.size())));
+                }
+                if (random.nextInt(20) == 0) {
+                    statuses.clear();
+                }
+                Collections.shuffle(statuses, random);
+
+                assertEquals(SatelliteUtil.INSTANCE.toSatelliteGroup(statuses, CODE), builder.update(statuses));
+                previous = statuses;
+            }
+        }
+    }
+
+    @Test
+    public void testGnssEpochs() {
+        SatelliteGroupBuilder builder = new SatelliteGroupBuilder(CODE, EPOCH_CODE);
+        GnssEpochBuffer buffer = new GnssEpochBuffer();
+        GnssEpoch epoch = buffer.begin();
+        add(epoch, status(GnssType.NAVSTAR, SbasType.UNKNOWN, 11, 1575.42, 30f, true));
+        add(epoch, status(GnssType.NAVSTAR, SbasType.UNKNOWN, 11, 1176.45, 25f, false));
+        add(epoch, status(GnssType.GALILEO, SbasType.UNKNOWN, 5, 1575.42, 35f, true));
+        SatelliteGroup first = builder.update(buffer.commit());
+        List<SatelliteStatus> firstStatuses = builder.getStatuses();
+        assertEquals(SatelliteUtil.INSTANCE.toSatelliteGroup(firstStatuses, CODE), first);
+        assertEquals(3, builder.getChanges().size());
+
+        // Unchanged signals keep their SatelliteStatus, and only the changed signal gets a new one
+        epoch = buffer.begin();
+        add(epoch, status(GnssType.NAVSTAR, SbasType.UNKNOWN, 11, 1575.42, 30f, true));
+        add(epoch, status(GnssType.NAVSTAR, SbasType.UNKNOWN, 11, 1176.45, 25f, false));
+        add(epoch, status(GnssType.GALILEO, SbasType.UNKNOWN, 5, 1575.42, 36f, true));
+        SatelliteGroup second = builder.update(buffer.commit());
+        List<SatelliteStatus> secondStatuses = builder.getStatuses();
+        assertSame(firstStatuses.get(0), secondStatuses.get(0));
+        assertSame(firstStatuses.get(1), secondStatuses.get(1));
+        assertNotSame(firstStatuses.get(2), secondStatuses.get(2));
+        assertEquals(36f, secondStatuses.get(2).getCn0DbHz(), 0f);
+        assertEquals(1, builder.getChanges().size());
+        assertEquals(SatelliteGroupBuilder.Changes.CHANGED, builder.getChanges().getType(0));
+        assertSame(first.getSatelliteMetadata(), second.getSatelliteMetadata());
+        assertEquals(SatelliteUtil.INSTANCE.toSatelliteGroup(secondStatuses, CODE), second);
+
+        // The same signals at other indexes are still matched by their keys
+        epoch = buffer.begin();
+        add(epoch, status(GnssType.GALILEO, SbasType.UNKNOWN, 5, 1575.42, 36f, true));
+        add(epoch, status(GnssType.NAVSTAR, SbasType.UNKNOWN, 11, 1575.42, 30f, true));
+        add(epoch, status(GnssType.NAVSTAR, SbasType.UNKNOWN, 11, 1176.45, 25f, false));
+        assertSame(second, builder.update(buffer.commit()));
+        assertTrue(builder.getChanges().isEmpty());
+        assertSame(secondStatuses.get(2), builder.getStatuses().get(0));
+        assertSame(secondStatuses.get(0), builder.getStatuses().get(1));
+    }
+
+    @Test
+    public void testRandomGnssEpochs() {
+        Random random = new Random(24);
+        for (int run = 0; run < 20; run++) {
+            SatelliteGroupBuilder builder = new SatelliteGroupBuilder(CODE, EPOCH_CODE);
+            GnssEpochBuffer buffer = new GnssEpochBuffer();
+            List<SatelliteStatus> pool = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                pool.add(randomEpochStatus(random));
+            }
+            List<SatelliteStatus> previous = new ArrayList<>();
+            for (int e = 0; e < 200; e++) {
+                List<SatelliteStatus> statuses = new ArrayList<>();
+                for (SatelliteStatus s : previous) {
+                    int r = random.nextInt(10);
+                    if (r == 0) {
+                        continue;
+                    } else if (r < 6) {
+                        statuses.add(s);
+                    } else {
+                        SatelliteStatus changed = status(s.getGnssType(), s.getSbasType(), s.getSvid(),
+                                MathUtils.toMhz(s.getCarrierFrequencyHz()),
+                                r == 6 ? random.nextInt(3) * 10f : s.getCn0DbHz(),
+                                r == 7 ? random.nextBoolean() : s.getUsedInFix());
+                        changed.setHasCarrierFrequency(s.getHasCarrierFrequency());
+                        statuses.add(changed);
+                    }
+                }
+                int added = random.nextInt(e % 50 == 0 ? 40 : 5);
+                for (int i = 0; i < added; i++) {
+                    statuses.add(pool.get(random.nextInt(pool.size())));
+                }
+                if (random.nextInt(20) == 0) {
+                    statuses.clear();
+                }
+                Collections.shuffle(statuses, random);
+
+                GnssEpoch epoch = buffer.begin();
+                GnssEpoch expected = new GnssEpoch();
+                for (SatelliteStatus s : statuses) {
+                    add(epoch, s);
+                    add(expected, s);
+                }
+                SatelliteGroup group = builder.update(buffer.commit());
+                assertEquals(expected.toSatelliteStatusList(), builder.getStatuses());
+                assertEquals(SatelliteUtil.INSTANCE.toSatelliteGroup(expected.toSatelliteStatusList(), CODE),
+                        group);
+                previous = statuses;
+            }
+        }
+    }
+
+    /**
+     * Adds a signal to an epoch with the values of a SatelliteStatus
+     */
+    private static void add(GnssEpoch epoch, SatelliteStatus s) {
+        int flags = (s.getHasAlmanac() ? GnssEpoch.FLAG_HAS_ALMANAC : 0)
+                | (s.getHasEphemeris() ? GnssEpoch.FLAG_HAS_EPHEMERIS : 0)
+                | (s.getUsedInFix() ? GnssEpoch.FLAG_USED_IN_FIX : 0)
+                | (s.getHasCarrierFrequency() ? GnssEpoch.FLAG_HAS_CARRIER_FREQUENCY : 0);
+        epoch.add(s.getSvid(), SatelliteUtil.INSTANCE.toGnssStatusConstellationType(s.getGnssType()),
+                s.getCn0DbHz(), s.getElevationDegrees(), s.getAzimuthDegrees(), flags,
+                s.getCarrierFrequencyHz(), SatelliteStatus.NO_DATA);
+    }
+
+    /**
+     * Returns a random signal whose SBAS type is the one a GnssEpoch gets from its svid
+     */
+    private static SatelliteStatus randomEpochStatus(Random random) {
+        SatelliteStatus s = randomStatus(random);
+        if (s.getGnssType() == GnssType.SBAS) {
+            s.setSbasType(SatelliteUtil.INSTANCE.toSbasType(s.getSvid()));
+        }
+        return s;
+    }
+
+    private static SatelliteStatus randomStatus(Random random) {
+        GnssType gnssType;
+        int svid;
+        switch (random.nextInt(6)) {
+            case 0:
+                gnssType = GnssType.NAVSTAR;
+                svid = 1 + random.nextInt(5);
+                break;
+            case 1:
+                gnssType = GnssType.GALILEO;
+                svid = 1 + random.nextInt(5);
+                break;
+            case 2:
+                gnssType = GnssType.BEIDOU;
+                svid = 1 + random.nextInt(5);
+                break;
+            case 3:
+                gnssType = GnssType.GLONASS;
+                svid = 1 + random.nextInt(5);
+                break;
+            case 4:
+                gnssType = GnssType.SBAS;
+                svid = 120 + random.nextInt(20);
+                break;
+            default:
+                gnssType = GnssType.UNKNOWN;
+                svid = 1 + random.nextInt(5);
+                break;
+        }
+        SatelliteStatus s = status(gnssType, SBAS_TYPES[random.nextInt(SBAS_TYPES.length)], svid,
+                FREQUENCIES_MHZ[random.nextInt(FREQUENCIES_MHZ.length)], random.nextInt(3) * 10f,
+                random.nextBoolean());
+        s.setHasCarrierFrequency(random.nextInt(8) != 0);
+        return s;
+    }
+
+    private static SatelliteStatus status(GnssType gnssType, SbasType sbasType, int svid, double mhz,
+                                          float cn0DbHz, boolean usedInFix) {
+        SatelliteStatus s = new SatelliteStatus(svid, gnssType, cn0DbHz, true, true, usedInFix, 45f, 90f);
+        if (gnssType == GnssType.SBAS) {
+            s.setSbasType(sbasType);
+        }
+        s.setHasCarrierFrequency(true);
+        s.setCarrierFrequencyHz(mhz * 1000000.0);
+        return s;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.model.SbasType;
+import com.android.gpstest.library.util.CarrierFreqUtils;
+import com.android.gpstest.library.util.LongObjectMap;
+import com.android.gpstest.library.util.SatelliteKeys;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class SatelliteKeysTest {
+
+    @Test
+    public void testSatelliteKeys() {
+        long gps = SatelliteKeys.satelliteKey(GnssType.NAVSTAR, SbasType.UNKNOWN, 11);
+        assertEquals(GnssType.NAVSTAR, SatelliteKeys.getGnssType(gps));
+        assertEquals(SbasType.UNKNOWN, SatelliteKeys.getSbasType(gps));
+        assertEquals(11, SatelliteKeys.getSvid(gps));
+        assertEquals(-1, SatelliteKeys.getCarrierCode(gps));
+        assertEquals("11 NAVSTAR", SatelliteKeys.toSatelliteKeyString(gps));
+
+        // The SBAS type is only part of the key for SBAS satellites, like the String keys
+        assertEquals(gps, SatelliteKeys.satelliteKey(GnssType.NAVSTAR, SbasType.WAAS, 11));
+        long waas = SatelliteKeys.satelliteKey(GnssType.SBAS, SbasType.WAAS, 131);
+        assertEquals(SbasType.WAAS, SatelliteKeys.getSbasType(waas));
+        assertEquals("131 SBAS WAAS", SatelliteKeys.toSatelliteKeyString(waas));
+        assertFalse(waas == SatelliteKeys.satelliteKey(GnssType.SBAS, SbasType.UNKNOWN, 131));
+        assertEquals("131 SBAS UNKNOWN", SatelliteKeys.toSatelliteKeyString(
+                SatelliteKeys.satelliteKey(GnssType.SBAS, SbasType.UNKNOWN, 131)));
+
+        // The same svid in different constellations
+        assertFalse(gps == SatelliteKeys.satelliteKey(GnssType.GALILEO, SbasType.UNKNOWN, 11));
+    }
+
+    @Test
+    public void testSignalKeys() {
+        long sat = SatelliteKeys.satelliteKey(GnssType.GLONASS, SbasType.UNKNOWN, 93);
+        long l1 = SatelliteKeys.signalKey(sat, CarrierFreqUtils.CF_CODE_L1);
+        long unknown = SatelliteKeys.signalKey(sat, CarrierFreqUtils.CF_CODE_UNKNOWN);
+        long unsupported = SatelliteKeys.signalKey(sat, CarrierFreqUtils.CF_CODE_UNSUPPORTED);
+        assertEquals(4, new HashSet<>(java.util.Arrays.asList(sat, l1, unknown, unsupported)).size());
+        assertEquals(CarrierFreqUtils.CF_CODE_L1, SatelliteKeys.getCarrierCode(l1));
+        assertEquals(sat, SatelliteKeys.toSatelliteKey(l1));
+        assertEquals(93, SatelliteKeys.getSvid(l1));
+        assertEquals(GnssType.GLONASS, SatelliteKeys.getGnssType(l1));
+        assertEquals("93 GLONASS L1", SatelliteKeys.toSignalKeyString(l1));
+        assertEquals("93 GLONASS unknown", SatelliteKeys.toSignalKeyString(unknown));
+        assertEquals("93 GLONASS unsupported", SatelliteKeys.toSignalKeyString(unsupported));
+
+        long sdcm = SatelliteKeys.signalKey(
+                SatelliteKeys.satelliteKey(GnssType.SBAS, SbasType.SDCM, 125), CarrierFreqUtils.CF_CODE_L1);
+        assertEquals("125 SBAS SDCM L1", SatelliteKeys.toSignalKeyString(sdcm));
+    }
+
+    @Test
+    public void testLongObjectMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertNull(map.put(0, "zero"));
+        assertEquals("zero", map.get(0));
+        assertEquals("zero", map.put(0, "0"));
+        assertEquals(1, map.size());
+
+        // Matches a HashMap through resizes, with keys that only differ in the high bits
+        Map<Long, String> expected = new HashMap<>();
+        expected.put(0L, "0");
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            long key = random.nextBoolean() ? random.nextLong() : (long) random.nextInt(64) << 48;
+            String value = Integer.toString(i);
+            assertEquals(expected.put(key, value), map.put(key, value));
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, String> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey()));
+            assertTrue(map.containsKey(e.getKey()));
+        }
+        assertEquals(expected, map.asMap());
+        assertEquals(expected.hashCode(), map.asMap().hashCode());
+        Set<Long> keys = new HashSet<>();
+        map.forEach((key, value) -> {
+            assertEquals(expected.get(key), value);
+            keys.add(key);
+        });
+        assertEquals(expected.keySet(), keys);
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertTrue(map.asMap().isEmpty());
+        assertFalse(map.containsKey(0));
+        map.put(7, "7");
+        assertEquals("7", map.asMap().get(7L));
+        assertNull(map.asMap().get("7"));
+    }
+
+    @Test
+    public void testLongObjectMapRemove() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        assertNull(map.remove(1));
+
+        // Matches a HashMap through puts and removes, with clustered keys so removes shift entries
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(3) == 0 ? random.nextLong() : (long) random.nextInt(256) << 48;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, key), map.put(key, key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey()));
+        }
+        assertEquals(expected, map.asMap());
+        for (Long key : new HashSet<>(expected.keySet())) {
+            assertEquals(key, map.remove(key));
+            assertFalse(map.containsKey(key));
+        }
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.analytics;
+
+/**
+ * A histogram with fixed-width bins that can be merged with other histograms with the same bins,
+ * so parts of a data set can be counted separately and combined. Values outside the range of the
+ * bins are counted in the first or last bin.
+ */
+public final class Histogram {
+
+    private final double min;
+    private final double binWidth;
+    private final long[] counts;
+    private long count;
+    private double sum;
+    private double minValue = Double.NaN;
+    private double maxValue = Double.NaN;
+
+    /**
+     * @param min  the start of the first bin
+     * @param max  the end of the last bin
+     * @param bins the number of bins
+     */
+    public Histogram(double min, double max, int bins) {
+        if (!(max > min) || bins <= 0) {
+            throw new IllegalArgumentException("Invalid bins " + bins + " from " + min + " to " + max);
+        }
+        this.min = min;
+        this.binWidth = (max - min) / bins;
+        this.counts = new long[bins];
+    }
+
+    public void add(double value) {
+        int bin = (int) Math.floor((value - min) / binWidth);
+        counts[Math.max(0, Math.min(counts.length - 1, bin))]++;
+        if (count == 0 || value < minValue) {
+            minValue = value;
+        }
+        if (count == 0 || value > maxValue) {
+            maxValue = value;
+        }
+        count++;
+        sum += value;
+    }
+
+    /**
+     * Adds the values counted by another histogram with the same bins to this one
+     */
+    public void merge(Histogram other) {
+        if (other.min != min || other.binWidth != binWidth || other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Histograms have different bins");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        if (count == 0 || other.minValue < minValue) {
+            minValue = other.minValue;
+        }
+        if (count == 0 || other.maxValue > maxValue) {
+            maxValue = other.maxValue;
+        }
+        count += other.count;
+        sum += other.sum;
+    }
+
+    public int getBinCount() {
+        return counts.length;
+    }
+
+    public double getBinStart(int bin) {
+        return min + bin * binWidth;
+    }
+
+    public double getBinWidth() {
+        return binWidth;
+    }
+
+    /**
+     * @return the number of values in the given bin
+     */
+    public long getCount(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * @return the number of values added
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean of the values added, or NaN if there aren't any
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * @return the smallest value added, or NaN if there aren't any
+     */
+    public double getMin() {
+        return minValue;
+    }
+
+    /**
+     * @return the largest value added, or NaN if there aren't any
+     */
+    public double getMax() {
+        return maxValue;
+    }
+
+    /**
+     * Returns the value below which the given fraction of values fall, interpolated within the bin
+     * that contains it
+     *
+     * @param quantile a fraction from 0 to 1, e.g. 0.5 for the median
+     * @return the value at the quantile, or NaN if no values have been added
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = quantile * count;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && seen + counts[i] >= rank) {
+                double value = getBinStart(i) + binWidth * (rank - seen) / counts[i];
+                // Values outside the bins are counted in the end bins, so stay within what was added
+                return Math.max(minValue, Math.min(maxValue, value));
+            }
+            seen += counts[i];
+        }
+        return maxValue;
+    }
+}
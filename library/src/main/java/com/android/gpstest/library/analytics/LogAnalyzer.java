@@ -0,0 +1,471 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.analytics;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.gpstest.library.io.CsvLogParser;
+import com.android.gpstest.library.io.CsvLogRecord;
+import com.android.gpstest.library.io.LogIndex;
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.model.SatelliteMetadata;
+import com.android.gpstest.library.model.SatelliteStatus;
+import com.android.gpstest.library.util.CarrierFreqUtils;
+import com.android.gpstest.library.util.MathUtils;
+import com.android.gpstest.library.util.SatelliteUtil;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import kotlin.jvm.functions.Function1;
+
+/**
+ * Summarizes many GPSTest CSV logs in parallel. Large uncompressed logs are split into chunks at
+ * epoch boundaries, each chunk is parsed on a fork/join pool, and the totals of the chunks are
+ * merged. Compressed logs are read as one chunk, since gzip can't be read from the middle.
+ *
+ * Signals are grouped into epochs the same way as in the app - each GnssStatus logged as Status
+ * records is turned into a SatelliteGroup with SatelliteUtil.toSatelliteGroup(), and C/N0 is
+ * keyed by the CarrierFreqUtils label of each signal, so the numbers match what the app shows.
+ *
+ * Segments of a rotated log listed in a manifest (see {@link LogIndex#getSessionFiles(File)}) are
+ * treated as one log, so time to first fix is measured once from the start of the session.
+ */
+public final class LogAnalyzer {
+
+    public static final long DEFAULT_CHUNK_BYTES = 16 * 1024 * 1024;
+
+    private static final byte[] RAW = "Raw,".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STATUS = "Status,".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_SPLIT_LINE = 1024;
+
+    // The carrier code of a signal from its logged frequency. Logs only have a non-zero frequency
+    // if the device supports it, so this doesn't need to check the running device like the app.
+    private static final Function1<SatelliteStatus, Integer> CARRIER_CODE = s -> s.getHasCarrierFrequency()
+            ? CarrierFreqUtils.getCarrierFrequencyCode(s.getGnssType(), s.getSvid(),
+            MathUtils.toMhz(s.getCarrierFrequencyHz()))
+            : CarrierFreqUtils.CF_CODE_UNSUPPORTED;
+
+    private final ForkJoinPool pool;
+    private final long chunkBytes;
+
+    /**
+     * Creates an analyzer that uses the common fork/join pool and the default chunk size
+     */
+    public LogAnalyzer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * @param pool       the pool to parse logs on
+     * @param chunkBytes uncompressed logs larger than this are split into chunks of about this size
+     */
+    public LogAnalyzer(ForkJoinPool pool, long chunkBytes) {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive but was " + chunkBytes);
+        }
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Summarizes the given logs
+     *
+     * @param logsOrManifests log files (.txt or .txt.gz), or manifests of rotated logs
+     * @return the totals of all of the logs
+     */
+    public LogSummary analyze(List<File> logsOrManifests) throws IOException {
+        List<List<File>> sessions = new ArrayList<>();
+        for (File file : logsOrManifests) {
+            sessions.add(LogIndex.getSessionFiles(file));
+        }
+        try {
+            return pool.invoke(new RecursiveTask<LogSummary>() {
+                @Override
+                protected LogSummary compute() {
+                    List<SessionTask> tasks = new ArrayList<>();
+                    for (List<File> files : sessions) {
+                        tasks.add(new SessionTask(files));
+                    }
+                    ForkJoinTask.invokeAll(tasks);
+                    LogSummary summary = new LogSummary();
+                    for (SessionTask task : tasks) {
+                        summary.merge(task.join());
+                    }
+                    return summary;
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Summarizes the segments of one log in order
+     */
+    private final class SessionTask extends RecursiveTask<LogSummary> {
+        private final List<File> files;
+
+        SessionTask(List<File> files) {
+            this.files = files;
+        }
+
+        @Override
+        protected LogSummary compute() {
+            List<RangeTask> tasks = new ArrayList<>();
+            for (File file : files) {
+                boolean compressed = file.getName().endsWith(".gz");
+                tasks.add(new RangeTask(file, 0, compressed ? Long.MAX_VALUE : file.length(), compressed));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            ChunkResult result = new ChunkResult();
+            for (RangeTask task : tasks) {
+                result.append(task.join());
+            }
+            result.summary.files = files.size();
+            return result.finish();
+        }
+    }
+
+    /**
+     * Summarizes the bytes of a log file from start to end, splitting it in two if it's larger than
+     * the chunk size
+     */
+    private final class RangeTask extends RecursiveTask<ChunkResult> {
+        private final File file;
+        private final long start;
+        private final long end;
+        private final boolean compressed;
+
+        RangeTask(File file, long start, long end, boolean compressed) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+            this.compressed = compressed;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            try {
+                if (!compressed && end - start > chunkBytes) {
+                    long split = findSplit(file, start, end);
+                    if (split > start && split < end) {
+                        RangeTask right = new RangeTask(file, split, end, false);
+                        right.fork();
+                        ChunkResult result = new RangeTask(file, start, split, false).compute();
+                        result.append(right.join());
+                        return result;
+                    }
+                }
+                ChunkHandler handler = new ChunkHandler();
+                CsvLogParser parser = new CsvLogParser(handler);
+                long records;
+                try (InputStream in = LogIndex.open(file, start, end)) {
+                    records = parser.parse(in);
+                }
+                handler.endEpoch();
+                handler.result.summary.records = records;
+                handler.result.summary.malformedLines = parser.getMalformedLineCount();
+                return handler.result;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of the first line after the middle of the range that starts an epoch - a
+     * line that isn't in the middle of a group of Raw or Status records - or -1 if there isn't one.
+     * A Raw line starts an epoch if its TimeNanos differs from the Raw line before it.
+     */
+    @VisibleForTesting
+    public static long findSplit(File file, long start, long end) throws IOException {
+        long middle = start + (end - start) / 2;
+        byte[] line = new byte[MAX_SPLIT_LINE];
+        try (InputStream in = new BufferedInputStream(LogIndex.open(file, middle, end))) {
+            long offset = middle;
+            // Skip the rest of the line the middle is in
+            int b;
+            while ((b = in.read()) >= 0) {
+                offset++;
+                if (b == '\n') {
+                    break;
+                }
+            }
+            // TimeNanos of the previous line if it was a Raw line
+            long previousTimeNanos = LogIndex.NO_TIME;
+            while (b >= 0) {
+                long lineStart = offset;
+                int length = 0;
+                while ((b = in.read()) >= 0) {
+                    offset++;
+                    if (b == '\n') {
+                        break;
+                    }
+                    if (length < line.length) {
+                        line[length++] = (byte) b;
+                    }
+                }
+                if (length == 0) {
+                    continue;
+                }
+                if (startsWith(line, length, RAW)) {
+                    long timeNanos = getRawTimeNanos(line, length);
+                    if (previousTimeNanos != LogIndex.NO_TIME && timeNanos != LogIndex.NO_TIME
+                            && timeNanos != previousTimeNanos) {
+                        return lineStart;
+                    }
+                    previousTimeNanos = timeNanos;
+                } else if (isEpochStart(line, length)) {
+                    return lineStart;
+                } else {
+                    previousTimeNanos = LogIndex.NO_TIME;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if a line that isn't a Raw line starts an epoch
+     */
+    private static boolean isEpochStart(byte[] line, int length) {
+        if (!startsWith(line, length, STATUS)) {
+            return true;
+        }
+        // Status,UnixTimeMillis,SignalCount,SignalIndex,... - only the first signal starts an epoch
+        int field = 0;
+        for (int i = 0; i < length; i++) {
+            if (line[i] == ',' && ++field == CsvLogRecord.Status.SIGNAL_INDEX) {
+                return i + 2 < length && line[i + 1] == '0' && line[i + 2] == ',';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the TimeNanos of a Raw line (Raw,utcTimeMillis,TimeNanos,...), or LogIndex.NO_TIME if
+     * it can't be read
+     */
+    private static long getRawTimeNanos(byte[] line, int length) {
+        int field = 0;
+        int i = 0;
+        while (i < length && field < CsvLogRecord.Raw.TIME_NANOS) {
+            if (line[i++] == ',') {
+                field++;
+            }
+        }
+        boolean negative = i < length && line[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        int digits = 0;
+        for (; i < length && line[i] != ','; i++, digits++) {
+            if (line[i] < '0' || line[i] > '9' || digits >= 18) {
+                return LogIndex.NO_TIME;
+            }
+            value = value * 10 + (line[i] - '0');
+        }
+        if (digits == 0) {
+            return LogIndex.NO_TIME;
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean startsWith(byte[] line, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Totals of a chunk of a log, plus what's needed to join it with the chunks around it
+     */
+    private static final class ChunkResult {
+        final LogSummary summary = new LogSummary();
+        long firstElapsedNanos = LogIndex.NO_TIME;
+        long firstUtcMillis = LogIndex.NO_TIME;
+        long firstFixElapsedNanos = LogIndex.NO_TIME;
+        long firstFixUtcMillis = LogIndex.NO_TIME;
+
+        void onRecord(long elapsedNanos, long utcMillis) {
+            if (firstElapsedNanos == LogIndex.NO_TIME) {
+                firstElapsedNanos = elapsedNanos;
+            }
+            if (firstUtcMillis == LogIndex.NO_TIME) {
+                firstUtcMillis = utcMillis;
+            }
+        }
+
+        void onFix(long elapsedNanos, long utcMillis) {
+            if (firstFixElapsedNanos == LogIndex.NO_TIME && firstFixUtcMillis == LogIndex.NO_TIME) {
+                firstFixElapsedNanos = elapsedNanos;
+                firstFixUtcMillis = utcMillis;
+            }
+        }
+
+        /**
+         * Adds the totals of the chunk that follows this one
+         */
+        void append(ChunkResult next) {
+            summary.merge(next.summary);
+            if (firstFixElapsedNanos == LogIndex.NO_TIME && firstFixUtcMillis == LogIndex.NO_TIME
+                    && (next.firstFixElapsedNanos != LogIndex.NO_TIME || next.firstFixUtcMillis != LogIndex.NO_TIME)) {
+                firstFixElapsedNanos = next.firstFixElapsedNanos;
+                firstFixUtcMillis = next.firstFixUtcMillis;
+            }
+            if (firstElapsedNanos == LogIndex.NO_TIME) {
+                firstElapsedNanos = next.firstElapsedNanos;
+            }
+            if (firstUtcMillis == LogIndex.NO_TIME) {
+                firstUtcMillis = next.firstUtcMillis;
+            }
+        }
+
+        /**
+         * Adds the time from the first record of the log to the first fix, if the log didn't start
+         * with a fix
+         */
+        LogSummary finish() {
+            long ttffMillis = 0;
+            if (firstFixElapsedNanos != LogIndex.NO_TIME && firstElapsedNanos != LogIndex.NO_TIME) {
+                ttffMillis = (firstFixElapsedNanos - firstElapsedNanos) / 1_000_000;
+            } else if (firstFixUtcMillis != LogIndex.NO_TIME && firstUtcMillis != LogIndex.NO_TIME) {
+                ttffMillis = firstFixUtcMillis - firstUtcMillis;
+            }
+            if (ttffMillis > 0) {
+                summary.ttffSeconds.add(ttffMillis / 1000.0);
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * Counts the records of one chunk
+     */
+    private static final class ChunkHandler implements CsvLogParser.Handler {
+        final ChunkResult result = new ChunkResult();
+        final List<SatelliteStatus> statuses = new ArrayList<>();
+
+        @Override
+        public void onRaw(CsvLogRecord.Raw record) {
+            long elapsedNanos = record.hasChipsetElapsedRealtimeNanos()
+                    ? record.getChipsetElapsedRealtimeNanos()
+                    : record.getElapsedRealtimeMillis() * 1_000_000;
+            result.onRecord(elapsedNanos, LogIndex.NO_TIME);
+        }
+
+        @Override
+        public void onFix(CsvLogRecord.Fix record) {
+            endEpoch();
+            long elapsedNanos = record.hasElapsedRealtimeNanos() ? record.getElapsedRealtimeNanos() : LogIndex.NO_TIME;
+            result.onFix(elapsedNanos, record.getUnixTimeMillis());
+            result.onRecord(elapsedNanos, record.getUnixTimeMillis());
+            result.summary.fixes++;
+        }
+
+        @Override
+        public void onStatus(CsvLogRecord.Status record) {
+            if (record.getSignalIndex() == 0) {
+                endEpoch();
+            }
+            SatelliteStatus status = new SatelliteStatus(
+                    record.getSvid(),
+                    SatelliteUtil.toGnssType(record.getConstellationType()),
+                    record.getCn0DbHz(),
+                    record.hasAlmanacData(),
+                    record.hasEphemerisData(),
+                    record.isUsedInFix(),
+                    record.getElevationDegrees(),
+                    record.getAzimuthDegrees());
+            if (status.getGnssType() == GnssType.SBAS) {
+                status.setSbasType(SatelliteUtil.INSTANCE.toSbasType(status.getSvid()));
+            }
+            if (record.getCarrierFrequencyHz() != 0) {
+                status.setHasCarrierFrequency(true);
+                status.setCarrierFrequencyHz(record.getCarrierFrequencyHz());
+            }
+            if (record.hasBasebandCn0DbHz()) {
+                status.setHasBasebandCn0DbHz(true);
+                status.setBasebandCn0DbHz(record.getBasebandCn0DbHz());
+            }
+            statuses.add(status);
+            if (status.getCn0DbHz() > 0) {
+                String constellation = status.getGnssType() == GnssType.SBAS
+                        ? status.getSbasType().name()
+                        : status.getGnssType().name();
+                result.summary.addCn0(constellation + " " + CarrierFreqUtils.getLabel(CARRIER_CODE.invoke(status)),
+                        status.getCn0DbHz());
+            }
+            if (record.getSignalIndex() == record.getSignalCount() - 1) {
+                endEpoch();
+            }
+        }
+
+        @Override
+        public void onNmea(CsvLogRecord.Nmea record) {
+            endEpoch();
+            result.onRecord(LogIndex.NO_TIME, record.getTimestamp());
+        }
+
+        @Override
+        public void onNav(CsvLogRecord.Nav record) {
+            endEpoch();
+        }
+
+        @Override
+        public void onOrientation(CsvLogRecord.Orientation record) {
+            endEpoch();
+            result.onRecord(record.getElapsedRealtimeNanos(), record.getUtcTimeMillis());
+        }
+
+        void endEpoch() {
+            if (statuses.isEmpty()) {
+                return;
+            }
+            SatelliteMetadata metadata = SatelliteUtil.INSTANCE.toSatelliteGroup(statuses, CARRIER_CODE)
+                    .getSatelliteMetadata();
+            LogSummary summary = result.summary;
+            summary.statusEpochs++;
+            if (metadata.getNumSignalsUsed() > 0) {
+                summary.fixEpochs++;
+            }
+            if (metadata.isDualFrequencyPerSatInUse()) {
+                summary.dualFrequencyInUseEpochs++;
+            }
+            if (metadata.isDualFrequencyPerSatInView()) {
+                summary.dualFrequencyInViewEpochs++;
+            }
+            statuses.clear();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.analytics;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Totals from one or more GPSTest CSV logs. Summaries of different logs, or of different parts of
+ * the same log, can be merged with {@link #merge(LogSummary)}.
+ */
+public final class LogSummary {
+
+    /**
+     * C/N0 histograms have 0.5 dB-Hz bins from 0 to 64 dB-Hz
+     */
+    public static final double CN0_MAX_DBHZ = 64;
+    public static final int CN0_BINS = 128;
+
+    /**
+     * Relative accuracy of the TTFF quantiles
+     */
+    public static final double TTFF_ACCURACY = 0.01;
+
+    long files;
+    long records;
+    long malformedLines;
+    long fixes;
+    long statusEpochs;
+    long fixEpochs;
+    long dualFrequencyInUseEpochs;
+    long dualFrequencyInViewEpochs;
+    final Map<String, Histogram> cn0 = new TreeMap<>();
+    final QuantileSketch ttffSeconds = new QuantileSketch(TTFF_ACCURACY);
+
+    /**
+     * @return the number of log files read
+     */
+    public long getFileCount() {
+        return files;
+    }
+
+    /**
+     * @return the number of records read, not including malformed lines
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    public long getMalformedLineCount() {
+        return malformedLines;
+    }
+
+    /**
+     * @return the number of Fix records
+     */
+    public long getFixCount() {
+        return fixes;
+    }
+
+    /**
+     * @return the number of GnssStatus callbacks logged as Status records
+     */
+    public long getStatusEpochCount() {
+        return statusEpochs;
+    }
+
+    /**
+     * @return the percent of status epochs with at least one signal used in the fix, or NaN if there
+     * weren't any status epochs
+     */
+    public double getFixAvailabilityPercent() {
+        return percent(fixEpochs);
+    }
+
+    /**
+     * @return the percent of status epochs where a satellite was used in the fix on more than one
+     * frequency, or NaN if there weren't any status epochs
+     */
+    public double getDualFrequencyInUsePercent() {
+        return percent(dualFrequencyInUseEpochs);
+    }
+
+    /**
+     * @return the percent of status epochs where a satellite was in view on more than one frequency,
+     * or NaN if there weren't any status epochs
+     */
+    public double getDualFrequencyInViewPercent() {
+        return percent(dualFrequencyInViewEpochs);
+    }
+
+    private double percent(long epochs) {
+        return statusEpochs == 0 ? Double.NaN : 100.0 * epochs / statusEpochs;
+    }
+
+    /**
+     * @return C/N0 histograms of the signals in view, keyed by constellation and carrier frequency
+     * label (e.g., "NAVSTAR L1" or "WAAS L5"), in key order
+     */
+    public Map<String, Histogram> getCn0Histograms() {
+        return Collections.unmodifiableMap(cn0);
+    }
+
+    /**
+     * @return time to first fix of each log (or session of log files), in seconds
+     */
+    public QuantileSketch getTtffSeconds() {
+        return ttffSeconds;
+    }
+
+    void addCn0(String key, double cn0DbHz) {
+        Histogram histogram = cn0.get(key);
+        if (histogram == null) {
+            histogram = newCn0Histogram();
+            cn0.put(key, histogram);
+        }
+        histogram.add(cn0DbHz);
+    }
+
+    static Histogram newCn0Histogram() {
+        return new Histogram(0, CN0_MAX_DBHZ, CN0_BINS);
+    }
+
+    /**
+     * Adds the totals of another summary to this one
+     */
+    public void merge(LogSummary other) {
+        files += other.files;
+        records += other.records;
+        malformedLines += other.malformedLines;
+        fixes += other.fixes;
+        statusEpochs += other.statusEpochs;
+        fixEpochs += other.fixEpochs;
+        dualFrequencyInUseEpochs += other.dualFrequencyInUseEpochs;
+        dualFrequencyInViewEpochs += other.dualFrequencyInViewEpochs;
+        for (Map.Entry<String, Histogram> entry : other.cn0.entrySet()) {
+            Histogram histogram = cn0.get(entry.getKey());
+            if (histogram == null) {
+                histogram = newCn0Histogram();
+                cn0.put(entry.getKey(), histogram);
+            }
+            histogram.merge(entry.getValue());
+        }
+        ttffSeconds.merge(other.ttffSeconds);
+    }
+
+    /**
+     * Writes the summary as plain text
+     */
+    public void writeReport(Appendable out) throws IOException {
+        out.append(String.format(Locale.US, "Files: %d, records: %d, malformed lines: %d%n",
+                files, records, malformedLines));
+        out.append(String.format(Locale.US, "Fixes: %d, status epochs: %d%n", fixes, statusEpochs));
+        out.append(String.format(Locale.US, "Fix availability: %.1f%%%n", getFixAvailabilityPercent()));
+        out.append(String.format(Locale.US, "Dual-frequency in use: %.1f%%, in view: %.1f%%%n",
+                getDualFrequencyInUsePercent(), getDualFrequencyInViewPercent()));
+        out.append(String.format(Locale.US, "TTFF (s): count %d, min %.1f, median %.1f, 95th %.1f, max %.1f%n",
+                ttffSeconds.getCount(), ttffSeconds.getMin(), ttffSeconds.getQuantile(0.5),
+                ttffSeconds.getQuantile(0.95), ttffSeconds.getMax()));
+        out.append("C/N0 (dB-Hz):\n");
+        for (Map.Entry<String, Histogram> entry : cn0.entrySet()) {
+            Histogram h = entry.getValue();
+            out.append(String.format(Locale.US, "  %s: count %d, mean %.1f, 5th %.1f, median %.1f, 95th %.1f%n",
+                    entry.getKey(), h.getCount(), h.getMean(), h.getQuantile(0.05),
+                    h.getQuantile(0.5), h.getQuantile(0.95)));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Estimates quantiles of non-negative values with a bounded relative error, using buckets whose
+ * width grows geometrically (as in the DDSketch algorithm). Sketches with the same accuracy can be
+ * merged, and the result is the same as if all values had been added to one sketch. Memory grows
+ * with the log of the range of values rather than the number of values.
+ */
+public final class QuantileSketch {
+
+    // Values smaller than this are counted as zero
+    private static final double MIN_VALUE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    // counts[i] is the number of values in bucket i + offset
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double minValue = Double.NaN;
+    private double maxValue = Double.NaN;
+
+    /**
+     * @param relativeAccuracy the largest error of a quantile relative to its value, e.g. 0.01 for 1%
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1 but was " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        logGamma = Math.log(gamma);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * @param value a value that's zero or greater
+     */
+    public void add(double value) {
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException("Value must be 0 or greater but was " + value);
+        }
+        if (value < MIN_VALUE) {
+            zeroCount++;
+        } else {
+            int index = (int) Math.ceil(Math.log(value) / logGamma);
+            ensureCapacity(index, index);
+            counts[index - offset]++;
+        }
+        if (count == 0 || value < minValue) {
+            minValue = value;
+        }
+        if (count == 0 || value > maxValue) {
+            maxValue = value;
+        }
+        count++;
+    }
+
+    /**
+     * Adds the values counted by another sketch with the same accuracy to this one
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Sketches have different accuracy");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        if (other.counts.length > 0) {
+            ensureCapacity(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[i + other.offset - offset] += other.counts[i];
+            }
+        }
+        if (count == 0 || other.minValue < minValue) {
+            minValue = other.minValue;
+        }
+        if (count == 0 || other.maxValue > maxValue) {
+            maxValue = other.maxValue;
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * Removes all values
+     */
+    public void clear() {
+        counts = new long[0];
+        offset = 0;
+        zeroCount = 0;
+        count = 0;
+        minValue = Double.NaN;
+        maxValue = Double.NaN;
+    }
+
+    private void ensureCapacity(int minIndex, int maxIndex) {
+        if (counts.length == 0) {
+            counts = new long[maxIndex - minIndex + 1];
+            offset = minIndex;
+            return;
+        }
+        int newOffset = Math.min(offset, minIndex);
+        int newEnd = Math.max(offset + counts.length - 1, maxIndex);
+        if (newOffset == offset && newEnd == offset + counts.length - 1) {
+            return;
+        }
+        long[] grown = new long[newEnd - newOffset + 1];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+
+    /**
+     * @return the number of values added
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the smallest value added, or NaN if there aren't any
+     */
+    public double getMin() {
+        return minValue;
+    }
+
+    /**
+     * @return the largest value added, or NaN if there aren't any
+     */
+    public double getMax() {
+        return maxValue;
+    }
+
+    /**
+     * Returns an estimate of the value below which the given fraction of values fall, within the
+     * relative accuracy of the actual value
+     *
+     * @param quantile a fraction from 0 to 1, e.g. 0.5 for the median
+     * @return the value at the quantile, or NaN if no values have been added
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                double value = 2 * Math.pow(gamma, i + offset) / (gamma + 1);
+                return Math.max(minValue, Math.min(maxValue, value));
+            }
+        }
+        return maxValue;
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch{count=" + count + ", buckets=" + Arrays.toString(counts) + "}";
+    }
+}
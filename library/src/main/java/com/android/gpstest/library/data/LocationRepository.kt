@@ -2,8 +2,12 @@ package com.android.gpstest.library.data
 
 import android.os.Build
 import androidx.annotation.RequiresApi
+import com.android.gpstest.library.util.NmeaDecoder
+import com.android.gpstest.library.util.NmeaRecord
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.flow
 import javax.inject.Inject
 
 class LocationRepository @Inject constructor(
@@ -13,8 +17,23 @@ class LocationRepository @Inject constructor(
     private val sharedSensorManager: SharedSensorManager,
     private val sharedNavMessageManager: SharedNavMessageManager,
     private val sharedGnssMeasurementManager: SharedGnssMeasurementManager,
-    private val sharedAntennaManager: SharedAntennaManager
+    private val sharedAntennaManager: SharedAntennaManager,
+    private val sharedSatelliteEpochManager: SharedSatelliteEpochManager
 ) {
+    /**
+     * Counts of the events sent, delivered and dropped by each stream, which show whether
+     * collectors (e.g., file logging) are keeping up with the platform callbacks
+     */
+    val streamStats: List<StreamStats> = listOf(
+        sharedLocationManager.stats,
+        sharedGnssStatusManager.stats,
+        sharedNmeaManager.stats,
+        sharedSensorManager.stats,
+        sharedNavMessageManager.stats,
+        sharedGnssMeasurementManager.stats,
+        sharedAntennaManager.stats
+    )
+
     /**
      * Status of whether the app is actively subscribed to location changes.
      */
@@ -33,6 +52,14 @@ class LocationRepository @Inject constructor(
     @ExperimentalCoroutinesApi
     fun getGnssStatus() = sharedGnssStatusManager.statusFlow()
 
+    /**
+     * Observable flow of GnssStatus updates as statuses grouped into satellites, which are computed
+     * once in the background and shared by all collectors. It's conflated, so use getGnssStatus()
+     * to see every update (e.g., for logging).
+     */
+    @ExperimentalCoroutinesApi
+    fun getSatelliteEpochs() = sharedSatelliteEpochManager.epochFlow()
+
     /**
      * GnssStatus fix state
      */
@@ -49,6 +76,20 @@ class LocationRepository @Inject constructor(
     @ExperimentalCoroutinesApi
     fun getNmea() = sharedNmeaManager.nmeaFlow()
 
+    /**
+     * Observable flow of decoded GSV, RMC, GST, VTG, ZDA and GBS sentences from the NMEA updates.
+     * Each collector decodes with its own NmeaDecoder, which reuses one record per sentence type -
+     * a record is only valid until the collector returns, so call copy() on records that are kept
+     * (e.g., for charts) or passed to another coroutine.
+     */
+    @ExperimentalCoroutinesApi
+    fun getNmeaRecords(): Flow<NmeaRecord> = flow {
+        val decoder = NmeaDecoder()
+        getNmea().collect { nmea ->
+            decoder.decode(nmea.message, nmea.timestamp)?.let { emit(it) }
+        }
+    }
+
     /**
      * Observable flow for orientation sensor updates
      */
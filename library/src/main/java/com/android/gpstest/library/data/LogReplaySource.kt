@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.data
+
+import android.location.GnssStatus
+import android.location.Location
+import android.os.Build
+import android.util.Log
+import androidx.annotation.RequiresApi
+import com.android.gpstest.library.io.CsvLogRecord
+import com.android.gpstest.library.io.LogReplayer
+import com.android.gpstest.library.model.NmeaWithTime
+import com.android.gpstest.library.model.Orientation
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.channels.trySendBlocking
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.shareIn
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runInterruptible
+import java.io.File
+
+private const val TAG = "LogReplaySource"
+
+/**
+ * Plays back a CSV log recorded by GPSTest in place of the device's GNSS hardware and sensors.
+ * Pass it to the Shared*Manager classes behind LocationRepository and their flows emit the
+ * recorded data instead of registering with the system, with the original timing divided by
+ * [speed] (or [LogReplayer.AS_FAST_AS_POSSIBLE]).
+ *
+ * Locations, NMEA and orientation are emitted as the same types as the live flows. GnssStatus can
+ * only be created on Android R and higher. GnssMeasurementsEvent and GnssNavigationMessage can't be
+ * created through the public API, so measurements and navigation messages are available as
+ * recorded records from [measurementEvents] and [navMessageEvents] instead.
+ *
+ * All flows share one playback, which begins once [start] has been called and a flow is collected,
+ * and restarts from the beginning of the file if all collectors stop and another starts. Events
+ * aren't replayed to flows collected after playback begins, so for deterministic playback (e.g.,
+ * in tests) collect every flow first - [subscriptionCount] counts them - and then call [start].
+ */
+class LogReplaySource(
+    private val file: File,
+    private val speed: Double,
+    externalScope: CoroutineScope
+) {
+    private val _playing = MutableStateFlow(false)
+
+    /**
+     * True while the log is being played back
+     */
+    val playing: StateFlow<Boolean> = _playing
+
+    private val started = MutableStateFlow(false)
+
+    @ExperimentalCoroutinesApi
+    private val _events = callbackFlow {
+        val job = launch(Dispatchers.IO) {
+            // Wait until the consumers are subscribed, so they all see the same events
+            started.first { it }
+            Log.d(TAG, "Starting playback of ${file.name} at ${speed}x")
+            _playing.value = true
+            try {
+                runInterruptible {
+                    LogReplayer(speed).replay(file) { trySendBlocking(it) }
+                }
+                Log.d(TAG, "Finished playback of ${file.name}")
+            } catch (e: CancellationException) {
+                // Collectors stopped
+                throw e
+            } catch (e: Exception) {
+                Log.e(TAG, "Exception in replay flow: $e")
+            } finally {
+                _playing.value = false
+            }
+        }
+
+        awaitClose {
+            Log.d(TAG, "Stopping playback")
+            job.cancel()
+        }
+    }.shareIn(
+        externalScope,
+        replay = 0,
+        started = SharingStarted.WhileSubscribed()
+    )
+
+    /**
+     * The number of collectors of the flows of this source. Each Shared*Manager that replays from
+     * this source collects one flow while its own flow is collected.
+     */
+    @ExperimentalCoroutinesApi
+    val subscriptionCount: StateFlow<Int>
+        get() = _events.subscriptionCount
+
+    /**
+     * Begins playback once a flow is collected, or immediately if one already is
+     */
+    fun start() {
+        started.value = true
+    }
+
+    /**
+     * Returns all recorded events in the order they are played back
+     */
+    @ExperimentalCoroutinesApi
+    fun events(): Flow<LogReplayer.Event> = _events
+
+    @ExperimentalCoroutinesApi
+    private fun events(type: Int): Flow<LogReplayer.Event> = _events.filter { it.type == type }
+
+    @ExperimentalCoroutinesApi
+    fun locationFlow(): Flow<Location> = events(LogReplayer.TYPE_FIX).map { it.fix.toLocation() }
+
+    /**
+     * Returns recorded GnssStatus, which can only be created on Android R and higher
+     */
+    @RequiresApi(Build.VERSION_CODES.R)
+    @ExperimentalCoroutinesApi
+    fun statusFlow(): Flow<GnssStatus> =
+        events(LogReplayer.TYPE_STATUS).map { it.statuses.toGnssStatus() }
+
+    @ExperimentalCoroutinesApi
+    fun nmeaFlow(): Flow<NmeaWithTime> = events(LogReplayer.TYPE_NMEA).map {
+        NmeaWithTime(it.nmea.timestamp, it.nmea.sentence.toString())
+    }
+
+    @ExperimentalCoroutinesApi
+    fun sensorFlow(): Flow<Orientation> = events(LogReplayer.TYPE_ORIENTATION).map {
+        val orientation = it.orientation
+        Orientation(
+            orientation.elapsedRealtimeNanos,
+            doubleArrayOf(orientation.yawDegrees, orientation.rollDegrees, orientation.pitchDegrees)
+        )
+    }
+
+    /**
+     * Returns each recorded GnssMeasurementsEvent as its Raw records
+     */
+    @ExperimentalCoroutinesApi
+    fun measurementEvents(): Flow<LogReplayer.Event> = events(LogReplayer.TYPE_MEASUREMENTS)
+
+    /**
+     * Returns each recorded GnssNavigationMessage as its Nav record
+     */
+    @ExperimentalCoroutinesApi
+    fun navMessageEvents(): Flow<LogReplayer.Event> = events(LogReplayer.TYPE_NAV)
+}
+
+internal fun CsvLogRecord.Fix.toLocation(): Location {
+    val location = Location(provider.toString())
+    location.latitude = latitudeDegrees
+    location.longitude = longitudeDegrees
+    location.altitude = altitudeMeters
+    location.speed = speedMps
+    location.accuracy = accuracyMeters
+    if (hasBearingDegrees()) location.bearing = bearingDegrees
+    location.time = unixTimeMillis
+    if (hasElapsedRealtimeNanos()) location.elapsedRealtimeNanos = elapsedRealtimeNanos
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+        if (hasSpeedAccuracyMps()) location.speedAccuracyMetersPerSecond = speedAccuracyMps
+        if (hasBearingAccuracyDegrees()) location.bearingAccuracyDegrees = bearingAccuracyDegrees
+        if (hasVerticalAccuracyMeters()) location.verticalAccuracyMeters = verticalAccuracyMeters
+    }
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && hasMockLocation()) {
+        location.isMock = isMockLocation
+    }
+    return location
+}
+
+@RequiresApi(Build.VERSION_CODES.R)
+internal fun List<CsvLogRecord.Status>.toGnssStatus(): GnssStatus {
+    val builder = GnssStatus.Builder()
+    for (status in this) {
+        builder.addSatellite(
+            status.constellationType,
+            status.svid,
+            status.cn0DbHz,
+            status.elevationDegrees,
+            status.azimuthDegrees,
+            status.hasEphemerisData(),
+            status.hasAlmanacData(),
+            status.isUsedInFix,
+            // SatelliteStatus logs 0 when there is no carrier frequency
+            status.carrierFrequencyHz != 0.0,
+            status.carrierFrequencyHz.toFloat(),
+            status.hasBasebandCn0DbHz(),
+            if (status.hasBasebandCn0DbHz()) status.basebandCn0DbHz else 0f
+        )
+    }
+    return builder.build()
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.data
+
+import com.android.gpstest.library.model.GnssType
+import com.android.gpstest.library.model.SatelliteGroup
+import com.android.gpstest.library.model.SatelliteMetadata
+import com.android.gpstest.library.model.SatelliteStatus
+
+/**
+ * One GnssStatus update, converted to [statuses] and grouped into [satelliteGroup] once by a
+ * [SatelliteEpochProcessor] and shared by everything that shows satellites. Neither is modified
+ * later.
+ *
+ * The statuses and satellites shown for a GNSS filter and sort order come from [project], which
+ * computes each projection the first time it's requested and then returns the same instance.
+ */
+class SatelliteEpoch internal constructor(
+    val statuses: List<SatelliteStatus>,
+    val satelliteGroup: SatelliteGroup,
+    private val processor: SatelliteEpochProcessor
+) {
+    // Only accessed by the processor, which synchronizes on itself
+    internal val projections = HashMap<SatelliteProjection.Key, SatelliteProjection>(2)
+
+    /**
+     * Returns the statuses and satellites shown for a GNSS [filter] from
+     * PreferenceUtils.gnssFilter() (empty to show all constellations) and a [sortOrder] from
+     * PreferenceUtils.getSatSortOrderFromPreferences(). Can be called from any thread.
+     */
+    fun project(filter: Set<GnssType>, sortOrder: Int): SatelliteProjection {
+        return processor.project(this, filter, sortOrder)
+    }
+}
+
+/**
+ * The statuses of a [SatelliteEpoch] that are shown for a GNSS filter and sort order, and their
+ * satellites
+ */
+class SatelliteProjection(
+    // GNSS and SBAS statuses that pass the filter, not sorted
+    val filteredStatuses: List<SatelliteStatus>,
+    // GNSS statuses that pass the filter, sorted
+    val gnssStatuses: List<SatelliteStatus>,
+    // SBAS statuses that pass the filter, sorted
+    val sbasStatuses: List<SatelliteStatus>,
+    val gnssSatellites: SatelliteGroup,
+    val sbasSatellites: SatelliteGroup,
+    // Metadata of the GNSS and SBAS satellites combined
+    val satelliteMetadata: SatelliteMetadata
+) {
+    internal data class Key(val filter: Set<GnssType>, val sortOrder: Int)
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.data
+
+import android.location.GnssStatus
+import com.android.gpstest.library.model.GnssType
+import com.android.gpstest.library.model.SatelliteGroup
+import com.android.gpstest.library.model.SatelliteMetadata
+import com.android.gpstest.library.model.SatelliteStatus
+import com.android.gpstest.library.util.GnssEpochBuffer
+import com.android.gpstest.library.util.SatelliteGroupBuilder
+import com.android.gpstest.library.util.SatelliteUtil.sortedBySortOrder
+
+/**
+ * Turns GnssStatus updates into [SatelliteEpoch]s. Statuses are read into a [GnssEpochBuffer] and
+ * grouped into satellites with [SatelliteGroupBuilder]s, which reuse the objects of the signals
+ * and satellites that didn't change since the previous update - a SatelliteStatus is only created
+ * for the signals that changed. The filtered satellites of each projection also have their own
+ * builders, which are kept for the most recently used filters and sort orders.
+ *
+ * process() must be called by one producer at a time, in the order of the updates.
+ * SatelliteEpoch.project() can be called from any thread.
+ */
+class SatelliteEpochProcessor {
+    private val gnssEpochs = GnssEpochBuffer()
+    private val allSatellites = SatelliteGroupBuilder()
+
+    // Most recently used last
+    private val projectionBuilders =
+        object : LinkedHashMap<SatelliteProjection.Key, ProjectionBuilder>(8, 0.75f, true) {
+            override fun removeEldestEntry(
+                eldest: MutableMap.MutableEntry<SatelliteProjection.Key, ProjectionBuilder>?
+            ): Boolean {
+                return size > MAX_PROJECTIONS
+            }
+        }
+
+    fun process(status: GnssStatus): SatelliteEpoch {
+        val group = allSatellites.update(gnssEpochs.fill(status))
+        return SatelliteEpoch(allSatellites.statuses, group, this)
+    }
+
+    /**
+     * Creates an epoch from statuses that are already converted, e.g., in tests
+     */
+    fun process(statuses: List<SatelliteStatus>): SatelliteEpoch {
+        return SatelliteEpoch(statuses, allSatellites.update(statuses), this)
+    }
+
+    @Synchronized
+    internal fun project(epoch: SatelliteEpoch, filter: Set<GnssType>, sortOrder: Int): SatelliteProjection {
+        val key = SatelliteProjection.Key(filter, sortOrder)
+        epoch.projections[key]?.let { return it }
+        // Copy the filter, which is part of the key that's kept
+        val stableKey = SatelliteProjection.Key(filter.toSet(), sortOrder)
+        val builder = projectionBuilders.getOrPut(stableKey) { ProjectionBuilder() }
+        val projection = builder.project(epoch.statuses, stableKey)
+        epoch.projections[stableKey] = projection
+        return projection
+    }
+
+    private class ProjectionBuilder {
+        private val gnssSatellites = SatelliteGroupBuilder()
+        private val sbasSatellites = SatelliteGroupBuilder()
+        private var last: SatelliteProjection? = null
+
+        fun project(statuses: List<SatelliteStatus>, key: SatelliteProjection.Key): SatelliteProjection {
+            // Split list into GNSS and SBAS statuses and apply "shown" filter
+            val (gnssStatuses, sbasStatuses) = statuses
+                .filter {
+                    key.filter.isEmpty() || key.filter.contains(it.gnssType)
+                }
+                .partition {
+                    it.gnssType != GnssType.SBAS
+                }
+            val gnss = gnssSatellites.update(gnssStatuses)
+            val sbas = sbasSatellites.update(sbasStatuses)
+            val previous = last
+            val metadata = if (previous != null
+                && previous.gnssSatellites.satelliteMetadata === gnss.satelliteMetadata
+                && previous.sbasSatellites.satelliteMetadata === sbas.satelliteMetadata
+            ) {
+                // Neither group's metadata changed, so the combined metadata is the same
+                previous.satelliteMetadata
+            } else {
+                combine(gnss, sbas)
+            }
+            return SatelliteProjection(
+                gnssStatuses + sbasStatuses,
+                gnssStatuses.sortedBySortOrder(key.sortOrder, true),
+                sbasStatuses.sortedBySortOrder(key.sortOrder, false),
+                gnss,
+                sbas,
+                metadata
+            ).also { last = it }
+        }
+
+        private fun combine(gnss: SatelliteGroup, sbas: SatelliteGroup): SatelliteMetadata {
+            return SatelliteMetadata(
+                gnss.satelliteMetadata.numSignalsInView + sbas.satelliteMetadata.numSignalsInView,
+                gnss.satelliteMetadata.numSignalsUsed + sbas.satelliteMetadata.numSignalsUsed,
+                gnss.satelliteMetadata.numSignalsTotal + sbas.satelliteMetadata.numSignalsTotal,
+                gnss.satelliteMetadata.numSatsInView + sbas.satelliteMetadata.numSatsInView,
+                gnss.satelliteMetadata.numSatsUsed + sbas.satelliteMetadata.numSatsUsed,
+                gnss.satelliteMetadata.numSatsTotal + sbas.satelliteMetadata.numSatsTotal,
+                gnss.satelliteMetadata.supportedGnss,
+                gnss.satelliteMetadata.supportedGnssCfs,
+                sbas.satelliteMetadata.supportedSbas,
+                sbas.satelliteMetadata.supportedSbasCfs,
+                gnss.satelliteMetadata.unknownCarrierStatuses + sbas.satelliteMetadata.unknownCarrierStatuses,
+                gnss.satelliteMetadata.duplicateCarrierStatuses + sbas.satelliteMetadata.duplicateCarrierStatuses,
+                gnss.satelliteMetadata.isDualFrequencyPerSatInView or sbas.satelliteMetadata.isDualFrequencyPerSatInView,
+                gnss.satelliteMetadata.isDualFrequencyPerSatInUse or sbas.satelliteMetadata.isDualFrequencyPerSatInUse,
+                gnss.satelliteMetadata.isNonPrimaryCarrierFreqInView or sbas.satelliteMetadata.isNonPrimaryCarrierFreqInView,
+                gnss.satelliteMetadata.isNonPrimaryCarrierFreqInUse or sbas.satelliteMetadata.isNonPrimaryCarrierFreqInUse
+            )
+        }
+    }
+
+    companion object {
+        // Projection builders kept, e.g., for the filters the user switches between
+        private const val MAX_PROJECTIONS = 4
+    }
+}
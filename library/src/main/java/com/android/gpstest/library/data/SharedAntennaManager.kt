@@ -48,12 +48,26 @@ private const val TAG = "SharedAntennaManager"
 class SharedAntennaManager constructor(
     private val context: Context,
     externalScope: CoroutineScope,
-    prefs: SharedPreferences
+    prefs: SharedPreferences,
+    private val replaySource: LogReplaySource? = null,
+    private val bufferConfig: StreamBufferConfig = StreamBufferConfig.DEFAULT
 ) {
+    /**
+     * Counts of the AntennaInfo events sent, delivered and dropped by this stream
+     */
+    val stats = StreamStats("AntennaInfo")
+
     @RequiresApi(Build.VERSION_CODES.R)
     @ExperimentalCoroutinesApi
     @SuppressLint("MissingPermission")
-    private val _antennaUpdates = callbackFlow {
+    private val _antennaUpdates = callbackFlow<Sequenced<List<GnssAntennaInfo>>> {
+        if (replaySource != null) {
+            // Antenna info isn't replayed, and the device's antennas don't belong with the log
+            Log.d(TAG, "Not registering for GnssAntennaInfo during log replay")
+            awaitClose { }
+            return@callbackFlow
+        }
+
         val locationManager = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
         val callback = GnssAntennaInfo.Listener { list: List<GnssAntennaInfo> ->
             // Capture capabilities in preferences
@@ -77,7 +91,7 @@ class SharedAntennaManager constructor(
 
             //Log.d(TAG, "New antennas: $list")
             // Send the new antennas to the Flow observers
-            trySend(list)
+            trySend(stats.track(list))
         }
 
         if (!context.hasPermission(Manifest.permission.ACCESS_FINE_LOCATION) ||
@@ -97,7 +111,7 @@ class SharedAntennaManager constructor(
             Log.d(TAG, "Stopping antenna updates")
             locationManager.unregisterAntennaInfoListener(callback) // clean up when Flow collection ends
         }
-    }.shareIn(
+    }.buffered(bufferConfig, stats).shareIn(
         externalScope,
         replay = 0,
         started = SharingStarted.WhileSubscribed()
@@ -54,8 +54,15 @@ private const val TAG = "SharedGnssMeasurementManager"
 class SharedGnssMeasurementManager constructor(
     private var prefs: SharedPreferences,
     private val context: Context,
-    externalScope: CoroutineScope
+    externalScope: CoroutineScope,
+    private val replaySource: LogReplaySource? = null,
+    private val bufferConfig: StreamBufferConfig = StreamBufferConfig.DEFAULT
 ) {
+    /**
+     * Counts of the Measurement events sent, delivered and dropped by this stream
+     */
+    val stats = StreamStats("Measurement")
+
     private val _receivingMeasurementUpdates: MutableStateFlow<Boolean> =
         MutableStateFlow(false)
     val receivingMeasurementUpdates: StateFlow<Boolean>
@@ -63,7 +70,14 @@ class SharedGnssMeasurementManager constructor(
 
     @ExperimentalCoroutinesApi
     @SuppressLint("MissingPermission")
-    private val _measurementUpdates = callbackFlow {
+    private val _measurementUpdates = callbackFlow<Sequenced<GnssMeasurementsEvent>> {
+        if (replaySource != null) {
+            // GnssMeasurementsEvent can't be created from a log, so recorded measurements come from LogReplaySource.measurementEvents()
+            Log.d(TAG, "Not registering for GnssMeasurementsEvent during log replay")
+            awaitClose { }
+            return@callbackFlow
+        }
+
         val locationManager = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
         // Check explicit support on Android S and higher here - Android R and lower are checked in status callbacks
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
@@ -76,7 +90,7 @@ class SharedGnssMeasurementManager constructor(
 
                     //Log.d(TAG, "New measurement: $event")
                     // Send the new measurement to the Flow observers
-                    trySend(event)
+                    trySend(stats.track(event))
                 }
 
                 @Deprecated("Deprecated in Java")
@@ -136,7 +150,7 @@ class SharedGnssMeasurementManager constructor(
             _receivingMeasurementUpdates.value = false
             locationManager.unregisterGnssMeasurementsCallback(callback) // clean up when Flow collection ends
         }
-    }.shareIn(
+    }.buffered(bufferConfig, stats).shareIn(
         externalScope,
         replay = 0,
         started = SharingStarted.WhileSubscribed()
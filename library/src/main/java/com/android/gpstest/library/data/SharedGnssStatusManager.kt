@@ -28,6 +28,7 @@ import android.os.Looper
 import android.os.SystemClock
 import android.util.Log
 import androidx.core.content.ContextCompat
+import com.android.gpstest.library.io.LogReplayer
 import com.android.gpstest.library.util.PreferenceUtil.minTimeMillis
 import com.android.gpstest.library.util.hasPermission
 import kotlinx.coroutines.CoroutineScope
@@ -38,6 +39,8 @@ import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.launchIn
+import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.flow.shareIn
 import java.util.concurrent.TimeUnit
 
@@ -52,8 +55,15 @@ private const val TAG = "SharedGnssStatusManager"
 class SharedGnssStatusManager constructor(
     private val context: Context,
     externalScope: CoroutineScope,
-    prefs: SharedPreferences
+    prefs: SharedPreferences,
+    private val replaySource: LogReplaySource? = null,
+    private val bufferConfig: StreamBufferConfig = StreamBufferConfig.DEFAULT
 ) {
+    /**
+     * Counts of the GnssStatus events sent, delivered and dropped by this stream
+     */
+    val stats = StreamStats("GnssStatus")
+
     // State of GnssStatus
     private val _statusState = MutableStateFlow<GnssStatusState>(GnssStatusState.Stopped)
     val statusState: StateFlow<GnssStatusState> = _statusState
@@ -68,7 +78,50 @@ class SharedGnssStatusManager constructor(
 
     @ExperimentalCoroutinesApi
     @SuppressLint("MissingPermission")
-    private val _gnssStatusUpdates = callbackFlow {
+    private val _gnssStatusUpdates = callbackFlow<Sequenced<GnssStatus>> {
+        if (replaySource != null) {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+                Log.d(TAG, "GnssStatus can't be replayed before Android R")
+                close()
+                return@callbackFlow
+            }
+            Log.d(TAG, "Starting GnssStatus updates from log replay")
+            _statusState.value = GnssStatusState.Started
+            var firstEventNanos = -1L
+            var lastFixNanos = -1L
+            replaySource.events().onEach { event ->
+                if (firstEventNanos < 0) firstEventNanos = event.elapsedRealtimeNanos
+                when (event.type) {
+                    LogReplayer.TYPE_FIX -> {
+                        lastFixNanos = event.elapsedRealtimeNanos
+                        if (_firstFixState.value == FirstFixState.NotAcquired) {
+                            _firstFixState.value = FirstFixState.Acquired(
+                                TimeUnit.NANOSECONDS.toMillis(lastFixNanos - firstEventNanos).toInt()
+                            )
+                        }
+                    }
+                    LogReplayer.TYPE_STATUS -> {
+                        // Same check as live updates, but on the recorded timeline
+                        _fixState.value = if (lastFixNanos >= 0 &&
+                            event.elapsedRealtimeNanos - lastFixNanos <= fixThresholdNanos(context, prefs)
+                        ) {
+                            FixState.Acquired
+                        } else {
+                            FixState.NotAcquired
+                        }
+                        send(stats.track(event.statuses.toGnssStatus()))
+                    }
+                }
+            }.launchIn(this)
+            awaitClose {
+                Log.d(TAG, "Stopping GnssStatus updates from log replay")
+                _statusState.value = GnssStatusState.Stopped
+                _fixState.value = FixState.NotAcquired
+                _firstFixState.value = FirstFixState.NotAcquired
+            }
+            return@callbackFlow
+        }
+
         val locationManager = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
         val callback: GnssStatus.Callback = object : GnssStatus.Callback() {
             override fun onStarted() {
@@ -93,7 +146,7 @@ class SharedGnssStatusManager constructor(
                 }
                 //Log.d(TAG, "New gnssStatus: ${status}")
                 // Send the new location to the Flow observers
-                trySend(status)
+                trySend(stats.track(status))
             }
         }
 
@@ -126,7 +179,7 @@ class SharedGnssStatusManager constructor(
             _fixState.value = FixState.NotAcquired
             _firstFixState.value = FirstFixState.NotAcquired
         }
-    }.shareIn(
+    }.buffered(bufferConfig, stats).shareIn(
         externalScope,
         replay = 0,
         started = SharingStarted.WhileSubscribed()
@@ -144,15 +197,8 @@ class SharedGnssStatusManager constructor(
 }
 
 private fun checkHaveFix(context: Context, location: Location, prefs: SharedPreferences): FixState {
-    val threshold = if (minTimeMillis(context, prefs) >= 1000L) {
-        // Use two requested update intervals (it missed two updates)
-        TimeUnit.MILLISECONDS.toNanos(minTimeMillis(context, prefs) * 2)
-    } else {
-        // Most Android devices can't refresh faster than 1Hz, so use 1.5 seconds - see #544
-        TimeUnit.MILLISECONDS.toNanos(1500)
-    }
     val nanosSinceFix = SystemClock.elapsedRealtimeNanos() - location.elapsedRealtimeNanos
-    return if (nanosSinceFix > threshold) {
+    return if (nanosSinceFix > fixThresholdNanos(context, prefs)) {
         // We lost the GNSS fix
         FixState.NotAcquired
     } else {
@@ -161,6 +207,19 @@ private fun checkHaveFix(context: Context, location: Location, prefs: SharedPref
     }
 }
 
+/**
+ * Returns the time since the last location after which the GNSS fix is considered lost
+ */
+private fun fixThresholdNanos(context: Context, prefs: SharedPreferences): Long {
+    return if (minTimeMillis(context, prefs) >= 1000L) {
+        // Use two requested update intervals (it missed two updates)
+        TimeUnit.MILLISECONDS.toNanos(minTimeMillis(context, prefs) * 2)
+    } else {
+        // Most Android devices can't refresh faster than 1Hz, so use 1.5 seconds - see #544
+        TimeUnit.MILLISECONDS.toNanos(1500)
+    }
+}
+
 // Started/stopped states
 sealed class GnssStatusState {
     object Started : GnssStatusState()
@@ -34,6 +34,8 @@ import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.launchIn
+import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.flow.shareIn
 
 private const val TAG = "SharedLocationManager"
@@ -47,8 +49,15 @@ private const val TAG = "SharedLocationManager"
 class SharedLocationManager constructor(
     private val context: Context,
     externalScope: CoroutineScope,
-    prefs:SharedPreferences
+    prefs:SharedPreferences,
+    private val replaySource: LogReplaySource? = null,
+    private val bufferConfig: StreamBufferConfig = StreamBufferConfig.DEFAULT
 ) {
+    /**
+     * Counts of the Location events sent, delivered and dropped by this stream
+     */
+    val stats = StreamStats("Location")
+
     private val _receivingLocationUpdates: MutableStateFlow<Boolean> =
         MutableStateFlow(false)
     val receivingLocationUpdates: StateFlow<Boolean>
@@ -56,13 +65,24 @@ class SharedLocationManager constructor(
 
     @ExperimentalCoroutinesApi
     @SuppressLint("MissingPermission")
-    private val _locationUpdates = callbackFlow {
+    private val _locationUpdates = callbackFlow<Sequenced<Location>> {
+        if (replaySource != null) {
+            Log.d(TAG, "Starting location updates from log replay")
+            _receivingLocationUpdates.value = true
+            replaySource.locationFlow().onEach { send(stats.track(it)) }.launchIn(this)
+            awaitClose {
+                Log.d(TAG, "Stopping location updates from log replay")
+                _receivingLocationUpdates.value = false
+            }
+            return@callbackFlow
+        }
+
         val locationManager = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
         // Use LocationListenerCompat to avoid crashes on API Level 30 and lower (#627)
         val callback = LocationListenerCompat { location ->
             //Log.d(TAG, "New location: ${location.toNotificationTitle()}")
             // Send the new location to the Flow observers
-            trySend(location)
+            trySend(stats.track(location))
         }
 
         if (!context.hasPermission(Manifest.permission.ACCESS_FINE_LOCATION) ||
@@ -90,7 +110,7 @@ class SharedLocationManager constructor(
             _receivingLocationUpdates.value = false
             locationManager.removeUpdates(callback) // clean up when Flow collection ends
         }
-    }.shareIn(
+    }.buffered(bufferConfig, stats).shareIn(
         externalScope,
         replay = 0,
         started = SharingStarted.WhileSubscribed()
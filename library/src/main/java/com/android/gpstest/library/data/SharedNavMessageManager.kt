@@ -50,11 +50,25 @@ private const val TAG = "SharedNavMessageManager"
 class SharedNavMessageManager constructor(
     private val context: Context,
     externalScope: CoroutineScope,
-    prefs: SharedPreferences
+    prefs: SharedPreferences,
+    private val replaySource: LogReplaySource? = null,
+    private val bufferConfig: StreamBufferConfig = StreamBufferConfig.DEFAULT
 ) {
+    /**
+     * Counts of the NavMessage events sent, delivered and dropped by this stream
+     */
+    val stats = StreamStats("NavMessage")
+
     @ExperimentalCoroutinesApi
     @SuppressLint("MissingPermission")
-    private val _navMessageUpdates = callbackFlow {
+    private val _navMessageUpdates = callbackFlow<Sequenced<GnssNavigationMessage>> {
+        if (replaySource != null) {
+            // GnssNavigationMessage can't be created from a log, so recorded messages come from LogReplaySource.navMessageEvents()
+            Log.d(TAG, "Not registering for GnssNavigationMessage during log replay")
+            awaitClose { }
+            return@callbackFlow
+        }
+
         val locationManager = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
         // Check explicit support on Android S and higher here - Android R and lower are checked in status callbacks
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
@@ -65,7 +79,7 @@ class SharedNavMessageManager constructor(
                 override fun onGnssNavigationMessageReceived(event: GnssNavigationMessage) {
                     //Log.d(TAG, "New nav message: ${event}")
                     // Send the new nav message info to the Flow observers
-                    trySend(event)
+                    trySend(stats.track(event))
                 }
 
                 @Deprecated("Deprecated in Java")
@@ -106,7 +120,7 @@ class SharedNavMessageManager constructor(
             Log.d(TAG, "Stopping NavMessage updates")
             locationManager.unregisterGnssNavigationMessageCallback(callback) // clean up when Flow collection ends
         }
-    }.shareIn(
+    }.buffered(bufferConfig, stats).shareIn(
         externalScope,
         replay = 0,
         started = SharingStarted.WhileSubscribed()
@@ -36,6 +36,8 @@ import kotlinx.coroutines.channels.awaitClose
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.launchIn
+import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.flow.shareIn
 
 private const val TAG = "SharedNmeaManager"
@@ -49,11 +51,25 @@ private const val TAG = "SharedNmeaManager"
 class SharedNmeaManager constructor(
     private val context: Context,
     externalScope: CoroutineScope,
-    prefs: SharedPreferences
+    prefs: SharedPreferences,
+    private val replaySource: LogReplaySource? = null,
+    private val bufferConfig: StreamBufferConfig = StreamBufferConfig.DEFAULT
 ) {
+    /**
+     * Counts of the NMEA events sent, delivered and dropped by this stream
+     */
+    val stats = StreamStats("NMEA")
+
     @ExperimentalCoroutinesApi
     @SuppressLint("MissingPermission")
-    private val _nmeaUpdates = callbackFlow {
+    private val _nmeaUpdates = callbackFlow<Sequenced<NmeaWithTime>> {
+        if (replaySource != null) {
+            Log.d(TAG, "Starting NMEA updates from log replay")
+            replaySource.nmeaFlow().onEach { send(stats.track(it)) }.launchIn(this)
+            awaitClose { Log.d(TAG, "Stopping NMEA updates from log replay") }
+            return@callbackFlow
+        }
+
         val locationManager = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
         val callback = OnNmeaMessageListener { message: String, timestamp: Long ->
             PreferenceUtils.saveInt(
@@ -64,7 +80,7 @@ class SharedNmeaManager constructor(
             val nmeaWithTime = NmeaWithTime(timestamp, message)
             //Log.d(TAG, "New nmea: ${nmeaWithTime}")
             // Send the new NMEA info to the Flow observers
-            trySend(nmeaWithTime)
+            trySend(stats.track(nmeaWithTime))
         }
 
         if (!context.hasPermission(Manifest.permission.ACCESS_FINE_LOCATION) ||
@@ -88,7 +104,7 @@ class SharedNmeaManager constructor(
             Log.d(TAG, "Stopping NMEA updates")
             locationManager.removeNmeaListener(callback) // clean up when Flow collection ends
         }
-    }.shareIn(
+    }.buffered(bufferConfig, stats).shareIn(
         externalScope,
         replay = 0,
         started = SharingStarted.WhileSubscribed()
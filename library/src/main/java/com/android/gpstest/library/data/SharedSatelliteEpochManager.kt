@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.data
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.shareIn
+
+/**
+ * Shares the GnssStatus updates of [SharedGnssStatusManager] as [SatelliteEpoch]s, which are
+ * converted and grouped into satellites once on [dispatcher] for all collectors (the service
+ * notification and the view models), instead of once per collector on the main thread.
+ *
+ * The flow is conflated - while collectors are busy, updates are skipped so they only see the
+ * latest epoch. Collectors that need every update (e.g., file logging) should collect
+ * SharedGnssStatusManager.statusFlow() instead.
+ */
+class SharedSatelliteEpochManager constructor(
+    sharedGnssStatusManager: SharedGnssStatusManager,
+    externalScope: CoroutineScope,
+    dispatcher: CoroutineDispatcher = Dispatchers.Default
+) {
+    private val processor = SatelliteEpochProcessor()
+
+    @ExperimentalCoroutinesApi
+    private val _epochs = sharedGnssStatusManager.statusFlow()
+        .map { processor.process(it) }
+        .flowOn(dispatcher)
+        .conflate()
+        .shareIn(
+            externalScope,
+            // New collectors get the latest epoch, until updates stop
+            replay = 1,
+            started = SharingStarted.WhileSubscribed(replayExpirationMillis = 0)
+        )
+
+    /**
+     * Returns a flow of the GnssStatus updates as [SatelliteEpoch]s.
+     *
+     * Collecting this flow also collects SharedGnssStatusManager.statusFlow(), so its other flows
+     * (e.g., fix state) stay up-to-date.
+     */
+    @ExperimentalCoroutinesApi
+    fun epochFlow(): Flow<SatelliteEpoch> {
+        return _epochs
+    }
+}
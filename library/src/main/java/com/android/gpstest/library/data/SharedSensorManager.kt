@@ -41,6 +41,8 @@ import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.launchIn
+import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.flow.shareIn
 import kotlinx.coroutines.launch
 
@@ -57,7 +59,14 @@ class SharedSensorManager constructor(
     private val prefs: SharedPreferences,
     private val context: Context,
     externalScope: CoroutineScope,
+    private val replaySource: LogReplaySource? = null,
+    private val bufferConfig: StreamBufferConfig = StreamBufferConfig.DEFAULT
 ) {
+    /**
+     * Counts of the Orientation events sent, delivered and dropped by this stream
+     */
+    val stats = StreamStats("Orientation")
+
     private val ROT_VECTOR_SENSOR_DELAY_MICROS = 10 * 1000 // 100Hz updates
 
     // Holds sensor data
@@ -79,7 +88,14 @@ class SharedSensorManager constructor(
 
     @ExperimentalCoroutinesApi
     @SuppressLint("MissingPermission")
-    private val _sensorUpdates = callbackFlow {
+    private val _sensorUpdates = callbackFlow<Sequenced<Orientation>> {
+        if (replaySource != null) {
+            Log.d(TAG, "Starting sensor updates from log replay")
+            replaySource.sensorFlow().onEach { send(stats.track(it)) }.launchIn(this)
+            awaitClose { Log.d(TAG, "Stopping sensor updates from log replay") }
+            return@callbackFlow
+        }
+
         val callback: SensorEventListener =
             object : SensorEventListener {
                 override fun onSensorChanged(event: SensorEvent) {
@@ -119,7 +135,7 @@ class SharedSensorManager constructor(
 
                     //Log.d(TAG, "New sensor: $orientationX and $tiltY")
                     // Send the new sensors to the Flow observers
-                    trySend(Orientation(event.timestamp, doubleArrayOf(orientationX, tiltY, yawZ)))
+                    trySend(stats.track(Orientation(event.timestamp, doubleArrayOf(orientationX, tiltY, yawZ))))
                 }
 
                 override fun onAccuracyChanged(sensor: Sensor, accuracy: Int) {
@@ -164,7 +180,7 @@ class SharedSensorManager constructor(
             Log.d(TAG, "Stopping sensor updates")
             sensorManager.unregisterListener(callback) // clean up when Flow collection ends
         }
-    }.shareIn(
+    }.buffered(bufferConfig, stats).shareIn(
         externalScope,
         replay = 0,
         started = SharingStarted.WhileSubscribed()
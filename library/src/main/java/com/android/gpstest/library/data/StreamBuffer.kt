@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.data
+
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onStart
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * What a Shared*Manager does with a new event when its buffer is full because collectors are
+ * slower than the events arrive
+ */
+enum class StreamOverflow {
+    /**
+     * Producers that can suspend (log replay) wait for room in the buffer. Callbacks from the
+     * platform can't wait, so their new event is dropped.
+     */
+    SUSPEND,
+
+    /**
+     * Drop the oldest event in the buffer to make room for the new event
+     */
+    DROP_OLDEST,
+
+    /**
+     * Keep only the most recent event - the buffer capacity isn't used
+     */
+    CONFLATE
+}
+
+/**
+ * How the events of a Shared*Manager stream are buffered between the platform callbacks and the
+ * collectors of the stream
+ *
+ * @param capacity the number of events that can wait for collectors
+ * @param overflow what to do with a new event when the buffer is full
+ */
+data class StreamBufferConfig(
+    val capacity: Int = DEFAULT_CAPACITY,
+    val overflow: StreamOverflow = StreamOverflow.SUSPEND
+) {
+    init {
+        require(capacity > 0) { "Capacity must be greater than 0 but was $capacity" }
+    }
+
+    companion object {
+        /**
+         * Same as the default callbackFlow buffer
+         */
+        const val DEFAULT_CAPACITY = 64
+
+        @JvmField
+        val DEFAULT = StreamBufferConfig()
+    }
+}
+
+/**
+ * Counts the events of a Shared*Manager stream that were sent by the producer, delivered to the
+ * collectors, and dropped or conflated because the buffer was full. Events are numbered when they
+ * are sent, so every event lost before delivery shows up as a gap in the numbers, however it was
+ * lost.
+ */
+class StreamStats(val name: String) {
+    private val sent = AtomicLong()
+    private val delivered = AtomicLong()
+    private val dropped = AtomicLong()
+
+    // Number of the last event delivered - only used by the single collector of the buffer
+    @Volatile
+    private var lastDelivered = 0L
+
+    /**
+     * Number of events sent by the producer
+     */
+    val sentCount: Long
+        get() = sent.get()
+
+    /**
+     * Number of events delivered to the collectors of the stream
+     */
+    val deliveredCount: Long
+        get() = delivered.get()
+
+    /**
+     * Number of events dropped or conflated before they could be delivered. Events lost at the end
+     * of the buffer are counted when the next event is delivered.
+     */
+    val droppedCount: Long
+        get() = dropped.get()
+
+    /**
+     * Numbers a new event - call this for every event, including events that then fail to send
+     */
+    internal fun <T> track(value: T): Sequenced<T> = Sequenced(sent.incrementAndGet(), value)
+
+    /**
+     * Called when collection of the stream (re)starts. Events left in the buffer when the last
+     * collector went away weren't dropped because of a slow collector, so they aren't counted.
+     */
+    internal fun onStart() {
+        lastDelivered = sent.get()
+    }
+
+    internal fun <T> deliver(event: Sequenced<T>): T {
+        if (event.number > lastDelivered + 1) {
+            dropped.addAndGet(event.number - lastDelivered - 1)
+        }
+        lastDelivered = event.number
+        delivered.incrementAndGet()
+        return event.value
+    }
+
+    override fun toString(): String {
+        return "$name: sent $sentCount, delivered $deliveredCount, dropped $droppedCount"
+    }
+}
+
+/**
+ * An event numbered in the order it was sent
+ */
+internal class Sequenced<T>(val number: Long, val value: T)
+
+/**
+ * Buffers the numbered events of a callbackFlow as configured, and counts the events that were
+ * delivered and dropped in [stats]
+ */
+internal fun <T> Flow<Sequenced<T>>.buffered(
+    config: StreamBufferConfig,
+    stats: StreamStats
+): Flow<T> {
+    val buffered = when (config.overflow) {
+        StreamOverflow.SUSPEND -> buffer(config.capacity, BufferOverflow.SUSPEND)
+        StreamOverflow.DROP_OLDEST -> buffer(config.capacity, BufferOverflow.DROP_OLDEST)
+        StreamOverflow.CONFLATE -> conflate()
+    }
+    return buffered
+        .map { stats.deliver(it) }
+        .onStart { stats.onStart() }
+}
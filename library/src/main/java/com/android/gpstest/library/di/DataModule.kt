@@ -2,20 +2,25 @@ package com.android.gpstest.library.di
 
 import android.content.Context
 import android.content.SharedPreferences
+import android.content.pm.ApplicationInfo
 import android.preference.PreferenceManager
+import com.android.gpstest.library.data.LogReplaySource
 import com.android.gpstest.library.data.SharedAntennaManager
 import com.android.gpstest.library.data.SharedGnssMeasurementManager
 import com.android.gpstest.library.data.SharedGnssStatusManager
 import com.android.gpstest.library.data.SharedLocationManager
 import com.android.gpstest.library.data.SharedNavMessageManager
 import com.android.gpstest.library.data.SharedNmeaManager
+import com.android.gpstest.library.data.SharedSatelliteEpochManager
 import com.android.gpstest.library.data.SharedSensorManager
+import com.android.gpstest.library.data.StreamBufferConfig
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
 import dagger.hilt.android.qualifiers.ApplicationContext
 import dagger.hilt.components.SingletonComponent
 import kotlinx.coroutines.GlobalScope
+import java.io.File
 import javax.inject.Singleton
 
 /**
@@ -25,18 +30,47 @@ import javax.inject.Singleton
 @InstallIn(SingletonComponent::class)
 object DataModule {
 
+    // Raw data is logged in full, so these streams get more room for bursts than the default
+    private val RAW_DATA_BUFFER = StreamBufferConfig(capacity = 256)
+
+    // Log played back in place of the GNSS hardware and sensors in debuggable builds, relative to
+    // the app's external files directory
+    private const val REPLAY_LOG_PATH = "replay/gnss_log.txt"
+
     @Provides
     @Singleton
     fun provideSharedPreferences(@ApplicationContext context: Context
     ):SharedPreferences = PreferenceManager.getDefaultSharedPreferences(context)
 
+    /**
+     * Debug hook for reproducing issues from a recorded session - in a debuggable build, if a CSV
+     * log has been copied to REPLAY_LOG_PATH (e.g., with adb push) when the app starts, it's played
+     * back in real time in place of the device's GNSS hardware and sensors. Returns null otherwise.
+     */
+    @Provides
+    @Singleton
+    fun provideLogReplaySource(
+        @ApplicationContext context: Context
+    ): LogReplaySource? {
+        if (context.applicationInfo.flags and ApplicationInfo.FLAG_DEBUGGABLE == 0) {
+            return null
+        }
+        val file = File(context.getExternalFilesDir(null), REPLAY_LOG_PATH)
+        if (!file.isFile) {
+            return null
+        }
+        // Like live data, collectors only see what's played after they subscribe
+        return LogReplaySource(file, 1.0, GlobalScope).apply { start() }
+    }
+
     @Provides
     @Singleton
     fun provideSharedLocationManager(
         @ApplicationContext context: Context,
-        prefs: SharedPreferences
+        prefs: SharedPreferences,
+        replaySource: LogReplaySource?
     ): SharedLocationManager =
-        SharedLocationManager(context, GlobalScope, prefs)
+        SharedLocationManager(context, GlobalScope, prefs, replaySource = replaySource)
 
     @Provides
     fun provideContext(
@@ -50,46 +84,59 @@ object DataModule {
     fun provideSharedGnssStatusManager(
         @ApplicationContext context: Context,
         prefs: SharedPreferences,
+        replaySource: LogReplaySource?
     ): SharedGnssStatusManager =
-        SharedGnssStatusManager(context, GlobalScope, prefs)
+        SharedGnssStatusManager(context, GlobalScope, prefs, replaySource = replaySource)
 
     @Provides
     @Singleton
     fun provideSharedNmeaManager(
         @ApplicationContext context: Context,
         prefs: SharedPreferences,
+        replaySource: LogReplaySource?
     ): SharedNmeaManager =
-        SharedNmeaManager(context, GlobalScope, prefs)
+        SharedNmeaManager(context, GlobalScope, prefs, replaySource = replaySource, bufferConfig = RAW_DATA_BUFFER)
 
     @Provides
     @Singleton
     fun provideSharedSensorManager(
         prefs: SharedPreferences,
-        @ApplicationContext context: Context
+        @ApplicationContext context: Context,
+        replaySource: LogReplaySource?
     ): SharedSensorManager =
-        SharedSensorManager(prefs, context, GlobalScope)
+        SharedSensorManager(prefs, context, GlobalScope, replaySource = replaySource)
 
     @Provides
     @Singleton
     fun provideSharedNavMessageManager(
         @ApplicationContext context: Context,
         prefs: SharedPreferences,
+        replaySource: LogReplaySource?
     ): SharedNavMessageManager =
-        SharedNavMessageManager(context, GlobalScope, prefs)
+        SharedNavMessageManager(context, GlobalScope, prefs, replaySource = replaySource, bufferConfig = RAW_DATA_BUFFER)
 
     @Provides
     @Singleton
     fun provideSharedMeasurementsManager(
         prefs: SharedPreferences,
-        @ApplicationContext context: Context
+        @ApplicationContext context: Context,
+        replaySource: LogReplaySource?
     ): SharedGnssMeasurementManager =
-        SharedGnssMeasurementManager(prefs, context, GlobalScope)
+        SharedGnssMeasurementManager(prefs, context, GlobalScope, replaySource = replaySource, bufferConfig = RAW_DATA_BUFFER)
 
     @Provides
     @Singleton
     fun provideSharedAntennaManager(
         @ApplicationContext context: Context,
         prefs: SharedPreferences,
+        replaySource: LogReplaySource?
     ): SharedAntennaManager =
-        SharedAntennaManager(context, GlobalScope,prefs)
+        SharedAntennaManager(context, GlobalScope, prefs, replaySource = replaySource)
+
+    @Provides
+    @Singleton
+    fun provideSharedSatelliteEpochManager(
+        sharedGnssStatusManager: SharedGnssStatusManager
+    ): SharedSatelliteEpochManager =
+        SharedSatelliteEpochManager(sharedGnssStatusManager, GlobalScope)
 }
\ No newline at end of file
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import static com.android.gpstest.library.io.BinaryLogFormat.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Converts a binary GNSS log (see {@link BinaryLogFormat}) to the CSV format written by
+ * CsvFileLogger, so existing tools can read it. It can also be run from the command line:
+ *
+ * <pre>java -cp ... com.android.gpstest.library.io.BinaryLogConverter gnss_log_2026_01_01_00_00_00.gtbl > gnss_log.txt</pre>
+ *
+ * Numbers are printed with the Float/Double.toString() implementation of the JVM doing the
+ * conversion, which matches Android's output for all values on JDK 18 and earlier.
+ */
+public final class BinaryLogConverter {
+
+    private static final char NEW_LINE = '\n';
+
+    private final InputStream in;
+    private final RecordReader reader;
+    private final Writer out;
+    private final TimestampState timestamps = new TimestampState();
+    private final StringBuilder line = new StringBuilder(512);
+
+    // Most recent clock, which is shared by the measurements that follow it
+    private final StringBuilder clock = new StringBuilder(256);
+
+    private boolean truncated = false;
+
+    private BinaryLogConverter(InputStream in, Writer out) {
+        this.in = in;
+        this.reader = new RecordReader(in);
+        this.out = out;
+    }
+
+    /**
+     * Converts the binary log in [in] to CSV written to [out]. If the log ends with a partially
+     * written record (e.g., the app crashed while logging) all complete records are converted and
+     * the partial record is ignored.
+     *
+     * @return the number of records converted
+     * @throws IOException if [in] isn't a binary log or can't be read, or [out] can't be written
+     */
+    public static long convert(InputStream in, Writer out) throws IOException {
+        return new BinaryLogConverter(in, out).convert();
+    }
+
+    private long convert() throws IOException {
+        // The header is stored with the line separators of the device that wrote it
+        out.write(BinaryLogFormat.readFileHeader(in));
+        long count = 0;
+        try {
+            int type;
+            while ((type = reader.next()) >= 0) {
+                switch (type) {
+                    case TYPE_CLOCK:
+                        readClock();
+                        break;
+                    case TYPE_MEASUREMENT:
+                        writeMeasurement();
+                        break;
+                    case TYPE_FIX:
+                        writeFix();
+                        break;
+                    case TYPE_STATUS:
+                        writeStatus();
+                        break;
+                    case TYPE_NMEA:
+                        writeNmea();
+                        break;
+                    case TYPE_NAV:
+                        writeNav();
+                        break;
+                    case TYPE_ANTENNA:
+                        writeAntenna();
+                        break;
+                    case TYPE_ORIENTATION:
+                        writeOrientation();
+                        break;
+                    case TYPE_TIMESTAMP_RESET:
+                        timestamps.reset();
+                        break;
+                    default:
+                        // Added in a later version - skip it
+                        continue;
+                }
+                count++;
+            }
+        } catch (EOFException e) {
+            truncated = true;
+        }
+        out.flush();
+        return count;
+    }
+
+    private void readClock() throws IOException {
+        timestamps.clockTimeNanos += reader.readLong();
+        int discontinuityCount = reader.readInt();
+        int present = (int) reader.readVarint();
+        clock.setLength(0);
+        clock.append(timestamps.clockTimeNanos).append(',');
+        if ((present & CLOCK_LEAP_SECOND) != 0) clock.append(reader.readInt());
+        clock.append(',');
+        // Doubles block follows the integers, so keep the full bias until its column is reached
+        String fullBias = "";
+        if ((present & CLOCK_FULL_BIAS) != 0) {
+            timestamps.clockFullBiasNanos += reader.readLong();
+            fullBias = Long.toString(timestamps.clockFullBiasNanos);
+        }
+        reader.beginDoubles();
+        if ((present & CLOCK_TIME_UNCERTAINTY) != 0) appendPlain(clock, reader.readDouble());
+        clock.append(',').append(fullBias).append(',');
+        if ((present & CLOCK_BIAS) != 0) appendPlain(clock, reader.readDouble());
+        clock.append(',');
+        if ((present & CLOCK_BIAS_UNCERTAINTY) != 0) appendPlain(clock, reader.readDouble());
+        clock.append(',');
+        if ((present & CLOCK_DRIFT) != 0) appendPlain(clock, reader.readDouble());
+        clock.append(',');
+        if ((present & CLOCK_DRIFT_UNCERTAINTY) != 0) appendPlain(clock, reader.readDouble());
+        clock.append(',').append(discontinuityCount);
+    }
+
+    private void writeMeasurement() throws IOException {
+        timestamps.elapsedRealtimeMillis += reader.readLong();
+        timestamps.elapsedRealtimeNanos += reader.readLong();
+        int present = (int) reader.readVarint();
+        int svid = reader.readInt();
+        int state = reader.readInt();
+        long receivedSvTimeNanos = reader.readLong();
+        long receivedSvTimeUncertaintyNanos = reader.readLong();
+        int accumulatedDeltaRangeState = reader.readInt();
+        int multipathIndicator = reader.readInt();
+        int constellationType = reader.readInt();
+        long carrierCycles = (present & MEAS_CARRIER_CYCLES) != 0 ? reader.readLong() : 0;
+
+        line.setLength(0);
+        line.append("Raw,").append(timestamps.elapsedRealtimeMillis).append(',')
+                .append(clock).append(',');
+        reader.beginDoubles();
+        line.append(svid).append(',');
+        appendPlain(line, reader.readDouble()).append(',');
+        line.append(state).append(',')
+                .append(receivedSvTimeNanos).append(',')
+                .append(receivedSvTimeUncertaintyNanos).append(',');
+        appendPlain(line, reader.readDouble()).append(',');
+        appendPlain(line, reader.readDouble()).append(',');
+        appendPlain(line, reader.readDouble()).append(',');
+        line.append(accumulatedDeltaRangeState).append(',');
+        appendPlain(line, reader.readDouble()).append(',');
+        appendPlain(line, reader.readDouble()).append(',');
+
+        // Carrier frequency is a float stored after the doubles block, so leave a placeholder
+        int carrierFrequencyIndex = line.length();
+        line.append(',');
+        if ((present & MEAS_CARRIER_CYCLES) != 0) line.append(carrierCycles);
+        line.append(',');
+        appendOptional(present, MEAS_CARRIER_PHASE);
+        appendOptional(present, MEAS_CARRIER_PHASE_UNCERTAINTY);
+        line.append(multipathIndicator).append(',');
+        appendOptional(present, MEAS_SNR);
+        line.append(constellationType).append(',');
+        appendOptional(present, MEAS_AGC);
+        appendOptional(present, MEAS_BASEBAND_CN0);
+        appendOptional(present, MEAS_FULL_ISB);
+        appendOptional(present, MEAS_FULL_ISB_UNCERTAINTY);
+        appendOptional(present, MEAS_SATELLITE_ISB);
+        appendOptional(present, MEAS_SATELLITE_ISB_UNCERTAINTY);
+        if ((present & MEAS_CARRIER_FREQUENCY) != 0) {
+            line.insert(carrierFrequencyIndex, plain(reader.readFloat()));
+        }
+        if ((present & MEAS_CODE_TYPE) != 0) line.append(reader.readString());
+        line.append(',').append(timestamps.elapsedRealtimeNanos);
+        writeLine();
+    }
+
+    private void appendOptional(int present, int bit) throws IOException {
+        if ((present & bit) != 0) {
+            appendPlain(line, reader.readDouble());
+        }
+        line.append(',');
+    }
+
+    private void writeFix() throws IOException {
+        int present = (int) reader.readVarint();
+        timestamps.utcTimeMillis += reader.readLong();
+        timestamps.elapsedRealtimeNanos += reader.readLong();
+        reader.beginDoubles();
+        double latitude = reader.readDouble();
+        double longitude = reader.readDouble();
+        double altitude = reader.readDouble();
+        float speed = reader.readFloat();
+        float accuracy = reader.readFloat();
+        float bearing = reader.readFloat();
+
+        line.setLength(0);
+        line.append("Fix,");
+        String speedAccuracy = (present & FIX_SPEED_ACCURACY) != 0 ? plain(reader.readFloat()) : "";
+        String bearingAccuracy = (present & FIX_BEARING_ACCURACY) != 0 ? plain(reader.readFloat()) : "";
+        String verticalAccuracy = (present & FIX_VERTICAL_ACCURACY) != 0 ? plain(reader.readFloat()) : "";
+        line.append((present & FIX_PROVIDER) != 0 ? reader.readString() : "null").append(',');
+        appendPlain(line, latitude).append(',');
+        appendPlain(line, longitude).append(',');
+        appendPlain(line, altitude).append(',');
+        line.append(plain(speed)).append(',')
+                .append(plain(accuracy)).append(',')
+                .append(plain(bearing)).append(',')
+                .append(timestamps.utcTimeMillis).append(',')
+                .append(speedAccuracy).append(',')
+                .append(bearingAccuracy).append(',')
+                .append(timestamps.elapsedRealtimeNanos).append(',')
+                .append(verticalAccuracy).append(',');
+        if ((present & FIX_HAS_MOCK) != 0) {
+            line.append((present & FIX_IS_MOCK) != 0 ? '1' : '0');
+        }
+        writeLine();
+    }
+
+    private void writeStatus() throws IOException {
+        timestamps.utcTimeMillis += reader.readLong();
+        int signalCount = (int) reader.readVarint();
+        for (int i = 0; i < signalCount; i++) {
+            int constellationType = reader.readInt();
+            int svid = reader.readInt();
+            int flags = reader.readByte();
+            float cn0DbHz = reader.readFloat();
+            float azimuthDegrees = reader.readFloat();
+            float elevationDegrees = reader.readFloat();
+            String basebandCn0DbHz = (flags & STATUS_HAS_BASEBAND_CN0) != 0 ? plain(reader.readFloat()) : "";
+            reader.beginDoubles();
+            double carrierFrequencyHz = reader.readDouble();
+
+            line.setLength(0);
+            line.append("Status,").append(timestamps.utcTimeMillis).append(',')
+                    .append(signalCount).append(',')
+                    .append(i).append(',')
+                    .append(constellationType).append(',')
+                    .append(svid).append(',');
+            appendPlain(line, carrierFrequencyHz).append(',');
+            line.append(plain(cn0DbHz)).append(',')
+                    .append(plain(azimuthDegrees)).append(',')
+                    .append(plain(elevationDegrees)).append(',')
+                    .append((flags & STATUS_USED_IN_FIX) != 0 ? '1' : '0').append(',')
+                    .append((flags & STATUS_HAS_ALMANAC) != 0 ? '1' : '0').append(',')
+                    .append((flags & STATUS_HAS_EPHEMERIS) != 0 ? '1' : '0').append(',')
+                    .append(basebandCn0DbHz);
+            writeLine();
+        }
+    }
+
+    private void writeNmea() throws IOException {
+        timestamps.utcTimeMillis += reader.readLong();
+        line.setLength(0);
+        line.append("NMEA,").append(reader.readString()).append(',').append(timestamps.utcTimeMillis);
+        writeLine();
+    }
+
+    private void writeNav() throws IOException {
+        line.setLength(0);
+        line.append("Nav,")
+                .append(reader.readInt()).append(',')
+                .append(reader.readInt()).append(',')
+                .append(reader.readInt()).append(',')
+                .append(reader.readInt()).append(',')
+                .append(reader.readInt());
+        for (byte b : reader.readBytes()) {
+            line.append(',').append(b);
+        }
+        writeLine();
+    }
+
+    private void writeAntenna() throws IOException {
+        int count = (int) reader.readVarint();
+        for (int i = 0; i < count; i++) {
+            line.setLength(0);
+            line.append(reader.readString());
+            writeLine();
+        }
+        // CsvFileLogger follows each group of antennas with an empty line
+        out.write(NEW_LINE);
+    }
+
+    private void writeOrientation() throws IOException {
+        timestamps.utcTimeMillis += reader.readLong();
+        timestamps.elapsedRealtimeNanos += reader.readLong();
+        reader.beginDoubles();
+        line.setLength(0);
+        line.append("OrientationDeg,").append(timestamps.utcTimeMillis).append(',')
+                .append(timestamps.elapsedRealtimeNanos).append(',');
+        appendPlain(line, reader.readDouble()).append(',');
+        appendPlain(line, reader.readDouble()).append(',');
+        appendPlain(line, reader.readDouble());
+        writeLine();
+    }
+
+    private void writeLine() throws IOException {
+        line.append(NEW_LINE);
+        out.append(line);
+    }
+
+    /**
+     * Same output as FormatUtils.toLog() for Double
+     */
+    private static StringBuilder appendPlain(StringBuilder builder, double value) {
+        return builder.append(new BigDecimal(Double.toString(value)).toPlainString());
+    }
+
+    /**
+     * Same output as FormatUtils.toLog() for Float
+     */
+    private static String plain(float value) {
+        return new BigDecimal(Float.toString(value)).toPlainString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: BinaryLogConverter <binary log file>  (CSV is written to standard out)");
+            System.exit(1);
+        }
+        InputStream file = new BufferedInputStream(new FileInputStream(args[0]));
+        if (args[0].endsWith(".gz")) {
+            // Logs written with compression enabled
+            file = new GZIPInputStream(file);
+        }
+        try (InputStream in = file;
+             Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            BinaryLogConverter converter = new BinaryLogConverter(in, writer);
+            long count = converter.convert();
+            if (converter.truncated) {
+                System.err.println("Log ends with a partial record, which was skipped");
+            }
+            System.err.println("Converted " + count + " records");
+        }
+    }
+}
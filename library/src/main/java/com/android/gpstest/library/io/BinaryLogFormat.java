@@ -0,0 +1,488 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Definition of the compact binary GNSS log format, along with the primitives used to write and
+ * read it.
+ *
+ * A file starts with {@link #MAGIC}, a one byte {@link #VERSION}, and the CSV file header text
+ * (a varint length followed by UTF-8 bytes). The rest of the file is a sequence of records, each
+ * of which is a one byte record type, the varint length of the payload, and the payload. Readers
+ * skip record types they don't know about, so new types can be added without a version change.
+ *
+ * Within a payload:
+ * <ul>
+ *     <li>Integers are zigzag varints</li>
+ *     <li>Timestamps are zigzag varints of the difference from the previous timestamp on the same
+ *     clock (see {@link TimestampState})</li>
+ *     <li>Floats are 4 byte IEEE 754 values</li>
+ *     <li>Doubles are written in blocks - a varint bitmask with one bit per double, followed by
+ *     the doubles. If the bit is set the double is the varint of its bit-reversed IEEE 754 bits
+ *     (short for values like 0.0 or 2.5), otherwise it's the 8 byte IEEE 754 value</li>
+ *     <li>Optional fields are described by a varint presence bitmask</li>
+ *     <li>Strings are a varint length followed by UTF-8 bytes</li>
+ * </ul>
+ * All values are stored losslessly, so a binary log can be converted to exactly the CSV lines
+ * that CsvFileLogger would have written (see {@link BinaryLogConverter}).
+ */
+public final class BinaryLogFormat {
+
+    public static final byte[] MAGIC = {'G', 'T', 'B', 'L'};
+    public static final int VERSION = 1;
+
+    public static final String FILE_EXTENSION = "gtbl";
+
+    /**
+     * GnssClock fields shared by the following measurement records
+     */
+    public static final int TYPE_CLOCK = 1;
+    public static final int TYPE_MEASUREMENT = 2;
+    public static final int TYPE_FIX = 3;
+    /**
+     * All signals from a single GnssStatus update
+     */
+    public static final int TYPE_STATUS = 4;
+    public static final int TYPE_NMEA = 5;
+    public static final int TYPE_NAV = 6;
+    /**
+     * GnssAntennaInfo, stored as the CSV lines
+     */
+    public static final int TYPE_ANTENNA = 7;
+    public static final int TYPE_ORIENTATION = 8;
+    /**
+     * Empty record that resets all previous timestamps to zero, written when logging continues in
+     * an existing file
+     */
+    public static final int TYPE_TIMESTAMP_RESET = 9;
+
+    // Clock presence bits
+    public static final int CLOCK_LEAP_SECOND = 1;
+    public static final int CLOCK_TIME_UNCERTAINTY = 1 << 1;
+    public static final int CLOCK_FULL_BIAS = 1 << 2;
+    public static final int CLOCK_BIAS = 1 << 3;
+    public static final int CLOCK_BIAS_UNCERTAINTY = 1 << 4;
+    public static final int CLOCK_DRIFT = 1 << 5;
+    public static final int CLOCK_DRIFT_UNCERTAINTY = 1 << 6;
+
+    // Measurement presence bits
+    public static final int MEAS_CARRIER_FREQUENCY = 1;
+    public static final int MEAS_CARRIER_CYCLES = 1 << 1;
+    public static final int MEAS_CARRIER_PHASE = 1 << 2;
+    public static final int MEAS_CARRIER_PHASE_UNCERTAINTY = 1 << 3;
+    public static final int MEAS_SNR = 1 << 4;
+    public static final int MEAS_AGC = 1 << 5;
+    public static final int MEAS_BASEBAND_CN0 = 1 << 6;
+    public static final int MEAS_FULL_ISB = 1 << 7;
+    public static final int MEAS_FULL_ISB_UNCERTAINTY = 1 << 8;
+    public static final int MEAS_SATELLITE_ISB = 1 << 9;
+    public static final int MEAS_SATELLITE_ISB_UNCERTAINTY = 1 << 10;
+    public static final int MEAS_CODE_TYPE = 1 << 11;
+
+    // Fix presence bits
+    public static final int FIX_SPEED_ACCURACY = 1;
+    public static final int FIX_BEARING_ACCURACY = 1 << 1;
+    public static final int FIX_VERTICAL_ACCURACY = 1 << 2;
+    public static final int FIX_HAS_MOCK = 1 << 3;
+    public static final int FIX_IS_MOCK = 1 << 4;
+    public static final int FIX_PROVIDER = 1 << 5;
+
+    // Status flag bits
+    public static final int STATUS_USED_IN_FIX = 1;
+    public static final int STATUS_HAS_ALMANAC = 1 << 1;
+    public static final int STATUS_HAS_EPHEMERIS = 1 << 2;
+    public static final int STATUS_HAS_BASEBAND_CN0 = 1 << 3;
+
+    private static final int MAX_DOUBLES_PER_BLOCK = 32;
+
+    private BinaryLogFormat() {
+    }
+
+    /**
+     * Writes the file header for a new binary log
+     *
+     * @param out       stream for the new file
+     * @param csvHeader the header that CsvFileLogger would write, so it can be restored on conversion
+     */
+    public static void writeFileHeader(OutputStream out, String csvHeader) throws IOException {
+        byte[] bytes = csvHeader.getBytes(StandardCharsets.UTF_8);
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the file header and returns the CSV header text stored in it
+     *
+     * @throws IOException if the stream isn't a binary log or has an unsupported version
+     */
+    public static String readFileHeader(InputStream in) throws IOException {
+        for (byte b : MAGIC) {
+            if (in.read() != b) {
+                throw new IOException("Not a binary GNSS log");
+            }
+        }
+        int version = in.read();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary GNSS log version " + version);
+        }
+        int length = (int) readVarint(in);
+        byte[] bytes = new byte[length];
+        readFully(in, bytes, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int varintLength(long value) {
+        int length = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    static void readFully(InputStream in, byte[] bytes, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(bytes, read, length - read);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            read += n;
+        }
+    }
+
+    /**
+     * Keeps the previous value of each clock so timestamps can be delta-encoded. The writer and
+     * the reader each keep one instance, which must be updated with every timestamp in file order.
+     */
+    public static final class TimestampState {
+        /**
+         * SystemClock.elapsedRealtime() in Raw records
+         */
+        public long elapsedRealtimeMillis;
+        /**
+         * elapsedRealtimeNanos in Raw, Fix and OrientationDeg records
+         */
+        public long elapsedRealtimeNanos;
+        /**
+         * UTC time in Fix, Status, NMEA and OrientationDeg records
+         */
+        public long utcTimeMillis;
+        public long clockTimeNanos;
+        public long clockFullBiasNanos;
+
+        public void reset() {
+            elapsedRealtimeMillis = 0;
+            elapsedRealtimeNanos = 0;
+            utcTimeMillis = 0;
+            clockTimeNanos = 0;
+            clockFullBiasNanos = 0;
+        }
+    }
+
+    /**
+     * Builds the payload of a record in a reusable buffer and then writes the whole record
+     */
+    public static final class RecordWriter {
+        private byte[] buffer = new byte[256];
+        private int length;
+        private int type;
+
+        private final long[] doubleBits = new long[MAX_DOUBLES_PER_BLOCK];
+        private int doubleCount = -1;
+
+        public RecordWriter begin(int type) {
+            this.type = type;
+            length = 0;
+            doubleCount = -1;
+            return this;
+        }
+
+        public RecordWriter writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+            return this;
+        }
+
+        public RecordWriter writeLong(long value) {
+            return writeVarint(zigzag(value));
+        }
+
+        public RecordWriter writeByte(int value) {
+            ensureCapacity(1);
+            buffer[length++] = (byte) value;
+            return this;
+        }
+
+        public RecordWriter writeFloat(float value) {
+            int bits = Float.floatToRawIntBits(value);
+            ensureCapacity(4);
+            buffer[length++] = (byte) (bits >>> 24);
+            buffer[length++] = (byte) (bits >>> 16);
+            buffer[length++] = (byte) (bits >>> 8);
+            buffer[length++] = (byte) bits;
+            return this;
+        }
+
+        public RecordWriter writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            return writeBytes(bytes, bytes.length);
+        }
+
+        public RecordWriter writeBytes(byte[] bytes, int count) {
+            writeVarint(count);
+            ensureCapacity(count);
+            System.arraycopy(bytes, 0, buffer, length, count);
+            length += count;
+            return this;
+        }
+
+        /**
+         * Starts a block of doubles - call {@link #writeDouble(double)} for each double and then
+         * {@link #endDoubles()}
+         */
+        public RecordWriter beginDoubles() {
+            doubleCount = 0;
+            return this;
+        }
+
+        public RecordWriter writeDouble(double value) {
+            if (doubleCount < 0) {
+                throw new IllegalStateException("writeDouble() called outside of a double block");
+            }
+            doubleBits[doubleCount++] = Double.doubleToRawLongBits(value);
+            return this;
+        }
+
+        public RecordWriter endDoubles() {
+            long compactMask = 0;
+            for (int i = 0; i < doubleCount; i++) {
+                if (varintLength(Long.reverse(doubleBits[i])) < 8) {
+                    compactMask |= 1L << i;
+                }
+            }
+            writeVarint(compactMask);
+            for (int i = 0; i < doubleCount; i++) {
+                if ((compactMask & (1L << i)) != 0) {
+                    writeVarint(Long.reverse(doubleBits[i]));
+                } else {
+                    long bits = doubleBits[i];
+                    ensureCapacity(8);
+                    for (int shift = 56; shift >= 0; shift -= 8) {
+                        buffer[length++] = (byte) (bits >>> shift);
+                    }
+                }
+            }
+            doubleCount = -1;
+            return this;
+        }
+
+        /**
+         * Writes the record type, payload length, and payload to [out]
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(type);
+            BinaryLogFormat.writeVarint(out, length);
+            out.write(buffer, 0, length);
+        }
+
+        /**
+         * Returns the size in bytes of the payload written so far
+         */
+        public int size() {
+            return length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+
+    /**
+     * Reads records from a binary log, reusing a single payload buffer
+     */
+    public static final class RecordReader {
+        private final InputStream in;
+        private byte[] buffer = new byte[256];
+        private int length;
+        private int position;
+        private int type;
+
+        private long compactMask;
+        private int doubleIndex;
+
+        public RecordReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Reads the next record into the buffer
+         *
+         * @return the record type, or -1 at the end of the stream
+         * @throws EOFException if the stream ends part way through a record (e.g., the app
+         *                      crashed while logging)
+         */
+        public int next() throws IOException {
+            int t = in.read();
+            if (t < 0) {
+                return -1;
+            }
+            int size = (int) BinaryLogFormat.readVarint(in);
+            if (size > buffer.length) {
+                buffer = new byte[Math.max(buffer.length * 2, size)];
+            }
+            readFully(in, buffer, size);
+            type = t;
+            length = size;
+            position = 0;
+            return type;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public long readVarint() throws IOException {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= length) {
+                    throw new EOFException("Record " + type + " is truncated");
+                }
+                int b = buffer[position++] & 0xFF;
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+
+        public long readLong() throws IOException {
+            return unzigzag(readVarint());
+        }
+
+        public int readInt() throws IOException {
+            return (int) readLong();
+        }
+
+        public int readByte() throws IOException {
+            require(1);
+            return buffer[position++] & 0xFF;
+        }
+
+        public float readFloat() throws IOException {
+            require(4);
+            int bits = (buffer[position] & 0xFF) << 24
+                    | (buffer[position + 1] & 0xFF) << 16
+                    | (buffer[position + 2] & 0xFF) << 8
+                    | (buffer[position + 3] & 0xFF);
+            position += 4;
+            return Float.intBitsToFloat(bits);
+        }
+
+        public String readString() throws IOException {
+            int size = (int) readVarint();
+            require(size);
+            String value = new String(buffer, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return value;
+        }
+
+        /**
+         * Reads a byte array written by {@link RecordWriter#writeBytes(byte[], int)}
+         */
+        public byte[] readBytes() throws IOException {
+            int size = (int) readVarint();
+            require(size);
+            byte[] value = Arrays.copyOfRange(buffer, position, position + size);
+            position += size;
+            return value;
+        }
+
+        public void beginDoubles() throws IOException {
+            compactMask = readVarint();
+            doubleIndex = 0;
+        }
+
+        public double readDouble() throws IOException {
+            long bits;
+            if ((compactMask & (1L << doubleIndex++)) != 0) {
+                bits = Long.reverse(readVarint());
+            } else {
+                require(8);
+                bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits = (bits << 8) | (buffer[position++] & 0xFF);
+                }
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private void require(int count) throws IOException {
+            if (position + count > length) {
+                throw new EOFException("Record " + type + " is truncated");
+            }
+        }
+    }
+}
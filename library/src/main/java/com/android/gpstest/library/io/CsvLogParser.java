@@ -0,0 +1,536 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming parser for the CSV GNSS logs written by CsvFileLogger (gnss_log_*.txt). Each line is
+ * passed to a {@link Handler} as a typed {@link CsvLogRecord} that points into the read buffer, so
+ * no objects are created per line and fields are only converted when they are read.
+ *
+ * Lines are checked for the minimum number of fields of their record type, for empty required
+ * fields, and for text in numeric fields, and lines that fail are passed to
+ * {@link Handler#onMalformedLine(CsvLogRecord, String)} instead. This class has no Android
+ * dependencies. A parser can be reused for many files, but isn't thread-safe.
+ */
+public final class CsvLogParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String VERSION_TAG = "Version: ";
+
+    /**
+     * Receives the records of a log. Records are only valid until the method they are passed to
+     * returns.
+     */
+    public interface Handler {
+        /**
+         * Called when the version line of the file header is read, before any records
+         */
+        default void onHeader(Header header) {
+        }
+
+        default void onRaw(CsvLogRecord.Raw record) {
+        }
+
+        default void onFix(CsvLogRecord.Fix record) {
+        }
+
+        default void onStatus(CsvLogRecord.Status record) {
+        }
+
+        default void onNmea(CsvLogRecord.Nmea record) {
+        }
+
+        default void onNav(CsvLogRecord.Nav record) {
+        }
+
+        default void onOrientation(CsvLogRecord.Orientation record) {
+        }
+
+        /**
+         * Called for GnssAntennaInfo lines, which are split on commas like other records but
+         * otherwise not interpreted
+         */
+        default void onAntennaInfo(CsvLogRecord record) {
+        }
+
+        /**
+         * Called for lines that can't be parsed, including record types this parser doesn't know
+         *
+         * @param line   the line, split on commas
+         * @param reason description of the problem
+         */
+        default void onMalformedLine(CsvLogRecord line, String reason) {
+        }
+    }
+
+    /**
+     * The version line of a log header, for example:
+     * # Version: v3.10.5 (31005-google), Manufacturer: Google, Model: Pixel 6, GNSS HW Year: 2021, Platform: 12, API Level: 31
+     *
+     * Values that aren't in the line are null (or -1 for numbers).
+     */
+    public static final class Header {
+        private final String line;
+        private final String versionName;
+        private final int versionCode;
+        private final String flavor;
+        private final String manufacturer;
+        private final String model;
+        private final String gnssHardwareYear;
+        private final String platform;
+        private final int apiLevel;
+
+        Header(String line) {
+            this.line = line;
+            String text = line.substring(line.indexOf(VERSION_TAG) + VERSION_TAG.length());
+            String version = value(text, null, "Manufacturer: ");
+            String name = version;
+            int code = -1;
+            String flavor = null;
+            int open = version.indexOf(" (");
+            if (open >= 0) {
+                name = version.substring(0, open);
+                int close = version.indexOf(')', open);
+                String build = version.substring(open + 2, close >= 0 ? close : version.length());
+                int dash = build.indexOf('-');
+                code = toInt(dash >= 0 ? build.substring(0, dash) : build);
+                flavor = dash >= 0 ? build.substring(dash + 1) : null;
+            }
+            versionName = name.startsWith("v") ? name.substring(1) : name;
+            versionCode = code;
+            this.flavor = flavor;
+            manufacturer = value(text, "Manufacturer: ", "Model: ");
+            model = value(text, "Model: ", "GNSS HW Year: ");
+            gnssHardwareYear = value(text, "GNSS HW Year: ", "Platform: ");
+            platform = value(text, "Platform: ", "API Level: ");
+            String api = value(text, "API Level: ", null);
+            apiLevel = api != null ? toInt(api) : -1;
+        }
+
+        /**
+         * Returns the value after [tag] (or from the start if [tag] is null) up to ", [nextTag]"
+         */
+        private static String value(String text, String tag, String nextTag) {
+            int start = 0;
+            if (tag != null) {
+                int index = text.indexOf(tag);
+                if (index < 0) {
+                    return null;
+                }
+                start = index + tag.length();
+            }
+            int end = nextTag != null ? text.indexOf(", " + nextTag, start) : -1;
+            return text.substring(start, end >= 0 ? end : text.length()).trim();
+        }
+
+        private static int toInt(String value) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        /**
+         * @return the entire header line
+         */
+        public String getLine() {
+            return line;
+        }
+
+        /**
+         * @return the GPSTest version name without the leading "v", e.g. "3.10.5"
+         */
+        public String getVersionName() {
+            return versionName;
+        }
+
+        /**
+         * @return the first number of the version name, or -1 if it can't be read
+         */
+        public int getMajorVersion() {
+            int dot = versionName.indexOf('.');
+            return toInt(dot >= 0 ? versionName.substring(0, dot) : versionName);
+        }
+
+        public int getVersionCode() {
+            return versionCode;
+        }
+
+        public String getFlavor() {
+            return flavor;
+        }
+
+        public String getManufacturer() {
+            return manufacturer;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public String getGnssHardwareYear() {
+            return gnssHardwareYear;
+        }
+
+        /**
+         * @return Build.VERSION.RELEASE of the device
+         */
+        public String getPlatform() {
+            return platform;
+        }
+
+        public int getApiLevel() {
+            return apiLevel;
+        }
+    }
+
+    private final Handler handler;
+
+    private final CsvLogRecord.Raw raw = new CsvLogRecord.Raw();
+    private final CsvLogRecord.Fix fix = new CsvLogRecord.Fix();
+    private final CsvLogRecord.Status status = new CsvLogRecord.Status();
+    private final CsvLogRecord.Nmea nmea = new CsvLogRecord.Nmea();
+    private final CsvLogRecord.Nav nav = new CsvLogRecord.Nav();
+    private final CsvLogRecord.Orientation orientation = new CsvLogRecord.Orientation();
+    private final CsvLogRecord other = new CsvLogRecord();
+
+    private char[] buffer = new char[BUFFER_SIZE];
+
+    private Header header;
+    private long lineNumber;
+    private long recordCount;
+    private long malformedLineCount;
+
+    // Set while splitting a line - bits of the first 64 fields that are empty or contain text, and
+    // the first later field that contains text
+    private long emptyFields;
+    private long textFields;
+    private int textField = -1;
+
+    public CsvLogParser(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Parses the log [file], which may be compressed with gzip if its name ends with ".gz"
+     *
+     * @return the number of records passed to the handler, not including malformed lines
+     */
+    public long parse(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        if (file.getName().endsWith(".gz")) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        try (InputStream stream = in) {
+            return parse(stream);
+        }
+    }
+
+    /**
+     * Parses the UTF-8 log in [in]. The stream isn't closed.
+     *
+     * @return the number of records passed to the handler, not including malformed lines
+     */
+    public long parse(InputStream in) throws IOException {
+        return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the log in [reader]. The reader isn't closed.
+     *
+     * @return the number of records passed to the handler, not including malformed lines
+     */
+    public long parse(Reader reader) throws IOException {
+        header = null;
+        lineNumber = 0;
+        recordCount = 0;
+        malformedLineCount = 0;
+
+        int start = 0;
+        int end = 0;
+        int scan = 0;
+        while (true) {
+            int newLine = indexOfNewLine(scan, end);
+            if (newLine >= 0) {
+                parseLine(start, newLine);
+                start = newLine + 1;
+                scan = start;
+                continue;
+            }
+            // Keep the partial line and fill the rest of the buffer
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+            } else if (end == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            scan = end;
+            int read = reader.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                if (end > start) {
+                    // Last line without a line separator, which could also be cut off
+                    parseLine(start, end);
+                }
+                return recordCount;
+            }
+            end += read;
+        }
+    }
+
+    /**
+     * @return the header of the last file parsed, or null if it didn't have one
+     */
+    public Header getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the number of malformed lines in the last file parsed
+     */
+    public long getMalformedLineCount() {
+        return malformedLineCount;
+    }
+
+    private int indexOfNewLine(int from, int to) {
+        char[] b = buffer;
+        for (int i = from; i < to; i++) {
+            if (b[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void parseLine(int start, int end) {
+        lineNumber++;
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        if (start == end) {
+            // CsvFileLogger writes an empty line after each group of GnssAntennaInfo
+            return;
+        }
+        if (buffer[start] == '#') {
+            parseComment(start, end);
+            return;
+        }
+
+        int typeEnd = start;
+        while (typeEnd < end && buffer[typeEnd] != ',') {
+            typeEnd++;
+        }
+        int typeLength = typeEnd - start;
+        CsvLogRecord record;
+        switch (buffer[start]) {
+            case 'R':
+                record = is("Raw", start, typeLength) ? raw : null;
+                break;
+            case 'F':
+                record = is("Fix", start, typeLength) ? fix : null;
+                break;
+            case 'S':
+                record = is("Status", start, typeLength) ? status : null;
+                break;
+            case 'N':
+                record = is("NMEA", start, typeLength) ? nmea
+                        : is("Nav", start, typeLength) ? nav : null;
+                break;
+            case 'O':
+                record = is("OrientationDeg", start, typeLength) ? orientation : null;
+                break;
+            default:
+                record = null;
+                break;
+        }
+        if (record == null) {
+            split(other, start, typeEnd, end);
+            if (is("GnssAntennaInfo", start, typeLength)) {
+                recordCount++;
+                handler.onAntennaInfo(other);
+            } else {
+                malformed(other, "Unknown record type");
+            }
+            return;
+        }
+        split(record, start, typeEnd, end);
+
+        if (record == raw) {
+            if (raw.fieldCount == CsvLogRecord.Raw.LEGACY_FIELD_COUNT) {
+                // The header version can't be used to tell - logs in the current format were also
+                // written by versions before v4
+                raw.fieldCount = CsvLogRecord.Raw.AGC_DB + 1;
+            }
+            if (check(raw, CsvLogRecord.Raw.MIN_FIELD_COUNT, CsvLogRecord.Raw.REQUIRED_FIELDS, CsvLogRecord.Raw.TEXT_FIELDS)) {
+                recordCount++;
+                handler.onRaw(raw);
+            }
+        } else if (record == status) {
+            if (check(status, CsvLogRecord.Status.MIN_FIELD_COUNT, CsvLogRecord.Status.REQUIRED_FIELDS, 0)) {
+                recordCount++;
+                handler.onStatus(status);
+            }
+        } else if (record == nmea) {
+            if (checkNmea()) {
+                recordCount++;
+                handler.onNmea(nmea);
+            }
+        } else if (record == fix) {
+            long required = fix.fieldCount == CsvLogRecord.Fix.LEGACY_FIELD_COUNT
+                    ? CsvLogRecord.Fix.REQUIRED_FIELDS
+                    : CsvLogRecord.Fix.REQUIRED_FIELDS | 1L << CsvLogRecord.Fix.UNIX_TIME_MILLIS;
+            if (check(fix, CsvLogRecord.Fix.MIN_FIELD_COUNT, required, CsvLogRecord.Fix.TEXT_FIELDS)) {
+                recordCount++;
+                handler.onFix(fix);
+            }
+        } else if (record == nav) {
+            if (check(nav, CsvLogRecord.Nav.MIN_FIELD_COUNT, CsvLogRecord.Nav.REQUIRED_FIELDS, 0)) {
+                recordCount++;
+                handler.onNav(nav);
+            }
+        } else if (check(orientation, CsvLogRecord.Orientation.MIN_FIELD_COUNT, CsvLogRecord.Orientation.REQUIRED_FIELDS, 0)) {
+            recordCount++;
+            handler.onOrientation(orientation);
+        }
+    }
+
+    private boolean is(String type, int start, int length) {
+        if (type.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[start + i] != type.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits the line into fields, noting empty fields and fields containing characters that can't
+     * be part of a number
+     */
+    private void split(CsvLogRecord record, int start, int typeEnd, int end) {
+        char[] b = buffer;
+        record.reset(b, start, end, lineNumber);
+        record.addField(start, typeEnd);
+        long empty = 0;
+        long text = 0;
+        textField = -1;
+        int field = 1;
+        int fieldStart = typeEnd + 1;
+        boolean isText = false;
+        for (int i = fieldStart; i <= end; i++) {
+            char c = i < end ? b[i] : ',';
+            if (c == ',') {
+                record.addField(fieldStart, i);
+                if (field < 64) {
+                    if (i == fieldStart) {
+                        empty |= 1L << field;
+                    }
+                    if (isText) {
+                        text |= 1L << field;
+                    }
+                } else if (isText && textField < 0) {
+                    textField = field;
+                }
+                field++;
+                fieldStart = i + 1;
+                isText = false;
+            } else if (!isText && (c < '0' || c > '9') && c != '.' && c != '-' && c != 'E') {
+                isText = true;
+            }
+        }
+        emptyFields = empty;
+        textFields = text;
+    }
+
+    /**
+     * Checks [record] has at least [minFieldCount] fields, the [required] fields aren't empty, and
+     * only the [allowedText] fields contain text
+     */
+    private boolean check(CsvLogRecord record, int minFieldCount, long required, long allowedText) {
+        if (record.fieldCount < minFieldCount) {
+            return malformed(record, "Expected at least " + minFieldCount + " fields but found " + record.fieldCount);
+        }
+        long empty = emptyFields & required;
+        if (empty != 0) {
+            return malformed(record, "Field " + Long.numberOfTrailingZeros(empty) + " is empty");
+        }
+        // Fields past the end of a shortened legacy record don't matter
+        long fields = record.fieldCount >= 64 ? -1L : (1L << record.fieldCount) - 1;
+        long text = textFields & ~allowedText & fields;
+        if (text != 0) {
+            return malformed(record, "Field " + Long.numberOfTrailingZeros(text) + " isn't a number");
+        }
+        if (textField >= 0) {
+            return malformed(record, "Field " + textField + " isn't a number");
+        }
+        return true;
+    }
+
+    private boolean checkNmea() {
+        // Only the timestamp is known to be a number
+        int last = nmea.fieldCount - 1;
+        if (nmea.fieldCount < CsvLogRecord.Nmea.MIN_FIELD_COUNT) {
+            return malformed(nmea, "Expected at least " + CsvLogRecord.Nmea.MIN_FIELD_COUNT + " fields but found " + nmea.fieldCount);
+        }
+        if (!nmea.has(1) || !nmea.has(last)) {
+            return malformed(nmea, "Missing sentence or timestamp");
+        }
+        char first = buffer[nmea.fieldStarts[1]];
+        if (first != '$' && first != '!') {
+            return malformed(nmea, "Sentence doesn't start with $ or !");
+        }
+        for (int i = nmea.fieldStarts[last]; i < nmea.fieldEnds[last]; i++) {
+            if (buffer[i] < '0' || buffer[i] > '9') {
+                return malformed(nmea, "Field " + last + " isn't a number");
+            }
+        }
+        return true;
+    }
+
+    private boolean malformed(CsvLogRecord record, String reason) {
+        malformedLineCount++;
+        handler.onMalformedLine(record, reason);
+        return false;
+    }
+
+    private void parseComment(int start, int end) {
+        if (header != null) {
+            return;
+        }
+        String line = new String(buffer, start, end - start);
+        if (!line.contains(VERSION_TAG)) {
+            return;
+        }
+        header = new Header(line);
+        handler.onHeader(header);
+    }
+}
@@ -0,0 +1,1071 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import java.util.Arrays;
+
+/**
+ * One line of a CSV GNSS log written by CsvFileLogger, passed to a {@link CsvLogParser.Handler}.
+ *
+ * Records point into the parser's read buffer and are reused for every line of the same type, and
+ * fields are only converted to numbers when they are read. A record is therefore only valid during
+ * the callback it was passed to - copy out any values (or call {@link #toString()}) to keep them.
+ *
+ * Optional fields that weren't written (e.g., CarrierPhase on devices that don't support it) or
+ * that don't exist in the version of the log being read are empty. Check them with the has...()
+ * methods before reading them - reading an empty field throws a {@link NumberFormatException}.
+ */
+public class CsvLogRecord {
+
+    // Largest integer with an exact double value - see Clinger, "How to read floating point numbers accurately"
+    private static final long MAX_EXACT_LONG = 1L << 53;
+    private static final int MAX_EXACT_FLOAT = 1 << 24;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+            1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    char[] buffer;
+    int lineStart;
+    int lineEnd;
+    long lineNumber;
+    int fieldCount;
+    int[] fieldStarts = new int[64];
+    int[] fieldEnds = new int[64];
+
+    private final Field text = new Field();
+
+    CsvLogRecord() {
+    }
+
+    void reset(char[] buffer, int lineStart, int lineEnd, long lineNumber) {
+        this.buffer = buffer;
+        this.lineStart = lineStart;
+        this.lineEnd = lineEnd;
+        this.lineNumber = lineNumber;
+        fieldCount = 0;
+    }
+
+    void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * Returns a copy of this record with its own copy of the line, which stays valid after the
+     * callback it was passed to returns
+     */
+    public CsvLogRecord copy() {
+        return copyInto(new CsvLogRecord());
+    }
+
+    final <T extends CsvLogRecord> T copyInto(T copy) {
+        copy.reset(Arrays.copyOfRange(buffer, lineStart, lineEnd), 0, lineEnd - lineStart, lineNumber);
+        for (int i = 0; i < fieldCount; i++) {
+            copy.addField(fieldStarts[i] - lineStart, fieldEnds[i] - lineStart);
+        }
+        return copy;
+    }
+
+    /**
+     * @return the line number of this record in the file, starting at 1
+     */
+    public final long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return the number of comma-separated fields in this line, including the record type
+     */
+    public final int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return true if the field at [index] exists in this line and isn't empty
+     */
+    public final boolean has(int index) {
+        return index < fieldCount && fieldEnds[index] > fieldStarts[index];
+    }
+
+    /**
+     * Returns the text of the field at [index] without copying it. The same CharSequence is
+     * returned by every call on this record, so it's only valid until the next call.
+     */
+    public final CharSequence getText(int index) {
+        checkIndex(index);
+        text.set(fieldStarts[index], fieldEnds[index]);
+        return text;
+    }
+
+    /**
+     * Returns a copy of the text of the field at [index]
+     */
+    public final String getString(int index) {
+        checkIndex(index);
+        return new String(buffer, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    public final int getInt(int index) {
+        long value = getLong(index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw invalid(index);
+        }
+        return (int) value;
+    }
+
+    public final long getLong(int index) {
+        int start = checkNotEmpty(index);
+        int end = fieldEnds[index];
+        boolean negative = buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+        // Up to 18 digits can't overflow
+        if (i == end || end - i > 18) {
+            return parseLongSlow(index);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalid(index);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private long parseLongSlow(int index) {
+        try {
+            return Long.parseLong(getString(index));
+        } catch (NumberFormatException e) {
+            throw invalid(index);
+        }
+    }
+
+    /**
+     * Returns the field at [index] as a double. Values written by FormatUtils.toLog() with up to
+     * 15 significant digits (and most with 16) are converted without allocating, and others are
+     * passed to Double.parseDouble(), so the result is always the correctly rounded value.
+     */
+    public final double getDouble(int index) {
+        int start = checkNotEmpty(index);
+        int end = fieldEnds[index];
+        int i = start;
+        boolean negative = buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        boolean digits = false;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = buffer[i];
+            int digit = c - '0';
+            if (digit >= 0 && digit <= 9) {
+                digits = true;
+                if (mantissa >= MAX_EXACT_LONG / 10) {
+                    // Too many digits to be exact
+                    return parseDoubleSlow(index);
+                }
+                mantissa = mantissa * 10 + digit;
+                if (point) {
+                    exponent--;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                // Exponents and anything unusual
+                return parseDoubleSlow(index);
+            }
+        }
+        if (!digits) {
+            throw invalid(index);
+        }
+        double value;
+        if (exponent == 0) {
+            value = mantissa;
+        } else if (-exponent < POWERS_OF_TEN.length) {
+            // Both values are exact, so the division is correctly rounded
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return parseDoubleSlow(index);
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlow(int index) {
+        try {
+            return Double.parseDouble(getString(index));
+        } catch (NumberFormatException e) {
+            throw invalid(index);
+        }
+    }
+
+    /**
+     * Returns the field at [index] as a float, correctly rounded like Float.parseFloat()
+     */
+    public final float getFloat(int index) {
+        int start = checkNotEmpty(index);
+        int end = fieldEnds[index];
+        int i = start;
+        boolean negative = buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        boolean digits = false;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = buffer[i];
+            int digit = c - '0';
+            if (digit >= 0 && digit <= 9) {
+                digits = true;
+                if (mantissa >= MAX_EXACT_LONG / 10) {
+                    return parseFloatSlow(index);
+                }
+                mantissa = mantissa * 10 + digit;
+                if (point) {
+                    exponent--;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return parseFloatSlow(index);
+            }
+        }
+        if (!digits) {
+            throw invalid(index);
+        }
+        float value;
+        if (exponent == 0) {
+            // Integers such as carrier frequencies - long to float conversion is correctly rounded
+            value = mantissa;
+        } else if (mantissa <= MAX_EXACT_FLOAT && -exponent < FLOAT_POWERS_OF_TEN.length) {
+            value = mantissa / FLOAT_POWERS_OF_TEN[-exponent];
+        } else {
+            return parseFloatSlow(index);
+        }
+        return negative ? -value : value;
+    }
+
+    private float parseFloatSlow(int index) {
+        try {
+            return Float.parseFloat(getString(index));
+        } catch (NumberFormatException e) {
+            throw invalid(index);
+        }
+    }
+
+    /**
+     * Returns the field at [index] written by FormatUtils.toLog() for a Boolean ("1" or "0")
+     */
+    public final boolean getBoolean(int index) {
+        int start = checkNotEmpty(index);
+        if (fieldEnds[index] - start == 1) {
+            char c = buffer[start];
+            if (c == '1') {
+                return true;
+            } else if (c == '0') {
+                return false;
+            }
+        }
+        throw invalid(index);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount + " on line " + lineNumber);
+        }
+    }
+
+    private int checkNotEmpty(int index) {
+        if (!has(index)) {
+            throw new NumberFormatException("Field " + index + " on line " + lineNumber + " is empty");
+        }
+        return fieldStarts[index];
+    }
+
+    private NumberFormatException invalid(int index) {
+        return new NumberFormatException("Field " + index + " on line " + lineNumber
+                + " isn't a valid number: " + getString(index));
+    }
+
+    /**
+     * @return a copy of the entire line
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, lineStart, lineEnd - lineStart);
+    }
+
+    /**
+     * A field of this record, viewed without copying
+     */
+    private final class Field implements CharSequence {
+        private int start;
+        private int end;
+
+        void set(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return buffer[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(buffer, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer, start, end - start);
+        }
+    }
+
+    /**
+     * Raw GNSS measurement, one GnssMeasurement and the GnssClock of its epoch:
+     * Raw,utcTimeMillis,TimeNanos,LeapSecond,TimeUncertaintyNanos,FullBiasNanos,BiasNanos,BiasUncertaintyNanos,DriftNanosPerSecond,DriftUncertaintyNanosPerSecond,HardwareClockDiscontinuityCount,Svid,TimeOffsetNanos,State,ReceivedSvTimeNanos,ReceivedSvTimeUncertaintyNanos,Cn0DbHz,PseudorangeRateMetersPerSecond,PseudorangeRateUncertaintyMetersPerSecond,AccumulatedDeltaRangeState,AccumulatedDeltaRangeMeters,AccumulatedDeltaRangeUncertaintyMeters,CarrierFrequencyHz,CarrierCycles,CarrierPhase,CarrierPhaseUncertainty,MultipathIndicator,SnrInDb,ConstellationType,AgcDb,BasebandCn0DbHz,FullInterSignalBiasNanos,FullInterSignalBiasUncertaintyNanos,SatelliteInterSignalBiasNanos,SatelliteInterSignalBiasUncertaintyNanos,CodeType,ChipsetElapsedRealtimeNanos
+     *
+     * Logs written by GPSTest v3 and earlier end after AgcDb - the field that followed it is
+     * ignored.
+     */
+    public static final class Raw extends CsvLogRecord {
+        public static final int ELAPSED_REALTIME_MILLIS = 1;
+        public static final int TIME_NANOS = 2;
+        public static final int LEAP_SECOND = 3;
+        public static final int TIME_UNCERTAINTY_NANOS = 4;
+        public static final int FULL_BIAS_NANOS = 5;
+        public static final int BIAS_NANOS = 6;
+        public static final int BIAS_UNCERTAINTY_NANOS = 7;
+        public static final int DRIFT_NANOS_PER_SECOND = 8;
+        public static final int DRIFT_UNCERTAINTY_NANOS_PER_SECOND = 9;
+        public static final int HARDWARE_CLOCK_DISCONTINUITY_COUNT = 10;
+        public static final int SVID = 11;
+        public static final int TIME_OFFSET_NANOS = 12;
+        public static final int STATE = 13;
+        public static final int RECEIVED_SV_TIME_NANOS = 14;
+        public static final int RECEIVED_SV_TIME_UNCERTAINTY_NANOS = 15;
+        public static final int CN0_DBHZ = 16;
+        public static final int PSEUDORANGE_RATE_METERS_PER_SECOND = 17;
+        public static final int PSEUDORANGE_RATE_UNCERTAINTY_METERS_PER_SECOND = 18;
+        public static final int ACCUMULATED_DELTA_RANGE_STATE = 19;
+        public static final int ACCUMULATED_DELTA_RANGE_METERS = 20;
+        public static final int ACCUMULATED_DELTA_RANGE_UNCERTAINTY_METERS = 21;
+        public static final int CARRIER_FREQUENCY_HZ = 22;
+        public static final int CARRIER_CYCLES = 23;
+        public static final int CARRIER_PHASE = 24;
+        public static final int CARRIER_PHASE_UNCERTAINTY = 25;
+        public static final int MULTIPATH_INDICATOR = 26;
+        public static final int SNR_IN_DB = 27;
+        public static final int CONSTELLATION_TYPE = 28;
+        public static final int AGC_DB = 29;
+        public static final int BASEBAND_CN0_DBHZ = 30;
+        public static final int FULL_INTER_SIGNAL_BIAS_NANOS = 31;
+        public static final int FULL_INTER_SIGNAL_BIAS_UNCERTAINTY_NANOS = 32;
+        public static final int SATELLITE_INTER_SIGNAL_BIAS_NANOS = 33;
+        public static final int SATELLITE_INTER_SIGNAL_BIAS_UNCERTAINTY_NANOS = 34;
+        public static final int CODE_TYPE = 35;
+        public static final int CHIPSET_ELAPSED_REALTIME_NANOS = 36;
+
+        static final int FIELD_COUNT = 37;
+        // Fields up to ConstellationType must be present
+        static final int MIN_FIELD_COUNT = CONSTELLATION_TYPE + 1;
+        // v3 logs have one more field after AgcDb, which doesn't follow the current format
+        static final int LEGACY_FIELD_COUNT = AGC_DB + 2;
+        static final long TEXT_FIELDS = 1L << CODE_TYPE;
+        static final long REQUIRED_FIELDS = 1L << ELAPSED_REALTIME_MILLIS | 1L << TIME_NANOS
+                | 1L << HARDWARE_CLOCK_DISCONTINUITY_COUNT | 1L << SVID | 1L << TIME_OFFSET_NANOS
+                | 1L << STATE | 1L << RECEIVED_SV_TIME_NANOS | 1L << RECEIVED_SV_TIME_UNCERTAINTY_NANOS
+                | 1L << CN0_DBHZ | 1L << PSEUDORANGE_RATE_METERS_PER_SECOND
+                | 1L << PSEUDORANGE_RATE_UNCERTAINTY_METERS_PER_SECOND
+                | 1L << ACCUMULATED_DELTA_RANGE_STATE | 1L << ACCUMULATED_DELTA_RANGE_METERS
+                | 1L << ACCUMULATED_DELTA_RANGE_UNCERTAINTY_METERS | 1L << MULTIPATH_INDICATOR
+                | 1L << CONSTELLATION_TYPE;
+
+        Raw() {
+        }
+
+        @Override
+        public Raw copy() {
+            return copyInto(new Raw());
+        }
+
+        /**
+         * @return SystemClock.elapsedRealtime() when the measurement was logged (labeled
+         * utcTimeMillis in the file header)
+         */
+        public long getElapsedRealtimeMillis() {
+            return getLong(ELAPSED_REALTIME_MILLIS);
+        }
+
+        public long getTimeNanos() {
+            return getLong(TIME_NANOS);
+        }
+
+        public boolean hasLeapSecond() {
+            return has(LEAP_SECOND);
+        }
+
+        public int getLeapSecond() {
+            return getInt(LEAP_SECOND);
+        }
+
+        public boolean hasTimeUncertaintyNanos() {
+            return has(TIME_UNCERTAINTY_NANOS);
+        }
+
+        public double getTimeUncertaintyNanos() {
+            return getDouble(TIME_UNCERTAINTY_NANOS);
+        }
+
+        public boolean hasFullBiasNanos() {
+            return has(FULL_BIAS_NANOS);
+        }
+
+        public long getFullBiasNanos() {
+            return getLong(FULL_BIAS_NANOS);
+        }
+
+        public boolean hasBiasNanos() {
+            return has(BIAS_NANOS);
+        }
+
+        public double getBiasNanos() {
+            return getDouble(BIAS_NANOS);
+        }
+
+        public boolean hasBiasUncertaintyNanos() {
+            return has(BIAS_UNCERTAINTY_NANOS);
+        }
+
+        public double getBiasUncertaintyNanos() {
+            return getDouble(BIAS_UNCERTAINTY_NANOS);
+        }
+
+        public boolean hasDriftNanosPerSecond() {
+            return has(DRIFT_NANOS_PER_SECOND);
+        }
+
+        public double getDriftNanosPerSecond() {
+            return getDouble(DRIFT_NANOS_PER_SECOND);
+        }
+
+        public boolean hasDriftUncertaintyNanosPerSecond() {
+            return has(DRIFT_UNCERTAINTY_NANOS_PER_SECOND);
+        }
+
+        public double getDriftUncertaintyNanosPerSecond() {
+            return getDouble(DRIFT_UNCERTAINTY_NANOS_PER_SECOND);
+        }
+
+        public int getHardwareClockDiscontinuityCount() {
+            return getInt(HARDWARE_CLOCK_DISCONTINUITY_COUNT);
+        }
+
+        public int getSvid() {
+            return getInt(SVID);
+        }
+
+        public double getTimeOffsetNanos() {
+            return getDouble(TIME_OFFSET_NANOS);
+        }
+
+        public int getState() {
+            return getInt(STATE);
+        }
+
+        public long getReceivedSvTimeNanos() {
+            return getLong(RECEIVED_SV_TIME_NANOS);
+        }
+
+        public long getReceivedSvTimeUncertaintyNanos() {
+            return getLong(RECEIVED_SV_TIME_UNCERTAINTY_NANOS);
+        }
+
+        public double getCn0DbHz() {
+            return getDouble(CN0_DBHZ);
+        }
+
+        public double getPseudorangeRateMetersPerSecond() {
+            return getDouble(PSEUDORANGE_RATE_METERS_PER_SECOND);
+        }
+
+        public double getPseudorangeRateUncertaintyMetersPerSecond() {
+            return getDouble(PSEUDORANGE_RATE_UNCERTAINTY_METERS_PER_SECOND);
+        }
+
+        public int getAccumulatedDeltaRangeState() {
+            return getInt(ACCUMULATED_DELTA_RANGE_STATE);
+        }
+
+        public double getAccumulatedDeltaRangeMeters() {
+            return getDouble(ACCUMULATED_DELTA_RANGE_METERS);
+        }
+
+        public double getAccumulatedDeltaRangeUncertaintyMeters() {
+            return getDouble(ACCUMULATED_DELTA_RANGE_UNCERTAINTY_METERS);
+        }
+
+        public boolean hasCarrierFrequencyHz() {
+            return has(CARRIER_FREQUENCY_HZ);
+        }
+
+        public float getCarrierFrequencyHz() {
+            return getFloat(CARRIER_FREQUENCY_HZ);
+        }
+
+        public boolean hasCarrierCycles() {
+            return has(CARRIER_CYCLES);
+        }
+
+        public long getCarrierCycles() {
+            return getLong(CARRIER_CYCLES);
+        }
+
+        public boolean hasCarrierPhase() {
+            return has(CARRIER_PHASE);
+        }
+
+        public double getCarrierPhase() {
+            return getDouble(CARRIER_PHASE);
+        }
+
+        public boolean hasCarrierPhaseUncertainty() {
+            return has(CARRIER_PHASE_UNCERTAINTY);
+        }
+
+        public double getCarrierPhaseUncertainty() {
+            return getDouble(CARRIER_PHASE_UNCERTAINTY);
+        }
+
+        public int getMultipathIndicator() {
+            return getInt(MULTIPATH_INDICATOR);
+        }
+
+        public boolean hasSnrInDb() {
+            return has(SNR_IN_DB);
+        }
+
+        public double getSnrInDb() {
+            return getDouble(SNR_IN_DB);
+        }
+
+        /**
+         * @return the GnssStatus constellation type
+         */
+        public int getConstellationType() {
+            return getInt(CONSTELLATION_TYPE);
+        }
+
+        public boolean hasAgcDb() {
+            return has(AGC_DB);
+        }
+
+        public double getAgcDb() {
+            return getDouble(AGC_DB);
+        }
+
+        public boolean hasBasebandCn0DbHz() {
+            return has(BASEBAND_CN0_DBHZ);
+        }
+
+        public double getBasebandCn0DbHz() {
+            return getDouble(BASEBAND_CN0_DBHZ);
+        }
+
+        public boolean hasFullInterSignalBiasNanos() {
+            return has(FULL_INTER_SIGNAL_BIAS_NANOS);
+        }
+
+        public double getFullInterSignalBiasNanos() {
+            return getDouble(FULL_INTER_SIGNAL_BIAS_NANOS);
+        }
+
+        public boolean hasFullInterSignalBiasUncertaintyNanos() {
+            return has(FULL_INTER_SIGNAL_BIAS_UNCERTAINTY_NANOS);
+        }
+
+        public double getFullInterSignalBiasUncertaintyNanos() {
+            return getDouble(FULL_INTER_SIGNAL_BIAS_UNCERTAINTY_NANOS);
+        }
+
+        public boolean hasSatelliteInterSignalBiasNanos() {
+            return has(SATELLITE_INTER_SIGNAL_BIAS_NANOS);
+        }
+
+        public double getSatelliteInterSignalBiasNanos() {
+            return getDouble(SATELLITE_INTER_SIGNAL_BIAS_NANOS);
+        }
+
+        public boolean hasSatelliteInterSignalBiasUncertaintyNanos() {
+            return has(SATELLITE_INTER_SIGNAL_BIAS_UNCERTAINTY_NANOS);
+        }
+
+        public double getSatelliteInterSignalBiasUncertaintyNanos() {
+            return getDouble(SATELLITE_INTER_SIGNAL_BIAS_UNCERTAINTY_NANOS);
+        }
+
+        public boolean hasCodeType() {
+            return has(CODE_TYPE);
+        }
+
+        /**
+         * @return the code type without copying it - see {@link #getText(int)}
+         */
+        public CharSequence getCodeType() {
+            return getText(CODE_TYPE);
+        }
+
+        public boolean hasChipsetElapsedRealtimeNanos() {
+            return has(CHIPSET_ELAPSED_REALTIME_NANOS);
+        }
+
+        /**
+         * @return SystemClock.elapsedRealtimeNanos() when the measurement was logged
+         */
+        public long getChipsetElapsedRealtimeNanos() {
+            return getLong(CHIPSET_ELAPSED_REALTIME_NANOS);
+        }
+    }
+
+    /**
+     * Location from the GPS provider:
+     * Fix,Provider,LatitudeDegrees,LongitudeDegrees,AltitudeMeters,SpeedMps,AccuracyMeters,BearingDegrees,UnixTimeMillis,SpeedAccuracyMps,BearingAccuracyDegrees,elapsedRealtimeNanos,VerticalAccuracyMeters,MockLocation
+     *
+     * Logs written by GPSTest v3 and earlier use Fix,Provider,Latitude,Longitude,Altitude,Speed,Accuracy,(UTC)TimeInMs,
+     * which is read through the same methods.
+     */
+    public static final class Fix extends CsvLogRecord {
+        public static final int PROVIDER = 1;
+        public static final int LATITUDE_DEGREES = 2;
+        public static final int LONGITUDE_DEGREES = 3;
+        public static final int ALTITUDE_METERS = 4;
+        public static final int SPEED_MPS = 5;
+        public static final int ACCURACY_METERS = 6;
+        public static final int BEARING_DEGREES = 7;
+        public static final int UNIX_TIME_MILLIS = 8;
+        public static final int SPEED_ACCURACY_MPS = 9;
+        public static final int BEARING_ACCURACY_DEGREES = 10;
+        public static final int ELAPSED_REALTIME_NANOS = 11;
+        public static final int VERTICAL_ACCURACY_METERS = 12;
+        public static final int MOCK_LOCATION = 13;
+
+        static final int FIELD_COUNT = 14;
+        static final int LEGACY_FIELD_COUNT = 8;
+        static final int MIN_FIELD_COUNT = LEGACY_FIELD_COUNT;
+        private static final int LEGACY_TIME_MILLIS = 7;
+        static final long TEXT_FIELDS = 1L << PROVIDER;
+        static final long REQUIRED_FIELDS = 1L << PROVIDER | 1L << LATITUDE_DEGREES
+                | 1L << LONGITUDE_DEGREES | 1L << ALTITUDE_METERS | 1L << SPEED_MPS
+                | 1L << ACCURACY_METERS | 1L << BEARING_DEGREES;
+
+        Fix() {
+        }
+
+        @Override
+        public Fix copy() {
+            return copyInto(new Fix());
+        }
+
+        private boolean isLegacy() {
+            return fieldCount == LEGACY_FIELD_COUNT;
+        }
+
+        /**
+         * @return the location provider without copying it - see {@link #getText(int)}
+         */
+        public CharSequence getProvider() {
+            return getText(PROVIDER);
+        }
+
+        public double getLatitudeDegrees() {
+            return getDouble(LATITUDE_DEGREES);
+        }
+
+        public double getLongitudeDegrees() {
+            return getDouble(LONGITUDE_DEGREES);
+        }
+
+        public double getAltitudeMeters() {
+            return getDouble(ALTITUDE_METERS);
+        }
+
+        public float getSpeedMps() {
+            return getFloat(SPEED_MPS);
+        }
+
+        public float getAccuracyMeters() {
+            return getFloat(ACCURACY_METERS);
+        }
+
+        public boolean hasBearingDegrees() {
+            return !isLegacy() && has(BEARING_DEGREES);
+        }
+
+        public float getBearingDegrees() {
+            if (isLegacy()) {
+                throw new NumberFormatException("Line " + lineNumber + " doesn't have a bearing");
+            }
+            return getFloat(BEARING_DEGREES);
+        }
+
+        /**
+         * @return Location.getTime()
+         */
+        public long getUnixTimeMillis() {
+            return getLong(isLegacy() ? LEGACY_TIME_MILLIS : UNIX_TIME_MILLIS);
+        }
+
+        public boolean hasSpeedAccuracyMps() {
+            return has(SPEED_ACCURACY_MPS);
+        }
+
+        public float getSpeedAccuracyMps() {
+            return getFloat(SPEED_ACCURACY_MPS);
+        }
+
+        public boolean hasBearingAccuracyDegrees() {
+            return has(BEARING_ACCURACY_DEGREES);
+        }
+
+        public float getBearingAccuracyDegrees() {
+            return getFloat(BEARING_ACCURACY_DEGREES);
+        }
+
+        public boolean hasElapsedRealtimeNanos() {
+            return has(ELAPSED_REALTIME_NANOS);
+        }
+
+        public long getElapsedRealtimeNanos() {
+            return getLong(ELAPSED_REALTIME_NANOS);
+        }
+
+        public boolean hasVerticalAccuracyMeters() {
+            return has(VERTICAL_ACCURACY_METERS);
+        }
+
+        public float getVerticalAccuracyMeters() {
+            return getFloat(VERTICAL_ACCURACY_METERS);
+        }
+
+        public boolean hasMockLocation() {
+            return has(MOCK_LOCATION);
+        }
+
+        public boolean isMockLocation() {
+            return getBoolean(MOCK_LOCATION);
+        }
+    }
+
+    /**
+     * One signal from a GnssStatus:
+     * Status,UnixTimeMillis,SignalCount,SignalIndex,ConstellationType,Svid,CarrierFrequencyHz,Cn0DbHz,AzimuthDegrees,ElevationDegrees,UsedInFix,HasAlmanacData,HasEphemerisData,BasebandCn0DbHz
+     */
+    public static final class Status extends CsvLogRecord {
+        public static final int UNIX_TIME_MILLIS = 1;
+        public static final int SIGNAL_COUNT = 2;
+        public static final int SIGNAL_INDEX = 3;
+        public static final int CONSTELLATION_TYPE = 4;
+        public static final int SVID = 5;
+        public static final int CARRIER_FREQUENCY_HZ = 6;
+        public static final int CN0_DBHZ = 7;
+        public static final int AZIMUTH_DEGREES = 8;
+        public static final int ELEVATION_DEGREES = 9;
+        public static final int USED_IN_FIX = 10;
+        public static final int HAS_ALMANAC_DATA = 11;
+        public static final int HAS_EPHEMERIS_DATA = 12;
+        public static final int BASEBAND_CN0_DBHZ = 13;
+
+        static final int FIELD_COUNT = 14;
+        static final int MIN_FIELD_COUNT = BASEBAND_CN0_DBHZ;
+        static final long REQUIRED_FIELDS = 1L << UNIX_TIME_MILLIS | 1L << SIGNAL_COUNT
+                | 1L << SIGNAL_INDEX | 1L << CONSTELLATION_TYPE | 1L << SVID
+                | 1L << CARRIER_FREQUENCY_HZ | 1L << CN0_DBHZ | 1L << AZIMUTH_DEGREES
+                | 1L << ELEVATION_DEGREES | 1L << USED_IN_FIX | 1L << HAS_ALMANAC_DATA
+                | 1L << HAS_EPHEMERIS_DATA;
+
+        Status() {
+        }
+
+        @Override
+        public Status copy() {
+            return copyInto(new Status());
+        }
+
+        /**
+         * @return the time of the last GPS fix, or 0 if there hasn't been one
+         */
+        public long getUnixTimeMillis() {
+            return getLong(UNIX_TIME_MILLIS);
+        }
+
+        public int getSignalCount() {
+            return getInt(SIGNAL_COUNT);
+        }
+
+        public int getSignalIndex() {
+            return getInt(SIGNAL_INDEX);
+        }
+
+        /**
+         * @return the GnssStatus constellation type
+         */
+        public int getConstellationType() {
+            return getInt(CONSTELLATION_TYPE);
+        }
+
+        public int getSvid() {
+            return getInt(SVID);
+        }
+
+        public double getCarrierFrequencyHz() {
+            return getDouble(CARRIER_FREQUENCY_HZ);
+        }
+
+        public float getCn0DbHz() {
+            return getFloat(CN0_DBHZ);
+        }
+
+        public float getAzimuthDegrees() {
+            return getFloat(AZIMUTH_DEGREES);
+        }
+
+        public float getElevationDegrees() {
+            return getFloat(ELEVATION_DEGREES);
+        }
+
+        public boolean isUsedInFix() {
+            return getBoolean(USED_IN_FIX);
+        }
+
+        public boolean hasAlmanacData() {
+            return getBoolean(HAS_ALMANAC_DATA);
+        }
+
+        public boolean hasEphemerisData() {
+            return getBoolean(HAS_EPHEMERIS_DATA);
+        }
+
+        public boolean hasBasebandCn0DbHz() {
+            return has(BASEBAND_CN0_DBHZ);
+        }
+
+        public float getBasebandCn0DbHz() {
+            return getFloat(BASEBAND_CN0_DBHZ);
+        }
+    }
+
+    /**
+     * NMEA sentence, which contains commas itself:
+     * NMEA,[NMEA sentence],(UTC)TimeInMs
+     */
+    public static final class Nmea extends CsvLogRecord {
+        static final int MIN_FIELD_COUNT = 3;
+
+        private final Sentence sentence = new Sentence();
+
+        Nmea() {
+        }
+
+        @Override
+        public Nmea copy() {
+            return copyInto(new Nmea());
+        }
+
+        /**
+         * @return the NMEA sentence without copying it. The same CharSequence is returned for
+         * every record, so it's only valid during the callback.
+         */
+        public CharSequence getSentence() {
+            return sentence;
+        }
+
+        /**
+         * @return the time the sentence was received in milliseconds since the Unix epoch
+         */
+        public long getTimestamp() {
+            return getLong(fieldCount - 1);
+        }
+
+        private int sentenceStart() {
+            return fieldStarts[1];
+        }
+
+        private int sentenceEnd() {
+            // Up to the comma before the timestamp
+            return fieldStarts[fieldCount - 1] - 1;
+        }
+
+        private final class Sentence implements CharSequence {
+            @Override
+            public int length() {
+                return sentenceEnd() - sentenceStart();
+            }
+
+            @Override
+            public char charAt(int index) {
+                if (index < 0 || index >= length()) {
+                    throw new IndexOutOfBoundsException(Integer.toString(index));
+                }
+                return buffer[sentenceStart() + index];
+            }
+
+            @Override
+            public CharSequence subSequence(int from, int to) {
+                return new String(buffer, sentenceStart() + from, to - from);
+            }
+
+            @Override
+            public String toString() {
+                return new String(buffer, sentenceStart(), length());
+            }
+        }
+    }
+
+    /**
+     * Navigation message, with each byte of data in its own field:
+     * Nav,Svid,Type,Status,MessageId,Sub-messageId,Data(Bytes)
+     */
+    public static final class Nav extends CsvLogRecord {
+        public static final int SVID = 1;
+        public static final int TYPE = 2;
+        public static final int STATUS = 3;
+        public static final int MESSAGE_ID = 4;
+        public static final int SUBMESSAGE_ID = 5;
+        public static final int DATA = 6;
+
+        static final int MIN_FIELD_COUNT = DATA;
+        static final long REQUIRED_FIELDS = 1L << SVID | 1L << TYPE | 1L << STATUS
+                | 1L << MESSAGE_ID | 1L << SUBMESSAGE_ID;
+
+        Nav() {
+        }
+
+        @Override
+        public Nav copy() {
+            return copyInto(new Nav());
+        }
+
+        public int getSvid() {
+            return getInt(SVID);
+        }
+
+        public int getType() {
+            return getInt(TYPE);
+        }
+
+        public int getStatus() {
+            return getInt(STATUS);
+        }
+
+        public int getMessageId() {
+            return getInt(MESSAGE_ID);
+        }
+
+        public int getSubmessageId() {
+            return getInt(SUBMESSAGE_ID);
+        }
+
+        public int getDataLength() {
+            return fieldCount - DATA;
+        }
+
+        public byte getData(int index) {
+            return (byte) getInt(DATA + index);
+        }
+
+        /**
+         * Copies the data into [destination], which must have room for {@link #getDataLength()} bytes
+         *
+         * @return the number of bytes copied
+         */
+        public int getData(byte[] destination) {
+            int length = getDataLength();
+            for (int i = 0; i < length; i++) {
+                destination[i] = getData(i);
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Device orientation from the orientation sensor:
+     * OrientationDeg,utcTimeMillis,elapsedRealtimeNanos,yawDeg,rollDeg,pitchDeg
+     */
+    public static final class Orientation extends CsvLogRecord {
+        public static final int UTC_TIME_MILLIS = 1;
+        public static final int ELAPSED_REALTIME_NANOS = 2;
+        public static final int YAW_DEGREES = 3;
+        public static final int ROLL_DEGREES = 4;
+        public static final int PITCH_DEGREES = 5;
+
+        static final int MIN_FIELD_COUNT = PITCH_DEGREES + 1;
+        static final long REQUIRED_FIELDS = 1L << UTC_TIME_MILLIS | 1L << ELAPSED_REALTIME_NANOS
+                | 1L << YAW_DEGREES | 1L << ROLL_DEGREES | 1L << PITCH_DEGREES;
+
+        Orientation() {
+        }
+
+        @Override
+        public Orientation copy() {
+            return copyInto(new Orientation());
+        }
+
+        public long getUtcTimeMillis() {
+            return getLong(UTC_TIME_MILLIS);
+        }
+
+        public long getElapsedRealtimeNanos() {
+            return getLong(ELAPSED_REALTIME_NANOS);
+        }
+
+        public double getYawDegrees() {
+            return getDouble(YAW_DEGREES);
+        }
+
+        public double getRollDegrees() {
+            return getDouble(ROLL_DEGREES);
+        }
+
+        public double getPitchDegrees() {
+            return getDouble(PITCH_DEGREES);
+        }
+    }
+}
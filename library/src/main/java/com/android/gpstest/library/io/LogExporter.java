@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.CancellationException;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes logs into a single ZIP file for sharing, with a summary of the logging session. The logs
+ * are streamed from storage a buffer at a time, so logs of any size can be exported without
+ * loading them into memory. Text logs usually compress to a fraction of their size.
+ *
+ * Manifests of rotated logs are expanded to their segments, and index files (see LogIndex) are
+ * included with their logs. Files that are already compressed are stored without compressing them
+ * again. Exports should be run on a background thread.
+ */
+public final class LogExporter {
+
+    /**
+     * Receives the progress of an export
+     */
+    public interface ProgressListener {
+        /**
+         * @param bytesRead  the number of bytes of the logs read so far
+         * @param totalBytes the total size of the logs
+         */
+        void onProgress(long bytesRead, long totalBytes);
+    }
+
+    /**
+     * Name of the summary in the ZIP file
+     */
+    public static final String SUMMARY_ENTRY_NAME = "summary.txt";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String COMPRESSED_FILE_EXTENSION = ".gz";
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final List<File> files;
+    // Sizes of the files when this exporter was created
+    private final long[] fileSizes;
+    private final long totalBytes;
+    private volatile boolean cancelled;
+
+    /**
+     * @param logsOrManifests log files, or manifests of rotated logs
+     */
+    public LogExporter(List<File> logsOrManifests) throws IOException {
+        Set<File> expanded = new LinkedHashSet<>();
+        for (File file : logsOrManifests) {
+            if (file.getName().endsWith(LogIndex.MANIFEST_SUFFIX)) {
+                expanded.add(file);
+            }
+            for (File log : LogIndex.getSessionFiles(file)) {
+                expanded.add(log);
+                expanded.add(LogIndex.getIndexFile(log));
+            }
+        }
+        List<File> existing = new ArrayList<>(expanded.size());
+        for (File file : expanded) {
+            if (file.isFile()) {
+                existing.add(file);
+            }
+        }
+        files = Collections.unmodifiableList(existing);
+        fileSizes = new long[files.size()];
+        long total = 0;
+        for (int i = 0; i < fileSizes.length; i++) {
+            fileSizes[i] = files.get(i).length();
+            total += fileSizes[i];
+        }
+        totalBytes = total;
+    }
+
+    /**
+     * @return the files that will be exported, including segments of rotated logs and index files
+     */
+    public List<File> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return the total size of the files that will be exported, before compression
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Stops an export in progress, which then throws a CancellationException. Can be called from
+     * any thread, including from the progress listener.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Exports the logs to a ZIP file. The file is written under a temporary name and renamed when
+     * it's complete, so a cancelled or failed export doesn't leave a partial file.
+     *
+     * @param zipFile  the file to write
+     * @param header   lines at the top of the summary, e.g. the app version and device, or null
+     * @param listener receives progress, or null
+     * @throws CancellationException if the export is cancelled
+     */
+    public void export(File zipFile, String header, ProgressListener listener) throws IOException {
+        File temp = new File(zipFile.getPath() + TEMP_FILE_SUFFIX);
+        boolean complete = false;
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                export(out, header, listener);
+            }
+            zipFile.delete();
+            if (!temp.renameTo(zipFile)) {
+                throw new IOException("Can't rename " + temp + " to " + zipFile);
+            }
+            complete = true;
+        } finally {
+            if (!complete) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Writes the logs and the summary as a ZIP to the given stream, which is left open. Each file
+     * is copied up to the size it had when this exporter was created, so a file that's still being
+     * appended to is exported as it was then.
+     *
+     * @param out      stream to write the ZIP to
+     * @param header   lines at the top of the summary, e.g. the app version and device, or null
+     * @param listener receives progress, or null
+     * @throws CancellationException if the export is cancelled
+     */
+    public void export(OutputStream out, String header, ProgressListener listener) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long bytesRead = 0;
+        List<Long> sizes = new ArrayList<>(files.size());
+        if (listener != null) {
+            listener.onProgress(0, totalBytes);
+        }
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            checkCancelled();
+            boolean compressed = file.getName().endsWith(COMPRESSED_FILE_EXTENSION);
+            zip.setLevel(compressed ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            ZipEntry entry = new ZipEntry(file.getName());
+            entry.setTime(file.lastModified());
+            zip.putNextEntry(entry);
+            long remaining = fileSizes[i];
+            long size = 0;
+            try (InputStream in = new FileInputStream(file)) {
+                int n;
+                while (remaining > 0
+                        && (n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+                    checkCancelled();
+                    zip.write(buffer, 0, n);
+                    remaining -= n;
+                    size += n;
+                    bytesRead += n;
+                    if (listener != null) {
+                        listener.onProgress(bytesRead, totalBytes);
+                    }
+                }
+            }
+            zip.closeEntry();
+            sizes.add(size);
+        }
+        checkCancelled();
+        zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+        zip.putNextEntry(new ZipEntry(SUMMARY_ENTRY_NAME));
+        Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        writeSummary(writer, header, sizes);
+        writer.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Export cancelled");
+        }
+    }
+
+    /**
+     * Writes the summary of the exported files - their sizes and times, and for logs with an index,
+     * the number of records and the time span they cover
+     */
+    private void writeSummary(Appendable out, String header, List<Long> sizes) throws IOException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss 'UTC'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        if (header != null) {
+            out.append(header).append('\n');
+        }
+        out.append("Exported: ").append(format.format(new Date())).append('\n');
+        out.append("Files: ").append(String.valueOf(files.size())).append('\n');
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            out.append('\n').append(file.getName()).append('\n');
+            out.append("  Size: ").append(String.valueOf(sizes.get(i))).append(" bytes\n");
+            out.append("  Last modified: ").append(format.format(new Date(file.lastModified()))).append('\n');
+            if (LogIndex.isIndexFile(file) || file.getName().endsWith(LogIndex.MANIFEST_SUFFIX)) {
+                continue;
+            }
+            LogIndex index;
+            try {
+                index = LogIndex.forLog(file);
+            } catch (IOException | RuntimeException e) {
+                out.append("  Index can't be read: ").append(String.valueOf(e.getMessage())).append('\n');
+                continue;
+            }
+            if (index == null || index.getBlocks().isEmpty()) {
+                continue;
+            }
+            long records = 0;
+            long first = LogIndex.NO_TIME;
+            long last = LogIndex.NO_TIME;
+            for (LogIndex.Block block : index.getBlocks()) {
+                records += block.getRecordCount();
+                if (first == LogIndex.NO_TIME) {
+                    first = block.getFirstUtcTimeMillis();
+                }
+                if (block.getLastUtcTimeMillis() != LogIndex.NO_TIME) {
+                    last = block.getLastUtcTimeMillis();
+                }
+            }
+            out.append("  Records: ").append(String.valueOf(records)).append('\n');
+            if (first != LogIndex.NO_TIME && last != LogIndex.NO_TIME) {
+                out.append("  First record: ").append(format.format(new Date(first))).append('\n');
+                out.append("  Last record: ").append(format.format(new Date(last))).append('\n');
+                out.append("  Duration: ").append(String.valueOf((last - first) / 1000)).append(" s\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A sparse index of a log file, written next to the log by the file loggers as a CSV file named
+ * after the log with {@link #FILE_SUFFIX} added. Each row describes a block of consecutive records -
+ * its byte range in the log and the times and types of the records in it - so a reader can jump to
+ * a time range or record type without reading the whole log.
+ *
+ * Offsets are in the uncompressed data, so they can be used directly with plain files. Compressed
+ * files can't be seeked, so they are decompressed up to the first block but not parsed.
+ *
+ * Times are the UTC and SystemClock.elapsedRealtimeNanos() times of the records themselves, or when
+ * they were written for records that don't have a time (e.g., Status and Nav). A block may
+ * contain records just outside the requested range, so readers should check the record times if
+ * they need an exact range.
+ */
+public final class LogIndex {
+
+    public static final String FILE_SUFFIX = ".idx";
+
+    public static final int TYPE_FIX = 1;
+    public static final int TYPE_STATUS = 1 << 1;
+    public static final int TYPE_MEASUREMENTS = 1 << 2;
+    public static final int TYPE_NAV = 1 << 3;
+    public static final int TYPE_NMEA = 1 << 4;
+    public static final int TYPE_ORIENTATION = 1 << 5;
+    public static final int TYPE_ANTENNA_INFO = 1 << 6;
+    public static final int ALL_TYPES = (1 << 7) - 1;
+
+    /**
+     * Value of a time that isn't known, which matches any time range
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    static final String HEADER = "startOffset,endOffset,records,types,firstUtcTimeMillis,"
+            + "lastUtcTimeMillis,firstElapsedRealtimeNanos,lastElapsedRealtimeNanos";
+
+    /**
+     * Suffix of the manifest listing the segments of a segmented log
+     */
+    public static final String MANIFEST_SUFFIX = "_manifest.csv";
+
+    private static final String COMPRESSED_FILE_EXTENSION = ".gz";
+
+    /**
+     * A range of bytes in the log holding one or more complete records
+     */
+    public static final class Block {
+        private final long startOffset;
+        private final long endOffset;
+        private final int records;
+        private final int types;
+        private final long firstUtcTimeMillis;
+        private final long lastUtcTimeMillis;
+        private final long firstElapsedRealtimeNanos;
+        private final long lastElapsedRealtimeNanos;
+
+        Block(long startOffset, long endOffset, int records, int types, long firstUtcTimeMillis,
+              long lastUtcTimeMillis, long firstElapsedRealtimeNanos, long lastElapsedRealtimeNanos) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.records = records;
+            this.types = types;
+            this.firstUtcTimeMillis = firstUtcTimeMillis;
+            this.lastUtcTimeMillis = lastUtcTimeMillis;
+            this.firstElapsedRealtimeNanos = firstElapsedRealtimeNanos;
+            this.lastElapsedRealtimeNanos = lastElapsedRealtimeNanos;
+        }
+
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        /**
+         * @return the number of records in the block, where a group of records written together
+         * (e.g. all signals of a GnssStatus) counts as one
+         */
+        public int getRecordCount() {
+            return records;
+        }
+
+        /**
+         * @return the TYPE_ flags of the records in the block
+         */
+        public int getTypes() {
+            return types;
+        }
+
+        public long getFirstUtcTimeMillis() {
+            return firstUtcTimeMillis;
+        }
+
+        public long getLastUtcTimeMillis() {
+            return lastUtcTimeMillis;
+        }
+
+        public long getFirstElapsedRealtimeNanos() {
+            return firstElapsedRealtimeNanos;
+        }
+
+        public long getLastElapsedRealtimeNanos() {
+            return lastElapsedRealtimeNanos;
+        }
+
+        /**
+         * @return true if the block has records of any of the given TYPE_ flags
+         */
+        public boolean hasAnyType(int types) {
+            return (this.types & types) != 0;
+        }
+
+        /**
+         * @return true if the block may have records written between the given UTC times, inclusive
+         */
+        public boolean overlapsUtcTime(long fromMillis, long toMillis) {
+            return overlaps(firstUtcTimeMillis, lastUtcTimeMillis, fromMillis, toMillis);
+        }
+
+        /**
+         * @return true if the block may have records written between the given elapsed realtimes, inclusive
+         */
+        public boolean overlapsElapsedRealtime(long fromNanos, long toNanos) {
+            return overlaps(firstElapsedRealtimeNanos, lastElapsedRealtimeNanos, fromNanos, toNanos);
+        }
+
+        private static boolean overlaps(long first, long last, long from, long to) {
+            if (first == NO_TIME || last == NO_TIME) {
+                return true;
+            }
+            return first <= to && last >= from;
+        }
+    }
+
+    private interface BlockFilter {
+        boolean accept(Block block);
+    }
+
+    private final List<Block> blocks;
+
+    LogIndex(List<Block> blocks) {
+        this.blocks = Collections.unmodifiableList(blocks);
+    }
+
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @return the blocks with records of any of the given TYPE_ flags that may have been written
+     * between the given UTC times, inclusive
+     */
+    public List<Block> findByUtcTime(long fromMillis, long toMillis, int types) {
+        return find(block -> block.hasAnyType(types) && block.overlapsUtcTime(fromMillis, toMillis));
+    }
+
+    /**
+     * @return the blocks with records of any of the given TYPE_ flags that may have been written
+     * between the given SystemClock.elapsedRealtimeNanos() times, inclusive
+     */
+    public List<Block> findByElapsedRealtime(long fromNanos, long toNanos, int types) {
+        return find(block -> block.hasAnyType(types) && block.overlapsElapsedRealtime(fromNanos, toNanos));
+    }
+
+    private List<Block> find(BlockFilter filter) {
+        List<Block> found = new ArrayList<>();
+        for (Block block : blocks) {
+            if (filter.accept(block)) {
+                found.add(block);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the index file for the given log file
+     */
+    public static File getIndexFile(File logFile) {
+        return new File(logFile.getParentFile(), logFile.getName() + FILE_SUFFIX);
+    }
+
+    /**
+     * @return the log file for the given index file
+     */
+    public static File getLogFile(File indexFile) {
+        String name = indexFile.getName();
+        return new File(indexFile.getParentFile(), name.substring(0, name.length() - FILE_SUFFIX.length()));
+    }
+
+    public static boolean isIndexFile(File file) {
+        return file.getName().endsWith(FILE_SUFFIX);
+    }
+
+    /**
+     * Reads the index of the given log file
+     *
+     * @return the index, or null if the log doesn't have one
+     */
+    public static LogIndex forLog(File logFile) throws IOException {
+        File indexFile = getIndexFile(logFile);
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try (Reader reader = new FileReader(indexFile)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Reads an index. A partially written last row, left if the app stopped while writing it, is
+     * ignored.
+     */
+    public static LogIndex read(Reader reader) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isEmpty() || line.equals(HEADER)) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 8) {
+                continue;
+            }
+            try {
+                blocks.add(new Block(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                        Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), parseTime(fields[4]),
+                        parseTime(fields[5]), parseTime(fields[6]), parseTime(fields[7])));
+            } catch (NumberFormatException e) {
+                // Partially written row
+            }
+        }
+        return new LogIndex(blocks);
+    }
+
+    private static long parseTime(String field) {
+        return field.isEmpty() ? NO_TIME : Long.parseLong(field);
+    }
+
+    /**
+     * Returns the log files of a logging session, given either the manifest of a segmented log or
+     * a single log file
+     */
+    public static List<File> getSessionFiles(File logOrManifest) throws IOException {
+        if (!logOrManifest.getName().endsWith(MANIFEST_SUFFIX)) {
+            return Collections.singletonList(logOrManifest);
+        }
+        List<File> files = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(logOrManifest))) {
+            // Skip the column names
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma > 0) {
+                    files.add(new File(logOrManifest.getParentFile(), line.substring(0, comma)));
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Parses the CSV records of a log or segmented log that may have been written between the
+     * given UTC times, inclusive. Segments without an index are parsed in full.
+     *
+     * @param logOrManifest a single log file or the manifest of a segmented log
+     * @param types TYPE_ flags of the records to read - blocks without them are skipped, but other
+     *              records in the same blocks are also parsed
+     * @return the number of records parsed
+     */
+    public static long parseByUtcTime(File logOrManifest, long fromMillis, long toMillis, int types,
+                                      CsvLogParser parser) throws IOException {
+        return parse(logOrManifest, index -> index.findByUtcTime(fromMillis, toMillis, types), parser);
+    }
+
+    /**
+     * Parses the CSV records of a log or segmented log that may have been written between the
+     * given SystemClock.elapsedRealtimeNanos() times, inclusive. Segments without an index are
+     * parsed in full.
+     *
+     * @param logOrManifest a single log file or the manifest of a segmented log
+     * @param types TYPE_ flags of the records to read - blocks without them are skipped, but other
+     *              records in the same blocks are also parsed
+     * @return the number of records parsed
+     */
+    public static long parseByElapsedRealtime(File logOrManifest, long fromNanos, long toNanos, int types,
+                                              CsvLogParser parser) throws IOException {
+        return parse(logOrManifest, index -> index.findByElapsedRealtime(fromNanos, toNanos, types), parser);
+    }
+
+    private interface Query {
+        List<Block> find(LogIndex index);
+    }
+
+    private static long parse(File logOrManifest, Query query, CsvLogParser parser) throws IOException {
+        long records = 0;
+        for (File log : getSessionFiles(logOrManifest)) {
+            if (!log.exists()) {
+                // Segments may have been deleted or only written to Downloads
+                continue;
+            }
+            LogIndex index = forLog(log);
+            if (index == null) {
+                records += parser.parse(log);
+            } else {
+                records += parse(log, query.find(index), parser);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Parses the CSV records in the given blocks of a log file
+     *
+     * @return the number of records parsed
+     */
+    public static long parse(File logFile, List<Block> blocks, CsvLogParser parser) throws IOException {
+        long records = 0;
+        int i = 0;
+        while (i < blocks.size()) {
+            long start = blocks.get(i).getStartOffset();
+            long end = blocks.get(i).getEndOffset();
+            // Read consecutive blocks in one pass
+            while (++i < blocks.size() && blocks.get(i).getStartOffset() == end) {
+                end = blocks.get(i).getEndOffset();
+            }
+            try (InputStream in = open(logFile, start, end)) {
+                records += parser.parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Opens the bytes of a log file between the given offsets in the uncompressed data, such as a
+     * block's start and end offsets, so they can be read with any parser
+     */
+    public static InputStream open(File logFile, long startOffset, long endOffset) throws IOException {
+        InputStream in = new FileInputStream(logFile);
+        try {
+            if (logFile.getName().endsWith(COMPRESSED_FILE_EXTENSION)) {
+                in = new GZIPInputStream(new BufferedInputStream(in));
+            } else {
+                // Seek instead of reading
+                ((FileInputStream) in).getChannel().position(startOffset);
+                return new RangeInputStream(new BufferedInputStream(in), endOffset - startOffset);
+            }
+            long skipped = 0;
+            while (skipped < startOffset) {
+                long n = in.skip(startOffset - skipped);
+                if (n <= 0) {
+                    throw new EOFException("Offset " + startOffset + " is past the end of " + logFile);
+                }
+                skipped += n;
+            }
+            return new RangeInputStream(in, endOffset - startOffset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads up to a given number of bytes from a stream
+     */
+    private static final class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a {@link LogIndex} as records are written to a log. The log writer reports each record
+ * with {@link #add(int, long, long)}, and when that returns true, the offset in the log where the
+ * block of records ends with {@link #endBlock(long)}.
+ */
+public final class LogIndexWriter implements Closeable {
+
+    private final Writer writer;
+    private final int interval;
+
+    // The current block
+    private long startOffset;
+    private int records;
+    private int types;
+    private long firstUtcTimeMillis;
+    private long lastUtcTimeMillis;
+    private long firstElapsedRealtimeNanos;
+    private long lastElapsedRealtimeNanos;
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    /**
+     * @param writer      the index file, which is appended to
+     * @param isNewFile   true if the index file is empty, so the column names are written first
+     * @param interval    the number of records in each block
+     * @param startOffset the offset in the log where the first record will be written
+     */
+    public LogIndexWriter(Writer writer, boolean isNewFile, int interval, long startOffset) throws IOException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be greater than 0 but was " + interval);
+        }
+        this.writer = writer;
+        this.interval = interval;
+        if (isNewFile) {
+            writer.write(LogIndex.HEADER);
+            writer.write('\n');
+        }
+        startBlock(startOffset);
+    }
+
+    private void startBlock(long offset) {
+        startOffset = offset;
+        records = 0;
+        types = 0;
+        firstUtcTimeMillis = LogIndex.NO_TIME;
+        lastUtcTimeMillis = LogIndex.NO_TIME;
+        firstElapsedRealtimeNanos = LogIndex.NO_TIME;
+        lastElapsedRealtimeNanos = LogIndex.NO_TIME;
+    }
+
+    /**
+     * Adds a record (or group of records written together) that has been written to the log
+     *
+     * @param type one of the LogIndex.TYPE_ flags
+     * @param utcTimeMillis the time of the record, or LogIndex.NO_TIME if it isn't known
+     * @param elapsedRealtimeNanos the time of the record, or LogIndex.NO_TIME if it isn't known
+     * @return true if the block is full and {@link #endBlock(long)} should be called
+     */
+    public boolean add(int type, long utcTimeMillis, long elapsedRealtimeNanos) {
+        records++;
+        types |= type;
+        if (utcTimeMillis != LogIndex.NO_TIME) {
+            if (firstUtcTimeMillis == LogIndex.NO_TIME || utcTimeMillis < firstUtcTimeMillis) {
+                firstUtcTimeMillis = utcTimeMillis;
+            }
+            lastUtcTimeMillis = Math.max(lastUtcTimeMillis, utcTimeMillis);
+        }
+        if (elapsedRealtimeNanos != LogIndex.NO_TIME) {
+            if (firstElapsedRealtimeNanos == LogIndex.NO_TIME || elapsedRealtimeNanos < firstElapsedRealtimeNanos) {
+                firstElapsedRealtimeNanos = elapsedRealtimeNanos;
+            }
+            lastElapsedRealtimeNanos = Math.max(lastElapsedRealtimeNanos, elapsedRealtimeNanos);
+        }
+        return records >= interval;
+    }
+
+    /**
+     * Writes the current block, if it has any records, and starts the next block
+     *
+     * @param endOffset the offset in the log after the last record of the block, which is where the
+     *                  next block starts
+     */
+    public void endBlock(long endOffset) throws IOException {
+        if (records > 0) {
+            line.setLength(0);
+            line.append(startOffset).append(',')
+                    .append(endOffset).append(',')
+                    .append(records).append(',')
+                    .append(types).append(',');
+            appendTime(firstUtcTimeMillis).append(',');
+            appendTime(lastUtcTimeMillis).append(',');
+            appendTime(firstElapsedRealtimeNanos).append(',');
+            appendTime(lastElapsedRealtimeNanos).append('\n');
+            writer.append(line);
+            // Rows are small and infrequent, so make each one readable right away
+            writer.flush();
+        }
+        startBlock(endOffset);
+    }
+
+    private StringBuilder appendTime(long time) {
+        return time == LogIndex.NO_TIME ? line : line.append(time);
+    }
+
+    /**
+     * Closes the index file. Call {@link #endBlock(long)} first to write the last block.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Repairs the end of a log file that was being written when the app or device crashed, so logging
+ * can continue in the file and readers don't fail on it. Anything after the last complete record
+ * is removed - a partial line of a CSV or newline-delimited JSON file, a partial record of a binary
+ * file, or a partial element (and the closing bracket, if there is one) of a JSON array, which is
+ * left open so more elements can be appended.
+ *
+ * Compressed files are read up to the last data that was flushed before the crash, and rewritten
+ * if anything after that needs to be removed.
+ */
+public final class LogRecovery {
+
+    /**
+     * Lines of text, such as CSV or newline-delimited JSON
+     */
+    public static final int FORMAT_LINES = 0;
+    /**
+     * A single JSON array of records
+     */
+    public static final int FORMAT_JSON_ARRAY = 1;
+    /**
+     * A binary log (see BinaryLogFormat)
+     */
+    public static final int FORMAT_BINARY = 2;
+
+    private static final String COMPRESSED_FILE_EXTENSION = ".gz";
+    private static final int BUFFER_SIZE = 8192;
+
+    private LogRecovery() {
+    }
+
+    /**
+     * The outcome of repairing a file
+     */
+    public static final class Result {
+        private final long length;
+        private final long removedBytes;
+        private final boolean hasRecords;
+
+        Result(long length, long removedBytes, boolean hasRecords) {
+            this.length = length;
+            this.removedBytes = removedBytes;
+            this.hasRecords = hasRecords;
+        }
+
+        /**
+         * @return the length of the repaired file, uncompressed
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * @return the number of (uncompressed) bytes removed from the end of the file, not counting
+         * data in a truncated compressed block that couldn't be read
+         */
+        public long getRemovedBytes() {
+            return removedBytes;
+        }
+
+        /**
+         * @return true if the repaired file contains at least one complete record
+         */
+        public boolean hasRecords() {
+            return hasRecords;
+        }
+    }
+
+    /**
+     * Removes anything after the last complete record from the end of a log file
+     *
+     * @param file   the file, which is read as gzip if its name ends with ".gz"
+     * @param format one of the FORMAT_ constants
+     * @return the outcome, which says how much was removed
+     */
+    public static Result repair(File file, int format) throws IOException {
+        boolean compressed = file.getName().endsWith(COMPRESSED_FILE_EXTENSION);
+        Scan scan;
+        try (TolerantInputStream in = open(file, compressed)) {
+            scan = scan(in, format);
+            // Count the rest of the readable data
+            skipAll(in);
+            scan.contentLength = in.count;
+            scan.truncated = in.truncated;
+        }
+        long removed = scan.contentLength - scan.validLength;
+        if (removed > 0 || scan.truncated) {
+            if (compressed) {
+                rewriteCompressed(file, scan.validLength);
+            } else {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.getChannel().truncate(scan.validLength);
+                    raf.getChannel().force(false);
+                }
+            }
+        }
+        return new Result(scan.validLength, removed, scan.hasRecords);
+    }
+
+    /**
+     * Removes blocks from a log index (see LogIndex) that end after the given length of its log,
+     * along with a partial row at the end. The index is deleted if its header is incomplete.
+     *
+     * @param indexFile the index file
+     * @param logLength the uncompressed length of the log after it was repaired
+     */
+    public static void repairIndex(File indexFile, long logLength) throws IOException {
+        List<String> lines = new ArrayList<>();
+        boolean changed = false;
+        try (BufferedReader reader = new BufferedReader(new FileReader(indexFile))) {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = reader.read()) >= 0) {
+                if (c != '\n') {
+                    line.append((char) c);
+                    continue;
+                }
+                String text = line.toString();
+                line.setLength(0);
+                if (lines.isEmpty() || getEndOffset(text) <= logLength) {
+                    lines.add(text);
+                } else {
+                    changed = true;
+                }
+            }
+            if (line.length() > 0) {
+                changed = true;
+            }
+        }
+        if (lines.isEmpty() || !lines.get(0).equals(LogIndex.HEADER)) {
+            if (!indexFile.delete()) {
+                throw new IOException("Unable to delete " + indexFile);
+            }
+            return;
+        }
+        if (!changed) {
+            return;
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(indexFile))) {
+            for (String text : lines) {
+                writer.write(text);
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * @return the endOffset of an index row, or Long.MAX_VALUE if it can't be read
+     */
+    private static long getEndOffset(String row) {
+        String[] fields = row.split(",", -1);
+        try {
+            return Long.parseLong(fields[1]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static TolerantInputStream open(File file, boolean compressed) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        if (!compressed) {
+            return new TolerantInputStream(in);
+        }
+        try {
+            return new TolerantInputStream(new GZIPInputStream(in, BUFFER_SIZE));
+        } catch (EOFException e) {
+            // Not even a complete gzip header
+            in.close();
+            TolerantInputStream empty = new TolerantInputStream(new ByteArrayInputStream(new byte[0]));
+            empty.truncated = true;
+            return empty;
+        }
+    }
+
+    private static void skipAll(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (in.read(buffer) >= 0) {
+            // Counted by the stream
+        }
+    }
+
+    /**
+     * Where the complete records of a file end
+     */
+    private static final class Scan {
+        long validLength;
+        long contentLength;
+        boolean hasRecords;
+        boolean truncated;
+    }
+
+    private static Scan scan(CountingInputStream in, int format) throws IOException {
+        switch (format) {
+            case FORMAT_LINES:
+                return scanLines(in);
+            case FORMAT_JSON_ARRAY:
+                return scanJsonArray(in);
+            case FORMAT_BINARY:
+                return scanBinary(in);
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+
+    private static Scan scanLines(CountingInputStream in) throws IOException {
+        Scan scan = new Scan();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            for (int i = n - 1; i >= 0; i--) {
+                if (buffer[i] == '\n') {
+                    scan.validLength = in.count - n + i + 1;
+                    scan.hasRecords = true;
+                    break;
+                }
+            }
+        }
+        return scan;
+    }
+
+    private static Scan scanJsonArray(CountingInputStream in) throws IOException {
+        Scan scan = new Scan();
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            if (depth == 0) {
+                if (b == '[') {
+                    depth = 1;
+                    scan.validLength = in.count;
+                } else if (!isWhitespace(b)) {
+                    throw new IOException("Not a JSON array");
+                }
+                continue;
+            }
+            switch (b) {
+                case '"':
+                    inString = true;
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    if (depth == 1) {
+                        // End of an element
+                        scan.validLength = in.count;
+                        scan.hasRecords = true;
+                    } else if (depth == 0) {
+                        // End of the array, which is removed so elements can be added
+                        return scan;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return scan;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static Scan scanBinary(CountingInputStream in) throws IOException {
+        Scan scan = new Scan();
+        try {
+            BinaryLogFormat.readFileHeader(in);
+            scan.validLength = in.count;
+            BinaryLogFormat.RecordReader reader = new BinaryLogFormat.RecordReader(in);
+            while (reader.next() >= 0) {
+                scan.validLength = in.count;
+                scan.hasRecords = true;
+            }
+        } catch (IOException e) {
+            if (in.read() >= 0) {
+                throw e;
+            }
+            // The stream ended part way through the header or a record
+        }
+        return scan;
+    }
+
+    /**
+     * Replaces a compressed file with the first [length] bytes of its uncompressed data
+     */
+    private static void rewriteCompressed(File file, long length) throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (InputStream in = open(file, true);
+             FileOutputStream fileStream = new FileOutputStream(temp)) {
+            GZIPOutputStream out = new GZIPOutputStream(fileStream, BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = length;
+            while (remaining > 0) {
+                int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (n < 0) {
+                    break;
+                }
+                out.write(buffer, 0, n);
+                remaining -= n;
+            }
+            out.finish();
+            fileStream.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    /**
+     * Counts the bytes read
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Ends at the end of the data that can be read from a truncated compressed stream, instead of
+     * throwing an exception
+     */
+    private static final class TolerantInputStream extends CountingInputStream {
+        boolean truncated;
+
+        TolerantInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (truncated) {
+                return -1;
+            }
+            try {
+                return super.read();
+            } catch (EOFException e) {
+                truncated = true;
+                return -1;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (truncated) {
+                return -1;
+            }
+            try {
+                return super.read(b, off, len);
+            } catch (EOFException e) {
+                truncated = true;
+                return -1;
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, BUFFER_SIZE)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plays back a CSV GNSS log written by CsvFileLogger as a sequence of {@link Event}s, one per
+ * callback the app received when the log was recorded - a GnssStatus or GnssMeasurementsEvent
+ * becomes one event containing all of its signals.
+ *
+ * Events are delivered on the calling thread with the same spacing they were recorded with,
+ * divided by the playback speed. The timeline is SystemClock.elapsedRealtimeNanos() on the
+ * recording device - records without an elapsed realtime timestamp (Status, NMEA and Nav) are
+ * played right after the record before them, since the file is written in the order the data
+ * arrived.
+ */
+public final class LogReplayer {
+
+    /**
+     * Speed that plays events back without waiting between them
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    public static final int TYPE_FIX = 1;
+    public static final int TYPE_STATUS = 2;
+    public static final int TYPE_NMEA = 3;
+    public static final int TYPE_MEASUREMENTS = 4;
+    public static final int TYPE_NAV = 5;
+    public static final int TYPE_ORIENTATION = 6;
+
+    // Time of events read before any timestamp
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * Receives events as they are played back
+     */
+    public interface Listener {
+        void onEvent(Event event);
+    }
+
+    /**
+     * Source of time for pacing playback, which can be replaced in tests
+     */
+    public interface Clock {
+        long nanoTime();
+
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(long nanos) throws InterruptedException {
+            Thread.sleep(nanos / 1_000_000L, (int) (nanos % 1_000_000L));
+        }
+    };
+
+    /**
+     * One callback from the recorded session. Records are copies, so events can be kept.
+     */
+    public static final class Event {
+        private final int type;
+        private final long elapsedRealtimeNanos;
+        private final List<CsvLogRecord> records;
+
+        Event(int type, long elapsedRealtimeNanos, List<CsvLogRecord> records) {
+            this.type = type;
+            this.elapsedRealtimeNanos = elapsedRealtimeNanos;
+            this.records = records;
+        }
+
+        /**
+         * @return one of the TYPE_ constants
+         */
+        public int getType() {
+            return type;
+        }
+
+        /**
+         * @return the time of the event on the recording device's SystemClock.elapsedRealtimeNanos() timeline
+         */
+        public long getElapsedRealtimeNanos() {
+            return elapsedRealtimeNanos;
+        }
+
+        /**
+         * @return the records of the event - one for TYPE_FIX, TYPE_NMEA, TYPE_NAV and
+         * TYPE_ORIENTATION, and one per signal for TYPE_STATUS and TYPE_MEASUREMENTS
+         */
+        public List<CsvLogRecord> getRecords() {
+            return records;
+        }
+
+        public CsvLogRecord.Fix getFix() {
+            return (CsvLogRecord.Fix) records.get(0);
+        }
+
+        public CsvLogRecord.Nmea getNmea() {
+            return (CsvLogRecord.Nmea) records.get(0);
+        }
+
+        public CsvLogRecord.Nav getNav() {
+            return (CsvLogRecord.Nav) records.get(0);
+        }
+
+        public CsvLogRecord.Orientation getOrientation() {
+            return (CsvLogRecord.Orientation) records.get(0);
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<CsvLogRecord.Status> getStatuses() {
+            return (List<CsvLogRecord.Status>) (List<?>) records;
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<CsvLogRecord.Raw> getMeasurements() {
+            return (List<CsvLogRecord.Raw>) (List<?>) records;
+        }
+    }
+
+    private final double speed;
+    private final Clock clock;
+
+    // State of the current playback
+    private Listener listener;
+    private long lastTime;
+    private long firstTime;
+    private long startNanos;
+    private long eventCount;
+    private final List<Event> waiting = new ArrayList<>();
+    private int groupType;
+    private final List<CsvLogRecord> group = new ArrayList<>();
+
+    /**
+     * @param speed playback speed relative to the original recording, e.g. 1.0 for real time or
+     *              10.0 for ten times as fast, or {@link #AS_FAST_AS_POSSIBLE}
+     */
+    public LogReplayer(double speed) {
+        this(speed, SYSTEM_CLOCK);
+    }
+
+    public LogReplayer(double speed, Clock clock) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be greater than 0 but was " + speed);
+        }
+        this.speed = speed;
+        this.clock = clock;
+    }
+
+    /**
+     * Plays back the log [file], which may be compressed with gzip if its name ends with ".gz",
+     * and returns when all events have been delivered
+     *
+     * @return the number of events delivered
+     * @throws InterruptedException if the thread is interrupted while waiting for the next event
+     */
+    public long replay(File file, Listener listener) throws IOException, InterruptedException {
+        return replay(parser -> parser.parse(file), listener);
+    }
+
+    /**
+     * Plays back the log in [reader], which isn't closed
+     *
+     * @return the number of events delivered
+     * @throws InterruptedException if the thread is interrupted while waiting for the next event
+     */
+    public long replay(Reader reader, Listener listener) throws IOException, InterruptedException {
+        return replay(parser -> parser.parse(reader), listener);
+    }
+
+    private interface Source {
+        void parse(CsvLogParser parser) throws IOException;
+    }
+
+    private long replay(Source source, Listener listener) throws IOException, InterruptedException {
+        this.listener = listener;
+        lastTime = NO_TIME;
+        firstTime = NO_TIME;
+        eventCount = 0;
+        waiting.clear();
+        group.clear();
+        groupType = 0;
+        try {
+            source.parse(new CsvLogParser(handler));
+            endGroup();
+            // Nothing in the log had a timestamp
+            for (Event event : waiting) {
+                deliver(new Event(event.type, 0, event.records));
+            }
+            waiting.clear();
+        } catch (Interrupted e) {
+            throw (InterruptedException) e.getCause();
+        }
+        return eventCount;
+    }
+
+    private final CsvLogParser.Handler handler = new CsvLogParser.Handler() {
+        @Override
+        public void onRaw(CsvLogRecord.Raw record) {
+            if (groupType == TYPE_MEASUREMENTS) {
+                CsvLogRecord.Raw first = (CsvLogRecord.Raw) group.get(0);
+                if (first.getTimeNanos() != record.getTimeNanos()
+                        || first.getHardwareClockDiscontinuityCount() != record.getHardwareClockDiscontinuityCount()) {
+                    endGroup();
+                }
+            } else {
+                endGroup();
+            }
+            groupType = TYPE_MEASUREMENTS;
+            group.add(record.copy());
+        }
+
+        @Override
+        public void onStatus(CsvLogRecord.Status record) {
+            if (groupType != TYPE_STATUS || record.getSignalIndex() == 0) {
+                endGroup();
+            }
+            groupType = TYPE_STATUS;
+            group.add(record.copy());
+            if (record.getSignalIndex() == record.getSignalCount() - 1) {
+                endGroup();
+            }
+        }
+
+        @Override
+        public void onFix(CsvLogRecord.Fix record) {
+            endGroup();
+            long time = record.hasElapsedRealtimeNanos() ? record.getElapsedRealtimeNanos() : NO_TIME;
+            emit(TYPE_FIX, time, record.copy());
+        }
+
+        @Override
+        public void onNmea(CsvLogRecord.Nmea record) {
+            endGroup();
+            emit(TYPE_NMEA, NO_TIME, record.copy());
+        }
+
+        @Override
+        public void onNav(CsvLogRecord.Nav record) {
+            endGroup();
+            emit(TYPE_NAV, NO_TIME, record.copy());
+        }
+
+        @Override
+        public void onOrientation(CsvLogRecord.Orientation record) {
+            endGroup();
+            emit(TYPE_ORIENTATION, record.getElapsedRealtimeNanos(), record.copy());
+        }
+    };
+
+    private void endGroup() {
+        if (group.isEmpty()) {
+            return;
+        }
+        long time = NO_TIME;
+        if (groupType == TYPE_MEASUREMENTS) {
+            CsvLogRecord.Raw first = (CsvLogRecord.Raw) group.get(0);
+            time = first.hasChipsetElapsedRealtimeNanos() ? first.getChipsetElapsedRealtimeNanos()
+                    : first.getElapsedRealtimeMillis() * 1_000_000L;
+        }
+        List<CsvLogRecord> records = Collections.unmodifiableList(new ArrayList<>(group));
+        group.clear();
+        emitEvent(groupType, time, records);
+        groupType = 0;
+    }
+
+    private void emit(int type, long time, CsvLogRecord record) {
+        emitEvent(type, time, Collections.singletonList(record));
+    }
+
+    private void emitEvent(int type, long time, List<CsvLogRecord> records) {
+        if (time == NO_TIME || time < lastTime) {
+            // Keep the timeline moving forward in the order the data arrived
+            time = lastTime;
+        }
+        if (time == NO_TIME) {
+            waiting.add(new Event(type, time, records));
+            return;
+        }
+        lastTime = time;
+        if (firstTime == NO_TIME) {
+            firstTime = time;
+            startNanos = clock.nanoTime();
+            for (Event event : waiting) {
+                deliver(new Event(event.type, time, event.records));
+            }
+            waiting.clear();
+        }
+        if (speed != AS_FAST_AS_POSSIBLE) {
+            long due = startNanos + (long) ((time - firstTime) / speed);
+            long wait = due - clock.nanoTime();
+            if (wait > 0) {
+                try {
+                    clock.sleep(wait);
+                } catch (InterruptedException e) {
+                    // Stop the parser
+                    throw new Interrupted(e);
+                }
+            }
+        }
+        deliver(new Event(type, time, records));
+    }
+
+    private void deliver(Event event) {
+        eventCount++;
+        listener.onEvent(event);
+    }
+
+    private static final class Interrupted extends RuntimeException {
+        Interrupted(InterruptedException cause) {
+            super(cause);
+        }
+    }
+}
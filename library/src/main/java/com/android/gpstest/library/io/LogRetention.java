@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the log files in a directory within a byte quota, a maximum age and a maximum number of
+ * files by deleting the oldest logs. Files that are still being written are protected and are
+ * never deleted.
+ *
+ * The directory is listed once, and after that a catalog of the files and their sizes is kept up
+ * to date by the file loggers as they write, so checking the limits doesn't touch storage. Index
+ * files (see LogIndex) are counted with their log and are kept as long as it exists. Eviction
+ * runs on the given executor, so it doesn't block logging.
+ */
+public final class LogRetention {
+
+    /**
+     * Default maximum number of files kept
+     */
+    public static final int DEFAULT_MAX_FILES = 100;
+
+    /**
+     * Files smaller than this don't contain useful data and are always deleted
+     */
+    static final long MINIMUM_USABLE_FILE_SIZE_BYTES = 1000;
+
+    private static final class Entry {
+        final File file;
+        long size;
+        long indexSize;
+        long modifiedMillis;
+
+        Entry(File file) {
+            this.file = file;
+        }
+
+        long totalSize() {
+            return size + indexSize;
+        }
+    }
+
+    private final File directory;
+    private final Executor executor;
+
+    // Guarded by this
+    private final Map<File, Entry> catalog = new HashMap<>();
+    private final Set<File> protectedFiles = new HashSet<>();
+    private long totalBytes;
+    private long maxBytes;
+    private long maxAgeMillis;
+    private int maxFiles = DEFAULT_MAX_FILES;
+    private boolean scanned;
+    private boolean evictionPending;
+
+    /**
+     * @param directory the directory with the log files
+     * @param executor  runs eviction in the background
+     */
+    public LogRetention(File directory, Executor executor) {
+        this.directory = directory;
+        this.executor = executor;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets the limits files are kept within. A limit of 0 means the limit isn't used.
+     *
+     * @param maxBytes     the maximum total size of the files, including index files
+     * @param maxAgeMillis the maximum time since a file was last written
+     * @param maxFiles     the maximum number of files, not counting index files
+     */
+    public synchronized void setLimits(long maxBytes, long maxAgeMillis, int maxFiles) {
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * @return the total size of the files in the catalog, including index files
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return the number of files in the catalog, not counting index files
+     */
+    public synchronized int getFileCount() {
+        return catalog.size();
+    }
+
+    /**
+     * Lists the directory to build the catalog, if it hasn't been built yet. Called before the
+     * first eviction, but can be called earlier, e.g. to show the size of stored logs.
+     */
+    public void scan() {
+        synchronized (this) {
+            if (scanned) {
+                return;
+            }
+        }
+        File[] files = directory.listFiles();
+        List<File> orphanIndexes = new ArrayList<>();
+        synchronized (this) {
+            if (scanned) {
+                return;
+            }
+            if (files != null) {
+                for (File file : files) {
+                    if (!file.isFile()) {
+                        continue;
+                    }
+                    if (LogIndex.isIndexFile(file)) {
+                        File log = LogIndex.getLogFile(file);
+                        if (log.exists()) {
+                            entry(log).indexSize = file.length();
+                        } else {
+                            orphanIndexes.add(file);
+                        }
+                    } else {
+                        Entry entry = entry(file);
+                        entry.size = file.length();
+                        entry.modifiedMillis = file.lastModified();
+                    }
+                }
+            }
+            totalBytes = 0;
+            for (Entry entry : catalog.values()) {
+                totalBytes += entry.totalSize();
+            }
+            scanned = true;
+        }
+        for (File index : orphanIndexes) {
+            index.delete();
+        }
+    }
+
+    private Entry entry(File file) {
+        Entry entry = catalog.get(file);
+        if (entry == null) {
+            entry = new Entry(file);
+            catalog.put(file, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Protects a file that's being written from eviction
+     */
+    public synchronized void protect(File file) {
+        protectedFiles.add(file);
+        entry(file).modifiedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Called when a protected file is closed, so it can be evicted once it's older than other files
+     */
+    public void release(File file) {
+        File index = LogIndex.getIndexFile(file);
+        boolean exists = file.exists();
+        long size = file.length();
+        long indexSize = index.length();
+        long modifiedMillis = file.lastModified();
+        synchronized (this) {
+            protectedFiles.remove(file);
+            if (exists) {
+                update(entry(file), size, indexSize, modifiedMillis);
+            } else {
+                Entry entry = catalog.remove(file);
+                if (entry != null) {
+                    totalBytes -= entry.totalSize();
+                }
+            }
+        }
+        maybeRequestEviction();
+    }
+
+    /**
+     * Records the current size of a file, e.g. while it's being written or after it's been written
+     * (such as a manifest). Requests eviction if the files are over the byte quota or the
+     * maximum number of files.
+     *
+     * @param file the file, which is added to the catalog if it isn't in it yet
+     * @param size the size of the file
+     */
+    public void update(File file, long size) {
+        synchronized (this) {
+            Entry entry = entry(file);
+            update(entry, size, entry.indexSize, System.currentTimeMillis());
+        }
+        maybeRequestEviction();
+    }
+
+    private void update(Entry entry, long size, long indexSize, long modifiedMillis) {
+        totalBytes += size + indexSize - entry.totalSize();
+        entry.size = size;
+        entry.indexSize = indexSize;
+        entry.modifiedMillis = modifiedMillis;
+    }
+
+    private void maybeRequestEviction() {
+        boolean overLimits;
+        synchronized (this) {
+            overLimits = (maxBytes > 0 && totalBytes > maxBytes)
+                    || (maxFiles > 0 && catalog.size() > maxFiles);
+        }
+        if (overLimits) {
+            requestEviction();
+        }
+    }
+
+    /**
+     * Deletes files outside the limits on the executor, if eviction isn't already pending
+     */
+    public void requestEviction() {
+        synchronized (this) {
+            if (evictionPending) {
+                return;
+            }
+            evictionPending = true;
+        }
+        executor.execute(() -> {
+            synchronized (LogRetention.this) {
+                evictionPending = false;
+            }
+            scan();
+            evict(System.currentTimeMillis());
+        });
+    }
+
+    /**
+     * Deletes files that aren't protected, in this order - files too small to be useful, files
+     * older than the maximum age, and then the oldest files until the files are within the byte
+     * quota and the maximum number of files. Index files are deleted with their log.
+     *
+     * @param nowMillis the current time
+     * @return the deleted files, not including index files
+     */
+    public List<File> evict(long nowMillis) {
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            List<Entry> candidates = new ArrayList<>();
+            for (Entry entry : catalog.values()) {
+                if (!protectedFiles.contains(entry.file)) {
+                    candidates.add(entry);
+                }
+            }
+            // Oldest first
+            Collections.sort(candidates, (a, b) -> {
+                int compare = Long.compare(a.modifiedMillis, b.modifiedMillis);
+                return compare != 0 ? compare : a.file.getName().compareTo(b.file.getName());
+            });
+            // Files that are too small or too old first, so they count towards the other limits
+            for (Entry entry : candidates) {
+                // Manifests are small, but list the segments of a log
+                boolean tooSmall = entry.size < MINIMUM_USABLE_FILE_SIZE_BYTES
+                        && !entry.file.getName().endsWith(LogIndex.MANIFEST_SUFFIX);
+                boolean tooOld = maxAgeMillis > 0 && nowMillis - entry.modifiedMillis > maxAgeMillis;
+                if (tooSmall || tooOld) {
+                    remove(entry, evicted);
+                }
+            }
+            for (Entry entry : candidates) {
+                boolean overQuota = maxBytes > 0 && totalBytes > maxBytes;
+                boolean tooMany = maxFiles > 0 && catalog.size() > maxFiles;
+                if (!overQuota && !tooMany) {
+                    break;
+                }
+                if (catalog.containsKey(entry.file)) {
+                    remove(entry, evicted);
+                }
+            }
+        }
+        // Delete outside the lock, as deleting large files can be slow
+        List<File> deleted = new ArrayList<>(evicted.size());
+        for (Entry entry : evicted) {
+            entry.file.delete();
+            LogIndex.getIndexFile(entry.file).delete();
+            deleted.add(entry.file);
+        }
+        return deleted;
+    }
+
+    private void remove(Entry entry, List<Entry> evicted) {
+        catalog.remove(entry.file);
+        totalBytes -= entry.totalSize();
+        evicted.add(entry);
+    }
+}
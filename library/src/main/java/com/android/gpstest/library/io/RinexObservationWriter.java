@@ -0,0 +1,834 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.io;
+
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.util.CarrierFreqUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes a RINEX 3 or 4 observation file from raw GNSS measurements, one epoch at a time. For each
+ * signal the pseudorange, carrier phase (from the accumulated delta range), Doppler and C/N0 are
+ * derived from the GnssClock and GnssMeasurement fields, as described in the "Using GNSS Raw
+ * Measurements on Android Devices" white paper.
+ *
+ * The header has to list the observation types of each system before the first epoch, so it lists
+ * a fixed set of the signals Android devices report. Each signal's observation code comes from its
+ * CarrierFreqUtils label (the band) and GnssMeasurement.getCodeType() (the attribute), or the most
+ * common attribute of the band if the code type isn't known. Signals with other codes are counted
+ * in {@link #getSkippedSignalCount()} and not written.
+ *
+ * Memory doesn't grow with the length of the log - the rows of an epoch are reused for the next
+ * epoch, and each epoch is written when it ends.
+ */
+public final class RinexObservationWriter {
+
+    public static final String VERSION_3 = "3.05";
+    public static final String VERSION_4 = "4.01";
+
+    public static final String FILE_EXTENSION = "obs";
+
+    /**
+     * Value of the leap second when the GnssClock doesn't have it
+     */
+    public static final int UNKNOWN_LEAP_SECOND = Integer.MIN_VALUE;
+
+    // GnssStatus constellation types
+    static final int CONSTELLATION_GPS = 1;
+    static final int CONSTELLATION_SBAS = 2;
+    static final int CONSTELLATION_GLONASS = 3;
+    static final int CONSTELLATION_QZSS = 4;
+    static final int CONSTELLATION_BEIDOU = 5;
+    static final int CONSTELLATION_GALILEO = 6;
+    static final int CONSTELLATION_IRNSS = 7;
+
+    // GnssMeasurement states
+    static final int STATE_TOW_DECODED = 1 << 3;
+    static final int STATE_GLO_TOD_DECODED = 1 << 7;
+    static final int STATE_TOW_KNOWN = 1 << 14;
+    static final int STATE_GLO_TOD_KNOWN = 1 << 15;
+
+    // GnssMeasurement accumulated delta range states
+    static final int ADR_STATE_VALID = 1;
+    static final int ADR_STATE_RESET = 1 << 1;
+    static final int ADR_STATE_CYCLE_SLIP = 1 << 2;
+    static final int ADR_STATE_HALF_CYCLE_RESOLVED = 1 << 3;
+    static final int ADR_STATE_HALF_CYCLE_REPORTED = 1 << 4;
+
+    private static final double SPEED_OF_LIGHT = 299792458.0;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_DAY = 86400 * NANOS_PER_SECOND;
+    private static final long NANOS_PER_WEEK = 7 * NANOS_PER_DAY;
+    // BeiDou time is 14 seconds behind GPS time
+    private static final long BDT_OFFSET_NANOS = 14 * NANOS_PER_SECOND;
+    // GLONASS time is UTC + 3 hours
+    private static final long GLONASS_OFFSET_NANOS = 3 * 3600 * NANOS_PER_SECOND;
+    // Used if the GnssClock doesn't have the leap second
+    private static final int DEFAULT_LEAP_SECOND = 18;
+    // Days from 1970-01-01 to the GPS epoch 1980-01-06
+    private static final long GPS_EPOCH_DAYS = 3657;
+    // Longest valid pseudorange, which allows for geostationary satellites
+    private static final double MAX_PSEUDORANGE_NANOS = 0.2 * NANOS_PER_SECOND;
+
+    // RINEX system identifiers, in the order systems are written
+    private static final char[] SYSTEMS = {'G', 'R', 'E', 'C', 'J', 'I', 'S'};
+
+    // Signals listed in the header for each system in SYSTEMS - band number and attribute
+    private static final String[][] SIGNALS = {
+            {"1C", "2L", "2S", "2X", "5I", "5Q", "5X"},
+            {"1C", "2C", "3I", "3Q", "3X"},
+            {"1B", "1C", "1X", "5I", "5Q", "5X", "7I", "7Q", "7X", "6C"},
+            {"2I", "1D", "1P", "1X", "5D", "5P", "5X", "7I", "7D", "7P", "6I"},
+            {"1C", "1L", "1X", "2L", "5Q", "5X", "6L"},
+            {"5A", "9A"},
+            {"1C", "5I", "5Q", "5X"},
+    };
+
+    // Observation types written for each signal, in this order
+    private static final char[] OBSERVATIONS = {'C', 'L', 'D', 'S'};
+    private static final int PSEUDORANGE = 0;
+    private static final int PHASE = 1;
+    private static final int DOPPLER = 2;
+    private static final int CN0 = 3;
+
+    private static final int MAX_OBS_TYPES_PER_LINE = 13;
+
+    // Width of a value with its loss of lock and signal strength indicators
+    private static final int OBSERVATION_WIDTH = 16;
+
+    /**
+     * Observations of one satellite in an epoch
+     */
+    private static final class Row {
+        int system;
+        int prn;
+        final double[] values;
+        final byte[] lli;
+        final byte[] ssi;
+
+        Row(int size) {
+            values = new double[size];
+            lli = new byte[size];
+            ssi = new byte[size];
+        }
+
+        void reset(int system, int prn) {
+            this.system = system;
+            this.prn = prn;
+            Arrays.fill(values, Double.NaN);
+            Arrays.fill(lli, (byte) 0);
+            Arrays.fill(ssi, (byte) 0);
+        }
+
+        int compareTo(Row other) {
+            return system != other.system ? Integer.compare(system, other.system)
+                    : Integer.compare(prn, other.prn);
+        }
+    }
+
+    private final Appendable out;
+    private final String version;
+    private final String program;
+    private final String receiverType;
+    private final String receiverVersion;
+    private boolean headerWritten;
+
+    // Rows of the current epoch, and rows kept for reuse after them
+    private final List<Row> rows = new ArrayList<>();
+    private int rowCount;
+    private final StringBuilder line = new StringBuilder(256);
+
+    // Receiver time of the current epoch as GPS time - whole nanoseconds and a fraction
+    private long epochGpsNanos;
+    private double epochSubNanos;
+    private int leapSecond;
+    private boolean inEpoch;
+
+    private int lastDiscontinuityCount = -1;
+    // True if the hardware clock was reset, so all carrier phases have lost lock
+    private boolean clockDiscontinuity;
+
+    private long epochCount;
+    private long skippedSignalCount;
+
+    /**
+     * @param out             destination of the file
+     * @param version         VERSION_3 or VERSION_4
+     * @param program         name and version of the program writing the file
+     * @param receiverType    receiver type for the header, e.g. the device manufacturer and model
+     * @param receiverVersion receiver version for the header, e.g. the Android version
+     * @param headerWritten   true if appending to a file that already has a header
+     */
+    public RinexObservationWriter(Appendable out, String version, String program,
+                                  String receiverType, String receiverVersion, boolean headerWritten) {
+        this.out = out;
+        this.version = version;
+        this.program = program;
+        this.receiverType = receiverType;
+        this.receiverVersion = receiverVersion;
+        this.headerWritten = headerWritten;
+    }
+
+    /**
+     * @return the number of epochs written
+     */
+    public long getEpochCount() {
+        return epochCount;
+    }
+
+    /**
+     * @return the number of signals that weren't written because their observation code isn't
+     * listed in the header
+     */
+    public long getSkippedSignalCount() {
+        return skippedSignalCount;
+    }
+
+    /**
+     * Starts an epoch from the GnssClock of a GnssMeasurementsEvent. The epoch is only written if
+     * the clock has the full bias, since GPS time isn't known without it.
+     *
+     * @param timeNanos                        GnssClock.getTimeNanos()
+     * @param fullBiasNanos                    GnssClock.getFullBiasNanos()
+     * @param biasNanos                        GnssClock.getBiasNanos(), or 0 if it doesn't have it
+     * @param leapSecond                       GnssClock.getLeapSecond(), or UNKNOWN_LEAP_SECOND
+     * @param hardwareClockDiscontinuityCount  GnssClock.getHardwareClockDiscontinuityCount()
+     */
+    public void beginEpoch(long timeNanos, long fullBiasNanos, double biasNanos, int leapSecond,
+                           int hardwareClockDiscontinuityCount) {
+        rowCount = 0;
+        inEpoch = true;
+        epochGpsNanos = timeNanos - fullBiasNanos;
+        epochSubNanos = -biasNanos;
+        this.leapSecond = leapSecond != UNKNOWN_LEAP_SECOND ? leapSecond : DEFAULT_LEAP_SECOND;
+        clockDiscontinuity = lastDiscontinuityCount >= 0
+                && hardwareClockDiscontinuityCount != lastDiscontinuityCount;
+        lastDiscontinuityCount = hardwareClockDiscontinuityCount;
+    }
+
+    /**
+     * Adds the observations of one signal from a GnssMeasurement to the current epoch
+     *
+     * @param constellationType   GnssMeasurement.getConstellationType()
+     * @param svid                GnssMeasurement.getSvid()
+     * @param state               GnssMeasurement.getState()
+     * @param receivedSvTimeNanos GnssMeasurement.getReceivedSvTimeNanos()
+     * @param timeOffsetNanos     GnssMeasurement.getTimeOffsetNanos()
+     * @param cn0DbHz             GnssMeasurement.getCn0DbHz()
+     * @param pseudorangeRateMps  GnssMeasurement.getPseudorangeRateMetersPerSecond()
+     * @param adrState            GnssMeasurement.getAccumulatedDeltaRangeState()
+     * @param adrMeters           GnssMeasurement.getAccumulatedDeltaRangeMeters()
+     * @param carrierFrequencyHz  GnssMeasurement.getCarrierFrequencyHz(), or 0 if it doesn't have it
+     * @param codeType            GnssMeasurement.getCodeType(), or null if it doesn't have it
+     */
+    public void addMeasurement(int constellationType, int svid, int state, long receivedSvTimeNanos,
+                               double timeOffsetNanos, double cn0DbHz, double pseudorangeRateMps,
+                               int adrState, double adrMeters, double carrierFrequencyHz,
+                               String codeType) {
+        if (!inEpoch) {
+            throw new IllegalStateException("addMeasurement() called before beginEpoch()");
+        }
+        int system = getSystem(constellationType);
+        int prn = system < 0 ? -1 : getPrn(system, svid);
+        if (prn <= 0) {
+            skippedSignalCount++;
+            return;
+        }
+        int band = getBand(system, svid, carrierFrequencyHz);
+        char attribute = codeType != null && codeType.length() == 1 && codeType.charAt(0) != 'U'
+                ? codeType.charAt(0) : getDefaultAttribute(system, band);
+        int signal = band < 0 ? -1 : getSignalIndex(system, band, attribute);
+        if (signal < 0) {
+            skippedSignalCount++;
+            return;
+        }
+        Row row = getRow(system, prn);
+        int index = signal * OBSERVATIONS.length;
+        if (!Double.isNaN(row.values[index + CN0])) {
+            // Already have this signal for this satellite in the epoch
+            skippedSignalCount++;
+            return;
+        }
+        byte ssi = (byte) Math.max(1, Math.min(9, (int) (cn0DbHz / 6)));
+
+        double pseudorange = getPseudorangeMeters(system, state, receivedSvTimeNanos, timeOffsetNanos);
+        if (!Double.isNaN(pseudorange)) {
+            row.values[index + PSEUDORANGE] = pseudorange;
+            row.ssi[index + PSEUDORANGE] = ssi;
+        }
+
+        double frequencyHz = carrierFrequencyHz > 0 ? carrierFrequencyHz : getDefaultFrequencyHz(system);
+        if (frequencyHz > 0) {
+            double wavelength = SPEED_OF_LIGHT / frequencyHz;
+            if ((adrState & ADR_STATE_VALID) != 0) {
+                row.values[index + PHASE] = adrMeters / wavelength;
+                row.ssi[index + PHASE] = ssi;
+                int lli = 0;
+                if (clockDiscontinuity || (adrState & (ADR_STATE_RESET | ADR_STATE_CYCLE_SLIP)) != 0) {
+                    lli |= 1;
+                }
+                if ((adrState & ADR_STATE_HALF_CYCLE_REPORTED) != 0
+                        && (adrState & ADR_STATE_HALF_CYCLE_RESOLVED) == 0) {
+                    lli |= 2;
+                }
+                row.lli[index + PHASE] = (byte) lli;
+            }
+            row.values[index + DOPPLER] = -pseudorangeRateMps / wavelength;
+        }
+        row.values[index + CN0] = cn0DbHz;
+    }
+
+    /**
+     * Writes the current epoch, and the header before the first epoch
+     */
+    public void endEpoch() throws IOException {
+        if (!inEpoch) {
+            return;
+        }
+        inEpoch = false;
+        if (rowCount == 0) {
+            return;
+        }
+        if (!headerWritten) {
+            writeHeader();
+            headerWritten = true;
+        }
+        // Satellites in order of system and PRN - epochs are small, so sort in place
+        for (int i = 1; i < rowCount; i++) {
+            Row row = rows.get(i);
+            int j = i - 1;
+            while (j >= 0 && rows.get(j).compareTo(row) > 0) {
+                rows.set(j + 1, rows.get(j));
+                j--;
+            }
+            rows.set(j + 1, row);
+        }
+
+        line.setLength(0);
+        line.append('>');
+        appendTime(line, epochGpsNanos, epochSubNanos, 5, 3, 2, 11);
+        line.append("  0");
+        appendInt(line, rowCount, 3);
+        line.append('\n');
+        for (int r = 0; r < rowCount; r++) {
+            Row row = rows.get(r);
+            line.append(SYSTEMS[row.system]);
+            if (row.prn < 10) {
+                line.append('0');
+            }
+            line.append(row.prn);
+            int count = SIGNALS[row.system].length * OBSERVATIONS.length;
+            // Blank observations at the end of the row are left out
+            int last = count - 1;
+            while (last >= 0 && Double.isNaN(row.values[last])) {
+                last--;
+            }
+            for (int i = 0; i <= last; i++) {
+                appendObservation(line, row.values[i], row.lli[i], row.ssi[i]);
+            }
+            line.append('\n');
+        }
+        out.append(line);
+        epochCount++;
+    }
+
+    private Row getRow(int system, int prn) {
+        for (int i = 0; i < rowCount; i++) {
+            Row row = rows.get(i);
+            if (row.system == system && row.prn == prn) {
+                return row;
+            }
+        }
+        if (rowCount == rows.size()) {
+            rows.add(new Row(maxObservationCount()));
+        }
+        Row row = rows.get(rowCount++);
+        row.reset(system, prn);
+        return row;
+    }
+
+    private static int maxObservationCount() {
+        int max = 0;
+        for (String[] signals : SIGNALS) {
+            max = Math.max(max, signals.length * OBSERVATIONS.length);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the pseudorange of a signal, or NaN if the satellite time isn't known well enough
+     */
+    private double getPseudorangeMeters(int system, int state, long receivedSvTimeNanos,
+                                        double timeOffsetNanos) {
+        long period;
+        long rxNanos;
+        if (SYSTEMS[system] == 'R') {
+            if ((state & (STATE_GLO_TOD_DECODED | STATE_GLO_TOD_KNOWN)) == 0) {
+                return Double.NaN;
+            }
+            period = NANOS_PER_DAY;
+            rxNanos = epochGpsNanos - leapSecond * NANOS_PER_SECOND + GLONASS_OFFSET_NANOS;
+        } else {
+            if ((state & (STATE_TOW_DECODED | STATE_TOW_KNOWN)) == 0) {
+                return Double.NaN;
+            }
+            period = NANOS_PER_WEEK;
+            rxNanos = SYSTEMS[system] == 'C' ? epochGpsNanos - BDT_OFFSET_NANOS : epochGpsNanos;
+        }
+        long wholeNanos = Math.floorMod(rxNanos, period) - receivedSvTimeNanos;
+        // Satellite time is from the previous week or day if the receiver time just rolled over
+        if (wholeNanos < -period / 2) {
+            wholeNanos += period;
+        } else if (wholeNanos > period / 2) {
+            wholeNanos -= period;
+        }
+        double nanos = wholeNanos + epochSubNanos + timeOffsetNanos;
+        if (nanos <= 0 || nanos > MAX_PSEUDORANGE_NANOS) {
+            return Double.NaN;
+        }
+        return nanos * SPEED_OF_LIGHT / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Returns the index of a system in SYSTEMS for a GnssStatus constellation type, or -1 if
+     * there's no RINEX system for it
+     */
+    private static int getSystem(int constellationType) {
+        switch (constellationType) {
+            case CONSTELLATION_GPS:
+                return 0;
+            case CONSTELLATION_GLONASS:
+                return 1;
+            case CONSTELLATION_GALILEO:
+                return 2;
+            case CONSTELLATION_BEIDOU:
+                return 3;
+            case CONSTELLATION_QZSS:
+                return 4;
+            case CONSTELLATION_IRNSS:
+                return 5;
+            case CONSTELLATION_SBAS:
+                return 6;
+            default:
+                return -1;
+        }
+    }
+
+    private static GnssType getGnssType(int system) {
+        switch (SYSTEMS[system]) {
+            case 'G':
+                return GnssType.NAVSTAR;
+            case 'R':
+                return GnssType.GLONASS;
+            case 'E':
+                return GnssType.GALILEO;
+            case 'C':
+                return GnssType.BEIDOU;
+            case 'J':
+                return GnssType.QZSS;
+            case 'I':
+                return GnssType.IRNSS;
+            default:
+                return GnssType.SBAS;
+        }
+    }
+
+    /**
+     * Returns the RINEX satellite number for an Android svid, or -1 if it doesn't have one (e.g., a
+     * GLONASS satellite identified by its frequency channel)
+     */
+    private static int getPrn(int system, int svid) {
+        switch (SYSTEMS[system]) {
+            case 'R':
+                return svid >= 1 && svid <= 24 ? svid : -1;
+            case 'J':
+                return svid >= 193 && svid <= 202 ? svid - 192 : -1;
+            case 'S':
+                return svid >= 120 && svid <= 158 ? svid - 100 : -1;
+            default:
+                return svid >= 1 && svid <= 99 ? svid : -1;
+        }
+    }
+
+    /**
+     * Returns the RINEX band number of a signal from its CarrierFreqUtils code, or -1 if the band
+     * isn't known. Signals without a carrier frequency are assumed to be on the primary band.
+     */
+    private static int getBand(int system, int svid, double carrierFrequencyHz) {
+        char sys = SYSTEMS[system];
+        if (carrierFrequencyHz <= 0) {
+            return sys == 'C' ? 2 : sys == 'I' ? 5 : 1;
+        }
+        int code = CarrierFreqUtils.getCarrierFrequencyCode(getGnssType(system), svid,
+                carrierFrequencyHz / 1.0E6);
+        switch (sys) {
+            case 'E':
+                switch (code) {
+                    case CarrierFreqUtils.CF_CODE_E1: return 1;
+                    case CarrierFreqUtils.CF_CODE_E5A: return 5;
+                    case CarrierFreqUtils.CF_CODE_E5B: return 7;
+                    case CarrierFreqUtils.CF_CODE_E5: return 8;
+                    case CarrierFreqUtils.CF_CODE_E6: return 6;
+                    default: return -1;
+                }
+            case 'C':
+                switch (code) {
+                    case CarrierFreqUtils.CF_CODE_B1I: return 2;
+                    case CarrierFreqUtils.CF_CODE_B1C: return 1;
+                    case CarrierFreqUtils.CF_CODE_B2A: return 5;
+                    case CarrierFreqUtils.CF_CODE_B2B: return 7;
+                    case CarrierFreqUtils.CF_CODE_B3I: return 6;
+                    default: return -1;
+                }
+            case 'I':
+                switch (code) {
+                    case CarrierFreqUtils.CF_CODE_L5: return 5;
+                    case CarrierFreqUtils.CF_CODE_S: return 9;
+                    default: return -1;
+                }
+            default:
+                // GPS, GLONASS, QZSS and SBAS labels are "L" and the band number
+                switch (code) {
+                    case CarrierFreqUtils.CF_CODE_L1: return 1;
+                    case CarrierFreqUtils.CF_CODE_L2: return 2;
+                    case CarrierFreqUtils.CF_CODE_L3: return 3;
+                    case CarrierFreqUtils.CF_CODE_L4: return 4;
+                    case CarrierFreqUtils.CF_CODE_L5: return 5;
+                    case CarrierFreqUtils.CF_CODE_L6: return 6;
+                    default: return -1;
+                }
+        }
+    }
+
+    /**
+     * Returns the RINEX attribute of the most common signal on a band, for devices that don't
+     * report the code type
+     */
+    private static char getDefaultAttribute(int system, int band) {
+        switch (SYSTEMS[system]) {
+            case 'G':
+                return band == 5 ? 'Q' : band == 2 ? 'L' : 'C';
+            case 'E':
+                return band == 1 || band == 6 ? 'C' : 'Q';
+            case 'C':
+                return band == 1 || band == 5 ? 'P' : 'I';
+            case 'J':
+                return band == 5 ? 'Q' : band == 1 ? 'C' : 'L';
+            case 'I':
+                return 'A';
+            case 'S':
+                return band == 5 ? 'I' : 'C';
+            default:
+                return band == 3 ? 'Q' : 'C';
+        }
+    }
+
+    private static int getSignalIndex(int system, int band, char attribute) {
+        String[] signals = SIGNALS[system];
+        for (int i = 0; i < signals.length; i++) {
+            if (signals[i].charAt(0) - '0' == band && signals[i].charAt(1) == attribute) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the frequency of the primary band of a system, or 0 if it isn't the same for all
+     * satellites (GLONASS)
+     */
+    private static double getDefaultFrequencyHz(int system) {
+        switch (SYSTEMS[system]) {
+            case 'C':
+                return 1561.098E6;
+            case 'I':
+                return 1176.45E6;
+            case 'R':
+                return 0;
+            default:
+                return 1575.42E6;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        StringBuilder header = new StringBuilder(4096);
+        line.setLength(0);
+        appendRight(line, version, 9);
+        pad(line, 20);
+        line.append("OBSERVATION DATA");
+        pad(line, 40);
+        line.append('M');
+        appendHeaderLine(header, line, "RINEX VERSION / TYPE");
+
+        line.setLength(0);
+        appendLeft(line, program, 20);
+        appendLeft(line, "", 20);
+        appendDate(line, System.currentTimeMillis());
+        appendHeaderLine(header, line, "PGM / RUN BY / DATE");
+
+        line.setLength(0);
+        line.append("GPSTest");
+        appendHeaderLine(header, line, "MARKER NAME");
+
+        line.setLength(0);
+        line.append("NON_GEODETIC");
+        appendHeaderLine(header, line, "MARKER TYPE");
+
+        line.setLength(0);
+        appendLeft(line, "", 20);
+        appendHeaderLine(header, line, "OBSERVER / AGENCY");
+
+        line.setLength(0);
+        appendLeft(line, "", 20);
+        appendLeft(line, receiverType, 20);
+        appendLeft(line, receiverVersion, 20);
+        appendHeaderLine(header, line, "REC # / TYPE / VERS");
+
+        line.setLength(0);
+        appendLeft(line, "", 20);
+        appendLeft(line, "internal", 20);
+        appendHeaderLine(header, line, "ANT # / TYPE");
+
+        line.setLength(0);
+        appendFixed(line, 0, 14, 4);
+        appendFixed(line, 0, 14, 4);
+        appendFixed(line, 0, 14, 4);
+        appendHeaderLine(header, line, "APPROX POSITION XYZ");
+
+        line.setLength(0);
+        appendFixed(line, 0, 14, 4);
+        appendFixed(line, 0, 14, 4);
+        appendFixed(line, 0, 14, 4);
+        appendHeaderLine(header, line, "ANTENNA: DELTA H/E/N");
+
+        for (int s = 0; s < SYSTEMS.length; s++) {
+            String[] signals = SIGNALS[s];
+            int count = signals.length * OBSERVATIONS.length;
+            line.setLength(0);
+            line.append(SYSTEMS[s]).append("  ");
+            appendInt(line, count, 3);
+            int onLine = 0;
+            for (String signal : signals) {
+                for (char observation : OBSERVATIONS) {
+                    if (onLine == MAX_OBS_TYPES_PER_LINE) {
+                        appendHeaderLine(header, line, "SYS / # / OBS TYPES");
+                        line.setLength(0);
+                        pad(line, 6);
+                        onLine = 0;
+                    }
+                    line.append(' ').append(observation).append(signal);
+                    onLine++;
+                }
+            }
+            appendHeaderLine(header, line, "SYS / # / OBS TYPES");
+        }
+
+        line.setLength(0);
+        line.append("DBHZ");
+        appendHeaderLine(header, line, "SIGNAL STRENGTH UNIT");
+
+        line.setLength(0);
+        appendTime(line, epochGpsNanos, epochSubNanos, 6, 6, 1, 13);
+        pad(line, 48);
+        line.append("GPS");
+        appendHeaderLine(header, line, "TIME OF FIRST OBS");
+
+        if (version.startsWith("3")) {
+            // Required in RINEX 3 but optional in RINEX 4. Phase shift corrections aren't known,
+            // so only the systems are listed.
+            for (char system : SYSTEMS) {
+                line.setLength(0);
+                line.append(system);
+                appendHeaderLine(header, line, "SYS / PHASE SHIFT");
+            }
+
+            line.setLength(0);
+            appendInt(line, 0, 3);
+            appendHeaderLine(header, line, "GLONASS SLOT / FRQ #");
+
+            // Code-phase biases aren't known, so they're left blank
+            line.setLength(0);
+            line.append(" C1C         ");
+            line.append(" C1P         ");
+            line.append(" C2C         ");
+            line.append(" C2P         ");
+            appendHeaderLine(header, line, "GLONASS COD/PHS/BIS");
+        }
+
+        line.setLength(0);
+        appendInt(line, leapSecond, 6);
+        appendHeaderLine(header, line, "LEAP SECONDS");
+
+        line.setLength(0);
+        appendHeaderLine(header, line, "END OF HEADER");
+        out.append(header);
+    }
+
+    private static void appendHeaderLine(StringBuilder header, StringBuilder content, String label) {
+        if (content.length() > 60) {
+            content.setLength(60);
+        }
+        header.append(content);
+        for (int i = content.length(); i < 60; i++) {
+            header.append(' ');
+        }
+        header.append(label).append('\n');
+    }
+
+    /**
+     * Appends a GPS time as right-aligned year, month, day, hour and minute fields, and seconds with
+     * 7 decimals
+     *
+     * @param gpsNanos     nanoseconds since the GPS epoch
+     * @param subNanos     fraction of a nanosecond to add to gpsNanos
+     * @param yearWidth    width of the year field
+     * @param fieldWidth   width of the month, day, hour and minute fields
+     * @param minDigits    minimum digits of the month, day, hour and minute - zeros are added up to this
+     * @param secondsWidth width of the seconds field
+     */
+    private static void appendTime(StringBuilder sb, long gpsNanos, double subNanos, int yearWidth,
+                                   int fieldWidth, int minDigits, int secondsWidth) {
+        // Round to the 100 ns resolution of the seconds
+        long ticks = Math.round((gpsNanos + subNanos) / 100);
+        long ticksPerDay = NANOS_PER_DAY / 100;
+        long days = Math.floorDiv(ticks, ticksPerDay) + GPS_EPOCH_DAYS;
+        long dayTicks = Math.floorMod(ticks, ticksPerDay);
+        int[] date = civilFromDays(days);
+        long secondsTicks = dayTicks % (60 * 10_000_000L);
+        long minutes = dayTicks / (60 * 10_000_000L);
+        appendField(sb, date[0], yearWidth, 4);
+        appendField(sb, date[1], fieldWidth, minDigits);
+        appendField(sb, date[2], fieldWidth, minDigits);
+        appendField(sb, minutes / 60, fieldWidth, minDigits);
+        appendField(sb, minutes % 60, fieldWidth, minDigits);
+        appendFixed(sb, secondsTicks / 1.0E7, secondsWidth, 7);
+    }
+
+    private static void appendField(StringBuilder sb, long value, int width, int minDigits) {
+        int digits = Long.toString(value).length();
+        for (int i = Math.max(digits, minDigits); i < width; i++) {
+            sb.append(' ');
+        }
+        for (int i = digits; i < minDigits; i++) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+
+    /**
+     * Converts days since 1970-01-01 to year, month and day (from Howard Hinnant's date algorithms)
+     */
+    static int[] civilFromDays(long days) {
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long y = yoe + era * 400;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long d = doy - (153 * mp + 2) / 5 + 1;
+        long m = mp < 10 ? mp + 3 : mp - 9;
+        return new int[]{(int) (m <= 2 ? y + 1 : y), (int) m, (int) d};
+    }
+
+    private static void appendDate(StringBuilder sb, long utcMillis) {
+        long days = Math.floorDiv(utcMillis, 86_400_000L);
+        long seconds = Math.floorMod(utcMillis, 86_400_000L) / 1000;
+        int[] date = civilFromDays(days);
+        sb.append(date[0]);
+        appendField(sb, date[1], 2, 2);
+        appendField(sb, date[2], 2, 2);
+        sb.append(' ');
+        appendField(sb, seconds / 3600, 2, 2);
+        appendField(sb, seconds / 60 % 60, 2, 2);
+        appendField(sb, seconds % 60, 2, 2);
+        sb.append(" UTC");
+    }
+
+    private static void appendObservation(StringBuilder sb, double value, int lli, int ssi) {
+        if (Double.isNaN(value) || Math.abs(value) >= 1.0E10) {
+            // Blank, or too large for the field
+            pad(sb, sb.length() + OBSERVATION_WIDTH);
+            return;
+        }
+        appendFixed(sb, value, 14, 3);
+        sb.append(lli == 0 ? ' ' : (char) ('0' + lli));
+        sb.append(ssi == 0 ? ' ' : (char) ('0' + ssi));
+    }
+
+    /**
+     * Appends a number with a fixed number of decimals, right-aligned in a field of the given width,
+     * without the locale-dependent formatting of String.format()
+     */
+    static void appendFixed(StringBuilder sb, double value, int width, int decimals) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        boolean negative = value < 0 && scaled != 0;
+        long whole = scaled / scale;
+        long fraction = scaled % scale;
+        int length = Long.toString(whole).length() + (decimals > 0 ? decimals + 1 : 0) + (negative ? 1 : 0);
+        for (int i = length; i < width; i++) {
+            sb.append(' ');
+        }
+        if (negative) {
+            sb.append('-');
+        }
+        sb.append(whole);
+        if (decimals > 0) {
+            sb.append('.');
+            String digits = Long.toString(fraction);
+            for (int i = digits.length(); i < decimals; i++) {
+                sb.append('0');
+            }
+            sb.append(digits);
+        }
+    }
+
+    private static void appendInt(StringBuilder sb, long value, int width) {
+        appendField(sb, value, width, 1);
+    }
+
+    private static void appendRight(StringBuilder sb, String value, int width) {
+        for (int i = value.length(); i < width; i++) {
+            sb.append(' ');
+        }
+        sb.append(value);
+    }
+
+    private static void appendLeft(StringBuilder sb, String value, int width) {
+        String text = value == null ? "" : value.length() > width ? value.substring(0, width) : value;
+        sb.append(text);
+        for (int i = text.length(); i < width; i++) {
+            sb.append(' ');
+        }
+    }
+
+    /**
+     * Pads with spaces up to the given length
+     */
+    private static void pad(StringBuilder sb, int length) {
+        while (sb.length() < length) {
+            sb.append(' ');
+        }
+    }
+}
@@ -15,13 +15,19 @@
  */
 package com.android.gpstest.library.model
 
+import com.android.gpstest.library.util.SatelliteKeys
+
 /**
- * A container class that represents a satellite sending GNSS or SBAS signals ([status]). The [id] of
- * each satellite is a composite key of the constellation (e.g., GPS) and satellite ID (e.g., 11)
- * using GPSTestUtil.createGnssSatelliteKey().
+ * A container class that represents a satellite sending GNSS or SBAS signals ([status]). The [key] of
+ * each satellite is a packed key of the constellation (e.g., GPS) and satellite ID (e.g., 11)
+ * from SatelliteKeys.satelliteKey(), and [id] is the equivalent String key from
+ * SatelliteUtils.createGnssSatelliteKey(), which is only created when it's needed.
  */
 data class Satellite(
-        val id: String,
-        // Individual signals are stored in a map with the carrier frequency label as the key so we can
-        // see if there are duplicate frequencies.
-        val status: Map<String, SatelliteStatus>)
+        val key: Long,
+        // Individual signals are stored in a map with the carrier frequency code (see CarrierFreqUtils)
+        // as the key so we can see if there are duplicate frequencies.
+        val status: Map<Int, SatelliteStatus>) {
+    val id: String
+        get() = SatelliteKeys.toSatelliteKeyString(key)
+}
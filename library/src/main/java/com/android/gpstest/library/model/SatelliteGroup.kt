@@ -18,9 +18,9 @@ package com.android.gpstest.library.model
 /**
  * A container class that holds a group of [satellites] from multiple constellations (e.g., GNSS,
  * SBAS) and [satelliteMetadata]. [satellites] are stored as a map, and the key to the map is the
- * combination of constellation and svID. The key is created using SatelliteUtils.createGnssSatelliteKey().
+ * combination of constellation and svID packed into a long by SatelliteKeys.satelliteKey().
  */
 data class SatelliteGroup(
-    val satellites: Map<String, Satellite>,
+    val satellites: Map<Long, Satellite>,
     val satelliteMetadata: SatelliteMetadata
 )
@@ -20,7 +20,7 @@ package com.android.gpstest.library.model
  * Summary statistics on the constellation family such as the number of signals in view
  * ([numSignalsInView]), number of signals used in the fix ([numSignalsUsed], and the number
  * of satellites used in the fix ([numSatsUsed]), and the number of satellites in view ([numSatsInView]).
- * [unknownCarrierStatuses] is a Map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+ * [unknownCarrierStatuses] is a Map of signal keys (packed by SatelliteKeys.signalKey()) to the status that
  * has been detected with an unknown GNSS frequency.
  * [isDualFrequencyPerSatInView] is true if this device is viewing multiple signals from the same satellite, false if it is not.
  * [isDualFrequencyPerSatInUse] is true if this device is using multiple signals from the same satellite, false if it is not.
@@ -28,7 +28,7 @@ package com.android.gpstest.library.model
  * only primary carrier frequencies are in view.
  * [isNonPrimaryCarrierFreqInUse] is true if a non-primary carrier frequency is in use by at least one satellite, or false if
  * only primary carrier frequencies are in use.
- * [duplicateCarrierStatuses] is a Map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+ * [duplicateCarrierStatuses] is a Map of signal keys (packed by SatelliteKeys.signalKey()) to the status that
  * has been detected as having duplicate carrier frequency data with another signal.
  */
 data class SatelliteMetadata(
@@ -42,8 +42,8 @@ data class SatelliteMetadata(
     val supportedGnssCfs: Set<String> = HashSet(),
     val supportedSbas: Set<SbasType> = HashSet(),
     val supportedSbasCfs: Set<String> = HashSet(),
-    val unknownCarrierStatuses: Map<String, SatelliteStatus> = HashMap(),
-    val duplicateCarrierStatuses: Map<String, SatelliteStatus> = HashMap(),
+    val unknownCarrierStatuses: Map<Long, SatelliteStatus> = HashMap(),
+    val duplicateCarrierStatuses: Map<Long, SatelliteStatus> = HashMap(),
     val isDualFrequencyPerSatInView: Boolean = false,
     val isDualFrequencyPerSatInUse: Boolean = false,
     val isNonPrimaryCarrierFreqInView: Boolean = false,
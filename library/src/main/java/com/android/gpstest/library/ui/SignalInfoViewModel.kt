@@ -28,6 +28,9 @@ import androidx.lifecycle.viewModelScope
 import com.android.gpstest.library.data.FirstFixState
 import com.android.gpstest.library.data.FixState
 import com.android.gpstest.library.data.LocationRepository
+import com.android.gpstest.library.data.SatelliteEpoch
+import com.android.gpstest.library.data.SatelliteEpochProcessor
+import com.android.gpstest.library.data.SatelliteProjection
 import com.android.gpstest.library.model.DilutionOfPrecision
 import com.android.gpstest.library.model.GnssType
 import com.android.gpstest.library.model.Satellite
@@ -35,16 +38,16 @@ import com.android.gpstest.library.model.SatelliteGroup
 import com.android.gpstest.library.model.SatelliteMetadata
 import com.android.gpstest.library.model.SatelliteStatus
 import com.android.gpstest.library.model.SbasType
-import com.android.gpstest.library.util.CarrierFreqUtils.getCarrierFrequencyLabel
 import com.android.gpstest.library.util.FormatUtils.formatTtff
+import com.android.gpstest.library.util.NmeaSentence
 import com.android.gpstest.library.util.NmeaUtils
 import com.android.gpstest.library.util.PreferenceUtil
 import com.android.gpstest.library.util.PreferenceUtils
-import com.android.gpstest.library.util.SatelliteUtil.toSatelliteGroup
-import com.android.gpstest.library.util.SatelliteUtil.toSatelliteStatus
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.flow.launchIn
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.onEach
@@ -94,12 +97,12 @@ class SignalInfoViewModel @Inject constructor(
     val allSatellitesGroup: LiveData<SatelliteGroup> = _allSatellitesGroup
 
     // GNSS Satellites AFTER applying filter
-    private val _filteredGnssSatellites = MutableLiveData<Map<String, Satellite>>()
-    val filteredGnssSatellites : LiveData<Map<String, Satellite>> = _filteredGnssSatellites
+    private val _filteredGnssSatellites = MutableLiveData<Map<Long, Satellite>>()
+    val filteredGnssSatellites : LiveData<Map<Long, Satellite>> = _filteredGnssSatellites
 
     // SBAS Satellites AFTER applying filter
-    private val _filteredSbasSatellites = MutableLiveData<Map<String, Satellite>>()
-    val filteredSbasSatellites : LiveData<Map<String, Satellite>> = _filteredSbasSatellites
+    private val _filteredSbasSatellites = MutableLiveData<Map<Long, Satellite>>()
+    val filteredSbasSatellites : LiveData<Map<Long, Satellite>> = _filteredSbasSatellites
 
     // Satellite metadata AFTER applying filter
     private val _filteredSatelliteMetadata = MutableLiveData<SatelliteMetadata>()
@@ -122,6 +125,12 @@ class SignalInfoViewModel @Inject constructor(
 
     private var started = false
 
+    // Reused for every NMEA message, so parsing doesn't allocate
+    private val nmeaSentence = NmeaSentence()
+
+    // Only used for statuses passed to updateStatus() - live updates are processed by the repository
+    private val processor by lazy { SatelliteEpochProcessor() }
+
     // Preference listener that will cancel the above flows when the user turns off tracking via UI
     private val trackingListener: SharedPreferences.OnSharedPreferenceChangeListener =
         PreferenceUtil.newStopTrackingListener({setStarted(context, false, prefs)}, prefs)
@@ -166,11 +175,16 @@ class SignalInfoViewModel @Inject constructor(
             return
         }
         // Observe locations via Flow as they are generated by the repository
-        gnssFlow = repository.getGnssStatus()
-            .map { it.toSatelliteStatus() }
-            .onEach {
-                //Log.d(TAG, "SignalInfoViewModel gnssStatus: ${it}")
-                updateStatus(context, it, prefs)
+        gnssFlow = repository.getSatelliteEpochs()
+            .map {
+                // Filter and sort in the background - the projection is shared with other
+                // collectors that use the same filter and sort order
+                Pair(it, project(context, it, prefs))
+            }
+            .flowOn(Dispatchers.Default)
+            .onEach { (epoch, projection) ->
+                //Log.d(TAG, "SignalInfoViewModel gnssStatus: ${epoch.statuses}")
+                updateEpoch(epoch, projection)
             }
             .launchIn(viewModelScope)
     }
@@ -214,156 +228,44 @@ class SignalInfoViewModel @Inject constructor(
     @ExperimentalCoroutinesApi
     @VisibleForTesting
     fun updateStatus(context: Context, status: List<SatelliteStatus>, prefs: SharedPreferences) {
-        _allStatuses.value = status
-        _allSatellitesGroup.value = status.toSatelliteGroup()
-
-        // Get filter set by user in UI
-        val filter = PreferenceUtils.gnssFilter(context, prefs)
-
-        // Split list into GNSS and SBAS statuses, apply "shown" filter, and update view model
-        val (gnssStatus, sbasStatus) = status
-            .filter {
-                filter.isEmpty() || filter.contains(it.gnssType)
-            }
-            .partition {
-                it.gnssType != GnssType.SBAS
-            }
-
-        _filteredStatuses.value = gnssStatus + sbasStatus
-        setFilteredAndSortedStatuses(sort(context, gnssStatus, true, prefs), sort(context, sbasStatus, false, prefs))
+        val epoch = processor.process(status)
+        updateEpoch(epoch, project(context, epoch, prefs))
     }
 
     /**
-     * Returns a sorted version of the provided [status] list according to the sort preference of
-     * the user, with [isGnss] set to true if the list contains all GNSS signals and false if
-     * it contains all SBAS signals
+     * Returns the statuses and satellites of an [epoch] for the filter and sort order set by the
+     * user in the UI
      */
-    private fun sort(context: Context, status: List<SatelliteStatus>, isGnss: Boolean, prefs: SharedPreferences): List<SatelliteStatus> {
-        return when (PreferenceUtils.getSatSortOrderFromPreferences(context, prefs)) {
-            0 -> {
-                // Sort by Constellation
-                if (isGnss) {
-                    status.sortedWith(compareBy(SatelliteStatus::gnssType, SatelliteStatus::svid))
-                } else {
-                    status.sortedWith(compareBy(SatelliteStatus::sbasType, SatelliteStatus::svid))
-                }
-            }
-            1 -> {
-                // Sort by Carrier Frequency (raw CF, then label to group L5s, E5a, etc.)
-                status.sortedWith(
-                    compareBy<SatelliteStatus> {
-                        it.carrierFrequencyHz
-                    }.thenBy {
-                        getCarrierFrequencyLabel(it)
-                    }.thenBy {
-                        it.svid
-                    }
-                )
-            }
-            2 -> {
-                // Sort by Signal Strength
-                status.sortedWith(compareByDescending(SatelliteStatus::cn0DbHz))
-            }
-            3 -> {
-                // Sort by Used in Fix
-                status.sortedWith(
-                    compareByDescending(SatelliteStatus::usedInFix).thenComparing(
-                        SatelliteStatus::svid
-                    )
-                )
-            }
-            4 -> {
-                // Sort by Constellation, Carrier Frequency
-                if (isGnss) {
-                    status.sortedWith(
-                        compareBy(
-                            SatelliteStatus::gnssType,
-                            SatelliteStatus::carrierFrequencyHz,
-                            SatelliteStatus::svid
-                        )
-                    )
-                } else {
-                    status.sortedWith(
-                        compareBy(
-                            SatelliteStatus::sbasType,
-                            SatelliteStatus::carrierFrequencyHz,
-                            SatelliteStatus::svid
-                        )
-                    )
-                }
-            }
-            5 -> {
-                // Sort by Constellation, Signal Strength
-                if (isGnss) {
-                    status.sortedWith(
-                        compareBy(SatelliteStatus::gnssType).thenByDescending(
-                            SatelliteStatus::cn0DbHz
-                        )
-                    )
-                } else {
-                    status.sortedWith(
-                        compareBy(SatelliteStatus::sbasType).thenByDescending(
-                            SatelliteStatus::cn0DbHz
-                        )
-                    )
-                }
-            }
-            6 -> {
-                // Sort by Constellation, Used in Fix
-                if (isGnss) {
-                    status.sortedWith(
-                        compareBy(SatelliteStatus::gnssType).thenByDescending(
-                            SatelliteStatus::usedInFix
-                        ).thenComparing(SatelliteStatus::svid)
-                    )
-                } else {
-                    status.sortedWith(
-                        compareBy(SatelliteStatus::sbasType).thenByDescending(
-                            SatelliteStatus::usedInFix
-                        ).thenComparing(SatelliteStatus::svid)
-                    )
-                }
-            }
-            else -> status
-        }
+    private fun project(context: Context, epoch: SatelliteEpoch, prefs: SharedPreferences): SatelliteProjection {
+        return epoch.project(
+            PreferenceUtils.gnssFilter(context, prefs),
+            PreferenceUtils.getSatSortOrderFromPreferences(context, prefs)
+        )
     }
 
-
     /**
-     * Adds a new set of GNSS and SBAS status objects (signals) so they can be analyzed and grouped
-     * into satellites. Filter and sorting should have been applied before calling this method so
-     * only signals and satellites that will be shown to the user are included.
-     *
-     * @param gnssStatuses a new set of GNSS status objects (signals)
-     * @param sbasStatuses a new set of SBAS status objects (signals)
+     * Updates the view model with a new epoch and its [projection] for the filter and sort order,
+     * so only signals and satellites that will be shown to the user are included in the filtered
+     * values. Values that didn't change since the last epoch keep their instance and aren't set
+     * again, so observers aren't notified.
      */
-    private fun setFilteredAndSortedStatuses(gnssStatuses: List<SatelliteStatus>, sbasStatuses: List<SatelliteStatus>) {
-        this._filteredGnssStatuses.value = gnssStatuses
-        this._filteredSbasStatuses.value = sbasStatuses
-
-        val gnssSatellites = gnssStatuses.toSatelliteGroup()
-        this._filteredGnssSatellites.value = gnssSatellites.satellites
-        val sbasSatellites = sbasStatuses.toSatelliteGroup()
-        this._filteredSbasSatellites.value = sbasSatellites.satellites
-
-        _filteredSatelliteMetadata.value = SatelliteMetadata(
-            gnssSatellites.satelliteMetadata.numSignalsInView + sbasSatellites.satelliteMetadata.numSignalsInView,
-            gnssSatellites.satelliteMetadata.numSignalsUsed + sbasSatellites.satelliteMetadata.numSignalsUsed,
-            gnssSatellites.satelliteMetadata.numSignalsTotal + sbasSatellites.satelliteMetadata.numSignalsTotal,
-            gnssSatellites.satelliteMetadata.numSatsInView + sbasSatellites.satelliteMetadata.numSatsInView,
-            gnssSatellites.satelliteMetadata.numSatsUsed + sbasSatellites.satelliteMetadata.numSatsUsed,
-            gnssSatellites.satelliteMetadata.numSatsTotal + sbasSatellites.satelliteMetadata.numSatsTotal,
-            gnssSatellites.satelliteMetadata.supportedGnss,
-            gnssSatellites.satelliteMetadata.supportedGnssCfs,
-            sbasSatellites.satelliteMetadata.supportedSbas,
-            sbasSatellites.satelliteMetadata.supportedSbasCfs,
-            gnssSatellites.satelliteMetadata.unknownCarrierStatuses + sbasSatellites.satelliteMetadata.unknownCarrierStatuses,
-            gnssSatellites.satelliteMetadata.duplicateCarrierStatuses + sbasSatellites.satelliteMetadata.duplicateCarrierStatuses,
-            gnssSatellites.satelliteMetadata.isDualFrequencyPerSatInView or sbasSatellites.satelliteMetadata.isDualFrequencyPerSatInView,
-            gnssSatellites.satelliteMetadata.isDualFrequencyPerSatInUse or sbasSatellites.satelliteMetadata.isDualFrequencyPerSatInUse,
-            gnssSatellites.satelliteMetadata.isNonPrimaryCarrierFreqInView or sbasSatellites.satelliteMetadata.isNonPrimaryCarrierFreqInView,
-            gnssSatellites.satelliteMetadata.isNonPrimaryCarrierFreqInUse or sbasSatellites.satelliteMetadata.isNonPrimaryCarrierFreqInUse
-        )
+    private fun updateEpoch(epoch: SatelliteEpoch, projection: SatelliteProjection) {
+        _allStatuses.value = epoch.statuses
+        if (epoch.satelliteGroup !== _allSatellitesGroup.value) {
+            _allSatellitesGroup.value = epoch.satelliteGroup
+        }
+        _filteredStatuses.value = projection.filteredStatuses
+        _filteredGnssStatuses.value = projection.gnssStatuses
+        _filteredSbasStatuses.value = projection.sbasStatuses
+        if (projection.gnssSatellites.satellites !== _filteredGnssSatellites.value) {
+            _filteredGnssSatellites.value = projection.gnssSatellites.satellites
+        }
+        if (projection.sbasSatellites.satellites !== _filteredSbasSatellites.value) {
+            _filteredSbasSatellites.value = projection.sbasSatellites.satellites
+        }
+        if (projection.satelliteMetadata !== _filteredSatelliteMetadata.value) {
+            _filteredSatelliteMetadata.value = projection.satelliteMetadata
+        }
     }
 
     private fun onGnssFirstFix(ttffMillis: Int) {
@@ -380,14 +282,18 @@ class SignalInfoViewModel @Inject constructor(
     }
 
     private fun onNmeaMessage(message: String, timestamp: Long) {
-        if (message.startsWith("\$GPGGA") || message.startsWith("\$GNGNS") || message.startsWith("\$GNGGA")) {
-            val altitudeMsl = NmeaUtils.getAltitudeMeanSeaLevel(message)
+        if (!nmeaSentence.parse(message) || nmeaSentence.checksumState == NmeaSentence.CHECKSUM_INVALID) {
+            // Corrupted sentences shouldn't update the UI
+            return
+        }
+        if (nmeaSentence.isAddress("GPGGA") || nmeaSentence.isAddress("GNGNS") || nmeaSentence.isAddress("GNGGA")) {
+            val altitudeMsl = NmeaUtils.getAltitudeMeanSeaLevel(nmeaSentence)
             if (altitudeMsl != null && started) {
                 _altitudeMsl.value = altitudeMsl
             }
         }
-        if (message.startsWith("\$GNGSA") || message.startsWith("\$GPGSA")) {
-            val dop = NmeaUtils.getDop(message)
+        if (nmeaSentence.isAddress("GNGSA") || nmeaSentence.isAddress("GPGSA")) {
+            val dop = NmeaUtils.getDop(nmeaSentence)
             if (dop != null && started) {
                 _dop.value = dop
             }
@@ -458,23 +364,23 @@ class SignalInfoViewModel @Inject constructor(
     private var gotFirstFix = false
 
     /**
-     * Returns a map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * Returns a map of signal keys (packed by SatelliteKeys.signalKey()) to the status that
      * has been detected as having duplicate carrier frequency data with another signal
      *
-     * @return a map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * @return a map of signal keys (packed by SatelliteKeys.signalKey()) to the status that
      * has been detected as having duplicate carrier frequency data with another signal
      */
-    val duplicateCarrierStatuses: Map<String, SatelliteStatus>
+    val duplicateCarrierStatuses: Map<Long, SatelliteStatus>
         get() = allSatellitesGroup.value?.satelliteMetadata?.duplicateCarrierStatuses ?: emptyMap()
 
     /**
-     * Returns a map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * Returns a map of signal keys (packed by SatelliteKeys.signalKey()) to the status that
      * has been detected with an unknown GNSS frequency
      *
-     * @return a map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * @return a map of signal keys (packed by SatelliteKeys.signalKey()) to the status that
      * has been detected with an unknown GNSS frequency
      */
-    val unknownCarrierStatuses: Map<String, SatelliteStatus>
+    val unknownCarrierStatuses: Map<Long, SatelliteStatus>
         get() = allSatellitesGroup.value?.satelliteMetadata?.unknownCarrierStatuses ?: emptyMap()
 
     /**
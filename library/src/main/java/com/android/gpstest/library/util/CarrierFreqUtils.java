@@ -20,8 +20,12 @@ import android.os.Build;
 
 import androidx.annotation.RequiresApi;
 
+import com.android.gpstest.library.model.GnssType;
 import com.android.gpstest.library.model.SatelliteStatus;
 
+import java.util.Arrays;
+import java.util.function.DoubleFunction;
+
 public class CarrierFreqUtils {
 
     /**
@@ -35,6 +39,76 @@ public class CarrierFreqUtils {
 
     static final double CF_TOLERANCE_MHZ = 1d;
 
+    /*
+     * Codes for carrier frequency labels, which are cheaper to compare and store than the labels.
+     * getLabel() returns the label for a code.
+     */
+    public static final int CF_CODE_UNKNOWN = 0;
+    public static final int CF_CODE_UNSUPPORTED = 1;
+    public static final int CF_CODE_L1 = 2;
+    public static final int CF_CODE_L2 = 3;
+    public static final int CF_CODE_L3 = 4;
+    public static final int CF_CODE_L4 = 5;
+    public static final int CF_CODE_L5 = 6;
+    public static final int CF_CODE_L6 = 7;
+    public static final int CF_CODE_L1_C = 8;
+    public static final int CF_CODE_S = 9;
+    public static final int CF_CODE_E1 = 10;
+    public static final int CF_CODE_E5 = 11;
+    public static final int CF_CODE_E5A = 12;
+    public static final int CF_CODE_E5B = 13;
+    public static final int CF_CODE_E6 = 14;
+    public static final int CF_CODE_B1I = 15;
+    public static final int CF_CODE_B1C = 16;
+    public static final int CF_CODE_B2A = 17;
+    public static final int CF_CODE_B2B = 18;
+    public static final int CF_CODE_B3I = 19;
+
+    private static final String[] LABELS = {
+            CF_UNKNOWN, CF_UNSUPPORTED, "L1", "L2", "L3", "L4", "L5", "L6", "L1-C", "S",
+            "E1", "E5", "E5a", "E5b", "E6", "B1I", "B1C", "B2a", "B2b", "B3I"
+    };
+
+    /**
+     * The number of carrier frequency codes, for arrays indexed by code
+     */
+    static final int CF_CODE_COUNT = LABELS.length;
+
+    /*
+     * Lookup tables for each constellation, built from the get*Cf() methods below so they return
+     * exactly the same labels
+     */
+    private static final FrequencyTable NAVSTAR_TABLE = new FrequencyTable(
+            CarrierFreqUtils::getNavstarCF, fuzzyBounds(1575.42, 1227.6, 1381.05, 1379.913, 1176.45));
+    private static final FrequencyTable GLONASS_TABLE = new FrequencyTable(
+            CarrierFreqUtils::getGlonassCf, concat(new double[]{1598.0, 1606.0, 1242.0, 1249.0},
+            fuzzyBounds(1207.14, 1176.45, 1575.42)));
+    private static final FrequencyTable BEIDOU_TABLE = new FrequencyTable(
+            CarrierFreqUtils::getBeidoucCf, fuzzyBounds(1561.098, 1575.42, 1176.45, 1207.14, 1268.52));
+    private static final FrequencyTable QZSS_TABLE = new FrequencyTable(
+            CarrierFreqUtils::getQzssCf, fuzzyBounds(1575.42, 1227.6, 1176.45, 1278.75));
+    private static final FrequencyTable GALILEO_TABLE = new FrequencyTable(
+            CarrierFreqUtils::getGalileoCf, fuzzyBounds(1575.42, 1191.795, 1176.45, 1207.14, 1278.75));
+    private static final FrequencyTable IRNSS_TABLE = new FrequencyTable(
+            CarrierFreqUtils::getIrnssCf, fuzzyBounds(1575.42, 1176.45, 2492.028));
+    // SBAS satellites that broadcast on L1 and L5 (EGNOS, SouthPAN, MSAS and WAAS), and L1 only (GAGAN)
+    private static final FrequencyTable SBAS_L1_L5_TABLE = new FrequencyTable(
+            cfMhz -> getSbasCf(121, cfMhz), fuzzyBounds(1575.42, 1176.45));
+    private static final FrequencyTable SBAS_L1_TABLE = new FrequencyTable(
+            cfMhz -> getSbasCf(127, cfMhz), fuzzyBounds(1575.42));
+    // Tables indexed by GnssType ordinal, which is cheaper than a switch on the enum
+    private static final FrequencyTable[] TABLES = new FrequencyTable[GnssType.values().length];
+
+    static {
+        Arrays.fill(TABLES, FrequencyTable.EMPTY);
+        TABLES[GnssType.NAVSTAR.ordinal()] = NAVSTAR_TABLE;
+        TABLES[GnssType.GLONASS.ordinal()] = GLONASS_TABLE;
+        TABLES[GnssType.BEIDOU.ordinal()] = BEIDOU_TABLE;
+        TABLES[GnssType.QZSS.ordinal()] = QZSS_TABLE;
+        TABLES[GnssType.GALILEO.ordinal()] = GALILEO_TABLE;
+        TABLES[GnssType.IRNSS.ordinal()] = IRNSS_TABLE;
+    }
+
     /**
      * Returns the label that should be displayed for a given GNSS constellation, svid, and carrier
      * frequency in MHz, or null if no carrier frequency label is found
@@ -44,34 +118,100 @@ public class CarrierFreqUtils {
      * frequency in MHz, "unsupported" if CF aren't supported on this device, or "unknown" if no carrier frequency label is found
      */
     public static String getCarrierFrequencyLabel(SatelliteStatus status) {
+        return getLabel(getCarrierFrequencyCode(status));
+    }
+
+    /**
+     * Returns the code of the carrier frequency label of a signal (see getCarrierFrequencyLabel())
+     *
+     * @param status Satellite signal to get the carrier frequency code for
+     * @return the CF_CODE_* constant for the signal, CF_CODE_UNSUPPORTED if CF aren't supported on
+     * this device, or CF_CODE_UNKNOWN if no carrier frequency label is found
+     */
+    public static int getCarrierFrequencyCode(SatelliteStatus status) {
         if (!SatelliteUtils.isCfSupported() || !status.getHasCarrierFrequency()) {
-            return CF_UNSUPPORTED;
+            return CF_CODE_UNSUPPORTED;
+        }
+        return getCarrierFrequencyCode(status.getGnssType(), status.getSvid(),
+                MathUtils.toMhz(status.getCarrierFrequencyHz()));
+    }
+
+    /**
+     * Returns the code of the carrier frequency label of a signal in a GnssEpoch, the same as
+     * getCarrierFrequencyCode() of its SatelliteStatus
+     *
+     * @param epoch the signals of a GnssStatus
+     * @param i     index of the signal in the epoch
+     * @return the CF_CODE_* constant for the signal, CF_CODE_UNSUPPORTED if CF aren't supported on
+     * this device, or CF_CODE_UNKNOWN if no carrier frequency label is found
+     */
+    public static int getCarrierFrequencyCode(GnssEpoch epoch, int i) {
+        if (!SatelliteUtils.isCfSupported() || !epoch.hasFlag(i, GnssEpoch.FLAG_HAS_CARRIER_FREQUENCY)) {
+            return CF_CODE_UNSUPPORTED;
         }
-        double cfMhz = MathUtils.toMhz(status.getCarrierFrequencyHz());
-        int svid = status.getSvid();
-
-        switch (status.getGnssType()) {
-            case NAVSTAR:
-                return getNavstarCF(cfMhz);
-            case GLONASS:
-                return getGlonassCf(cfMhz);
-            case BEIDOU:
-                return getBeidoucCf(cfMhz);
-            case QZSS:
-                return getQzssCf(cfMhz);
-            case GALILEO:
-                return getGalileoCf(cfMhz);
-            case IRNSS:
-                return getIrnssCf(cfMhz);
-            case SBAS:
-                return getSbasCf(svid, cfMhz);
-            case UNKNOWN:
-                break;
+        return getCarrierFrequencyCode(epoch.getGnssType(i), epoch.getSvid(i),
+                MathUtils.toMhz(epoch.getCarrierFrequencyHz(i)));
+    }
+
+    /**
+     * Returns the label that should be displayed for a given GNSS constellation, svid, and carrier
+     * frequency in MHz, without checking whether the device supports carrier frequencies (e.g.,
+     * for signals read from a log file)
+     *
+     * @param gnssType constellation of the signal
+     * @param svid identification number of the satellite
+     * @param cfMhz carrier frequency of the signal in MHz
+     * @return the label that should be displayed for the signal, or "unknown" if no carrier
+     * frequency label is found
+     */
+    public static String getCarrierFrequencyLabel(GnssType gnssType, int svid, double cfMhz) {
+        return getLabel(getCarrierFrequencyCode(gnssType, svid, cfMhz));
+    }
+
+    /**
+     * Returns the code of the carrier frequency label for a given GNSS constellation, svid, and
+     * carrier frequency in MHz, without checking whether the device supports carrier frequencies
+     *
+     * @param gnssType constellation of the signal
+     * @param svid identification number of the satellite
+     * @param cfMhz carrier frequency of the signal in MHz
+     * @return the CF_CODE_* constant for the signal, or CF_CODE_UNKNOWN if no carrier frequency
+     * label is found
+     */
+    public static int getCarrierFrequencyCode(GnssType gnssType, int svid, double cfMhz) {
+        FrequencyTable table = gnssType == GnssType.SBAS ? getSbasTable(svid) : TABLES[gnssType.ordinal()];
+        return table.lookup(cfMhz);
+    }
+
+    /**
+     * Returns the carrier frequency label for a code from getCarrierFrequencyCode()
+     *
+     * @param code a CF_CODE_* constant
+     * @return the carrier frequency label (e.g. "L1"), or "unknown" if the code isn't valid
+     */
+    public static String getLabel(int code) {
+        return code >= 0 && code < LABELS.length ? LABELS[code] : CF_UNKNOWN;
+    }
+
+    /**
+     * Returns the lookup table for an SBAS satellite, following the same svid groups as getSbasCf()
+     */
+    private static FrequencyTable getSbasTable(int svid) {
+        switch (svid) {
+            case 121: case 123: case 126: case 136: case 150: // EGNOS
+            case 122: // SouthPAN
+            case 129: case 137: case 139: // MSAS
+            case 131: case 133: case 135: case 138: // WAAS
+                return SBAS_L1_L5_TABLE;
+            case 127: case 128: case 132: // GAGAN
+                return SBAS_L1_TABLE;
+            case 125: case 140: case 141: // SDCM
+                return GLONASS_TABLE;
+            case 130: case 143: case 144: // BDSBAS
+                return BEIDOU_TABLE;
             default:
-                break;
+                return FrequencyTable.EMPTY;
         }
-        // Unknown carrier frequency for given constellation and svid
-        return CF_UNKNOWN;
     }
 
     /**
@@ -291,4 +431,121 @@ public class CarrierFreqUtils {
     public static boolean isPrimaryCarrier(String label) {
         return label.equals("L1") || label.equals("E1") || label.equals("L1-C") || label.equals("B1I") || label.equals("B1C");
     }
+
+    /**
+     * Returns true if the provided carrier frequency code is a primary carrier frequency (see
+     * isPrimaryCarrier(String))
+     *
+     * @param code a CF_CODE_* constant
+     * @return true if the code is a primary carrier frequency (e.g., "L1")
+     */
+    public static boolean isPrimaryCarrier(int code) {
+        return code == CF_CODE_L1 || code == CF_CODE_E1 || code == CF_CODE_L1_C || code == CF_CODE_B1I
+                || code == CF_CODE_B1C;
+    }
+
+    /**
+     * Returns the bounds of the fuzzyEquals() ranges around each carrier frequency. Carrier
+     * frequencies are between 1024 and 2048 MHz or 2048 and 4096 MHz, so adding or subtracting the
+     * tolerance is exact, as is the subtraction in fuzzyEquals() for nearby frequencies - the
+     * bounds are exactly where fuzzyEquals() changes.
+     */
+    private static double[] fuzzyBounds(double... cfMhz) {
+        double[] bounds = new double[cfMhz.length * 2];
+        for (int i = 0; i < cfMhz.length; i++) {
+            bounds[i * 2] = cfMhz[i] - CF_TOLERANCE_MHZ;
+            bounds[i * 2 + 1] = cfMhz[i] + CF_TOLERANCE_MHZ;
+        }
+        return bounds;
+    }
+
+    private static double[] concat(double[] a, double[] b) {
+        double[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static int toCode(String label) {
+        for (int i = 0; i < LABELS.length; i++) {
+            if (LABELS[i].equals(label)) {
+                return i;
+            }
+        }
+        return CF_CODE_UNKNOWN;
+    }
+
+    /**
+     * Carrier frequency codes for a constellation, indexed by the bounds of the frequency ranges
+     * of its labels. Each label is a closed range of frequencies, so between two adjacent bounds
+     * the label is the same - the table holds the code at each bound and in each gap between
+     * bounds, sampled from a get*Cf() method. Where ranges overlap (e.g., GPS L3 and L4), the
+     * sampled method decides, as it did before.
+     *
+     * lookup() first indexes 1 MHz buckets directly, which answers for nearly every measured
+     * frequency, and only falls back to a binary search of the bounds for a bucket with a bound
+     * in it.
+     */
+    private static final class FrequencyTable {
+        static final FrequencyTable EMPTY = new FrequencyTable(cfMhz -> CF_UNKNOWN);
+
+        private static final int MIXED_BUCKET = -1;
+
+        // Sorted, distinct bounds
+        private final double[] bounds;
+        // Code at each bound
+        private final int[] boundCodes;
+        // Code below bounds[0] (index 0), between bounds[i - 1] and bounds[i], and above the last bound
+        private final int[] gapCodes;
+        // Code for each 1 MHz from firstBucketMhz, or MIXED_BUCKET if a bound is in the bucket
+        private final int[] buckets;
+        private final double firstBucketMhz;
+
+        FrequencyTable(DoubleFunction<String> classifier, double... rangeBounds) {
+            bounds = Arrays.stream(rangeBounds).sorted().distinct().toArray();
+            boundCodes = new int[bounds.length];
+            gapCodes = new int[bounds.length + 1];
+            for (int i = 0; i < bounds.length; i++) {
+                boundCodes[i] = toCode(classifier.apply(bounds[i]));
+                double below = i == 0 ? bounds[i] - CF_TOLERANCE_MHZ : (bounds[i - 1] + bounds[i]) / 2;
+                gapCodes[i] = toCode(classifier.apply(below));
+            }
+            gapCodes[bounds.length] = bounds.length == 0 ? toCode(classifier.apply(0))
+                    : toCode(classifier.apply(bounds[bounds.length - 1] + CF_TOLERANCE_MHZ));
+
+            if (bounds.length == 0) {
+                buckets = new int[0];
+                firstBucketMhz = 0;
+                return;
+            }
+            firstBucketMhz = Math.floor(bounds[0]);
+            buckets = new int[(int) (Math.floor(bounds[bounds.length - 1]) - firstBucketMhz) + 1];
+            int bound = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                double end = firstBucketMhz + i + 1;
+                if (bound < bounds.length && bounds[bound] < end) {
+                    buckets[i] = MIXED_BUCKET;
+                    while (bound < bounds.length && bounds[bound] < end) {
+                        bound++;
+                    }
+                } else {
+                    // No bound in this bucket, so it's all in the gap before the next bound
+                    buckets[i] = gapCodes[bound];
+                }
+            }
+        }
+
+        int lookup(double cfMhz) {
+            double offset = cfMhz - firstBucketMhz;
+            if (offset >= 0 && offset < buckets.length) {
+                int code = buckets[(int) offset];
+                if (code != MIXED_BUCKET) {
+                    return code;
+                }
+            } else if (Double.isNaN(cfMhz)) {
+                return CF_CODE_UNKNOWN;
+            }
+            int i = Arrays.binarySearch(bounds, cfMhz);
+            return i >= 0 ? boundCodes[i] : gapCodes[-i - 1];
+        }
+    }
 }
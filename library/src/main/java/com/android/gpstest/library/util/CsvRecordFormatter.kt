@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.util
+
+import android.location.GnssClock
+import android.location.GnssMeasurement
+import android.location.Location
+import android.os.Build
+import com.android.gpstest.library.model.Orientation
+import com.android.gpstest.library.model.SatelliteStatus
+import com.android.gpstest.library.util.SatelliteUtil.isBearingAccuracySupported
+import com.android.gpstest.library.util.SatelliteUtil.isSpeedAccuracySupported
+import com.android.gpstest.library.util.SatelliteUtil.isVerticalAccuracySupported
+import com.android.gpstest.library.util.SatelliteUtil.toGnssStatusConstellationType
+import java.io.IOException
+import java.io.Writer
+import java.util.concurrent.TimeUnit
+
+/**
+ * Formats log records to CSV in exactly the same format as the FormatUtils.toLog() functions,
+ * but appends each field directly into a reusable char buffer instead of creating a String (and a
+ * BigDecimal for each float and double) per field. Once the buffer has grown to fit the longest
+ * record, formatting a record doesn't allocate.
+ *
+ * This class isn't thread-safe - each logger should use its own instance from a single thread.
+ */
+class CsvRecordFormatter @JvmOverloads constructor(initialCapacity: Int = 512) {
+
+    private var buffer = CharArray(initialCapacity)
+
+    /**
+     * The number of chars currently in the buffer
+     */
+    var length = 0
+        private set
+
+    // Holds the output of StringBuilder.append(double/float), which doesn't allocate
+    private val scratch = StringBuilder(32)
+
+    // Significant digits of a number in scientific notation
+    private val digits = CharArray(32)
+
+    /**
+     * Clears the buffer so the next record can be formatted
+     */
+    fun reset(): CsvRecordFormatter {
+        length = 0
+        return this
+    }
+
+    /**
+     * Writes the contents of the buffer to [writer]
+     */
+    @Throws(IOException::class)
+    fun writeTo(writer: Writer) {
+        writer.write(buffer, 0, length)
+    }
+
+    override fun toString(): String {
+        return String(buffer, 0, length)
+    }
+
+    /**
+     * Appends the Raw record for [clock] and [measurement] - see FormatUtils.toLog(elapsedRealtime, elapsedRealtimeNanos, clock, measurement)
+     */
+    fun appendRaw(
+        elapsedRealtime: Long,
+        elapsedRealtimeNanos: Long,
+        clock: GnssClock,
+        measurement: GnssMeasurement
+    ): CsvRecordFormatter {
+        // Raw,utcTimeMillis,TimeNanos,LeapSecond,TimeUncertaintyNanos,FullBiasNanos,BiasNanos,BiasUncertaintyNanos,DriftNanosPerSecond,DriftUncertaintyNanosPerSecond,HardwareClockDiscontinuityCount
+        append("Raw,").append(elapsedRealtime).append(',').append(clock.timeNanos).append(',')
+        if (clock.hasLeapSecond()) append(clock.leapSecond.toLong())
+        append(',')
+        if (clock.hasTimeUncertaintyNanos()) appendPlain(clock.timeUncertaintyNanos)
+        append(',')
+        if (clock.hasFullBiasNanos()) append(clock.fullBiasNanos)
+        append(',')
+        if (clock.hasBiasNanos()) appendPlain(clock.biasNanos)
+        append(',')
+        if (clock.hasBiasUncertaintyNanos()) appendPlain(clock.biasUncertaintyNanos)
+        append(',')
+        if (clock.hasDriftNanosPerSecond()) appendPlain(clock.driftNanosPerSecond)
+        append(',')
+        if (clock.hasDriftUncertaintyNanosPerSecond()) appendPlain(clock.driftUncertaintyNanosPerSecond)
+        append(',').append(clock.hardwareClockDiscontinuityCount.toLong()).append(',')
+
+        // Svid,TimeOffsetNanos,State,ReceivedSvTimeNanos,ReceivedSvTimeUncertaintyNanos,Cn0DbHz,PseudorangeRateMetersPerSecond,PseudorangeRateUncertaintyMetersPerSecond,AccumulatedDeltaRangeState,AccumulatedDeltaRangeMeters,AccumulatedDeltaRangeUncertaintyMeters,
+        append(measurement.svid.toLong()).append(',')
+        appendPlain(measurement.timeOffsetNanos).append(',')
+        append(measurement.state.toLong()).append(',')
+        append(measurement.receivedSvTimeNanos).append(',')
+        append(measurement.receivedSvTimeUncertaintyNanos).append(',')
+        appendPlain(measurement.cn0DbHz).append(',')
+        appendPlain(measurement.pseudorangeRateMetersPerSecond).append(',')
+        appendPlain(measurement.pseudorangeRateUncertaintyMetersPerSecond).append(',')
+        append(measurement.accumulatedDeltaRangeState.toLong()).append(',')
+        appendPlain(measurement.accumulatedDeltaRangeMeters).append(',')
+        appendPlain(measurement.accumulatedDeltaRangeUncertaintyMeters).append(',')
+
+        // CarrierFrequencyHz,CarrierCycles,CarrierPhase,CarrierPhaseUncertainty,MultipathIndicator,SnrInDb,ConstellationType,AgcDb,
+        if (measurement.hasCarrierFrequencyHz()) appendPlain(measurement.carrierFrequencyHz)
+        append(',')
+        if (measurement.hasCarrierCycles()) append(measurement.carrierCycles)
+        append(',')
+        if (measurement.hasCarrierPhase()) appendPlain(measurement.carrierPhase)
+        append(',')
+        if (measurement.hasCarrierPhaseUncertainty()) appendPlain(measurement.carrierPhaseUncertainty)
+        append(',').append(measurement.multipathIndicator.toLong()).append(',')
+        if (measurement.hasSnrInDb()) appendPlain(measurement.snrInDb)
+        append(',').append(measurement.constellationType.toLong()).append(',')
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && measurement.hasAutomaticGainControlLevelDb()) {
+            appendPlain(measurement.automaticGainControlLevelDb)
+        }
+        append(',')
+
+        // BasebandCn0DbHz,FullInterSignalBiasNanos,FullInterSignalBiasUncertaintyNanos,SatelliteInterSignalBiasNanos,SatelliteInterSignalBiasUncertaintyNanos,CodeType,ChipsetElapsedRealtimeNanos
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            if (measurement.hasBasebandCn0DbHz()) appendPlain(measurement.basebandCn0DbHz)
+            append(',')
+            if (measurement.hasFullInterSignalBiasNanos()) appendPlain(measurement.fullInterSignalBiasNanos)
+            append(',')
+            if (measurement.hasFullInterSignalBiasUncertaintyNanos()) appendPlain(measurement.fullInterSignalBiasUncertaintyNanos)
+            append(',')
+            if (measurement.hasSatelliteInterSignalBiasNanos()) appendPlain(measurement.satelliteInterSignalBiasNanos)
+            append(',')
+            if (measurement.hasSatelliteInterSignalBiasUncertaintyNanos()) appendPlain(measurement.satelliteInterSignalBiasUncertaintyNanos)
+            append(',')
+        } else {
+            append(",,,,,")
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && measurement.hasCodeType()) {
+            append(measurement.codeType)
+        }
+        return append(',').append(elapsedRealtimeNanos)
+    }
+
+    /**
+     * Appends the Fix record for [location] - see FormatUtils.toLog(location)
+     */
+    fun appendFix(location: Location): CsvRecordFormatter {
+        append("Fix,").append(location.provider.toString()).append(',')
+        appendPlain(location.latitude).append(',')
+        appendPlain(location.longitude).append(',')
+        appendPlain(location.altitude).append(',')
+        appendPlain(location.speed).append(',')
+        appendPlain(location.accuracy).append(',')
+        appendPlain(location.bearing).append(',')
+        append(location.time).append(',')
+        if (location.isSpeedAccuracySupported()) appendPlain(location.speedAccuracyMetersPerSecond)
+        append(',')
+        if (location.isBearingAccuracySupported()) appendPlain(location.bearingAccuracyDegrees)
+        append(',').append(location.elapsedRealtimeNanos).append(',')
+        if (location.isVerticalAccuracySupported()) appendPlain(location.verticalAccuracyMeters)
+        append(',')
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) appendFlag(location.isMock)
+        return this
+    }
+
+    /**
+     * Appends the Status record for [status] - see FormatUtils.toLog(status, unixTimeMillis, signalCount, signalIndex)
+     */
+    fun appendStatus(
+        status: SatelliteStatus,
+        unixTimeMillis: Long,
+        signalCount: Int,
+        signalIndex: Int
+    ): CsvRecordFormatter {
+        append("Status,").append(unixTimeMillis).append(',')
+        append(signalCount.toLong()).append(',')
+        append(signalIndex.toLong()).append(',')
+        append(status.gnssType.toGnssStatusConstellationType().toLong()).append(',')
+        append(status.svid.toLong()).append(',')
+        appendPlain(status.carrierFrequencyHz).append(',')
+        appendPlain(status.cn0DbHz).append(',')
+        appendPlain(status.azimuthDegrees).append(',')
+        appendPlain(status.elevationDegrees).append(',')
+        appendFlag(status.usedInFix).append(',')
+        appendFlag(status.hasAlmanac).append(',')
+        appendFlag(status.hasEphemeris).append(',')
+        if (status.hasBasebandCn0DbHz) appendPlain(status.basebandCn0DbHz)
+        return this
+    }
+
+    /**
+     * Appends the OrientationDeg record for [orientation] - see FormatUtils.toLog(orientation, currentTimeMs, millisSinceBootMs)
+     */
+    fun appendOrientation(
+        orientation: Orientation,
+        currentTimeMs: Long,
+        millisSinceBootMs: Long
+    ): CsvRecordFormatter {
+        val timeAtBootMs = currentTimeMs - millisSinceBootMs
+        append("OrientationDeg,")
+        append(TimeUnit.NANOSECONDS.toMillis(orientation.elapsedRealtimeNanos) + timeAtBootMs).append(',')
+        append(orientation.elapsedRealtimeNanos).append(',')
+        appendPlain(orientation.values[0]).append(',')
+        appendPlain(orientation.values[1]).append(',')
+        return appendPlain(orientation.values[2])
+    }
+
+    fun append(c: Char): CsvRecordFormatter {
+        ensureCapacity(1)
+        buffer[length++] = c
+        return this
+    }
+
+    fun append(s: String): CsvRecordFormatter {
+        ensureCapacity(s.length)
+        s.toCharArray(buffer, length, 0, s.length)
+        length += s.length
+        return this
+    }
+
+    fun append(value: Long): CsvRecordFormatter {
+        if (value == Long.MIN_VALUE) {
+            // Can't be negated
+            return append(value.toString())
+        }
+        ensureCapacity(20)
+        var v = value
+        if (v < 0) {
+            buffer[length++] = '-'
+            v = -v
+        }
+        val start = length
+        do {
+            buffer[length++] = '0' + (v % 10).toInt()
+            v /= 10
+        } while (v != 0L)
+        // Digits were written least significant first
+        var i = start
+        var j = length - 1
+        while (i < j) {
+            val tmp = buffer[i]
+            buffer[i++] = buffer[j]
+            buffer[j--] = tmp
+        }
+        return this
+    }
+
+    /**
+     * Appends 1 for true and 0 for false - see FormatUtils.toLog() for Boolean
+     */
+    fun appendFlag(value: Boolean): CsvRecordFormatter {
+        return append(if (value) '1' else '0')
+    }
+
+    /**
+     * Appends [value] as its full numeric value, NOT using scientific notation. Output is identical
+     * to FormatUtils.toLog() for Float.
+     */
+    fun appendPlain(value: Float): CsvRecordFormatter {
+        scratch.setLength(0)
+        scratch.append(value)
+        return appendPlainScratch()
+    }
+
+    /**
+     * Appends [value] as its full numeric value, NOT using scientific notation. Output is identical
+     * to FormatUtils.toLog() for Double.
+     */
+    fun appendPlain(value: Double): CsvRecordFormatter {
+        scratch.setLength(0)
+        scratch.append(value)
+        return appendPlainScratch()
+    }
+
+    /**
+     * Converts the Float/Double.toString() output in [scratch] to the same text that
+     * BigDecimal(toString()).toPlainString() would produce and appends it
+     */
+    private fun appendPlainScratch(): CsvRecordFormatter {
+        val s = scratch
+        val first = s[0]
+        if (first == 'N' || first == 'I' || (first == '-' && s[1] == 'I')) {
+            // BigDecimal can't represent these either
+            throw NumberFormatException("Infinite or NaN")
+        }
+        val negative = first == '-'
+        val exponentIndex = s.indexOf('E')
+        if (exponentIndex < 0) {
+            // Already plain - only negative zero differs, as BigDecimal has no negative zero
+            val start = if (negative && isZero(1, s.length)) 1 else 0
+            ensureCapacity(s.length - start)
+            for (i in start until s.length) {
+                buffer[length++] = s[i]
+            }
+            return this
+        }
+
+        // Scientific notation, like "1.0E-20" - collect the significant digits and exponent
+        var numDigits = 0
+        var fractionDigits = 0
+        var inFraction = false
+        for (i in (if (negative) 1 else 0) until exponentIndex) {
+            val c = s[i]
+            if (c == '.') {
+                inFraction = true
+            } else {
+                digits[numDigits++] = c
+                if (inFraction) fractionDigits++
+            }
+        }
+        var exponent = 0
+        var exponentNegative = false
+        for (i in exponentIndex + 1 until s.length) {
+            val c = s[i]
+            if (c == '-') {
+                exponentNegative = true
+            } else {
+                exponent = exponent * 10 + (c - '0')
+            }
+        }
+        if (exponentNegative) exponent = -exponent
+        // Same as the BigDecimal scale - number of digits to the right of the decimal point
+        val scale = fractionDigits - exponent
+
+        ensureCapacity(numDigits + Math.abs(scale) + 3)
+        if (negative) buffer[length++] = '-'
+        when {
+            scale <= 0 -> {
+                // Integer - pad with trailing zeros
+                appendDigits(0, numDigits)
+                repeat(-scale) { buffer[length++] = '0' }
+            }
+            numDigits > scale -> {
+                appendDigits(0, numDigits - scale)
+                buffer[length++] = '.'
+                appendDigits(numDigits - scale, numDigits)
+            }
+            else -> {
+                buffer[length++] = '0'
+                buffer[length++] = '.'
+                repeat(scale - numDigits) { buffer[length++] = '0' }
+                appendDigits(0, numDigits)
+            }
+        }
+        return this
+    }
+
+    private fun appendDigits(from: Int, to: Int) {
+        for (i in from until to) {
+            buffer[length++] = digits[i]
+        }
+    }
+
+    private fun isZero(from: Int, to: Int): Boolean {
+        for (i in from until to) {
+            val c = scratch[i]
+            if (c != '0' && c != '.') return false
+        }
+        return true
+    }
+
+    private fun ensureCapacity(extra: Int) {
+        if (length + extra > buffer.size) {
+            buffer = buffer.copyOf(maxOf(buffer.size * 2, length + extra))
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.util;
+
+import android.location.GnssStatus;
+import android.os.Build;
+
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.model.SatelliteStatus;
+import com.android.gpstest.library.model.SbasType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The signals of one GnssStatus callback, stored as parallel primitive arrays (one entry per
+ * signal) instead of a SatelliteStatus per signal. The arrays grow to the largest signal count
+ * seen and are then reused, so filling an epoch doesn't allocate - see GnssEpochBuffer, which
+ * double-buffers epochs.
+ *
+ * getStatus() creates the SatelliteStatus of a signal the first time it's requested, for consumers
+ * that still need them. GnssEpochBuffer carries a created SatelliteStatus over to the next epoch
+ * when the signal at the same index has the same values, so unchanged signals keep their object.
+ * Created SatelliteStatus objects are never modified, so they can be kept after the epoch is
+ * refilled.
+ *
+ * Instances aren't thread-safe.
+ */
+public final class GnssEpoch {
+
+    public static final int FLAG_HAS_ALMANAC = 1;
+    public static final int FLAG_HAS_EPHEMERIS = 1 << 1;
+    public static final int FLAG_USED_IN_FIX = 1 << 2;
+    public static final int FLAG_HAS_CARRIER_FREQUENCY = 1 << 3;
+    public static final int FLAG_HAS_BASEBAND_CN0 = 1 << 4;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int count;
+    private int[] svids;
+    private int[] constellationTypes;
+    private int[] flags;
+    private float[] cn0sDbHz;
+    private float[] elevationsDegrees;
+    private float[] azimuthsDegrees;
+    private float[] basebandCn0sDbHz;
+    private double[] carrierFrequenciesHz;
+    private SatelliteStatus[] statuses;
+
+    public GnssEpoch() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        svids = new int[capacity];
+        constellationTypes = new int[capacity];
+        flags = new int[capacity];
+        cn0sDbHz = new float[capacity];
+        elevationsDegrees = new float[capacity];
+        azimuthsDegrees = new float[capacity];
+        basebandCn0sDbHz = new float[capacity];
+        carrierFrequenciesHz = new double[capacity];
+        statuses = new SatelliteStatus[capacity];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= svids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, svids.length * 2);
+        svids = Arrays.copyOf(svids, newCapacity);
+        constellationTypes = Arrays.copyOf(constellationTypes, newCapacity);
+        flags = Arrays.copyOf(flags, newCapacity);
+        cn0sDbHz = Arrays.copyOf(cn0sDbHz, newCapacity);
+        elevationsDegrees = Arrays.copyOf(elevationsDegrees, newCapacity);
+        azimuthsDegrees = Arrays.copyOf(azimuthsDegrees, newCapacity);
+        basebandCn0sDbHz = Arrays.copyOf(basebandCn0sDbHz, newCapacity);
+        carrierFrequenciesHz = Arrays.copyOf(carrierFrequenciesHz, newCapacity);
+        statuses = Arrays.copyOf(statuses, newCapacity);
+    }
+
+    /**
+     * Removes all signals, keeping the capacity
+     */
+    public void clear() {
+        Arrays.fill(statuses, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * Replaces the signals of this epoch with those of a GnssStatus, the same values that
+     * SatelliteUtil.toSatelliteStatus() reads
+     */
+    public void fill(GnssStatus status) {
+        clear();
+        int satelliteCount = status.getSatelliteCount();
+        ensureCapacity(satelliteCount);
+        for (int i = 0; i < satelliteCount; i++) {
+            int f = 0;
+            if (status.hasAlmanacData(i)) {
+                f |= FLAG_HAS_ALMANAC;
+            }
+            if (status.hasEphemerisData(i)) {
+                f |= FLAG_HAS_EPHEMERIS;
+            }
+            if (status.usedInFix(i)) {
+                f |= FLAG_USED_IN_FIX;
+            }
+            double carrierFrequencyHz = 0.0;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && status.hasCarrierFrequencyHz(i)) {
+                f |= FLAG_HAS_CARRIER_FREQUENCY;
+                carrierFrequencyHz = status.getCarrierFrequencyHz(i);
+            }
+            float basebandCn0DbHz = SatelliteStatus.NO_DATA;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && status.hasBasebandCn0DbHz(i)) {
+                f |= FLAG_HAS_BASEBAND_CN0;
+                basebandCn0DbHz = status.getBasebandCn0DbHz(i);
+            }
+            add(status.getSvid(i), status.getConstellationType(i), status.getCn0DbHz(i),
+                    status.getElevationDegrees(i), status.getAzimuthDegrees(i), f,
+                    carrierFrequencyHz, basebandCn0DbHz);
+        }
+    }
+
+    /**
+     * Adds a signal to this epoch
+     *
+     * @param constellationType a GnssStatus.CONSTELLATION_* constant
+     * @param flags             the FLAG_* constants of the signal
+     * @return the index of the signal
+     */
+    public int add(int svid, int constellationType, float cn0DbHz, float elevationDegrees,
+                   float azimuthDegrees, int flags, double carrierFrequencyHz, float basebandCn0DbHz) {
+        ensureCapacity(count + 1);
+        int i = count++;
+        svids[i] = svid;
+        constellationTypes[i] = constellationType;
+        this.flags[i] = flags;
+        cn0sDbHz[i] = cn0DbHz;
+        elevationsDegrees[i] = elevationDegrees;
+        azimuthsDegrees[i] = azimuthDegrees;
+        carrierFrequenciesHz[i] = (flags & FLAG_HAS_CARRIER_FREQUENCY) != 0 ? carrierFrequencyHz : 0.0;
+        basebandCn0sDbHz[i] = (flags & FLAG_HAS_BASEBAND_CN0) != 0 ? basebandCn0DbHz : SatelliteStatus.NO_DATA;
+        return i;
+    }
+
+    /**
+     * @return the number of signals in this epoch
+     */
+    public int size() {
+        return count;
+    }
+
+    public int getSvid(int i) {
+        return svids[i];
+    }
+
+    /**
+     * @return the GnssStatus.CONSTELLATION_* constant of signal [i]
+     */
+    public int getConstellationType(int i) {
+        return constellationTypes[i];
+    }
+
+    public GnssType getGnssType(int i) {
+        return SatelliteUtil.toGnssType(constellationTypes[i]);
+    }
+
+    /**
+     * @return the SBAS type of signal [i] if it's an SBAS signal, or SbasType.UNKNOWN
+     */
+    public SbasType getSbasType(int i) {
+        return constellationTypes[i] == GnssStatus.CONSTELLATION_SBAS
+                ? SatelliteUtil.INSTANCE.toSbasType(svids[i]) : SbasType.UNKNOWN;
+    }
+
+    /**
+     * @return the FLAG_* constants of signal [i]
+     */
+    public int getFlags(int i) {
+        return flags[i];
+    }
+
+    public boolean hasFlag(int i, int flag) {
+        return (flags[i] & flag) != 0;
+    }
+
+    public boolean isUsedInFix(int i) {
+        return (flags[i] & FLAG_USED_IN_FIX) != 0;
+    }
+
+    public float getCn0DbHz(int i) {
+        return cn0sDbHz[i];
+    }
+
+    public float getElevationDegrees(int i) {
+        return elevationsDegrees[i];
+    }
+
+    public float getAzimuthDegrees(int i) {
+        return azimuthsDegrees[i];
+    }
+
+    /**
+     * @return the carrier frequency of signal [i], or 0.0 if it doesn't have FLAG_HAS_CARRIER_FREQUENCY
+     */
+    public double getCarrierFrequencyHz(int i) {
+        return carrierFrequenciesHz[i];
+    }
+
+    /**
+     * @return the baseband C/N0 of signal [i], or NO_DATA if it doesn't have FLAG_HAS_BASEBAND_CN0
+     */
+    public float getBasebandCn0DbHz(int i) {
+        return basebandCn0sDbHz[i];
+    }
+
+    /**
+     * @return the SatelliteStatus of signal [i], which is created the first time it's requested
+     */
+    public SatelliteStatus getStatus(int i) {
+        if (i >= count) {
+            throw new IndexOutOfBoundsException("Index " + i + ", size " + count);
+        }
+        SatelliteStatus s = statuses[i];
+        if (s == null) {
+            s = createStatus(i);
+            statuses[i] = s;
+        }
+        return s;
+    }
+
+    /**
+     * @return a new list with the SatelliteStatus of each signal, like SatelliteUtil.toSatelliteStatus()
+     */
+    public List<SatelliteStatus> toSatelliteStatusList() {
+        List<SatelliteStatus> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(getStatus(i));
+        }
+        return list;
+    }
+
+    private SatelliteStatus createStatus(int i) {
+        int f = flags[i];
+        SatelliteStatus s = new SatelliteStatus(
+                svids[i],
+                getGnssType(i),
+                cn0sDbHz[i],
+                (f & FLAG_HAS_ALMANAC) != 0,
+                (f & FLAG_HAS_EPHEMERIS) != 0,
+                (f & FLAG_USED_IN_FIX) != 0,
+                elevationsDegrees[i],
+                azimuthsDegrees[i]);
+        if ((f & FLAG_HAS_CARRIER_FREQUENCY) != 0) {
+            s.setHasCarrierFrequency(true);
+            s.setCarrierFrequencyHz(carrierFrequenciesHz[i]);
+        }
+        if ((f & FLAG_HAS_BASEBAND_CN0) != 0) {
+            s.setHasBasebandCn0DbHz(true);
+            s.setBasebandCn0DbHz(basebandCn0sDbHz[i]);
+        }
+        s.setSbasType(getSbasType(i));
+        return s;
+    }
+
+    /**
+     * Carries the created SatelliteStatus of each signal in a previous epoch over to the signal at
+     * the same index in this epoch, if all of its values are the same
+     */
+    void reuseStatuses(GnssEpoch previous) {
+        int n = Math.min(count, previous.count);
+        for (int i = 0; i < n; i++) {
+            SatelliteStatus s = previous.statuses[i];
+            if (s != null && statuses[i] == null && isSameSignal(previous, i)) {
+                statuses[i] = s;
+            }
+        }
+    }
+
+    private boolean isSameSignal(GnssEpoch other, int i) {
+        return svids[i] == other.svids[i]
+                && constellationTypes[i] == other.constellationTypes[i]
+                && flags[i] == other.flags[i]
+                && Float.floatToIntBits(cn0sDbHz[i]) == Float.floatToIntBits(other.cn0sDbHz[i])
+                && Float.floatToIntBits(elevationsDegrees[i]) == Float.floatToIntBits(other.elevationsDegrees[i])
+                && Float.floatToIntBits(azimuthsDegrees[i]) == Float.floatToIntBits(other.azimuthsDegrees[i])
+                && Float.floatToIntBits(basebandCn0sDbHz[i]) == Float.floatToIntBits(other.basebandCn0sDbHz[i])
+                && Double.doubleToLongBits(carrierFrequenciesHz[i]) == Double.doubleToLongBits(other.carrierFrequenciesHz[i]);
+    }
+}
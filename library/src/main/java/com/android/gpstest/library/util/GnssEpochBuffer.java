@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.util;
+
+import android.location.GnssStatus;
+
+/**
+ * Double-buffers GnssEpochs - each GnssStatus is written into the epoch that isn't current, which
+ * then becomes current, so the previous epoch stays readable while the next one is filled and
+ * neither is reallocated. An epoch returned by fill() is valid until the fill() after next.
+ *
+ * Instances aren't thread-safe - use one buffer per producer.
+ */
+public final class GnssEpochBuffer {
+
+    private GnssEpoch current = new GnssEpoch();
+    private GnssEpoch next = new GnssEpoch();
+
+    /**
+     * Fills the next epoch with a GnssStatus and makes it current
+     *
+     * @return the new current epoch
+     */
+    public GnssEpoch fill(GnssStatus status) {
+        begin().fill(status);
+        return commit();
+    }
+
+    /**
+     * Clears the next epoch so signals can be added to it with GnssEpoch.add(), e.g., for
+     * statuses that don't come from a GnssStatus. Call commit() when it's filled.
+     *
+     * @return the next epoch
+     */
+    public GnssEpoch begin() {
+        next.clear();
+        return next;
+    }
+
+    /**
+     * Makes the epoch from begin() current, reusing the SatelliteStatus objects of the signals
+     * that didn't change since the previous epoch
+     *
+     * @return the new current epoch
+     */
+    public GnssEpoch commit() {
+        next.reuseStatuses(current);
+        GnssEpoch epoch = next;
+        next = current;
+        current = epoch;
+        return epoch;
+    }
+
+    /**
+     * @return the epoch from the last fill() or commit(), which is empty before the first one
+     */
+    public GnssEpoch getCurrent() {
+        return current;
+    }
+}
@@ -32,21 +32,17 @@ import android.os.Build;
 import android.text.TextUtils;
 import android.util.Log;
 
-import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.FileProvider;
 
 import com.android.gpstest.library.R;
-import com.android.gpstest.library.io.FileToDeleteFilter;
 import com.google.zxing.integration.android.IntentIntegrator;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 public class IOUtils {
 
@@ -58,8 +54,6 @@ public class IOUtils {
 
     private static final String NM_OUTPUT_TAG = "GpsOutputNav";
 
-    private static final int MAX_FILES_STORED = 100;
-
     /**
      * Returns the ground truth location encapsulated in the Intent if the provided Intent has a
      * SHOW_RADAR action (com.google.android.radar.SHOW_RADAR) with a valid latitude and longitude or ACTION_VIEW action with geo URI, or
@@ -314,30 +308,6 @@ public class IOUtils {
         return FileProvider.getUriForFile(context, applicationId + ".provider", file);
     }
 
-    /**
-     * Deletes old files in the given baseDirectory, except the fileNotToDelete
-     *
-     * @param baseDirectory   base directory in which to delete files
-     * @param fileNotToDelete file not to delete
-     */
-    public static void deleteOldFiles(@NonNull File baseDirectory, File... fileNotToDelete) {
-        // To make sure that files do not fill up the external storage:
-        // - Remove all empty files
-        FileFilter filter = new FileToDeleteFilter(fileNotToDelete);
-        for (File pastFile : baseDirectory.listFiles(filter)) {
-            pastFile.delete();
-        }
-        // - Trim the number of files with data
-        File[] pastFiles = baseDirectory.listFiles();
-        int filesToDeleteCount = pastFiles.length - MAX_FILES_STORED;
-        if (filesToDeleteCount > 0) {
-            Arrays.sort(pastFiles);
-            for (int i = 0; i < filesToDeleteCount; ++i) {
-                pastFiles[i].delete();
-            }
-        }
-    }
-
     /**
      * Outputs the provided nmea message and timestamp to log
      *
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map from primitive long keys (e.g., from SatelliteKeys) to objects, using open addressing
+ * with linear probing, so keys aren't boxed and entries aren't allocated.
+ *
+ * asMap() returns a read-only java.util.Map view for code that needs one, which boxes keys as
+ * they're read.
+ *
+ * Instances aren't thread-safe.
+ */
+public final class LongObjectMap<V> {
+
+    /**
+     * Receives the entries of the map from forEach()
+     */
+    public interface Consumer<V> {
+        void accept(long key, V value);
+    }
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    private Map<Long, V> mapView;
+
+    public LongObjectMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param expectedSize the number of entries the map will hold without resizing
+     */
+    public LongObjectMap(int expectedSize) {
+        // Keep the load factor at or below 0.5 so probes stay short
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+        // Mix the bits so keys that differ only in the high bits (e.g., the constellation) spread out
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long key) {
+        int i = hash(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the value for a key, or null if the map doesn't contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Adds or replaces the value for a key
+     *
+     * @return the previous value for the key, or null if there wasn't one
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int i = hash(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+        return null;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int j = hash(oldKeys[i]) & mask;
+                while (used[j]) {
+                    j = (j + 1) & mask;
+                }
+                used[j] = true;
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Removes the value for a key
+     *
+     * @return the removed value, or null if the map didn't contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V removed = (V) values[i];
+        // Shift later entries of the probe sequence back into the gap, so lookups still find them
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!used[j]) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            // Move the entry if its home slot isn't cyclically between the gap and its slot
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        used[gap] = false;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries, keeping the capacity so the map can be reused
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Passes each entry to the consumer, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super V> consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return a read-only Map view of this map, which reflects later changes
+     */
+    public Map<Long, V> asMap() {
+        if (mapView == null) {
+            mapView = new MapView();
+        }
+        return mapView;
+    }
+
+    private final class MapView extends AbstractMap<Long, V> {
+        private Set<Entry<Long, V>> entrySet;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Long && LongObjectMap.this.containsKey((Long) key);
+        }
+
+        @Override
+        public V get(Object key) {
+            return key instanceof Long ? LongObjectMap.this.get((Long) key) : null;
+        }
+
+        @Override
+        public Set<Entry<Long, V>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<Entry<Long, V>>() {
+                    @Override
+                    public Iterator<Entry<Long, V>> iterator() {
+                        return new EntryIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+            }
+            return entrySet;
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<Long, V>> {
+        private int next = advance(0);
+
+        private int advance(int i) {
+            while (i < keys.length && !used[i]) {
+                i++;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Long, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<Long, V> entry = new AbstractMap.SimpleImmutableEntry<>(keys[next], (V) values[next]);
+            next = advance(next + 1);
+            return entry;
+        }
+    }
+}
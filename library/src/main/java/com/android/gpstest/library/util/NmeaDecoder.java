@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.util;
+
+/**
+ * Decodes GSV, RMC, GST, VTG, ZDA and GBS sentences into typed {@link NmeaRecord}s, on top of
+ * {@link NmeaSentence}. The decoder holds one record of each type and reuses it for every sentence
+ * of that type, so a record is only valid until the next sentence of the same type is decoded.
+ *
+ * Instances aren't thread-safe - use one decoder per consumer.
+ */
+public final class NmeaDecoder {
+
+    private final NmeaSentence sentence = new NmeaSentence();
+
+    private final NmeaRecord.Gsv gsv = new NmeaRecord.Gsv();
+    private final NmeaRecord.Rmc rmc = new NmeaRecord.Rmc();
+    private final NmeaRecord.Gst gst = new NmeaRecord.Gst();
+    private final NmeaRecord.Vtg vtg = new NmeaRecord.Vtg();
+    private final NmeaRecord.Zda zda = new NmeaRecord.Zda();
+    private final NmeaRecord.Gbs gbs = new NmeaRecord.Gbs();
+
+    /**
+     * Decodes a sentence
+     *
+     * @param message   an NMEA sentence, from OnNmeaMessageListener
+     * @param timestamp the timestamp of the sentence, from OnNmeaMessageListener
+     * @return the decoded record, or null if the sentence isn't one of the supported types, has an
+     * invalid checksum, or is truncated
+     */
+    public NmeaRecord decode(CharSequence message, long timestamp) {
+        if (!sentence.parse(message)) {
+            return null;
+        }
+        return decode(sentence, timestamp);
+    }
+
+    /**
+     * Decodes a sentence that has already been tokenized, so callers that also read other sentence
+     * types only tokenize it once
+     *
+     * @param s         a tokenized NMEA sentence
+     * @param timestamp the timestamp of the sentence, from OnNmeaMessageListener
+     * @return the decoded record, or null if the sentence isn't one of the supported types, has an
+     * invalid checksum, or is truncated
+     */
+    public NmeaRecord decode(NmeaSentence s, long timestamp) {
+        if (s.getChecksumState() == NmeaSentence.CHECKSUM_INVALID) {
+            return null;
+        }
+        NmeaRecord record;
+        if (s.isType("GSV")) {
+            record = decodeGsv(s);
+        } else if (s.isType("RMC")) {
+            record = decodeRmc(s);
+        } else if (s.isType("GST")) {
+            record = decodeGst(s);
+        } else if (s.isType("VTG")) {
+            record = decodeVtg(s);
+        } else if (s.isType("ZDA")) {
+            record = decodeZda(s);
+        } else if (s.isType("GBS")) {
+            record = decodeGbs(s);
+        } else {
+            return null;
+        }
+        if (record != null) {
+            CharSequence text = s.getSentence();
+            record.timestamp = timestamp;
+            // isType() has checked that the address is 5 characters after the '$'
+            record.talker0 = text.charAt(1);
+            record.talker1 = text.charAt(2);
+        }
+        return record;
+    }
+
+    // $GPGSV,3,1,12,03,25,304,38,14,52,047,41,16,38,205,35,22,61,332,44*7C
+    // NMEA 4.10 adds a signal ID after the last satellite
+    private NmeaRecord.Gsv decodeGsv(NmeaSentence s) {
+        if (s.getFieldCount() < 4) {
+            return null;
+        }
+        NmeaRecord.Gsv r = gsv;
+        r.clear();
+        r.messageCount = s.getInt(1, -1);
+        r.messageNumber = s.getInt(2, -1);
+        r.satellitesInView = s.getInt(3, -1);
+        int satelliteFields = s.getFieldCount() - 4;
+        int count = Math.min(satelliteFields / 4, NmeaRecord.Gsv.MAX_SATELLITES);
+        for (int i = 0; i < count; i++) {
+            int field = 4 + i * 4;
+            r.svids[i] = s.getInt(field, -1);
+            r.elevations[i] = (float) s.getDouble(field + 1);
+            r.azimuths[i] = (float) s.getDouble(field + 2);
+            r.cn0s[i] = (float) s.getDouble(field + 3);
+        }
+        r.satelliteCount = count;
+        if (satelliteFields % 4 == 1) {
+            r.signalId = hexInt(s, s.getFieldCount() - 1);
+        }
+        return r;
+    }
+
+    // $GNRMC,172814.00,A,2803.208136,N,08225.981423,W,0.0,,150324,,,A,V*01
+    private NmeaRecord.Rmc decodeRmc(NmeaSentence s) {
+        if (s.getFieldCount() < 10) {
+            return null;
+        }
+        NmeaRecord.Rmc r = rmc;
+        r.clear();
+        r.utcTimeSeconds = utcTime(s, 1);
+        r.valid = s.getChar(2) == 'A';
+        r.latitudeDegrees = degrees(s, 3, 'S');
+        r.longitudeDegrees = degrees(s, 5, 'W');
+        r.speedKnots = s.getDouble(7);
+        r.courseDegrees = s.getDouble(8);
+        int date = s.getFieldLength(9) == 6 ? s.getInt(9, -1) : -1;
+        if (date >= 0) {
+            r.day = date / 10000;
+            r.month = date / 100 % 100;
+            // Two-digit year - GPS time starts in 1980, so 80-99 are the 1900s
+            int yy = date % 100;
+            r.year = yy >= 80 ? 1900 + yy : 2000 + yy;
+        }
+        double variation = s.getDouble(10);
+        r.magneticVariationDegrees = s.getChar(11) == 'W' ? -variation : variation;
+        r.modeIndicator = s.getChar(12);
+        r.navigationStatus = s.getChar(13);
+        return r;
+    }
+
+    // $GPGST,172814.0,0.006,0.023,0.020,273.6,0.023,0.020,0.031*6A
+    private NmeaRecord.Gst decodeGst(NmeaSentence s) {
+        if (s.getFieldCount() < 9) {
+            return null;
+        }
+        NmeaRecord.Gst r = gst;
+        r.clear();
+        r.utcTimeSeconds = utcTime(s, 1);
+        r.rmsRangeMeters = s.getDouble(2);
+        r.semiMajorErrorMeters = s.getDouble(3);
+        r.semiMinorErrorMeters = s.getDouble(4);
+        r.semiMajorOrientationDegrees = s.getDouble(5);
+        r.latitudeErrorMeters = s.getDouble(6);
+        r.longitudeErrorMeters = s.getDouble(7);
+        r.altitudeErrorMeters = s.getDouble(8);
+        return r;
+    }
+
+    // $GNVTG,,T,,M,0.0,N,0.0,K,A*3D
+    private NmeaRecord.Vtg decodeVtg(NmeaSentence s) {
+        if (s.getFieldCount() < 9) {
+            return null;
+        }
+        NmeaRecord.Vtg r = vtg;
+        r.clear();
+        r.courseTrueDegrees = s.getDouble(1);
+        r.courseMagneticDegrees = s.getDouble(3);
+        r.speedKnots = s.getDouble(5);
+        r.speedKmh = s.getDouble(7);
+        r.modeIndicator = s.getChar(9);
+        return r;
+    }
+
+    // $GPZDA,172809.456,12,07,1996,00,00*57
+    private NmeaRecord.Zda decodeZda(NmeaSentence s) {
+        if (s.getFieldCount() < 5) {
+            return null;
+        }
+        NmeaRecord.Zda r = zda;
+        r.clear();
+        r.utcTimeSeconds = utcTime(s, 1);
+        r.day = s.getInt(2, -1);
+        r.month = s.getInt(3, -1);
+        r.year = s.getInt(4, -1);
+        r.localZoneHours = s.getInt(5, 0);
+        r.localZoneMinutes = s.getInt(6, 0);
+        return r;
+    }
+
+    // $GPGBS,015509.00,-0.031,-0.186,0.219,19,0.000,-0.354,6.972*4D
+    // NMEA 4.10 adds a system ID and signal ID
+    private NmeaRecord.Gbs decodeGbs(NmeaSentence s) {
+        if (s.getFieldCount() < 9) {
+            return null;
+        }
+        NmeaRecord.Gbs r = gbs;
+        r.clear();
+        r.utcTimeSeconds = utcTime(s, 1);
+        r.latitudeErrorMeters = s.getDouble(2);
+        r.longitudeErrorMeters = s.getDouble(3);
+        r.altitudeErrorMeters = s.getDouble(4);
+        r.failedSvid = s.getInt(5, -1);
+        r.missedDetectionProbability = s.getDouble(6);
+        r.biasMeters = s.getDouble(7);
+        r.biasStdDevMeters = s.getDouble(8);
+        r.systemId = hexInt(s, 9);
+        r.signalId = hexInt(s, 10);
+        return r;
+    }
+
+    /**
+     * Converts an hhmmss.ss field to seconds since the start of the UTC day
+     */
+    private static double utcTime(NmeaSentence s, int field) {
+        double hhmmss = s.getDouble(field);
+        if (Double.isNaN(hhmmss)) {
+            return Double.NaN;
+        }
+        int hours = (int) (hhmmss / 10000);
+        int minutes = (int) (hhmmss / 100) % 100;
+        double seconds = hhmmss - hours * 10000 - minutes * 100;
+        return hours * 3600 + minutes * 60 + seconds;
+    }
+
+    /**
+     * Converts a (d)ddmm.mmmm field and its hemisphere field to decimal degrees
+     *
+     * @param negative the hemisphere that's negative, 'S' or 'W'
+     */
+    private static double degrees(NmeaSentence s, int field, char negative) {
+        double value = s.getDouble(field);
+        if (Double.isNaN(value)) {
+            return Double.NaN;
+        }
+        double degrees = Math.floor(value / 100);
+        double result = degrees + (value - degrees * 100) / 60;
+        return s.getChar(field + 1) == negative ? -result : result;
+    }
+
+    /**
+     * Parses a single hex digit field, used for NMEA 4.10 system and signal IDs
+     */
+    private static int hexInt(NmeaSentence s, int field) {
+        if (s.getFieldLength(field) != 1) {
+            return s.getInt(field, -1);
+        }
+        char c = s.getChar(field);
+        return Character.digit(c, 16);
+    }
+}
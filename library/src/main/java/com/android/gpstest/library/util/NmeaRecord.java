@@ -0,0 +1,756 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * An NMEA sentence decoded by {@link NmeaDecoder}. There's a subclass for each sentence type.
+ *
+ * Records are mutable and the decoder reuses one record of each type for every sentence of that
+ * type, so decoding doesn't allocate. A record is therefore only valid until the next sentence of
+ * the same type is decoded - call {@link #copy()} to keep it longer.
+ *
+ * Numeric fields that are empty in the sentence are NaN (or -1 for integer fields). Times are UTC
+ * seconds since the start of the day, and latitudes and longitudes are decimal degrees, negative
+ * for south and west.
+ */
+public abstract class NmeaRecord {
+
+    long timestamp;
+    char talker0;
+    char talker1;
+
+    NmeaRecord() {
+    }
+
+    /**
+     * @return the sentence type, e.g. "GSV"
+     */
+    public abstract String getType();
+
+    /**
+     * @return a copy of this record, which isn't reused by the decoder
+     */
+    public abstract NmeaRecord copy();
+
+    /**
+     * Clears the fields before decoding a sentence into this record
+     */
+    abstract void clear();
+
+    void copyHeaderTo(NmeaRecord copy) {
+        copy.timestamp = timestamp;
+        copy.talker0 = talker0;
+        copy.talker1 = talker1;
+    }
+
+    /**
+     * @return the time the sentence was received, from OnNmeaMessageListener
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the talker ID of the sentence, e.g. "GP" for GPS, "GL" for GLONASS, or "GN" for
+     * multiple constellations
+     */
+    public String getTalker() {
+        switch (talker0) {
+            case 'G':
+                switch (talker1) {
+                    case 'P':
+                        return "GP";
+                    case 'L':
+                        return "GL";
+                    case 'A':
+                        return "GA";
+                    case 'B':
+                        return "GB";
+                    case 'Q':
+                        return "GQ";
+                    case 'I':
+                        return "GI";
+                    case 'N':
+                        return "GN";
+                    default:
+                        break;
+                }
+                break;
+            case 'B':
+                if (talker1 == 'D') {
+                    return "BD";
+                }
+                break;
+            case 'Q':
+                if (talker1 == 'Z') {
+                    return "QZ";
+                }
+                break;
+            default:
+                break;
+        }
+        return new String(new char[]{talker0, talker1});
+    }
+
+    static String format(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.US, "%s", value);
+    }
+
+    /**
+     * GSV - GNSS satellites in view. The satellites of a constellation are split across several
+     * sentences with up to 4 satellites each.
+     */
+    public static final class Gsv extends NmeaRecord {
+        public static final int MAX_SATELLITES = 4;
+
+        int messageCount;
+        int messageNumber;
+        int satellitesInView;
+        int satelliteCount;
+        final int[] svids = new int[MAX_SATELLITES];
+        final float[] elevations = new float[MAX_SATELLITES];
+        final float[] azimuths = new float[MAX_SATELLITES];
+        final float[] cn0s = new float[MAX_SATELLITES];
+        int signalId;
+
+        @Override
+        public String getType() {
+            return "GSV";
+        }
+
+        @Override
+        void clear() {
+            messageCount = -1;
+            messageNumber = -1;
+            satellitesInView = -1;
+            satelliteCount = 0;
+            Arrays.fill(svids, -1);
+            Arrays.fill(elevations, Float.NaN);
+            Arrays.fill(azimuths, Float.NaN);
+            Arrays.fill(cn0s, Float.NaN);
+            signalId = -1;
+        }
+
+        @Override
+        public Gsv copy() {
+            Gsv copy = new Gsv();
+            copyHeaderTo(copy);
+            copy.messageCount = messageCount;
+            copy.messageNumber = messageNumber;
+            copy.satellitesInView = satellitesInView;
+            copy.satelliteCount = satelliteCount;
+            System.arraycopy(svids, 0, copy.svids, 0, MAX_SATELLITES);
+            System.arraycopy(elevations, 0, copy.elevations, 0, MAX_SATELLITES);
+            System.arraycopy(azimuths, 0, copy.azimuths, 0, MAX_SATELLITES);
+            System.arraycopy(cn0s, 0, copy.cn0s, 0, MAX_SATELLITES);
+            copy.signalId = signalId;
+            return copy;
+        }
+
+        /**
+         * @return the number of GSV sentences for this constellation and signal
+         */
+        public int getMessageCount() {
+            return messageCount;
+        }
+
+        /**
+         * @return the number of this sentence, starting at 1
+         */
+        public int getMessageNumber() {
+            return messageNumber;
+        }
+
+        /**
+         * @return true if this is the last GSV sentence for this constellation and signal
+         */
+        public boolean isLastMessage() {
+            return messageNumber == messageCount;
+        }
+
+        /**
+         * @return the total number of satellites in view, across all sentences
+         */
+        public int getSatellitesInView() {
+            return satellitesInView;
+        }
+
+        /**
+         * @return the number of satellites in this sentence, 0 to 4
+         */
+        public int getSatelliteCount() {
+            return satelliteCount;
+        }
+
+        /**
+         * @return the NMEA satellite ID of satellite [i] of this sentence
+         */
+        public int getSvid(int i) {
+            return svids[i];
+        }
+
+        public float getElevationDegrees(int i) {
+            return elevations[i];
+        }
+
+        public float getAzimuthDegrees(int i) {
+            return azimuths[i];
+        }
+
+        /**
+         * @return the C/N0 of satellite [i] in dB-Hz, or NaN if it isn't being tracked
+         */
+        public float getCn0DbHz(int i) {
+            return cn0s[i];
+        }
+
+        /**
+         * @return the NMEA 4.10 signal ID, or -1 if the sentence doesn't have it
+         */
+        public int getSignalId() {
+            return signalId;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder("Gsv{talker=").append(getTalker())
+                    .append(", message=").append(messageNumber).append('/').append(messageCount)
+                    .append(", satellitesInView=").append(satellitesInView)
+                    .append(", signalId=").append(signalId);
+            for (int i = 0; i < satelliteCount; i++) {
+                s.append(", [").append(svids[i]).append(' ').append(elevations[i]).append(' ')
+                        .append(azimuths[i]).append(' ').append(cn0s[i]).append(']');
+            }
+            return s.append('}').toString();
+        }
+    }
+
+    /**
+     * RMC - recommended minimum position, velocity and time
+     */
+    public static final class Rmc extends NmeaRecord {
+        double utcTimeSeconds;
+        boolean valid;
+        double latitudeDegrees;
+        double longitudeDegrees;
+        double speedKnots;
+        double courseDegrees;
+        int day;
+        int month;
+        int year;
+        double magneticVariationDegrees;
+        char modeIndicator;
+        char navigationStatus;
+
+        @Override
+        public String getType() {
+            return "RMC";
+        }
+
+        @Override
+        void clear() {
+            utcTimeSeconds = Double.NaN;
+            valid = false;
+            latitudeDegrees = Double.NaN;
+            longitudeDegrees = Double.NaN;
+            speedKnots = Double.NaN;
+            courseDegrees = Double.NaN;
+            day = -1;
+            month = -1;
+            year = -1;
+            magneticVariationDegrees = Double.NaN;
+            modeIndicator = 0;
+            navigationStatus = 0;
+        }
+
+        @Override
+        public Rmc copy() {
+            Rmc copy = new Rmc();
+            copyHeaderTo(copy);
+            copy.utcTimeSeconds = utcTimeSeconds;
+            copy.valid = valid;
+            copy.latitudeDegrees = latitudeDegrees;
+            copy.longitudeDegrees = longitudeDegrees;
+            copy.speedKnots = speedKnots;
+            copy.courseDegrees = courseDegrees;
+            copy.day = day;
+            copy.month = month;
+            copy.year = year;
+            copy.magneticVariationDegrees = magneticVariationDegrees;
+            copy.modeIndicator = modeIndicator;
+            copy.navigationStatus = navigationStatus;
+            return copy;
+        }
+
+        public double getUtcTimeSeconds() {
+            return utcTimeSeconds;
+        }
+
+        /**
+         * @return true if the status is 'A' (data valid)
+         */
+        public boolean isValid() {
+            return valid;
+        }
+
+        public double getLatitudeDegrees() {
+            return latitudeDegrees;
+        }
+
+        public double getLongitudeDegrees() {
+            return longitudeDegrees;
+        }
+
+        public double getSpeedKnots() {
+            return speedKnots;
+        }
+
+        public double getCourseDegrees() {
+            return courseDegrees;
+        }
+
+        public int getDay() {
+            return day;
+        }
+
+        public int getMonth() {
+            return month;
+        }
+
+        /**
+         * @return the four-digit year
+         */
+        public int getYear() {
+            return year;
+        }
+
+        /**
+         * @return the magnetic variation, negative if west
+         */
+        public double getMagneticVariationDegrees() {
+            return magneticVariationDegrees;
+        }
+
+        /**
+         * @return the NMEA 2.3 mode indicator (e.g. 'A' autonomous, 'D' differential), or 0
+         */
+        public char getModeIndicator() {
+            return modeIndicator;
+        }
+
+        /**
+         * @return the NMEA 4.10 navigational status, or 0
+         */
+        public char getNavigationStatus() {
+            return navigationStatus;
+        }
+
+        @Override
+        public String toString() {
+            return "Rmc{talker=" + getTalker() + ", utcTimeSeconds=" + format(utcTimeSeconds)
+                    + ", valid=" + valid + ", latitudeDegrees=" + format(latitudeDegrees)
+                    + ", longitudeDegrees=" + format(longitudeDegrees) + ", speedKnots=" + format(speedKnots)
+                    + ", courseDegrees=" + format(courseDegrees) + ", date=" + year + "-" + month + "-" + day
+                    + ", magneticVariationDegrees=" + format(magneticVariationDegrees)
+                    + ", modeIndicator=" + modeIndicator + "}";
+        }
+    }
+
+    /**
+     * GST - pseudorange error statistics, the chipset's estimate of the position error
+     */
+    public static final class Gst extends NmeaRecord {
+        double utcTimeSeconds;
+        double rmsRangeMeters;
+        double semiMajorErrorMeters;
+        double semiMinorErrorMeters;
+        double semiMajorOrientationDegrees;
+        double latitudeErrorMeters;
+        double longitudeErrorMeters;
+        double altitudeErrorMeters;
+
+        @Override
+        public String getType() {
+            return "GST";
+        }
+
+        @Override
+        void clear() {
+            utcTimeSeconds = Double.NaN;
+            rmsRangeMeters = Double.NaN;
+            semiMajorErrorMeters = Double.NaN;
+            semiMinorErrorMeters = Double.NaN;
+            semiMajorOrientationDegrees = Double.NaN;
+            latitudeErrorMeters = Double.NaN;
+            longitudeErrorMeters = Double.NaN;
+            altitudeErrorMeters = Double.NaN;
+        }
+
+        @Override
+        public Gst copy() {
+            Gst copy = new Gst();
+            copyHeaderTo(copy);
+            copy.utcTimeSeconds = utcTimeSeconds;
+            copy.rmsRangeMeters = rmsRangeMeters;
+            copy.semiMajorErrorMeters = semiMajorErrorMeters;
+            copy.semiMinorErrorMeters = semiMinorErrorMeters;
+            copy.semiMajorOrientationDegrees = semiMajorOrientationDegrees;
+            copy.latitudeErrorMeters = latitudeErrorMeters;
+            copy.longitudeErrorMeters = longitudeErrorMeters;
+            copy.altitudeErrorMeters = altitudeErrorMeters;
+            return copy;
+        }
+
+        public double getUtcTimeSeconds() {
+            return utcTimeSeconds;
+        }
+
+        /**
+         * @return the RMS value of the standard deviation of the range inputs to the navigation process
+         */
+        public double getRmsRangeMeters() {
+            return rmsRangeMeters;
+        }
+
+        /**
+         * @return the standard deviation of the semi-major axis of the error ellipse
+         */
+        public double getSemiMajorErrorMeters() {
+            return semiMajorErrorMeters;
+        }
+
+        /**
+         * @return the standard deviation of the semi-minor axis of the error ellipse
+         */
+        public double getSemiMinorErrorMeters() {
+            return semiMinorErrorMeters;
+        }
+
+        /**
+         * @return the orientation of the semi-major axis of the error ellipse, from true north
+         */
+        public double getSemiMajorOrientationDegrees() {
+            return semiMajorOrientationDegrees;
+        }
+
+        /**
+         * @return the standard deviation of the latitude error
+         */
+        public double getLatitudeErrorMeters() {
+            return latitudeErrorMeters;
+        }
+
+        /**
+         * @return the standard deviation of the longitude error
+         */
+        public double getLongitudeErrorMeters() {
+            return longitudeErrorMeters;
+        }
+
+        /**
+         * @return the standard deviation of the altitude error
+         */
+        public double getAltitudeErrorMeters() {
+            return altitudeErrorMeters;
+        }
+
+        @Override
+        public String toString() {
+            return "Gst{talker=" + getTalker() + ", utcTimeSeconds=" + format(utcTimeSeconds)
+                    + ", rmsRangeMeters=" + format(rmsRangeMeters)
+                    + ", semiMajorErrorMeters=" + format(semiMajorErrorMeters)
+                    + ", semiMinorErrorMeters=" + format(semiMinorErrorMeters)
+                    + ", semiMajorOrientationDegrees=" + format(semiMajorOrientationDegrees)
+                    + ", latitudeErrorMeters=" + format(latitudeErrorMeters)
+                    + ", longitudeErrorMeters=" + format(longitudeErrorMeters)
+                    + ", altitudeErrorMeters=" + format(altitudeErrorMeters) + "}";
+        }
+    }
+
+    /**
+     * VTG - course over ground and ground speed
+     */
+    public static final class Vtg extends NmeaRecord {
+        double courseTrueDegrees;
+        double courseMagneticDegrees;
+        double speedKnots;
+        double speedKmh;
+        char modeIndicator;
+
+        @Override
+        public String getType() {
+            return "VTG";
+        }
+
+        @Override
+        void clear() {
+            courseTrueDegrees = Double.NaN;
+            courseMagneticDegrees = Double.NaN;
+            speedKnots = Double.NaN;
+            speedKmh = Double.NaN;
+            modeIndicator = 0;
+        }
+
+        @Override
+        public Vtg copy() {
+            Vtg copy = new Vtg();
+            copyHeaderTo(copy);
+            copy.courseTrueDegrees = courseTrueDegrees;
+            copy.courseMagneticDegrees = courseMagneticDegrees;
+            copy.speedKnots = speedKnots;
+            copy.speedKmh = speedKmh;
+            copy.modeIndicator = modeIndicator;
+            return copy;
+        }
+
+        public double getCourseTrueDegrees() {
+            return courseTrueDegrees;
+        }
+
+        public double getCourseMagneticDegrees() {
+            return courseMagneticDegrees;
+        }
+
+        public double getSpeedKnots() {
+            return speedKnots;
+        }
+
+        public double getSpeedKmh() {
+            return speedKmh;
+        }
+
+        /**
+         * @return the NMEA 2.3 mode indicator (e.g. 'A' autonomous, 'N' not valid), or 0
+         */
+        public char getModeIndicator() {
+            return modeIndicator;
+        }
+
+        @Override
+        public String toString() {
+            return "Vtg{talker=" + getTalker() + ", courseTrueDegrees=" + format(courseTrueDegrees)
+                    + ", courseMagneticDegrees=" + format(courseMagneticDegrees)
+                    + ", speedKnots=" + format(speedKnots) + ", speedKmh=" + format(speedKmh)
+                    + ", modeIndicator=" + modeIndicator + "}";
+        }
+    }
+
+    /**
+     * ZDA - UTC date and time, and the local time zone
+     */
+    public static final class Zda extends NmeaRecord {
+        double utcTimeSeconds;
+        int day;
+        int month;
+        int year;
+        int localZoneHours;
+        int localZoneMinutes;
+
+        @Override
+        public String getType() {
+            return "ZDA";
+        }
+
+        @Override
+        void clear() {
+            utcTimeSeconds = Double.NaN;
+            day = -1;
+            month = -1;
+            year = -1;
+            localZoneHours = 0;
+            localZoneMinutes = 0;
+        }
+
+        @Override
+        public Zda copy() {
+            Zda copy = new Zda();
+            copyHeaderTo(copy);
+            copy.utcTimeSeconds = utcTimeSeconds;
+            copy.day = day;
+            copy.month = month;
+            copy.year = year;
+            copy.localZoneHours = localZoneHours;
+            copy.localZoneMinutes = localZoneMinutes;
+            return copy;
+        }
+
+        public double getUtcTimeSeconds() {
+            return utcTimeSeconds;
+        }
+
+        public int getDay() {
+            return day;
+        }
+
+        public int getMonth() {
+            return month;
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public int getLocalZoneHours() {
+            return localZoneHours;
+        }
+
+        public int getLocalZoneMinutes() {
+            return localZoneMinutes;
+        }
+
+        @Override
+        public String toString() {
+            return "Zda{talker=" + getTalker() + ", utcTimeSeconds=" + format(utcTimeSeconds)
+                    + ", date=" + year + "-" + month + "-" + day
+                    + ", localZone=" + localZoneHours + ":" + localZoneMinutes + "}";
+        }
+    }
+
+    /**
+     * GBS - GNSS satellite fault detection (RAIM), the chipset's integrity check of the position
+     */
+    public static final class Gbs extends NmeaRecord {
+        double utcTimeSeconds;
+        double latitudeErrorMeters;
+        double longitudeErrorMeters;
+        double altitudeErrorMeters;
+        int failedSvid;
+        double missedDetectionProbability;
+        double biasMeters;
+        double biasStdDevMeters;
+        int systemId;
+        int signalId;
+
+        @Override
+        public String getType() {
+            return "GBS";
+        }
+
+        @Override
+        void clear() {
+            utcTimeSeconds = Double.NaN;
+            latitudeErrorMeters = Double.NaN;
+            longitudeErrorMeters = Double.NaN;
+            altitudeErrorMeters = Double.NaN;
+            failedSvid = -1;
+            missedDetectionProbability = Double.NaN;
+            biasMeters = Double.NaN;
+            biasStdDevMeters = Double.NaN;
+            systemId = -1;
+            signalId = -1;
+        }
+
+        @Override
+        public Gbs copy() {
+            Gbs copy = new Gbs();
+            copyHeaderTo(copy);
+            copy.utcTimeSeconds = utcTimeSeconds;
+            copy.latitudeErrorMeters = latitudeErrorMeters;
+            copy.longitudeErrorMeters = longitudeErrorMeters;
+            copy.altitudeErrorMeters = altitudeErrorMeters;
+            copy.failedSvid = failedSvid;
+            copy.missedDetectionProbability = missedDetectionProbability;
+            copy.biasMeters = biasMeters;
+            copy.biasStdDevMeters = biasStdDevMeters;
+            copy.systemId = systemId;
+            copy.signalId = signalId;
+            return copy;
+        }
+
+        public double getUtcTimeSeconds() {
+            return utcTimeSeconds;
+        }
+
+        /**
+         * @return the expected error in latitude
+         */
+        public double getLatitudeErrorMeters() {
+            return latitudeErrorMeters;
+        }
+
+        /**
+         * @return the expected error in longitude
+         */
+        public double getLongitudeErrorMeters() {
+            return longitudeErrorMeters;
+        }
+
+        /**
+         * @return the expected error in altitude
+         */
+        public double getAltitudeErrorMeters() {
+            return altitudeErrorMeters;
+        }
+
+        /**
+         * @return the NMEA ID of the most likely failed satellite, or -1 if no satellite has failed
+         */
+        public int getFailedSvid() {
+            return failedSvid;
+        }
+
+        /**
+         * @return the probability of missed detection for the most likely failed satellite
+         */
+        public double getMissedDetectionProbability() {
+            return missedDetectionProbability;
+        }
+
+        /**
+         * @return the estimate of the bias of the most likely failed satellite
+         */
+        public double getBiasMeters() {
+            return biasMeters;
+        }
+
+        /**
+         * @return the standard deviation of the bias estimate
+         */
+        public double getBiasStdDevMeters() {
+            return biasStdDevMeters;
+        }
+
+        /**
+         * @return the NMEA 4.10 GNSS system ID, or -1 if the sentence doesn't have it
+         */
+        public int getSystemId() {
+            return systemId;
+        }
+
+        /**
+         * @return the NMEA 4.10 signal ID, or -1 if the sentence doesn't have it
+         */
+        public int getSignalId() {
+            return signalId;
+        }
+
+        @Override
+        public String toString() {
+            return "Gbs{talker=" + getTalker() + ", utcTimeSeconds=" + format(utcTimeSeconds)
+                    + ", latitudeErrorMeters=" + format(latitudeErrorMeters)
+                    + ", longitudeErrorMeters=" + format(longitudeErrorMeters)
+                    + ", altitudeErrorMeters=" + format(altitudeErrorMeters)
+                    + ", failedSvid=" + failedSvid
+                    + ", missedDetectionProbability=" + format(missedDetectionProbability)
+                    + ", biasMeters=" + format(biasMeters)
+                    + ", biasStdDevMeters=" + format(biasStdDevMeters)
+                    + ", systemId=" + systemId + ", signalId=" + signalId + "}";
+        }
+    }
+}
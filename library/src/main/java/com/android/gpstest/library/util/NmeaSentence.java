@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.util;
+
+import java.util.Arrays;
+
+/**
+ * A reusable tokenizer for NMEA 0183 sentences. {@link #parse(CharSequence)} walks a sentence once,
+ * recording where each field starts and ends and validating the "*hh" checksum, and the field
+ * accessors then read values directly from the sentence. Numbers are parsed in place, so reading
+ * fields doesn't allocate substrings - the same instance can be used for every sentence a
+ * listener receives.
+ *
+ * Fields are numbered like the tokens of String.split(","): field 0 is the address (e.g. "GPGGA",
+ * without the leading '$'), and the data fields start at 1. The checksum isn't part of the last
+ * field.
+ *
+ * Instances aren't thread-safe.
+ */
+public final class NmeaSentence {
+
+    /**
+     * The sentence doesn't have a checksum
+     */
+    public static final int CHECKSUM_MISSING = 0;
+
+    /**
+     * The checksum matches the sentence
+     */
+    public static final int CHECKSUM_VALID = 1;
+
+    /**
+     * The checksum doesn't match the sentence, or isn't two hex digits
+     */
+    public static final int CHECKSUM_INVALID = 2;
+
+    private static final int INITIAL_FIELD_CAPACITY = 32;
+
+    // Powers of ten that are exact as doubles, for parsing decimals in place
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Largest number of significant digits that fits in a long and is exact as a double
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private CharSequence sentence;
+    private int[] starts = new int[INITIAL_FIELD_CAPACITY];
+    private int[] ends = new int[INITIAL_FIELD_CAPACITY];
+    private int fieldCount;
+    private int checksumState = CHECKSUM_MISSING;
+
+    /**
+     * Tokenizes a sentence, replacing the previous one. The sentence may end with a line break.
+     *
+     * @param sentence an NMEA sentence starting with '$' or '!'
+     * @return true if the sentence was tokenized, or false if it doesn't start with '$' or '!', in
+     * which case the field count is 0
+     */
+    public boolean parse(CharSequence sentence) {
+        this.sentence = sentence;
+        fieldCount = 0;
+        checksumState = CHECKSUM_MISSING;
+        int length = sentence == null ? 0 : sentence.length();
+        if (length == 0 || (sentence.charAt(0) != '$' && sentence.charAt(0) != '!')) {
+            return false;
+        }
+        int checksum = 0;
+        int start = 1;
+        int i = 1;
+        for (; i < length; i++) {
+            char c = sentence.charAt(i);
+            if (c == ',') {
+                addField(start, i);
+                start = i + 1;
+            } else if (c == '*' || c == '\r' || c == '\n') {
+                break;
+            }
+            checksum ^= c;
+        }
+        addField(start, i);
+        if (i < length && sentence.charAt(i) == '*') {
+            int high = i + 1 < length ? hexValue(sentence.charAt(i + 1)) : -1;
+            int low = i + 2 < length ? hexValue(sentence.charAt(i + 2)) : -1;
+            checksumState = high >= 0 && low >= 0 && (high << 4 | low) == checksum
+                    ? CHECKSUM_VALID : CHECKSUM_INVALID;
+        }
+        return true;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the sentence that was last parsed
+     */
+    public CharSequence getSentence() {
+        return sentence;
+    }
+
+    /**
+     * @return the number of fields, including the address field
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return CHECKSUM_MISSING, CHECKSUM_VALID or CHECKSUM_INVALID
+     */
+    public int getChecksumState() {
+        return checksumState;
+    }
+
+    /**
+     * Returns true if the address field (e.g. "GPGGA") is the given address
+     */
+    public boolean isAddress(String address) {
+        return fieldEquals(0, address);
+    }
+
+    /**
+     * Returns true if the sentence is the given type (e.g. "GGA") from any talker - the last three
+     * characters of the address field. Proprietary sentences (addresses starting with 'P') never
+     * match.
+     */
+    public boolean isType(String type) {
+        if (fieldCount == 0) {
+            return false;
+        }
+        int start = starts[0];
+        int length = ends[0] - start;
+        if (length != 5 || sentence.charAt(start) == 'P') {
+            return false;
+        }
+        return regionMatches(start + 2, type);
+    }
+
+    /**
+     * @return the number of characters in a field, or 0 if the sentence doesn't have the field
+     */
+    public int getFieldLength(int field) {
+        return field < fieldCount ? ends[field] - starts[field] : 0;
+    }
+
+    /**
+     * @return true if a field is empty or the sentence doesn't have it
+     */
+    public boolean isEmpty(int field) {
+        return getFieldLength(field) == 0;
+    }
+
+    /**
+     * Returns true if a field is the given value
+     */
+    public boolean fieldEquals(int field, String value) {
+        return getFieldLength(field) == value.length() && regionMatches(starts[field], value);
+    }
+
+    private boolean regionMatches(int offset, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (sentence.charAt(offset + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the first character of a field, or 0 if it's empty
+     */
+    public char getChar(int field) {
+        return isEmpty(field) ? 0 : sentence.charAt(starts[field]);
+    }
+
+    /**
+     * Returns a field as a String. This allocates, so the number accessors should be used where
+     * possible.
+     *
+     * @return the field, or an empty string if the sentence doesn't have it
+     */
+    public String getString(int field) {
+        return isEmpty(field) ? "" : sentence.subSequence(starts[field], ends[field]).toString();
+    }
+
+    /**
+     * Parses a field as a decimal number, e.g. "-19.7"
+     *
+     * @return the number, or NaN if the field is empty or isn't a number
+     */
+    public double getDouble(int field) {
+        if (isEmpty(field)) {
+            return Double.NaN;
+        }
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        char c = sentence.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = 0;
+        boolean point = false;
+        boolean hasDigit = false;
+        for (; i < end; i++) {
+            c = sentence.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+                if (mantissa == 0 && c == '0') {
+                    // Leading zeros aren't significant
+                    if (point) {
+                        decimals++;
+                    }
+                    continue;
+                }
+                if (++digits > MAX_EXACT_DIGITS) {
+                    return parseDoubleSlowly(field);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (point) {
+                    decimals++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else if (c == 'e' || c == 'E') {
+                return parseDoubleSlowly(field);
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!hasDigit) {
+            return Double.NaN;
+        }
+        if (decimals >= POWERS_OF_TEN.length) {
+            return parseDoubleSlowly(field);
+        }
+        // Both values are exact, so the division is correctly rounded like Double.parseDouble()
+        double value = mantissa / POWERS_OF_TEN[decimals];
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlowly(int field) {
+        try {
+            return Double.parseDouble(getString(field));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parses a field as an integer, e.g. "08"
+     *
+     * @return the number, or defaultValue if the field is empty or isn't an integer
+     */
+    public int getInt(int field, int defaultValue) {
+        if (isEmpty(field)) {
+            return defaultValue;
+        }
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        char c = sentence.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+            if (i == end) {
+                return defaultValue;
+            }
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            c = sentence.charAt(i);
+            if (c < '0' || c > '9') {
+                return defaultValue;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                return defaultValue;
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+}
@@ -15,7 +15,6 @@
  */
 package com.android.gpstest.library.util;
 
-import android.text.TextUtils;
 import android.util.Log;
 
 import com.android.gpstest.library.model.DilutionOfPrecision;
@@ -44,31 +43,40 @@ public class NmeaUtils {
      * parsed
      */
     public static Double getAltitudeMeanSeaLevel(String nmeaSentence) {
+        NmeaSentence sentence = new NmeaSentence();
+        sentence.parse(nmeaSentence);
+        return getAltitudeMeanSeaLevel(sentence);
+    }
+
+    /**
+     * Same as {@link #getAltitudeMeanSeaLevel(String)}, for a sentence that has already been
+     * tokenized. Doesn't allocate unless the altitude is found.
+     *
+     * @param sentence a tokenized $GPGGA, $GNGNS, or $GNGGA NMEA sentence
+     * @return the altitude above mean sea level (geoid altitude), or null if altitude can't be
+     * parsed
+     */
+    public static Double getAltitudeMeanSeaLevel(NmeaSentence sentence) {
         final int ALTITUDE_INDEX = 9;
-        String[] tokens = nmeaSentence.split(",");
 
-        if (nmeaSentence.startsWith("$GPGGA") || nmeaSentence.startsWith("$GNGNS") || nmeaSentence.startsWith("$GNGGA")) {
-            String altitude;
-            try {
-                altitude = tokens[ALTITUDE_INDEX];
-            } catch (ArrayIndexOutOfBoundsException e) {
-                Log.e(TAG, "Bad NMEA sentence for geoid altitude - " + nmeaSentence + " :" + e);
+        if (sentence.isAddress("GPGGA") || sentence.isAddress("GNGNS") || sentence.isAddress("GNGGA")) {
+            if (sentence.getFieldCount() <= ALTITUDE_INDEX) {
+                Log.e(TAG, "Bad NMEA sentence for geoid altitude - " + sentence.getSentence());
                 return null;
             }
-            if (!TextUtils.isEmpty(altitude)) {
-                Double altitudeParsed = null;
-                try {
-                    altitudeParsed = Double.parseDouble(altitude);
-                } catch (NumberFormatException e) {
-                    Log.e(TAG, "Bad geoid altitude value of '" + altitude + "' in NMEA sentence " + nmeaSentence + " :" + e);
+            if (!sentence.isEmpty(ALTITUDE_INDEX)) {
+                double altitude = sentence.getDouble(ALTITUDE_INDEX);
+                if (Double.isNaN(altitude)) {
+                    Log.e(TAG, "Bad geoid altitude value of '" + sentence.getString(ALTITUDE_INDEX) + "' in NMEA sentence " + sentence.getSentence());
+                    return null;
                 }
-                return altitudeParsed;
+                return altitude;
             } else {
-                Log.w(TAG, "Couldn't parse geoid altitude from NMEA: " + nmeaSentence);
+                Log.w(TAG, "Couldn't parse geoid altitude from NMEA: " + sentence.getSentence());
                 return null;
             }
         } else {
-            Log.w(TAG, "Input must be $GPGGA, $GNGNS, or $GNGGA NMEA: " + nmeaSentence);
+            Log.w(TAG, "Input must be $GPGGA, $GNGNS, or $GNGGA NMEA: " + sentence.getSentence());
             return null;
         }
     }
@@ -88,43 +96,47 @@ public class NmeaUtils {
      * @return the dilution of precision, or null if dilution of precision can't be parsed
      */
     public static DilutionOfPrecision getDop(String nmeaSentence) {
+        NmeaSentence sentence = new NmeaSentence();
+        sentence.parse(nmeaSentence);
+        return getDop(sentence);
+    }
+
+    /**
+     * Same as {@link #getDop(String)}, for a sentence that has already been tokenized. Doesn't
+     * allocate unless the dilution of precision is found.
+     *
+     * @param sentence a tokenized $GNGSA or $GPGSA NMEA sentence
+     * @return the dilution of precision, or null if dilution of precision can't be parsed
+     */
+    public static DilutionOfPrecision getDop(NmeaSentence sentence) {
         final int PDOP_INDEX = 15;
         final int HDOP_INDEX = 16;
         final int VDOP_INDEX = 17;
-        String[] tokens = nmeaSentence.split(",");
 
-        if (nmeaSentence.startsWith("$GNGSA") || nmeaSentence.startsWith("$GPGSA")) {
-            String pdop, hdop, vdop;
-            try {
-                pdop = tokens[PDOP_INDEX];
-                hdop = tokens[HDOP_INDEX];
-                vdop = tokens[VDOP_INDEX];
-            } catch (ArrayIndexOutOfBoundsException e) {
-                Log.e(TAG, "Bad NMEA message for parsing DOP - " + nmeaSentence + " :" + e);
+        if (sentence.isAddress("GNGSA") || sentence.isAddress("GPGSA")) {
+            if (sentence.getFieldCount() <= VDOP_INDEX) {
+                Log.e(TAG, "Bad NMEA message for parsing DOP - " + sentence.getSentence());
                 return null;
             }
 
-            // See https://github.com/barbeau/gpstest/issues/71#issuecomment-263169174
-            if (vdop.contains("*")) {
-                vdop = vdop.split("\\*")[0];
-            }
-
-            if (!TextUtils.isEmpty(pdop) && !TextUtils.isEmpty(hdop) && !TextUtils.isEmpty(vdop)) {
-                DilutionOfPrecision dop = null;
-                try {
-                    dop = new DilutionOfPrecision(Double.parseDouble(pdop), Double.parseDouble(hdop),
-                            Double.parseDouble(vdop));
-                } catch (NumberFormatException e) {
+            // The checksum isn't part of the last field, so VDOP doesn't need to be split from it
+            // (see https://github.com/barbeau/gpstest/issues/71#issuecomment-263169174)
+            if (!sentence.isEmpty(PDOP_INDEX) && !sentence.isEmpty(HDOP_INDEX) && !sentence.isEmpty(VDOP_INDEX)) {
+                double pdop = sentence.getDouble(PDOP_INDEX);
+                double hdop = sentence.getDouble(HDOP_INDEX);
+                double vdop = sentence.getDouble(VDOP_INDEX);
+                if (Double.isNaN(pdop) || Double.isNaN(hdop) || Double.isNaN(vdop)) {
                     // See https://github.com/barbeau/gpstest/issues/71#issuecomment-263169174
-                    Log.e(TAG, "Invalid DOP values in NMEA: " + nmeaSentence);
+                    Log.e(TAG, "Invalid DOP values in NMEA: " + sentence.getSentence());
+                    return null;
                 }
-                return dop;
+                return new DilutionOfPrecision(pdop, hdop, vdop);
             } else {
-                Log.w(TAG, "Empty DOP values in NMEA: " + nmeaSentence);
+                Log.w(TAG, "Empty DOP values in NMEA: " + sentence.getSentence());
                 return null;
             }
         } else {
-            Log.w(TAG, "Input must be a $GNGSA NMEA: " + nmeaSentence);
+            Log.w(TAG, "Input must be a $GNGSA NMEA: " + sentence.getSentence());
             return null;
         }
     }
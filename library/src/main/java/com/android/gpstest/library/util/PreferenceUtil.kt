@@ -69,6 +69,34 @@ object PreferenceUtil {
         return prefs.getBoolean(context.getString(R.string.pref_key_file_antenna_output_csv), false)
     }
 
+    /**
+     * Returns true if the user has selected to also write the data types logged to the CSV file to the JSON file
+     */
+    fun writeRecordsToFileJson(context: Context, prefs: SharedPreferences): Boolean {
+        return prefs.getBoolean(context.getString(R.string.pref_key_file_records_output_json), false)
+    }
+
+    /**
+     * Returns true if the user has selected to write newline-delimited JSON files instead of a single array
+     */
+    fun writeJsonLines(context: Context, prefs: SharedPreferences): Boolean {
+        return prefs.getBoolean(context.getString(R.string.pref_key_json_lines), false)
+    }
+
+    /**
+     * Returns true if the user has selected to also write raw measurements to a RINEX observation file
+     */
+    fun writeRinexFile(context: Context, prefs: SharedPreferences): Boolean {
+        return prefs.getBoolean(context.getString(R.string.pref_key_file_rinex_output), false)
+    }
+
+    /**
+     * Returns the RINEX version of new observation files, "3.05" or "4.01"
+     */
+    fun rinexVersion(context: Context, prefs: SharedPreferences): String {
+        return prefs.getString(context.getString(R.string.pref_key_rinex_version), "3.05") ?: "3.05"
+    }
+
     fun writeNavMessageToLogcat(context: Context, prefs: SharedPreferences): Boolean {
         return prefs.getBoolean(context.getString(R.string.pref_key_as_navigation_message_output), false);
     }
@@ -85,6 +113,115 @@ object PreferenceUtil {
         return prefs.getBoolean(context.getString(R.string.pref_key_file_orientation_output), false);
     }
 
+    /**
+     * Returns the policy for handling new log records when the file logging queue is full -
+     * one of "block", "drop_newest", or "drop_oldest"
+     */
+    fun logQueueOverflowPolicy(context: Context, prefs: SharedPreferences): String {
+        return prefs.getString(
+            context.getString(R.string.pref_key_log_queue_overflow_policy),
+            context.getString(R.string.log_queue_overflow_policy_drop_oldest_key)
+        ) ?: context.getString(R.string.log_queue_overflow_policy_drop_oldest_key)
+    }
+
+    /**
+     * Returns true if the user has selected to write CSV log data in the compact binary format
+     * instead of text, false if they have not
+     */
+    fun writeBinaryCsvLog(context: Context, prefs: SharedPreferences): Boolean {
+        return prefs.getBoolean(context.getString(R.string.pref_key_binary_csv_log), false)
+    }
+
+    /**
+     * Returns true if the user has selected to write gzip-compressed log files, false if they have not
+     */
+    fun compressLogFiles(context: Context, prefs: SharedPreferences): Boolean {
+        return prefs.getBoolean(context.getString(R.string.pref_key_compress_log_files), false)
+    }
+
+    /**
+     * Returns the log file size at which logging continues in a new file in bytes, or 0 if there is no limit
+     */
+    fun logSegmentMaxBytes(context: Context, prefs: SharedPreferences): Long {
+        val megabytes = prefs.getString(context.getString(R.string.pref_key_log_segment_size), "0")
+            ?.toLongOrNull() ?: 0L
+        return megabytes * 1024 * 1024
+    }
+
+    /**
+     * Returns the duration after which logging continues in a new file in milliseconds, or 0 if there is no limit
+     */
+    fun logSegmentMaxMillis(context: Context, prefs: SharedPreferences): Long {
+        val minutes = prefs.getString(context.getString(R.string.pref_key_log_segment_duration), "0")
+            ?.toLongOrNull() ?: 0L
+        return minutes * 60 * SECONDS_TO_MILLISECONDS
+    }
+
+    /**
+     * Returns true if the user has selected to write log files directly to Downloads, false if they have not
+     */
+    fun streamLogsToDownloads(context: Context, prefs: SharedPreferences): Boolean {
+        return prefs.getBoolean(context.getString(R.string.pref_key_stream_logs_to_downloads), false)
+    }
+
+    /**
+     * Returns true if a private copy should be kept of log files written directly to Downloads, false if not
+     */
+    fun keepPrivateLogCopy(context: Context, prefs: SharedPreferences): Boolean {
+        return prefs.getBoolean(context.getString(R.string.pref_key_keep_private_log_copy), true)
+    }
+
+    /**
+     * Returns true if the user has selected to write an index next to each log file, false if they have not
+     */
+    fun writeLogIndex(context: Context, prefs: SharedPreferences): Boolean {
+        return prefs.getBoolean(context.getString(R.string.pref_key_write_log_index), false)
+    }
+
+    /**
+     * Returns when log data is flushed and synced to storage - one of "none", "interval", or "epoch"
+     */
+    fun logDurabilityPolicy(context: Context, prefs: SharedPreferences): String {
+        return prefs.getString(
+            context.getString(R.string.pref_key_log_durability_policy),
+            context.getString(R.string.log_durability_policy_interval_key)
+        ) ?: context.getString(R.string.log_durability_policy_interval_key)
+    }
+
+    /**
+     * Returns the maximum time between syncs of log data to storage in milliseconds, when syncing periodically
+     */
+    fun logSyncIntervalMillis(context: Context, prefs: SharedPreferences): Long {
+        val seconds = prefs.getString(context.getString(R.string.pref_key_log_sync_interval), "5")
+            ?.toLongOrNull() ?: 5L
+        return seconds * SECONDS_TO_MILLISECONDS
+    }
+
+    /**
+     * Returns the maximum total size of stored log files in bytes, or 0 if there is no limit
+     */
+    fun logRetentionMaxBytes(context: Context, prefs: SharedPreferences): Long {
+        val megabytes = prefs.getString(context.getString(R.string.pref_key_log_retention_max_size), "2048")
+            ?.toLongOrNull() ?: 2048L
+        return megabytes * 1024 * 1024
+    }
+
+    /**
+     * Returns the maximum age of stored log files in milliseconds, or 0 if there is no limit
+     */
+    fun logRetentionMaxAgeMillis(context: Context, prefs: SharedPreferences): Long {
+        val days = prefs.getString(context.getString(R.string.pref_key_log_retention_max_age), "0")
+            ?.toLongOrNull() ?: 0L
+        return days * 24 * 60 * 60 * SECONDS_TO_MILLISECONDS
+    }
+
+    /**
+     * Returns true if logs should be compressed into a ZIP file before sharing, false if the log files should be shared as they are
+     */
+    fun shareLogsAsZip(context: Context, prefs: SharedPreferences): Boolean {
+        return prefs.getBoolean(context.getString(R.string.pref_key_share_logs_as_zip), true)
+    }
+
     fun injectTimeWhenLogging(context: Context, prefs: SharedPreferences): Boolean {
         return prefs.getBoolean(context.getString(R.string.pref_key_inject_time_when_logging), true);
     }
@@ -101,8 +238,13 @@ object PreferenceUtil {
         return writeNmeaToFile(context, prefs) || writeMeasurementsToFile(context, prefs) || writeNavMessageToFile(context, prefs) || writeLocationToFile(context, prefs) || writeAntennaInfoToFileCsv(context, prefs) || writeStatusToFile(context, prefs) || writeOrientationToFile(context, prefs)
     }
 
+    fun isRinexLoggingEnabled(context: Context, prefs: SharedPreferences): Boolean {
+        return writeRinexFile(context, prefs) && writeMeasurementsToFile(context, prefs)
+    }
+
     fun isJsonLoggingEnabled(context: Context, prefs: SharedPreferences): Boolean {
-        return writeAntennaInfoToFileJson(context, prefs)
+        return writeAntennaInfoToFileJson(context, prefs) ||
+                (writeRecordsToFileJson(context, prefs) && isCsvLoggingEnabled(context, prefs))
     }
 
     fun distanceUnits(context: Context, prefs: SharedPreferences): String {
@@ -0,0 +1,666 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.util;
+
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.model.Satellite;
+import com.android.gpstest.library.model.SatelliteGroup;
+import com.android.gpstest.library.model.SatelliteMetadata;
+import com.android.gpstest.library.model.SatelliteStatus;
+import com.android.gpstest.library.model.SbasType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import kotlin.jvm.functions.Function1;
+import kotlin.jvm.functions.Function2;
+
+/**
+ * Groups each epoch of signals into a SatelliteGroup, like SatelliteUtil.toSatelliteGroup(), but
+ * keeps the satellites and signals of the previous epoch and only updates what changed. Signals
+ * are matched across epochs by their SatelliteKeys signal key, the metadata counters are kept as
+ * running totals that each added, removed or changed signal adjusts, and the supported GNSS and
+ * carrier frequency sets are reference counted.
+ *
+ * The groups returned by update() are never modified later - a Satellite, the satellite map or the
+ * SatelliteMetadata is copied when it changes and reused from the previous group when it doesn't,
+ * so consumers can compare them by identity to skip work. getChanges() reports which signals were
+ * added, removed or changed by the last update.
+ *
+ * update(GnssEpoch) gets the key of each signal and compares it with the previous epoch using the
+ * arrays of a GnssEpoch, and only creates a SatelliteStatus for the signals that were added or
+ * changed, which are also the only ones that adjust the counters.
+ *
+ * Instances aren't thread-safe - use one builder per stream of epochs.
+ */
+public final class SatelliteGroupBuilder {
+
+    /**
+     * The signals that the last update() added, removed or changed, valid until the next update()
+     */
+    public static final class Changes {
+        public static final int ADDED = 0;
+        public static final int REMOVED = 1;
+        public static final int CHANGED = 2;
+
+        private long[] keys = new long[16];
+        private int[] types = new int[16];
+        private int size;
+        private boolean satellitesChanged;
+        private boolean metadataChanged;
+
+        private void clear() {
+            size = 0;
+            satellitesChanged = false;
+            metadataChanged = false;
+        }
+
+        private void add(long key, int type) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+            }
+            keys[size] = key;
+            types[size] = type;
+            size++;
+        }
+
+        /**
+         * @return the number of signals that were added, removed or changed
+         */
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0 && !metadataChanged;
+        }
+
+        /**
+         * @return the SatelliteKeys signal key of change [i]
+         */
+        public long getSignalKey(int i) {
+            return keys[i];
+        }
+
+        /**
+         * @return ADDED, REMOVED or CHANGED for change [i]
+         */
+        public int getType(int i) {
+            return types[i];
+        }
+
+        /**
+         * @return true if the satellite map is a different instance than in the previous group
+         */
+        public boolean isSatellitesChanged() {
+            return satellitesChanged;
+        }
+
+        /**
+         * @return true if the SatelliteMetadata is a different instance than in the previous group
+         */
+        public boolean isMetadataChanged() {
+            return metadataChanged;
+        }
+    }
+
+    /**
+     * The first signal of an epoch with a signal key. Later signals with the same key are
+     * duplicates, like in toSatelliteGroup().
+     */
+    private static final class SignalEntry {
+        final long key;
+        final int code;
+        final SatelliteEntry satellite;
+        SatelliteStatus status;
+        long epoch;
+
+        SignalEntry(long key, int code, SatelliteEntry satellite) {
+            this.key = key;
+            this.code = code;
+            this.satellite = satellite;
+        }
+    }
+
+    private static final class SatelliteEntry {
+        final long key;
+        // The first signal of each carrier frequency code, which becomes Satellite.status
+        final Map<Integer, SatelliteStatus> statuses = new HashMap<>();
+        int signalsInView;
+        int signalsUsed;
+        Satellite satellite;
+        boolean dirty;
+
+        SatelliteEntry(long key) {
+            this.key = key;
+        }
+    }
+
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+    private static final SbasType[] SBAS_TYPES = SbasType.values();
+
+    private final Function1<SatelliteStatus, Integer> carrierCode;
+    private final Function2<GnssEpoch, Integer, Integer> epochCarrierCode;
+
+    private final LongObjectMap<SignalEntry> signals = new LongObjectMap<>(64);
+    private final LongObjectMap<SatelliteEntry> satelliteEntries = new LongObjectMap<>(64);
+    private final List<SatelliteEntry> dirtySatellites = new ArrayList<>();
+    private final Changes changes = new Changes();
+    private long epoch;
+    private long[] staleKeys = new long[16];
+    private int staleCount;
+
+    // Duplicate signals of the current epoch, whose contributions are undone at the next update()
+    private final List<SatelliteStatus> duplicates = new ArrayList<>();
+    private final List<Integer> duplicateCodes = new ArrayList<>();
+    // The signals of the current epoch with an unknown carrier frequency, and the duplicates
+    private Map<Long, SatelliteStatus> unknown;
+    private Map<Long, SatelliteStatus> duplicate;
+
+    // Running totals, over all signals including duplicates
+    private int numSignalsInView;
+    private int numSignalsUsed;
+    private final int[] gnssTypeCounts = new int[GNSS_TYPES.length];
+    private final int[] sbasTypeCounts = new int[SBAS_TYPES.length];
+    private final int[] gnssCfCounts = new int[CarrierFreqUtils.CF_CODE_COUNT];
+    private final int[] sbasCfCounts = new int[CarrierFreqUtils.CF_CODE_COUNT];
+    private int nonPrimaryInView;
+    private int nonPrimaryInUse;
+    private boolean gnssSetChanged;
+    private boolean sbasSetChanged;
+    private boolean gnssCfSetChanged;
+    private boolean sbasCfSetChanged;
+
+    // Running totals over satellites
+    private int numSatsInView;
+    private int numSatsUsed;
+    private int dualFrequencyInView;
+    private int dualFrequencyInUse;
+
+    private Map<Long, Satellite> satelliteMap = Collections.emptyMap();
+    private Set<GnssType> supportedGnss = new HashSet<>();
+    private Set<String> supportedGnssCfs = new HashSet<>();
+    private Set<SbasType> supportedSbas = new HashSet<>();
+    private Set<String> supportedSbasCfs = new HashSet<>();
+    private Map<Long, SatelliteStatus> unknownCarrierStatuses = new HashMap<>();
+    private Map<Long, SatelliteStatus> duplicateCarrierStatuses = new HashMap<>();
+    private SatelliteMetadata metadata = new SatelliteMetadata();
+    private SatelliteGroup group = new SatelliteGroup(satelliteMap, metadata);
+    private List<SatelliteStatus> statuses = Collections.emptyList();
+
+    /**
+     * Creates a builder that gets carrier frequency codes from
+     * CarrierFreqUtils.getCarrierFrequencyCode(), which checks whether this device supports
+     * carrier frequencies
+     */
+    public SatelliteGroupBuilder() {
+        this(CarrierFreqUtils::getCarrierFrequencyCode, CarrierFreqUtils::getCarrierFrequencyCode);
+    }
+
+    /**
+     * Creates a builder whose update(GnssEpoch) creates the SatelliteStatus of every signal to get
+     * its carrier frequency code
+     *
+     * @param carrierCode returns the carrier frequency code of each signal, like the carrierCode
+     *                    parameter of toSatelliteGroup()
+     */
+    public SatelliteGroupBuilder(Function1<SatelliteStatus, Integer> carrierCode) {
+        this(carrierCode, (epoch, i) -> carrierCode.invoke(epoch.getStatus(i)));
+    }
+
+    /**
+     * @param carrierCode      returns the carrier frequency code of each signal, like the
+     *                         carrierCode parameter of toSatelliteGroup()
+     * @param epochCarrierCode returns the same code as carrierCode for signal [i] of a GnssEpoch
+     */
+    public SatelliteGroupBuilder(Function1<SatelliteStatus, Integer> carrierCode,
+                                 Function2<GnssEpoch, Integer, Integer> epochCarrierCode) {
+        this.carrierCode = carrierCode;
+        this.epochCarrierCode = epochCarrierCode;
+    }
+
+    /**
+     * Updates the group with a new epoch of signals
+     *
+     * @param statuses all signals of the epoch
+     * @return a group equal to statuses.toSatelliteGroup()
+     */
+    public SatelliteGroup update(List<SatelliteStatus> statuses) {
+        begin();
+        for (int i = 0; i < statuses.size(); i++) {
+            SatelliteStatus s = statuses.get(i);
+            int code = carrierCode.invoke(s);
+            long key = SatelliteKeys.signalKey(SatelliteKeys.satelliteKey(s), code);
+            addSignal(key, code, s, null, i);
+        }
+        this.statuses = statuses;
+        return end(statuses.size());
+    }
+
+    /**
+     * Updates the group with a new epoch of signals, reading their keys and values from the
+     * arrays of the epoch. A SatelliteStatus is only created for the signals that were added or
+     * changed (and duplicate signals or those with an unknown carrier frequency, which the
+     * metadata lists) - unchanged signals keep the SatelliteStatus of an earlier epoch.
+     *
+     * @param gnssEpoch all signals of the epoch, which only need to be valid during this call
+     * @return a group equal to gnssEpoch.toSatelliteStatusList().toSatelliteGroup()
+     */
+    public SatelliteGroup update(GnssEpoch gnssEpoch) {
+        begin();
+        List<SatelliteStatus> statuses = new ArrayList<>(gnssEpoch.size());
+        for (int i = 0; i < gnssEpoch.size(); i++) {
+            int code = epochCarrierCode.invoke(gnssEpoch, i);
+            long satelliteKey = SatelliteKeys.satelliteKey(gnssEpoch.getGnssType(i),
+                    gnssEpoch.getSbasType(i), gnssEpoch.getSvid(i));
+            statuses.add(addSignal(SatelliteKeys.signalKey(satelliteKey, code), code, null, gnssEpoch, i));
+        }
+        this.statuses = statuses;
+        return end(gnssEpoch.size());
+    }
+
+    private void begin() {
+        epoch++;
+        changes.clear();
+        dirtySatellites.clear();
+        for (int i = 0; i < duplicates.size(); i++) {
+            contribute(duplicates.get(i), duplicateCodes.get(i), -1);
+        }
+        duplicates.clear();
+        duplicateCodes.clear();
+        unknown = null;
+        duplicate = null;
+    }
+
+    /**
+     * Adds signal [i] of an epoch, which is either the SatelliteStatus [s] or, if it's null, signal
+     * [i] of [gnssEpoch]
+     *
+     * @return the SatelliteStatus of the signal, which is from an earlier epoch if it didn't change
+     */
+    private SatelliteStatus addSignal(long key, int code, SatelliteStatus s, GnssEpoch gnssEpoch, int i) {
+        if (code == CarrierFreqUtils.CF_CODE_UNKNOWN) {
+            s = status(s, gnssEpoch, i);
+            if (unknown == null) {
+                unknown = new HashMap<>();
+            }
+            unknown.put(key, s);
+        }
+
+        SignalEntry entry = signals.get(key);
+        if (entry == null) {
+            s = status(s, gnssEpoch, i);
+            long satelliteKey = SatelliteKeys.toSatelliteKey(key);
+            SatelliteEntry satellite = satelliteEntries.get(satelliteKey);
+            if (satellite == null) {
+                satellite = new SatelliteEntry(satelliteKey);
+                satelliteEntries.put(satelliteKey, satellite);
+            }
+            entry = new SignalEntry(key, code, satellite);
+            entry.status = s;
+            entry.epoch = epoch;
+            signals.put(key, entry);
+            satellite.statuses.put(code, s);
+            contribute(s, code, 1);
+            adjustSatellite(satellite, s, 1);
+            changes.add(key, Changes.ADDED);
+            return s;
+        } else if (entry.epoch == epoch) {
+            // Same constellation, satellite and carrier frequency as an earlier signal
+            s = status(s, gnssEpoch, i);
+            if (duplicate == null) {
+                duplicate = new HashMap<>();
+            }
+            duplicate.put(key, s);
+            duplicates.add(s);
+            duplicateCodes.add(code);
+            contribute(s, code, 1);
+            return s;
+        }
+        entry.epoch = epoch;
+        if (s != null ? !isSameSignal(entry.status, s) : !isSameSignal(entry.status, gnssEpoch, i)) {
+            s = status(s, gnssEpoch, i);
+            contribute(entry.status, code, -1);
+            adjustSatellite(entry.satellite, entry.status, -1);
+            entry.status = s;
+            entry.satellite.statuses.put(code, s);
+            contribute(s, code, 1);
+            adjustSatellite(entry.satellite, s, 1);
+            changes.add(key, Changes.CHANGED);
+        }
+        return entry.status;
+    }
+
+    private static SatelliteStatus status(SatelliteStatus s, GnssEpoch gnssEpoch, int i) {
+        return s != null ? s : gnssEpoch.getStatus(i);
+    }
+
+    /**
+     * Builds the satellites and metadata of the group from the signals added since begin()
+     *
+     * @param numSignals the number of signals in the epoch
+     */
+    private SatelliteGroup end(int numSignals) {
+        removeStaleSignals();
+
+        // Copy the satellites that changed, and the satellite map if any did
+        boolean satellitesChanged = false;
+        for (int i = 0; i < dirtySatellites.size(); i++) {
+            SatelliteEntry satellite = dirtySatellites.get(i);
+            satellite.dirty = false;
+            if (!satellite.statuses.isEmpty()) {
+                satellite.satellite = new Satellite(satellite.key, new HashMap<>(satellite.statuses));
+            }
+            satellitesChanged = true;
+        }
+        if (satellitesChanged) {
+            LongObjectMap<Satellite> map = new LongObjectMap<>(satelliteEntries.size());
+            satelliteEntries.forEach((key, satellite) -> map.put(key, satellite.satellite));
+            satelliteMap = map.asMap();
+            changes.satellitesChanged = true;
+        }
+
+        boolean metadataChanged = updateSets();
+        if (!sameMap(unknownCarrierStatuses, unknown)) {
+            unknownCarrierStatuses = unknown != null ? unknown : new HashMap<>();
+            metadataChanged = true;
+        }
+        if (!sameMap(duplicateCarrierStatuses, duplicate)) {
+            duplicateCarrierStatuses = duplicate != null ? duplicate : new HashMap<>();
+            metadataChanged = true;
+        }
+        if (metadataChanged
+                || metadata.getNumSignalsInView() != numSignalsInView
+                || metadata.getNumSignalsUsed() != numSignalsUsed
+                || metadata.getNumSignalsTotal() != numSignals
+                || metadata.getNumSatsInView() != numSatsInView
+                || metadata.getNumSatsUsed() != numSatsUsed
+                || metadata.getNumSatsTotal() != satelliteEntries.size()
+                || metadata.isDualFrequencyPerSatInView() != dualFrequencyInView > 0
+                || metadata.isDualFrequencyPerSatInUse() != dualFrequencyInUse > 0
+                || metadata.isNonPrimaryCarrierFreqInView() != nonPrimaryInView > 0
+                || metadata.isNonPrimaryCarrierFreqInUse() != nonPrimaryInUse > 0) {
+            metadata = new SatelliteMetadata(
+                    numSignalsInView,
+                    numSignalsUsed,
+                    numSignals,
+                    numSatsInView,
+                    numSatsUsed,
+                    satelliteEntries.size(),
+                    supportedGnss,
+                    supportedGnssCfs,
+                    supportedSbas,
+                    supportedSbasCfs,
+                    unknownCarrierStatuses,
+                    duplicateCarrierStatuses,
+                    dualFrequencyInView > 0,
+                    dualFrequencyInUse > 0,
+                    nonPrimaryInView > 0,
+                    nonPrimaryInUse > 0);
+            changes.metadataChanged = true;
+        }
+        if (changes.satellitesChanged || changes.metadataChanged) {
+            group = new SatelliteGroup(satelliteMap, metadata);
+        }
+        return group;
+    }
+
+    /**
+     * @return the group from the last update()
+     */
+    public SatelliteGroup getGroup() {
+        return group;
+    }
+
+    /**
+     * @return the signals of the last update(). After update(GnssEpoch), this is a new list with the
+     * SatelliteStatus of each signal, from an earlier epoch if the signal didn't change.
+     */
+    public List<SatelliteStatus> getStatuses() {
+        return statuses;
+    }
+
+    /**
+     * @return the signals that the last update() added, removed or changed
+     */
+    public Changes getChanges() {
+        return changes;
+    }
+
+    /**
+     * Forgets all satellites, so the next update() builds the group from scratch
+     */
+    public void clear() {
+        update(Collections.emptyList());
+    }
+
+    private void removeStaleSignals() {
+        staleCount = 0;
+        if (signals.size() == 0) {
+            return;
+        }
+        signals.forEach((key, entry) -> {
+            if (entry.epoch != epoch) {
+                if (staleCount == staleKeys.length) {
+                    staleKeys = Arrays.copyOf(staleKeys, staleCount * 2);
+                }
+                staleKeys[staleCount++] = key;
+            }
+        });
+        for (int i = 0; i < staleCount; i++) {
+            SignalEntry entry = signals.remove(staleKeys[i]);
+            SatelliteEntry satellite = entry.satellite;
+            contribute(entry.status, entry.code, -1);
+            adjustSatellite(satellite, entry.status, -1);
+            satellite.statuses.remove(entry.code);
+            if (satellite.statuses.isEmpty()) {
+                satelliteEntries.remove(satellite.key);
+            }
+            changes.add(entry.key, Changes.REMOVED);
+        }
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) a signal's contribution to the signal totals, and the
+     * supported GNSS and carrier frequency counts
+     */
+    private void contribute(SatelliteStatus s, int code, int sign) {
+        boolean inView = s.getCn0DbHz() != SatelliteStatus.NO_DATA;
+        if (inView) {
+            numSignalsInView += sign;
+        }
+        if (s.getUsedInFix()) {
+            numSignalsUsed += sign;
+        }
+        GnssType gnssType = s.getGnssType();
+        if (gnssType == GnssType.UNKNOWN) {
+            // Still a non-primary carrier frequency below, like toSatelliteGroup()
+        } else if (gnssType != GnssType.SBAS) {
+            gnssSetChanged |= count(gnssTypeCounts, gnssType.ordinal(), sign);
+        } else if (s.getSbasType() != SbasType.UNKNOWN) {
+            sbasSetChanged |= count(sbasTypeCounts, s.getSbasType().ordinal(), sign);
+        }
+        if (code == CarrierFreqUtils.CF_CODE_UNKNOWN || code == CarrierFreqUtils.CF_CODE_UNSUPPORTED) {
+            return;
+        }
+        if (gnssType != GnssType.UNKNOWN) {
+            if (gnssType != GnssType.SBAS) {
+                gnssCfSetChanged |= count(gnssCfCounts, code, sign);
+            } else if (s.getSbasType() != SbasType.UNKNOWN) {
+                sbasCfSetChanged |= count(sbasCfCounts, code, sign);
+            }
+        }
+        if (!CarrierFreqUtils.isPrimaryCarrier(code)) {
+            nonPrimaryInView += sign;
+            if (s.getUsedInFix()) {
+                nonPrimaryInUse += sign;
+            }
+        }
+    }
+
+    /**
+     * @return true if the count went from 0 to 1 or 1 to 0, so the set changes
+     */
+    private static boolean count(int[] counts, int index, int sign) {
+        counts[index] += sign;
+        return sign > 0 ? counts[index] == 1 : counts[index] == 0;
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) the first signal of a carrier frequency to a satellite,
+     * and updates the satellite totals
+     */
+    private void adjustSatellite(SatelliteEntry satellite, SatelliteStatus s, int sign) {
+        if (!satellite.dirty) {
+            satellite.dirty = true;
+            dirtySatellites.add(satellite);
+        }
+        if (s.getCn0DbHz() != SatelliteStatus.NO_DATA) {
+            int before = satellite.signalsInView;
+            satellite.signalsInView += sign;
+            numSatsInView += step(before, satellite.signalsInView, 1);
+            dualFrequencyInView += step(before, satellite.signalsInView, 2);
+        }
+        if (s.getUsedInFix()) {
+            int before = satellite.signalsUsed;
+            satellite.signalsUsed += sign;
+            numSatsUsed += step(before, satellite.signalsUsed, 1);
+            dualFrequencyInUse += step(before, satellite.signalsUsed, 2);
+        }
+    }
+
+    /**
+     * @return 1 if a count reached the threshold, -1 if it dropped below it, or 0
+     */
+    private static int step(int before, int after, int threshold) {
+        return (after >= threshold ? 1 : 0) - (before >= threshold ? 1 : 0);
+    }
+
+    /**
+     * Rebuilds the supported GNSS and carrier frequency sets whose members changed
+     *
+     * @return true if any set was rebuilt
+     */
+    private boolean updateSets() {
+        boolean changed = false;
+        if (gnssSetChanged) {
+            Set<GnssType> set = new HashSet<>();
+            for (int i = 0; i < gnssTypeCounts.length; i++) {
+                if (gnssTypeCounts[i] > 0) {
+                    set.add(GNSS_TYPES[i]);
+                }
+            }
+            changed |= !set.equals(supportedGnss);
+            supportedGnss = set;
+        }
+        if (sbasSetChanged) {
+            Set<SbasType> set = new HashSet<>();
+            for (int i = 0; i < sbasTypeCounts.length; i++) {
+                if (sbasTypeCounts[i] > 0) {
+                    set.add(SBAS_TYPES[i]);
+                }
+            }
+            changed |= !set.equals(supportedSbas);
+            supportedSbas = set;
+        }
+        if (gnssCfSetChanged) {
+            Set<String> set = labels(gnssCfCounts);
+            changed |= !set.equals(supportedGnssCfs);
+            supportedGnssCfs = set;
+        }
+        if (sbasCfSetChanged) {
+            Set<String> set = labels(sbasCfCounts);
+            changed |= !set.equals(supportedSbasCfs);
+            supportedSbasCfs = set;
+        }
+        gnssSetChanged = false;
+        sbasSetChanged = false;
+        gnssCfSetChanged = false;
+        sbasCfSetChanged = false;
+        return changed;
+    }
+
+    private static Set<String> labels(int[] counts) {
+        Set<String> set = new HashSet<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                set.add(CarrierFreqUtils.getLabel(code));
+            }
+        }
+        return set;
+    }
+
+    private static boolean sameMap(Map<Long, SatelliteStatus> previous, Map<Long, SatelliteStatus> current) {
+        if (current == null) {
+            return previous.isEmpty();
+        }
+        if (current.size() != previous.size()) {
+            return false;
+        }
+        for (Map.Entry<Long, SatelliteStatus> entry : current.entrySet()) {
+            SatelliteStatus s = previous.get(entry.getKey());
+            if (s == null || !isSameSignal(s, entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if two signals with the same key have the same values. SatelliteStatus.equals()
+     * only compares the constructor properties, so the carrier frequency and baseband C/N0 are
+     * compared too.
+     */
+    private static boolean isSameSignal(SatelliteStatus a, SatelliteStatus b) {
+        return a == b || (a.equals(b)
+                && a.getSbasType() == b.getSbasType()
+                && a.getHasCarrierFrequency() == b.getHasCarrierFrequency()
+                && a.getCarrierFrequencyHz() == b.getCarrierFrequencyHz()
+                && a.getHasBasebandCn0DbHz() == b.getHasBasebandCn0DbHz()
+                && Objects.equals(a.getBasebandCn0DbHz(), b.getBasebandCn0DbHz()));
+    }
+
+    /**
+     * Returns true if a signal has the same values as the SatelliteStatus that GnssEpoch.getStatus()
+     * would create for signal [i] of an epoch, without creating it
+     */
+    private static boolean isSameSignal(SatelliteStatus a, GnssEpoch epoch, int i) {
+        int flags = epoch.getFlags(i);
+        // Floats are compared like the equals() of the data class. The epoch keeps 0.0 and
+        // NO_DATA for missing carrier frequencies and baseband C/N0s, like a new SatelliteStatus.
+        return a.getSvid() == epoch.getSvid(i)
+                && a.getGnssType() == epoch.getGnssType(i)
+                && Float.compare(a.getCn0DbHz(), epoch.getCn0DbHz(i)) == 0
+                && a.getHasAlmanac() == ((flags & GnssEpoch.FLAG_HAS_ALMANAC) != 0)
+                && a.getHasEphemeris() == ((flags & GnssEpoch.FLAG_HAS_EPHEMERIS) != 0)
+                && a.getUsedInFix() == ((flags & GnssEpoch.FLAG_USED_IN_FIX) != 0)
+                && Float.compare(a.getElevationDegrees(), epoch.getElevationDegrees(i)) == 0
+                && Float.compare(a.getAzimuthDegrees(), epoch.getAzimuthDegrees(i)) == 0
+                && a.getSbasType() == epoch.getSbasType(i)
+                && a.getHasCarrierFrequency() == ((flags & GnssEpoch.FLAG_HAS_CARRIER_FREQUENCY) != 0)
+                && a.getCarrierFrequencyHz() == epoch.getCarrierFrequencyHz(i)
+                && a.getHasBasebandCn0DbHz() == ((flags & GnssEpoch.FLAG_HAS_BASEBAND_CN0) != 0)
+                && Float.compare(a.getBasebandCn0DbHz(), epoch.getBasebandCn0DbHz(i)) == 0;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.library.util;
+
+import com.android.gpstest.library.model.GnssType;
+import com.android.gpstest.library.model.SatelliteStatus;
+import com.android.gpstest.library.model.SbasType;
+
+/**
+ * Packs the identity of a satellite (constellation, SBAS type and svid) or a signal (a satellite
+ * and its carrier frequency code from CarrierFreqUtils) into a long, so satellites and signals
+ * can be grouped without building and hashing String keys. The String keys of
+ * SatelliteUtils.createGnssSatelliteKey() and createGnssStatusKey() can be created from a packed
+ * key where they're shown.
+ *
+ * Layout, from the low bits: svid (32 bits), GnssType ordinal (8 bits), SbasType ordinal + 1 for
+ * SBAS satellites or 0 otherwise (8 bits), and carrier frequency code + 1 for signals or 0 for
+ * satellites (8 bits).
+ */
+public final class SatelliteKeys {
+
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+    private static final SbasType[] SBAS_TYPES = SbasType.values();
+
+    private static final int GNSS_SHIFT = 32;
+    private static final int SBAS_SHIFT = 40;
+    private static final int CARRIER_SHIFT = 48;
+    private static final long SVID_MASK = 0xFFFFFFFFL;
+    private static final long BYTE_MASK = 0xFFL;
+    private static final long SATELLITE_MASK = (1L << CARRIER_SHIFT) - 1;
+
+    private SatelliteKeys() {
+    }
+
+    /**
+     * @return the packed key of a satellite, the equivalent of createGnssSatelliteKey()
+     */
+    public static long satelliteKey(GnssType gnssType, SbasType sbasType, int svid) {
+        long key = (svid & SVID_MASK) | ((long) gnssType.ordinal() << GNSS_SHIFT);
+        if (gnssType == GnssType.SBAS) {
+            key |= (long) (sbasType.ordinal() + 1) << SBAS_SHIFT;
+        }
+        return key;
+    }
+
+    /**
+     * @return the packed key of the satellite that sends a signal
+     */
+    public static long satelliteKey(SatelliteStatus status) {
+        return satelliteKey(status.getGnssType(), status.getSbasType(), status.getSvid());
+    }
+
+    /**
+     * @param satelliteKey the packed key of a satellite, from satelliteKey()
+     * @param carrierCode  the carrier frequency code of the signal, from CarrierFreqUtils
+     * @return the packed key of a signal, the equivalent of createGnssStatusKey()
+     */
+    public static long signalKey(long satelliteKey, int carrierCode) {
+        return (satelliteKey & SATELLITE_MASK) | ((carrierCode + 1) & BYTE_MASK) << CARRIER_SHIFT;
+    }
+
+    /**
+     * @return the packed key of the satellite of a signal key (or the key itself for a satellite key)
+     */
+    public static long toSatelliteKey(long key) {
+        return key & SATELLITE_MASK;
+    }
+
+    public static int getSvid(long key) {
+        return (int) (key & SVID_MASK);
+    }
+
+    public static GnssType getGnssType(long key) {
+        return GNSS_TYPES[(int) (key >>> GNSS_SHIFT & BYTE_MASK)];
+    }
+
+    /**
+     * @return the SBAS type of an SBAS satellite, or SbasType.UNKNOWN for other constellations
+     */
+    public static SbasType getSbasType(long key) {
+        int sbas = (int) (key >>> SBAS_SHIFT & BYTE_MASK);
+        return sbas == 0 ? SbasType.UNKNOWN : SBAS_TYPES[sbas - 1];
+    }
+
+    /**
+     * @return the carrier frequency code of a signal key, or -1 for a satellite key
+     */
+    public static int getCarrierCode(long key) {
+        return (int) (key >>> CARRIER_SHIFT & BYTE_MASK) - 1;
+    }
+
+    /**
+     * Creates the String key of a satellite from its packed key
+     *
+     * @return the same key as SatelliteUtils.createGnssSatelliteKey()
+     */
+    public static String toSatelliteKeyString(long key) {
+        GnssType gnssType = getGnssType(key);
+        if (gnssType == GnssType.SBAS) {
+            return getSvid(key) + " " + gnssType + " " + getSbasType(key);
+        } else {
+            // GNSS
+            return getSvid(key) + " " + gnssType;
+        }
+    }
+
+    /**
+     * Creates the String key of a signal from its packed key
+     *
+     * @return the same key as SatelliteUtils.createGnssStatusKey()
+     */
+    public static String toSignalKeyString(long key) {
+        return toSatelliteKeyString(key) + " " + CarrierFreqUtils.getLabel(getCarrierCode(key));
+    }
+}
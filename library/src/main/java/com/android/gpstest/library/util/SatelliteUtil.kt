@@ -25,11 +25,14 @@ import com.android.gpstest.library.model.SatelliteGroup
 import com.android.gpstest.library.model.SatelliteMetadata
 import com.android.gpstest.library.model.SatelliteStatus
 import com.android.gpstest.library.model.SbasType
-import com.android.gpstest.library.util.CarrierFreqUtils.CF_UNKNOWN
-import com.android.gpstest.library.util.CarrierFreqUtils.CF_UNSUPPORTED
+import com.android.gpstest.library.util.CarrierFreqUtils.CF_CODE_UNKNOWN
+import com.android.gpstest.library.util.CarrierFreqUtils.CF_CODE_UNSUPPORTED
+import com.android.gpstest.library.util.CarrierFreqUtils.getCarrierFrequencyCode
 import com.android.gpstest.library.util.CarrierFreqUtils.getCarrierFrequencyLabel
+import com.android.gpstest.library.util.CarrierFreqUtils.getLabel
 import com.android.gpstest.library.util.CarrierFreqUtils.isPrimaryCarrier
-import com.android.gpstest.library.util.SatelliteUtils.createGnssSatelliteKey
+import com.android.gpstest.library.util.SatelliteKeys.satelliteKey
+import com.android.gpstest.library.util.SatelliteKeys.signalKey
 
 object SatelliteUtil {
 
@@ -70,11 +73,17 @@ object SatelliteUtil {
     /**
      * Returns a map with the provided status list grouped into satellites
      * @return a [SatelliteGroup] with the provided status list grouped into satellites in a Map. The key
-     * to the map is the combination of constellation and ID created using
-     * [SatelliteUtils.createGnssSatelliteKey()]. Various other metadata is also included.
+     * to the map is the combination of constellation and ID packed into a long by
+     * [SatelliteKeys.satelliteKey()], so grouping doesn't build or hash String keys. Various other
+     * metadata is also included.
+     *
+     * [carrierCode] returns the carrier frequency code (see [CarrierFreqUtils]) of each signal,
+     * which by default also checks whether this device supports carrier frequencies.
      */
-    fun List<SatelliteStatus>.toSatelliteGroup(): SatelliteGroup {
-        val satellites: MutableMap<String, Satellite> = HashMap()
+    fun List<SatelliteStatus>.toSatelliteGroup(
+        carrierCode: (SatelliteStatus) -> Int = ::getCarrierFrequencyCode
+    ): SatelliteGroup {
+        val satellites = LongObjectMap<Satellite>(this.size)
         var numSignalsUsed = 0
         var numSignalsInView = 0
         var numSatsUsed = 0
@@ -83,15 +92,15 @@ object SatelliteUtil {
         val supportedGnssCfs: MutableSet<String> = HashSet()
         val supportedSbas: MutableSet<SbasType> = HashSet()
         val supportedSbasCfs: MutableSet<String> = HashSet()
-        val unknownCarrierStatuses: MutableMap<String, SatelliteStatus> = HashMap()
-        val duplicateCarrierStatuses: MutableMap<String, SatelliteStatus> = HashMap()
+        val unknownCarrierStatuses: MutableMap<Long, SatelliteStatus> = HashMap()
+        val duplicateCarrierStatuses: MutableMap<Long, SatelliteStatus> = HashMap()
         var isDualFrequencyPerSatInView = false
         var isDualFrequencyPerSatInUse = false
         var isNonPrimaryCarrierFreqInView = false
         var isNonPrimaryCarrierFreqInUse = false
 
         if (this.isEmpty()) {
-            return SatelliteGroup(satellites, SatelliteMetadata())
+            return SatelliteGroup(satellites.asMap(), SatelliteMetadata())
         }
         for (s in this) {
             if (s.usedInFix) {
@@ -102,7 +111,7 @@ object SatelliteUtil {
             }
 
             // Save the supported GNSS or SBAS type
-            val key = createGnssSatelliteKey(s)
+            val key = satelliteKey(s)
             if (s.gnssType != GnssType.UNKNOWN) {
                 if (s.gnssType != GnssType.SBAS) {
                     supportedGnss.add(s.gnssType)
@@ -113,12 +122,13 @@ object SatelliteUtil {
                 }
             }
 
-            // Get carrier label
-            val carrierLabel = getCarrierFrequencyLabel(s)
-            if (carrierLabel == CF_UNKNOWN) {
-                unknownCarrierStatuses[SatelliteUtils.createGnssStatusKey(s)] = s
+            // Get carrier code
+            val code = carrierCode(s)
+            if (code == CF_CODE_UNKNOWN) {
+                unknownCarrierStatuses[signalKey(key, code)] = s
             }
-            if (carrierLabel != CF_UNKNOWN && carrierLabel != CF_UNSUPPORTED) {
+            if (code != CF_CODE_UNKNOWN && code != CF_CODE_UNSUPPORTED) {
+                val carrierLabel = getLabel(code)
                 // Save the supported GNSS or SBAS CF
                 if (s.gnssType != GnssType.UNKNOWN) {
                     if (s.gnssType != GnssType.SBAS) {
@@ -130,20 +140,20 @@ object SatelliteUtil {
                     }
                 }
                 // Check if this is a non-primary carrier frequency
-                if (!isPrimaryCarrier(carrierLabel)) {
+                if (!isPrimaryCarrier(code)) {
                     isNonPrimaryCarrierFreqInView = true
                     if (s.usedInFix) {
                         isNonPrimaryCarrierFreqInUse = true
                     }
                 }
             }
-            var satStatuses: MutableMap<String, SatelliteStatus>
-            if (!satellites.containsKey(key)) {
+            var satStatuses: MutableMap<Int, SatelliteStatus>
+            val sat = satellites[key]
+            if (sat == null) {
                 // Create new satellite and add signal
                 satStatuses = HashMap()
-                satStatuses[carrierLabel] = s
-                val sat = Satellite(key, satStatuses)
-                satellites[key] = sat
+                satStatuses[code] = s
+                satellites.put(key, Satellite(key, satStatuses))
                 if (s.usedInFix) {
                     numSatsUsed++
                 }
@@ -152,11 +162,10 @@ object SatelliteUtil {
                 }
             } else {
                 // Add signal to existing satellite
-                val sat = satellites[key]
-                satStatuses = sat!!.status as MutableMap<String, SatelliteStatus>
-                if (!satStatuses.containsKey(carrierLabel)) {
+                satStatuses = sat.status as MutableMap<Int, SatelliteStatus>
+                if (!satStatuses.containsKey(code)) {
                     // We found another frequency for this satellite
-                    satStatuses[carrierLabel] = s
+                    satStatuses[code] = s
                     var frequenciesInUse = 0
                     var frequenciesInView = 0
                     for ((_, _, cn0DbHz, _, _, usedInFix) in satStatuses.values) {
@@ -183,19 +192,19 @@ object SatelliteUtil {
                     }
                 } else {
                     // This shouldn't happen - we found a satellite signal with the same constellation, sat ID, and carrier frequency (including multiple "unknown" or "unsupported" frequencies) as an existing one
-                    duplicateCarrierStatuses[SatelliteUtils.createGnssStatusKey(s)] = s
+                    duplicateCarrierStatuses[signalKey(key, code)] = s
                 }
             }
         }
         return SatelliteGroup(
-            satellites,
+            satellites.asMap(),
             SatelliteMetadata(
                 numSignalsInView,
                 numSignalsUsed,
                 this.size,
                 numSatsInView,
                 numSatsUsed,
-                satellites.size,
+                satellites.size(),
                 supportedGnss,
                 supportedGnssCfs,
                 supportedSbas,
@@ -210,6 +219,101 @@ object SatelliteUtil {
         )
     }
 
+    /**
+     * Returns a sorted version of this list according to a [sortOrder] from
+     * PreferenceUtils.getSatSortOrderFromPreferences(), with [isGnss] set to true if the list
+     * contains all GNSS signals and false if it contains all SBAS signals
+     */
+    fun List<SatelliteStatus>.sortedBySortOrder(sortOrder: Int, isGnss: Boolean): List<SatelliteStatus> {
+        return when (sortOrder) {
+            0 -> {
+                // Sort by Constellation
+                if (isGnss) {
+                    sortedWith(compareBy(SatelliteStatus::gnssType, SatelliteStatus::svid))
+                } else {
+                    sortedWith(compareBy(SatelliteStatus::sbasType, SatelliteStatus::svid))
+                }
+            }
+            1 -> {
+                // Sort by Carrier Frequency (raw CF, then label to group L5s, E5a, etc.)
+                sortedWith(
+                    compareBy<SatelliteStatus> {
+                        it.carrierFrequencyHz
+                    }.thenBy {
+                        getCarrierFrequencyLabel(it)
+                    }.thenBy {
+                        it.svid
+                    }
+                )
+            }
+            2 -> {
+                // Sort by Signal Strength
+                sortedWith(compareByDescending(SatelliteStatus::cn0DbHz))
+            }
+            3 -> {
+                // Sort by Used in Fix
+                sortedWith(
+                    compareByDescending(SatelliteStatus::usedInFix).thenComparing(
+                        SatelliteStatus::svid
+                    )
+                )
+            }
+            4 -> {
+                // Sort by Constellation, Carrier Frequency
+                if (isGnss) {
+                    sortedWith(
+                        compareBy(
+                            SatelliteStatus::gnssType,
+                            SatelliteStatus::carrierFrequencyHz,
+                            SatelliteStatus::svid
+                        )
+                    )
+                } else {
+                    sortedWith(
+                        compareBy(
+                            SatelliteStatus::sbasType,
+                            SatelliteStatus::carrierFrequencyHz,
+                            SatelliteStatus::svid
+                        )
+                    )
+                }
+            }
+            5 -> {
+                // Sort by Constellation, Signal Strength
+                if (isGnss) {
+                    sortedWith(
+                        compareBy(SatelliteStatus::gnssType).thenByDescending(
+                            SatelliteStatus::cn0DbHz
+                        )
+                    )
+                } else {
+                    sortedWith(
+                        compareBy(SatelliteStatus::sbasType).thenByDescending(
+                            SatelliteStatus::cn0DbHz
+                        )
+                    )
+                }
+            }
+            6 -> {
+                // Sort by Constellation, Used in Fix
+                if (isGnss) {
+                    sortedWith(
+                        compareBy(SatelliteStatus::gnssType).thenByDescending(
+                            SatelliteStatus::usedInFix
+                        ).thenComparing(SatelliteStatus::svid)
+                    )
+                } else {
+                    sortedWith(
+                        compareBy(SatelliteStatus::sbasType).thenByDescending(
+                            SatelliteStatus::usedInFix
+                        ).thenComparing(SatelliteStatus::svid)
+                    )
+                }
+            }
+            else -> this
+        }
+    }
+
     /**
      * Returns true if the speed accuracy is supported for this location, false if it does not
      *
@@ -257,7 +361,8 @@ object SatelliteUtil {
      *
      * @return GnssType for the given GnssStatus constellation type
      */
-    private fun Int.toGnssType(): GnssType {
+    @JvmStatic
+    fun Int.toGnssType(): GnssType {
         return when (this) {
             GnssStatus.CONSTELLATION_GPS -> GnssType.NAVSTAR
             GnssStatus.CONSTELLATION_GLONASS -> GnssType.GLONASS
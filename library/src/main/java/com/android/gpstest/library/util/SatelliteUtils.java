@@ -16,8 +16,6 @@
 
 package com.android.gpstest.library.util;
 
-import static com.android.gpstest.library.model.GnssType.SBAS;
-
 import android.content.Context;
 import android.hardware.Sensor;
 import android.hardware.SensorManager;
@@ -208,12 +206,7 @@ public class SatelliteUtils {
      * constellation type
      */
     public static String createGnssSatelliteKey(SatelliteStatus status) {
-        if (status.getGnssType() == SBAS) {
-            return status.getSvid() + " " + status.getGnssType() + " " + status.getSbasType();
-        } else {
-            // GNSS
-            return status.getSvid() + " " + status.getGnssType();
-        }
+        return SatelliteKeys.toSatelliteKeyString(SatelliteKeys.satelliteKey(status));
     }
 
     /**
@@ -224,12 +217,7 @@ public class SatelliteUtils {
      * combination of both the svid and constellation type and carrier frequency
      */
     public static String createGnssStatusKey(SatelliteStatus status) {
-        String carrierLabel = CarrierFreqUtils.getCarrierFrequencyLabel(status);
-        if (status.getGnssType() == SBAS) {
-            return status.getSvid() + " " + status.getGnssType() + " " + status.getSbasType() + " " + carrierLabel;
-        } else {
-            // GNSS
-            return status.getSvid() + " " + status.getGnssType() + " " + carrierLabel;
-        }
+        return SatelliteKeys.toSignalKeyString(SatelliteKeys.signalKey(SatelliteKeys.satelliteKey(status),
+                CarrierFreqUtils.getCarrierFrequencyCode(status)));
     }
 }